@@ -1,11 +1,13 @@
 package de.unimannheim.swt.pse.ai.advancedMCTS;
 
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
 import de.unimannheim.swt.pse.server.game.state.GameState;
 import de.unimannheim.swt.pse.server.game.state.Move;
 import de.unimannheim.swt.pse.server.game.state.Piece;
 import de.unimannheim.swt.pse.server.game.state.Team;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.SplittableRandom;
 
 /**
  * Simulates a game based on the current game state, handling moves and conflicts within the game to
@@ -17,6 +19,10 @@ public class AdvancedGameSimulator {
 
   private final GameState gameState;
   private final AdvancedMoveSelector moveSelector;
+  /**
+   * Generator for the random moves of the simulation
+   */
+  private final SplittableRandom random;
 
   private boolean gameOver;
   private int previousTeam;
@@ -30,8 +36,32 @@ public class AdvancedGameSimulator {
    * @author ohandsch
    */
   public AdvancedGameSimulator(GameState gameState) {
+    this(gameState, MoveGenerator.forState(gameState));
+  }
+
+  /**
+   * Constructs a GameSimulator with a given game state, sharing an existing move generator.
+   *
+   * @param gameState     the initial state of the game to be simulated.
+   * @param moveGenerator the move generator with all pieces of the game registered.
+   */
+  public AdvancedGameSimulator(GameState gameState, MoveGenerator moveGenerator) {
+    this(gameState, moveGenerator, new SplittableRandom());
+  }
+
+  /**
+   * Constructs a GameSimulator whose random moves are drawn from the given generator, so a
+   * simulation can be repeated from the seed of the generator.
+   *
+   * @param gameState     the initial state of the game to be simulated.
+   * @param moveGenerator the move generator with all pieces of the game registered.
+   * @param random        the random generator, not shared with other threads.
+   */
+  public AdvancedGameSimulator(GameState gameState, MoveGenerator moveGenerator,
+      SplittableRandom random) {
+    this.random = random;
     this.gameState = gameState;
-    this.moveSelector = new AdvancedMoveSelector(gameState);
+    this.moveSelector = new AdvancedMoveSelector(gameState, moveGenerator);
     this.gameOver = false;
   }
 
@@ -44,7 +74,7 @@ public class AdvancedGameSimulator {
   public int simulateGame() {
     while (!this.gameOver) {
 
-      Move move = moveSelector.selectNotSoRandomMoveFast();
+      Move move = moveSelector.selectNotSoRandomMoveFast(this.random);
 
       if (move == null) {
         this.gameOver = true;
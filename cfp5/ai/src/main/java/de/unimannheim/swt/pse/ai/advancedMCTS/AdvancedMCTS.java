@@ -1,12 +1,21 @@
 package de.unimannheim.swt.pse.ai.advancedMCTS;
 
+import de.unimannheim.swt.pse.ai.playout.GridMoveGenerator;
+import de.unimannheim.swt.pse.ai.playout.PlayoutBoard;
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
 import de.unimannheim.swt.pse.server.game.state.GameState;
 import de.unimannheim.swt.pse.server.game.state.Move;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.SplittableRandom;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 
 /**
  * Main class of the MCTS algorithm where the best possible move is calculated and the game tree is
@@ -14,8 +23,31 @@ import java.util.concurrent.TimeUnit;
  */
 public class AdvancedMCTS {
 
-  private final AdvancedMCTSNode root;
+  /**
+   * Time the threads of a shared tree search get to finish after the time limit
+   */
+  private static final long SHUTDOWN_GRACE_MILLIS = 200;
+
+  private AdvancedMCTSNode root;
   private final int botTeamId;
+  private final MoveGenerator moveGenerator;
+  /**
+   * Generator the generators of the search threads are split from
+   */
+  private final SplittableRandom random;
+  /**
+   * Random generator of every search thread, so the threads do not contend on a shared one
+   */
+  private final ThreadLocal<SplittableRandom> randoms;
+  /**
+   * Playout board of every search thread, loaded once per explored node
+   */
+  private final ThreadLocal<PlayoutBoard> playoutBoards;
+  /**
+   * Generator for the moves of expanded nodes of every search thread, keeping the board encoded
+   * between the nodes
+   */
+  private final ThreadLocal<GridMoveGenerator> gridMoveGenerators;
   private long endTime = 0;
 
   /**
@@ -25,9 +57,40 @@ public class AdvancedMCTS {
    * @author ohandsch
    */
   public AdvancedMCTS(GameState initialState) {
+    this(initialState, new SplittableRandom());
+  }
+
+  /**
+   * Constructor initializes an MCTS instance whose search threads draw their random choices from
+   * generators split from the given seed.
+   *
+   * @param initialState the initial state of the game.
+   * @param seed         the seed of the random choices.
+   */
+  public AdvancedMCTS(GameState initialState, long seed) {
+    this(initialState, new SplittableRandom(seed));
+  }
+
+  private AdvancedMCTS(GameState initialState, SplittableRandom random) {
     this.root = new AdvancedMCTSNode(initialState);
     this.root.setDeletable(false);
     this.botTeamId = initialState.getCurrentTeam();
+    this.moveGenerator = MoveGenerator.forState(initialState);
+    this.random = random;
+    this.randoms = ThreadLocal.withInitial(this::splitRandom);
+    this.playoutBoards = ThreadLocal.withInitial(
+        () -> new PlayoutBoard(this.moveGenerator, this.randoms.get()));
+    this.gridMoveGenerators = ThreadLocal.withInitial(
+        () -> new GridMoveGenerator(this.moveGenerator));
+  }
+
+  /**
+   * @return a new generator for a search thread.
+   */
+  private SplittableRandom splitRandom() {
+    synchronized (this.random) {
+      return this.random.split();
+    }
   }
 
   /**
@@ -39,7 +102,9 @@ public class AdvancedMCTS {
    * @author ohandsch
    */
   public Move parallelSearch(int numThreads, long timeLimitMillis) {
-    this.expandNode(root, true);
+    if (root.getChildren().isEmpty()) {
+      this.expandNode(root, true);
+    }
     List<AdvancedMCTSNode> roots;
     ExecutorService executor = Executors.newFixedThreadPool(numThreads);
     roots = new ArrayList<>();
@@ -54,8 +119,7 @@ public class AdvancedMCTS {
     }
     executor.shutdown();
     try {
-      boolean shutDown = executor.awaitTermination(timeLimitMillis, TimeUnit.MILLISECONDS);
-      System.out.println("Shut down: " + shutDown);
+      executor.awaitTermination(timeLimitMillis, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
     }
@@ -63,6 +127,210 @@ public class AdvancedMCTS {
     return aggregateResults(roots);
   }
 
+  /**
+   * Moves the root of the tree to a new game state of the bot's turn, keeping the subtree and the
+   * statistics of the node reached by the move of the bot and the last move of the new state. The
+   * subtree is only reused if these moves lead to the grid of the new state. The children of the
+   * new root get their states from the new state, since the state of a searched node is deleted.
+   *
+   * @param ownMove  the move the bot made from the current root.
+   * @param newState the game state at the start of the bot's next turn.
+   * @return true if the subtree was reused, false if the tree is unchanged and should be replaced.
+   */
+  public boolean advance(Move ownMove, GameState newState) {
+    if (newState.getCurrentTeam() != botTeamId) {
+      return false;
+    }
+    AdvancedMCTSNode child = findChild(root, ownMove);
+    if (child == null || child.getState() == null) {
+      return false;
+    }
+    AdvancedMCTSNode node = child;
+    GameState expectedState = child.getState();
+    Move lastMove = newState.getLastMove();
+    if (lastMove != null && !String.valueOf(botTeamId).equals(lastMove.getTeamId())) {
+      node = findChild(child, lastMove);
+      if (node == null) {
+        return false;
+      }
+      expectedState = simulateMove(child.getState(), lastMove).first();
+    }
+    if (!Arrays.deepEquals(expectedState.getGrid(), newState.getGrid())) {
+      return false;
+    }
+
+    AdvancedMCTSNode newRoot = new AdvancedMCTSNode(newState);
+    newRoot.setDeletable(false);
+    newRoot.setVisitCount(node.getVisitCount());
+    newRoot.setWinScore(node.getWinScore());
+    List<AdvancedMCTSNode> children = new ArrayList<>(node.getChildren().size());
+    for (AdvancedMCTSNode grandChild : node.getChildren()) {
+      Triple<GameState, Boolean, Boolean> result = simulateMove(newState, grandChild.getMove());
+      grandChild.setState(result.first());
+      grandChild.setGameOver(result.second());
+      grandChild.setWinner(result.second() && result.third());
+      grandChild.setDeletable(false);
+      grandChild.setParent(newRoot);
+      children.add(grandChild);
+    }
+    newRoot.setChildren(children);
+    newRoot.setUntriedMoves(node.getUntriedMoves());
+    if (newRoot.getUntriedMoves() != null) {
+      // the root gets a child for every move
+      expandNode(newRoot, true);
+    }
+    this.root = newRoot;
+    return true;
+  }
+
+  /**
+   * @param node the node to search the children of.
+   * @param move the move to search for.
+   * @return the child reached by the move, null if the node has no such child.
+   */
+  private AdvancedMCTSNode findChild(AdvancedMCTSNode node, Move move) {
+    if (move == null || move.getNewPosition() == null) {
+      return null;
+    }
+    for (AdvancedMCTSNode child : node.getChildren()) {
+      Move childMove = child.getMove();
+      if (childMove != null && childMove.getPieceId().equals(move.getPieceId())
+          && Arrays.equals(childMove.getNewPosition(), move.getNewPosition())) {
+        return child;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Performs a parallel MCTS search where all threads search one shared tree. Threads add virtual
+   * losses to the nodes they descend through, so they spread over the tree, and a node is expanded
+   * by a single thread while holding its lock. Unlike {@link #parallelSearch(int, long)} the depth
+   * of the tree grows with the number of threads instead of growing the same tree once per thread.
+   *
+   * @param numThreads      the number of threads to use for the search.
+   * @param timeLimitMillis the time limit for the search in milliseconds.
+   * @return the best move found during the search.
+   */
+  public Move sharedTreeSearch(int numThreads, long timeLimitMillis) {
+    if (root.getChildren().isEmpty()) {
+      this.expandNode(root, true);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    endTime = System.currentTimeMillis() + timeLimitMillis;
+
+    for (int i = 0; i < numThreads; i++) {
+      executor.submit(() -> this.searchSharedTree(root,
+          () -> System.currentTimeMillis() >= endTime));
+    }
+    executor.shutdown();
+    try {
+      // the threads finish their current playouts after the time limit, wait for them before
+      // reading the tree
+      executor.awaitTermination(timeLimitMillis + SHUTDOWN_GRACE_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    return findBestMove(root);
+  }
+
+  /**
+   * Keeps searching the shared tree below the move of the bot until stopped, so the replies of the
+   * other teams are already searched when {@link #advance(Move, GameState)} reuses the subtree in
+   * the next turn.
+   *
+   * @param ownMove    the move the bot made from the current root.
+   * @param numThreads the number of threads to use for the search.
+   * @param stop       set by another thread to end the pondering.
+   */
+  public void ponder(Move ownMove, int numThreads, AtomicBoolean stop) {
+    AdvancedMCTSNode child = findChild(root, ownMove);
+    if (child == null || child.isGameOver() || child.getState() == null) {
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      executor.submit(() -> this.searchSharedTree(child, stop::get));
+    }
+    executor.shutdown();
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+        // wait until the threads have seen the stop flag
+      }
+    } catch (InterruptedException e) {
+      stop.set(true);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Search loop of a single thread searching the shared tree.
+   *
+   * @param searchRoot the node to search below, the root or one of its children.
+   * @param stopped    tells the thread when to stop.
+   */
+  private void searchSharedTree(AdvancedMCTSNode searchRoot, BooleanSupplier stopped) {
+    PlayoutBoard playoutBoard = this.playoutBoards.get();
+    SplittableRandom random = this.randoms.get();
+    while (!stopped.getAsBoolean()) {
+      AdvancedMCTSNode node = searchRoot;
+      for (AdvancedMCTSNode pathNode = node; pathNode != null; pathNode = pathNode.getParent()) {
+        pathNode.addVirtualLoss();
+      }
+      while (!isTerminal(node) && !node.canWiden() && !node.getChildren().isEmpty()) {
+        node = node.findUCBChild();
+        node.addVirtualLoss();
+      }
+
+      AdvancedMCTSNode newNode = null;
+      if (!isTerminal(node)) {
+        synchronized (node) {
+          // another thread may have widened the node since it was selected
+          if (node.canWiden() && node.getState() != null) {
+            newNode = expandNode(node, false);
+            if (node.isDeletable() && node.isFullyExpanded() && !node.getChildren().isEmpty()) {
+              node.setState(null);
+            }
+          }
+        }
+      }
+
+      AdvancedMCTSNode nodeToExplore = node;
+      if (newNode != null) {
+        nodeToExplore = newNode;
+        nodeToExplore.addVirtualLoss();
+      } else if (!node.getChildren().isEmpty()) {
+        nodeToExplore = node.getRandomChildNode(random);
+        nodeToExplore.addVirtualLoss();
+      }
+      AdvancedMCTSNode virtualLossNode = nodeToExplore;
+
+      // the node may have been expanded and deleted its state in the meantime, then one of its
+      // children is explored instead
+      boolean loaded = false;
+      while (!isTerminal(nodeToExplore)) {
+        synchronized (nodeToExplore) {
+          GameState state = nodeToExplore.getState();
+          if (state != null) {
+            playoutBoard.load(state);
+            loaded = true;
+            break;
+          }
+        }
+        nodeToExplore = nodeToExplore.getRandomChildNode(random);
+      }
+
+      int numSimulations = getNumSimulations(nodeToExplore);
+      boolean won;
+      for (int i = 0; i < numSimulations; i++) {
+        won = loaded ? simulateRandomPlayout(playoutBoard) : nodeToExplore.isWinner();
+        backPropagate(nodeToExplore, won);
+      }
+      virtualLossNode.removeVirtualLoss();
+    }
+  }
+
   /**
    * Aggregates the results from each thread's individual MCTS root node and populate the actual
    * MCTS root node with the aggregates.
@@ -72,7 +340,6 @@ public class AdvancedMCTS {
    * @author ohandsch
    */
   public Move aggregateResults(List<AdvancedMCTSNode> roots) {
-    System.out.println("Aggregating results");
     // Aggregate the visit counts and win scores from each root's children
     for (AdvancedMCTSNode localRoot : roots) {
       for (AdvancedMCTSNode child : localRoot.getChildren()) {
@@ -87,7 +354,6 @@ public class AdvancedMCTS {
         }
       }
     }
-    System.out.println("Results Aggregated");
     return findBestMove(root);
   }
 
@@ -129,26 +395,30 @@ public class AdvancedMCTS {
    * @author jdeiting
    */
   public void search(AdvancedMCTSNode rootInp) {
+    SplittableRandom random = this.randoms.get();
 
     while (System.currentTimeMillis() < endTime) {
       AdvancedMCTSNode selectedNode = selectPromisingNode(rootInp);
 
       if (selectedNode == rootInp || !isTerminal(selectedNode)) {
-        expandNode(selectedNode, selectedNode == rootInp);
-
-        AdvancedMCTSNode nodeToExplore = selectedNode;
-        if (!selectedNode.getChildren().isEmpty()) {
-          nodeToExplore = selectedNode.getRandomChildNode();
+        AdvancedMCTSNode nodeToExplore = expandNode(selectedNode, selectedNode == rootInp);
+        if (nodeToExplore == null) {
+          nodeToExplore = selectedNode.getChildren().isEmpty() ? selectedNode
+              : selectedNode.getRandomChildNode(random);
         }
 
         int numSimulations = getNumSimulations(nodeToExplore);
+        PlayoutBoard playoutBoard = this.playoutBoards.get();
+        playoutBoard.load(nodeToExplore.getState());
         boolean won;
         for (int i = 0; i < numSimulations; i++) {
-          won = simulateRandomPlayout(nodeToExplore);
+          won = nodeToExplore.isGameOver() ? nodeToExplore.isWinner()
+              : simulateRandomPlayout(playoutBoard);
           backPropagate(nodeToExplore, won);
         }
 
-        if (selectedNode.isDeletable()) {
+        if (selectedNode.isDeletable() && selectedNode.isFullyExpanded()
+            && !selectedNode.getChildren().isEmpty()) {
           selectedNode.setState(null);
         }
       } else {
@@ -227,7 +497,7 @@ public class AdvancedMCTS {
 
   /**
    * Selects the most promising node to explore next based on the Upper Confidence Bound (UCB)
-   * applied to trees.
+   * applied to trees. Stops at the first node that may get another child.
    *
    * @param rootNode the root node of the current MCTS tree.
    * @return the most promising node to explore next.
@@ -235,22 +505,39 @@ public class AdvancedMCTS {
    */
   private AdvancedMCTSNode selectPromisingNode(AdvancedMCTSNode rootNode) {
     AdvancedMCTSNode node = rootNode;
-    while (!node.getChildren().isEmpty()) {
+    while (!isTerminal(node) && !node.canWiden() && !node.getChildren().isEmpty()) {
       node = node.findUCBChild();
     }
     return node;
   }
 
   /**
-   * Expands a node by creating new child nodes for all possible moves from the node's game state.
+   * Expands a node by creating a child node for its most promising untried move. The moves are
+   * ordered by {@link AdvancedMoveSelector#getPrioritizedMoves} when the node is expanded for the
+   * first time. A root gets a child for every move at once, since every move of the bot has to be
+   * compared and the roots of a parallel search are merged by their children.
    *
-   * @param node the node to expand.
+   * @param node   the node to expand.
+   * @param isRoot whether the node is the root of a search.
+   * @return the child node of the most promising move, null if the node has no untried moves.
    * @author ohandsch
    */
-  public void expandNode(AdvancedMCTSNode node, boolean isRoot) {
-    List<Move> possibleMoves = new AdvancedMoveSelector(node.getState()).getAllPossibleMoves();
-    for (Move move : possibleMoves) {
-
+  public AdvancedMCTSNode expandNode(AdvancedMCTSNode node, boolean isRoot) {
+    Deque<Move> untriedMoves = node.getUntriedMoves();
+    if (untriedMoves == null) {
+      untriedMoves = new ArrayDeque<>(new AdvancedMoveSelector(node.getState(),
+          this.gridMoveGenerators.get()).getPrioritizedMoves(this.randoms.get()));
+      node.setUntriedMoves(untriedMoves);
+    }
+    // the children are published at once, so threads searching a shared tree never see a
+    // partially expanded node
+    List<AdvancedMCTSNode> children = new ArrayList<>(node.getChildren());
+    AdvancedMCTSNode firstNode = null;
+    do {
+      Move move = untriedMoves.pollFirst();
+      if (move == null) {
+        break;
+      }
       Triple<GameState, Boolean, Boolean> result = simulateMove(node.getState(), move);
       GameState newState = result.first;
       AdvancedMCTSNode newNode = new AdvancedMCTSNode(node, newState);
@@ -261,21 +548,27 @@ public class AdvancedMCTS {
       if (isRoot) {
         newNode.setDeletable(false);
       }
-      node.addChild(newNode);
-    }
+      children.add(newNode);
+      if (firstNode == null) {
+        firstNode = newNode;
+      }
+    } while (isRoot);
+    node.setChildren(children);
+    return firstNode;
   }
 
   /**
-   * Simulates a random playout from the given node's game state until a terminal state is reached.
+   * Simulates a not so random playout from the loaded game state until a terminal state is reached
+   * and takes the moves back afterwards, so the board can be used for the next playout.
    *
-   * @param node the node from which to simulate the playout.
+   * @param playoutBoard the board holding the game state of the node to explore.
    * @return true if the playout resulted in a win for the bot's team, false otherwise.
    * @author ohandsch
    */
-  private boolean simulateRandomPlayout(AdvancedMCTSNode node) {
-    GameState copiedState = AdvancedGameStateCopier.deepCopy(node.getState());
-    AdvancedGameSimulator simulator = new AdvancedGameSimulator(copiedState);
-    return botTeamId == simulator.simulateGame();
+  private boolean simulateRandomPlayout(PlayoutBoard playoutBoard) {
+    int winner = playoutBoard.notSoRandomPlayout();
+    playoutBoard.reset();
+    return botTeamId == winner;
   }
 
   /**
@@ -315,7 +608,8 @@ public class AdvancedMCTS {
    */
   public Triple<GameState, Boolean, Boolean> simulateMove(GameState state, Move move) {
     GameState copiedState = AdvancedGameStateCopier.deepCopy(state);
-    AdvancedGameSimulator gameSimulator = new AdvancedGameSimulator(copiedState);
+    AdvancedGameSimulator gameSimulator = new AdvancedGameSimulator(copiedState,
+        this.moveGenerator);
     gameSimulator.makeMove(move);
     boolean gameOver = gameSimulator.isGameOver();
     GameState newState = gameSimulator.getGameState();
@@ -331,14 +625,7 @@ public class AdvancedMCTS {
    * @author ohandsch
    */
   private Move findBestMove(AdvancedMCTSNode rootNode) {
-    Move move = rootNode.findBestChild().getState().getLastMove();
-    System.out.println(
-        "Root visits: " + rootNode.getVisitCount() + " Win rate: "
-            + rootNode.findBestChild().getWinScore() / rootNode.findBestChild().getVisitCount());
-    System.out.println(
-        "Best move found piece: " + move.getPieceId() + "x" + move.getNewPosition()[0] + "y"
-            + move.getNewPosition()[1]);
-    return move;
+    return rootNode.findBestChild().getState().getLastMove();
   }
 
   public AdvancedMCTSNode getRoot() {
@@ -1,46 +1,78 @@
 package de.unimannheim.swt.pse.ai.advancedMCTS;
 
 import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.random.RandomGenerator;
 
 /**
  * Represents a node in the Monte Carlo Tree Search (MCTS) tree.
+ *
+ * <p>The statistics of a node are atomic, so several threads can search one shared tree. A thread
+ * descending through a node adds a virtual loss, which counts as a visit without a win until the
+ * result of its playout is backpropagated, so the other threads prefer different paths.</p>
+ *
+ * <p>Children are added by progressive widening: a node may have {@code 1 + visits^0.5} children,
+ * taken from its untried moves in the order of their prior, so the search deepens before every
+ * move of a crowded map got a visit.</p>
  */
 public class AdvancedMCTSNode {
 
+  /**
+   * Exponent of the visits in the number of children a node may have
+   */
+  private static final double WIDENING_EXPONENT = 0.5;
+
   /**
    * Represents the state of the game at this node
    */
-  private GameState state;
+  private volatile GameState state;
+  /**
+   * Move leading to this node, kept when the state of the node is deleted
+   */
+  private final Move move;
   /**
    * Parent node in the tree
    */
   private AdvancedMCTSNode parent;
   /**
-   * Children of this node
+   * Children of this node, replaced as a whole when the node is expanded in a shared tree
    */
-  private List<AdvancedMCTSNode> children;
+  private volatile List<AdvancedMCTSNode> children;
   /**
    * Number of times this node has been visited
    */
-  private int visitCount;
+  private final AtomicInteger visitCount = new AtomicInteger();
   /**
    * Sum of scores from all simulations through this node
    */
-  private double winScore;
+  private final DoubleAdder winScore = new DoubleAdder();
+  /**
+   * Number of threads currently searching below this node
+   */
+  private final AtomicInteger virtualLoss = new AtomicInteger();
 
   /**
    * Flag indicating if the game is over
    */
-  private boolean gameOver = false;
+  private volatile boolean gameOver = false;
 
   /**
    * Indicated whether the gameState of this node can be deleted after expanding its children
    */
-  private boolean isDeletable = true;
+  private volatile boolean isDeletable = true;
+
+  private volatile boolean isWinner;
 
-  private boolean isWinner;
+  /**
+   * Moves not expanded yet, best first. Null until the node is expanded for the first time
+   */
+  private volatile Deque<Move> untriedMoves;
 
   /**
    * Constructor for a new MCTSNode with a given game state.
@@ -50,9 +82,8 @@ public class AdvancedMCTSNode {
    */
   public AdvancedMCTSNode(GameState state) {
     this.state = state;
+    this.move = state != null ? state.getLastMove() : null;
     this.children = new ArrayList<>();
-    this.visitCount = 0;
-    this.winScore = 0.0;
   }
 
   /**
@@ -76,7 +107,7 @@ public class AdvancedMCTSNode {
    */
   public AdvancedMCTSNode findUCBChild() {
     AdvancedMCTSNode bestChild = null;
-    double maxUCB1 = Double.MIN_VALUE;
+    double maxUCB1 = Double.NEGATIVE_INFINITY;
     for (AdvancedMCTSNode child : children) {
       double ucb1Value = child.getUCB1Score();
       if (ucb1Value > maxUCB1) {
@@ -95,9 +126,9 @@ public class AdvancedMCTSNode {
    */
   public AdvancedMCTSNode findBestChild() {
     AdvancedMCTSNode bestChild = null;
-    double maxScore = Double.MIN_VALUE;
+    double maxScore = Double.NEGATIVE_INFINITY;
     for (AdvancedMCTSNode child : children) {
-      double score = child.winScore / child.visitCount;
+      double score = child.getWinScore() / child.getVisitCount();
       if (score > maxScore) {
         maxScore = score;
         bestChild = child;
@@ -113,25 +144,65 @@ public class AdvancedMCTSNode {
    * @author ohandsch
    */
   public void backPropagate(double score) {
-    this.visitCount++;
-    this.winScore += score;
+    this.visitCount.incrementAndGet();
+    this.winScore.add(score);
     if (parent != null) {
       parent.backPropagate(1 - score);
     }
   }
 
   /**
-   * Calculates the UCB1 (Upper Confidence Bound 1) score for this node.
+   * Marks that a thread is searching below this node until {@link #removeVirtualLoss()} is called.
+   */
+  public void addVirtualLoss() {
+    this.virtualLoss.incrementAndGet();
+  }
+
+  /**
+   * Takes back the virtual loss of this node and its parents.
+   */
+  public void removeVirtualLoss() {
+    for (AdvancedMCTSNode node = this; node != null; node = node.parent) {
+      node.virtualLoss.decrementAndGet();
+    }
+  }
+
+  /**
+   * Calculates the UCB1 (Upper Confidence Bound 1) score for this node, counting virtual losses as
+   * visits without a win.
    *
    * @return the UCB1 score calculated for this node.
    * @author ohandsch
    */
   private double getUCB1Score() {
-    if (visitCount == 0) {
+    int visits = visitCount.get() + virtualLoss.get();
+    if (visits == 0) {
       return Double.MAX_VALUE;
     }
-    return 2 * (winScore / visitCount) + Math.sqrt(2) * (Math.sqrt(
-        Math.log(parent.visitCount) / visitCount));
+    int parentVisits = parent.visitCount.get() + parent.virtualLoss.get();
+    return 2 * (winScore.sum() / visits) + Math.sqrt(2) * (Math.sqrt(
+        Math.log(parentVisits) / visits));
+  }
+
+  /**
+   * @return true if the node was never expanded or has untried moves and enough visits for another
+   * child, false otherwise.
+   */
+  public boolean canWiden() {
+    Deque<Move> moves = untriedMoves;
+    if (moves == null) {
+      return true;
+    }
+    return !moves.isEmpty()
+        && children.size() < 1 + (int) Math.pow(visitCount.get(), WIDENING_EXPONENT);
+  }
+
+  /**
+   * @return true if a child was created for every move of the node, false otherwise.
+   */
+  public boolean isFullyExpanded() {
+    Deque<Move> moves = untriedMoves;
+    return moves != null && moves.isEmpty();
   }
 
   /**
@@ -141,8 +212,18 @@ public class AdvancedMCTSNode {
    * @author ohandsch
    */
   public AdvancedMCTSNode getRandomChildNode() {
-    int randomIndex = (int) (Math.random() * children.size());
-    return children.get(randomIndex);
+    return getRandomChildNode(ThreadLocalRandom.current());
+  }
+
+  /**
+   * Selects a random child node from this node's children.
+   *
+   * @param random the random generator of the searching thread.
+   * @return a randomly selected child node.
+   */
+  public AdvancedMCTSNode getRandomChildNode(RandomGenerator random) {
+    List<AdvancedMCTSNode> currentChildren = children;
+    return currentChildren.get(random.nextInt(currentChildren.size()));
   }
 
   /**
@@ -155,6 +236,13 @@ public class AdvancedMCTSNode {
     children.add(child);
   }
 
+  /**
+   * @return the number of threads currently searching below this node.
+   */
+  public int getVirtualLoss() {
+    return virtualLoss.get();
+  }
+
   // Getters and setters
   public GameState getState() {
     return state;
@@ -164,6 +252,10 @@ public class AdvancedMCTSNode {
     this.state = state;
   }
 
+  public Move getMove() {
+    return move;
+  }
+
   public AdvancedMCTSNode getParent() {
     return parent;
   }
@@ -181,11 +273,11 @@ public class AdvancedMCTSNode {
   }
 
   public int getVisitCount() {
-    return visitCount;
+    return visitCount.get();
   }
 
   public void setVisitCount(int visitCount) {
-    this.visitCount = visitCount;
+    this.visitCount.set(visitCount);
   }
 
   public void setWinner(boolean isWinner) {
@@ -193,11 +285,12 @@ public class AdvancedMCTSNode {
   }
 
   public double getWinScore() {
-    return winScore;
+    return winScore.sum();
   }
 
   public void setWinScore(double winScore) {
-    this.winScore = winScore;
+    this.winScore.reset();
+    this.winScore.add(winScore);
   }
 
   public boolean isGameOver() {
@@ -220,5 +313,13 @@ public class AdvancedMCTSNode {
     return isWinner;
   }
 
+  public Deque<Move> getUntriedMoves() {
+    return untriedMoves;
+  }
+
+  public void setUntriedMoves(Deque<Move> untriedMoves) {
+    this.untriedMoves = untriedMoves;
+  }
+
 }
 
@@ -1,5 +1,6 @@
 package de.unimannheim.swt.pse.ai.advancedMCTS;
 
+import de.unimannheim.swt.pse.ai.client.RequestHandler;
 import de.unimannheim.swt.pse.server.controller.data.GameSessionResponse;
 import de.unimannheim.swt.pse.server.controller.data.JoinGameRequest;
 import de.unimannheim.swt.pse.server.controller.data.JoinGameResponse;
@@ -9,7 +10,10 @@ import de.unimannheim.swt.pse.server.game.exceptions.InvalidMove;
 import de.unimannheim.swt.pse.server.game.state.GameState;
 import de.unimannheim.swt.pse.server.game.state.Move;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -25,15 +29,30 @@ public class AdvancedMCTSPlayer {
       Runtime.getRuntime().availableProcessors() < 4 ? Runtime.getRuntime().availableProcessors()
           : Runtime.getRuntime().availableProcessors() / 2;
 
+  private static final int WAIT_TIMEOUT_SECONDS = 30;
   private final ScheduledExecutorService scheduler;
   private volatile boolean isMyTurn = false;
   private final AtomicBoolean isTurnInProgress = new AtomicBoolean(false);
 
-  private AdvancedRequestHandler requestHandler;
+  private RequestHandler requestHandler;
 
   private String gameSessionId;
   private String teamId;
   private String teamSecret;
+  /**
+   * Search of the last turn, its tree is reused if the game went on as searched
+   */
+  private AdvancedMCTS search;
+  /**
+   * Move made in the last turn
+   */
+  private Move lastMove;
+  /**
+   * Runs the search during the turns of the other teams
+   */
+  private final ExecutorService ponderExecutor = Executors.newSingleThreadExecutor();
+  private final AtomicBoolean stopPondering = new AtomicBoolean();
+  private Future<?> pondering;
 
   /**
    * Constructs a new MCTSPlayer with specified IP address and game session ID.
@@ -48,7 +67,7 @@ public class AdvancedMCTSPlayer {
 
     //Setup the request handler as a guest
     String baseUrl = "http://" + ip + ":8888/";
-    this.requestHandler = new AdvancedRequestHandler();
+    this.requestHandler = new RequestHandler();
     requestHandler.setBaseUrl(baseUrl);
 
     this.scheduler = Executors.newSingleThreadScheduledExecutor();
@@ -64,7 +83,7 @@ public class AdvancedMCTSPlayer {
     //Join the game session
     try {
       join(gameSessionId);
-      scheduler.scheduleAtFixedRate(this::checkAndPlay, 0, 1, TimeUnit.SECONDS);
+      scheduler.scheduleWithFixedDelay(this::checkAndPlay, 0, 100, TimeUnit.MILLISECONDS);
     } catch (IOException e) {
       System.err.println("Failed to start MCTSPlayer: " + e.getMessage());
       stopPlaying();
@@ -73,18 +92,26 @@ public class AdvancedMCTSPlayer {
 
 
   /**
-   * Checks and executes a play turn if it is the player's turn and a turn is not currently in
-   * progress.
+   * Waits for the next game state and executes a play turn if it is the player's turn and a turn
+   * is not currently in progress.
    *
    * @author ohandsch
    */
   public void checkAndPlay() {
+    GameState currentState = this.requestHandler.waitForGameState(this.gameSessionId,
+        WAIT_TIMEOUT_SECONDS);
+    if (currentState == null) {
+      // nothing changed, wait again
+      return;
+    }
     if (this.requestHandler.getGameSession(this.gameSessionId).isGameOver()) {
+      stopPondering();
       stopPlaying();
+      return;
     }
-    GameState currentState = this.requestHandler.getGameState(this.gameSessionId);
 
     if (!isTurnInProgress.get() && checkIfMyTurn(currentState)) {
+      stopPondering();
       isTurnInProgress.set(true);
       try {
         playTurn(currentState);
@@ -130,7 +157,12 @@ public class AdvancedMCTSPlayer {
     System.out.println("Calculating and making a move");
 
     // Send the move via the API
-    Move bestMove = new AdvancedMCTS(currentState).parallelSearch(NUMTHREADS, TIMELIMITMILLIES);
+    // keep the tree of the last turn if it led to this state
+    if (this.search == null || !this.search.advance(this.lastMove, currentState)) {
+      this.search = new AdvancedMCTS(currentState);
+    }
+    Move bestMove = this.search.sharedTreeSearch(NUMTHREADS, TIMELIMITMILLIES);
+    this.lastMove = bestMove;
 
     System.out.println("actually making move");
     System.out.println("piece: " + bestMove.getPieceId() + " to x: " + bestMove.getNewPosition()[0]
@@ -143,8 +175,10 @@ public class AdvancedMCTSPlayer {
     moveRequest.setPieceId(bestMove.getPieceId());
     try {
       this.requestHandler.makeMove(this.gameSessionId, moveRequest);
+      startPondering();
     } catch (InvalidMove e) {
       System.out.println(e.getMessage());
+      this.search = null;
       this.playTurn(currentState);
     } catch (Exception e) {
       System.err.println("Failed to make move: " + e.getMessage());
@@ -153,12 +187,44 @@ public class AdvancedMCTSPlayer {
     System.gc();
   }
 
+  /**
+   * Keeps searching the replies to the move just made until the next turn of the bot.
+   */
+  private void startPondering() {
+    AdvancedMCTS search = this.search;
+    Move ownMove = this.lastMove;
+    this.stopPondering.set(false);
+    this.pondering = this.ponderExecutor.submit(() -> search.ponder(ownMove, NUMTHREADS, this.stopPondering));
+  }
+
+  /**
+   * Stops the search started by {@link #startPondering()} and waits until it has ended, so the
+   * search can be used again.
+   */
+  private void stopPondering() {
+    if (this.pondering == null) {
+      return;
+    }
+    this.stopPondering.set(true);
+    try {
+      this.pondering.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      System.err.println("Pondering failed: " + e.getMessage());
+      this.search = null;
+    }
+    this.pondering = null;
+  }
+
   /**
    * Stops the MCTS player and terminates any ongoing scheduled tasks.
    *
    * @author ohandsch
    */
   public void stopPlaying() {
+    stopPondering();
+    ponderExecutor.shutdown();
     scheduler.shutdown();
     try {
       if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
@@ -216,11 +282,11 @@ public class AdvancedMCTSPlayer {
     return teamId;
   }
 
-  public AdvancedRequestHandler getRequestHandler() {
+  public RequestHandler getRequestHandler() {
     return requestHandler;
   }
 
-  public void setRequestHandler(AdvancedRequestHandler requestHandler) {
+  public void setRequestHandler(RequestHandler requestHandler) {
     this.requestHandler = requestHandler;
   }
 
@@ -0,0 +1,294 @@
+package de.unimannheim.swt.pse.ai.arena;
+
+import de.unimannheim.swt.pse.ai.minimax.GameStateCopier;
+import de.unimannheim.swt.pse.server.game.GameEngineGame;
+import de.unimannheim.swt.pse.server.game.exceptions.GameOver;
+import de.unimannheim.swt.pse.server.game.exceptions.InvalidMove;
+import de.unimannheim.swt.pse.server.game.map.MapTemplate;
+import de.unimannheim.swt.pse.server.game.map.MapTemplates;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays the AIs against each other without the REST server. The bots are called directly with
+ * the state of a {@link GameEngineGame} and every game runs on its own thread, so many games are
+ * played in parallel on all cores. Every pairing of bots plays the same number of games, with the
+ * teams of the bots swapped in every other game.
+ *
+ * <p>The seed of a game seeds the engine and every search of the game, so the random choices of a
+ * game only depend on its seed. The searches are limited by time though, so their results can
+ * still differ with the load of the machine.</p>
+ *
+ * <p>Start it with the classpath of the ai module:</p>
+ *
+ * <pre>java ... de.unimannheim.swt.pse.ai.arena.Arena --bots MCTS,MINIMAX --games 200
+ * --millis 50 --max-moves 400 --threads 8 --seed 1</pre>
+ */
+public class Arena {
+
+  private final List<BotType> bots;
+  /**
+   * Number of games played by every pairing of bots
+   */
+  private int gamesPerPairing = 100;
+  /**
+   * Time limit of every search in milliseconds
+   */
+  private long moveTimeMillis = 50;
+  /**
+   * Number of moves after which a game is a draw
+   */
+  private int maxMoves = 400;
+  /**
+   * Number of games played in parallel
+   */
+  private int threads = Runtime.getRuntime().availableProcessors();
+  /**
+   * Seed the seeds of the games are drawn from
+   */
+  private long seed = 1;
+  private MapTemplate template = loadExampleTemplate();
+
+  /**
+   * @param bots inputs the bots playing against each other, at least two
+   * @throws IllegalArgumentException if fewer than two bots are given
+   */
+  public Arena(List<BotType> bots) {
+    if (bots.size() < 2) {
+      throw new IllegalArgumentException("The arena needs at least two bots");
+    }
+    this.bots = List.copyOf(bots);
+  }
+
+  /**
+   * Plays all games and waits until they are finished.
+   *
+   * @return results of all games
+   * @throws InterruptedException if the thread is interrupted while waiting for the games
+   */
+  public ArenaReport run() throws InterruptedException {
+    SplittableRandom random = new SplittableRandom(this.seed);
+    ExecutorService executor = Executors.newFixedThreadPool(this.threads);
+    List<Future<GameRecord>> futures = new ArrayList<>();
+    long start = System.nanoTime();
+    try {
+      for (int i = 0; i < this.bots.size(); i++) {
+        for (int j = i + 1; j < this.bots.size(); j++) {
+          for (int game = 0; game < this.gamesPerPairing; game++) {
+            BotType first = game % 2 == 0 ? this.bots.get(i) : this.bots.get(j);
+            BotType second = game % 2 == 0 ? this.bots.get(j) : this.bots.get(i);
+            long gameSeed = random.nextLong();
+            futures.add(executor.submit(() -> this.playGame(first, second, gameSeed)));
+          }
+        }
+      }
+      List<GameRecord> games = new ArrayList<>(futures.size());
+      for (Future<GameRecord> future : futures) {
+        games.add(future.get());
+      }
+      return new ArenaReport(this.bots, games, System.nanoTime() - start);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A game of the arena failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Plays a single game of two bots. A bot that finds no move or makes an invalid move gives up. A
+   * bot whose search throws an exception ends the game without a result, the error is recorded
+   * instead, so a bug is not counted as a loss.
+   *
+   * @param first  inputs the bot playing team 1
+   * @param second inputs the bot playing team 2
+   * @param seed   inputs the seed of the game
+   * @return result of the game
+   */
+  public GameRecord playGame(BotType first, BotType second, long seed) {
+    BotType[] seats = {first, second};
+    int[] moveCounts = new int[2];
+    long[] thinkingNanos = new long[2];
+    long[] playouts = new long[2];
+
+    SplittableRandom random = new SplittableRandom(seed);
+    GameEngineGame game = new GameEngineGame(random.nextLong());
+    game.create(this.template);
+    game.joinGame("team1");
+    game.joinGame("team2");
+
+    int moves = 0;
+    while (!game.isGameOver() && moves < this.maxMoves) {
+      GameState state = game.getCurrentGameState();
+      int team = state.getCurrentTeam();
+      int seat = team - 1;
+
+      long searchStart = System.nanoTime();
+      BotType.Search search;
+      try {
+        search = seats[seat].search(GameStateCopier.deepCopy(state), this.moveTimeMillis,
+            random.nextLong());
+      } catch (RuntimeException e) {
+        return new GameRecord(seed, seats, -1, moves, moveCounts, thinkingNanos, playouts, seat,
+            e);
+      }
+      thinkingNanos[seat] += System.nanoTime() - searchStart;
+      playouts[seat] += search.playouts();
+      moveCounts[seat]++;
+
+      Move move = search.move();
+      if (move == null) {
+        game.giveUp(String.valueOf(team));
+        break;
+      }
+      move.setTeamId(String.valueOf(team));
+      try {
+        game.makeMove(move);
+      } catch (GameOver e) {
+        // the move captured the last flag, the game has a winner
+      } catch (InvalidMove e) {
+        game.giveUp(String.valueOf(team));
+      }
+      moves++;
+    }
+
+    return new GameRecord(seed, seats, winnerOf(game), moves, moveCounts, thinkingNanos,
+        playouts, -1, null);
+  }
+
+  /**
+   * @param game inputs the game
+   * @return index of the winning team, -1 if the game is not over or ended in a tie
+   */
+  private static int winnerOf(GameEngineGame game) {
+    String[] winner = game.getWinner();
+    if (!game.isGameOver() || winner == null || winner.length != 1) {
+      return -1;
+    }
+    return Integer.parseInt(winner[0]) - 1;
+  }
+
+  public int getGamesPerPairing() {
+    return this.gamesPerPairing;
+  }
+
+  public void setGamesPerPairing(int gamesPerPairing) {
+    this.gamesPerPairing = gamesPerPairing;
+  }
+
+  public long getMoveTimeMillis() {
+    return this.moveTimeMillis;
+  }
+
+  public void setMoveTimeMillis(long moveTimeMillis) {
+    this.moveTimeMillis = moveTimeMillis;
+  }
+
+  public int getMaxMoves() {
+    return this.maxMoves;
+  }
+
+  public void setMaxMoves(int maxMoves) {
+    this.maxMoves = maxMoves;
+  }
+
+  public int getThreads() {
+    return this.threads;
+  }
+
+  /**
+   * @param threads inputs the number of games played in parallel
+   * @throws IllegalArgumentException if the number of threads is smaller than 1
+   */
+  public void setThreads(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("The arena needs at least one thread");
+    }
+    this.threads = threads;
+  }
+
+  public long getSeed() {
+    return this.seed;
+  }
+
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  public MapTemplate getTemplate() {
+    return this.template;
+  }
+
+  /**
+   * @param template inputs the template of the map, with two teams
+   * @throws IllegalArgumentException if the template is not for two teams
+   */
+  public void setTemplate(MapTemplate template) {
+    if (template.getTeams() != 2) {
+      throw new IllegalArgumentException("The arena only plays games of two teams");
+    }
+    this.template = template;
+  }
+
+  /**
+   * @return the 10x10 example map with two teams, without time limits
+   */
+  public static MapTemplate loadExampleTemplate() {
+    MapTemplate template = MapTemplates.load(MapTemplates.EXAMPLE);
+    template.setTotalTimeLimitInSeconds(-1);
+    template.setMoveTimeLimitInSeconds(-1);
+    return template;
+  }
+
+  /**
+   * Runs the arena and prints the report.
+   *
+   * @param args options {@code --bots}, {@code --games}, {@code --millis}, {@code --max-moves},
+   *             {@code --threads} and {@code --seed}, each followed by its value
+   * @throws InterruptedException if the thread is interrupted while waiting for the games
+   */
+  public static void main(String[] args) throws InterruptedException {
+    List<BotType> bots = List.of(BotType.values());
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      if (args[i].equals("--bots")) {
+        bots = new ArrayList<>();
+        for (String bot : args[i + 1].split(",")) {
+          bots.add(BotType.valueOf(bot.trim().toUpperCase()));
+        }
+      }
+    }
+    Arena arena = new Arena(bots);
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String value = args[i + 1];
+      switch (args[i]) {
+        case "--bots":
+          break;
+        case "--games":
+          arena.setGamesPerPairing(Integer.parseInt(value));
+          break;
+        case "--millis":
+          arena.setMoveTimeMillis(Long.parseLong(value));
+          break;
+        case "--max-moves":
+          arena.setMaxMoves(Integer.parseInt(value));
+          break;
+        case "--threads":
+          arena.setThreads(Integer.parseInt(value));
+          break;
+        case "--seed":
+          arena.setSeed(Long.parseLong(value));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    System.out.print(arena.run());
+  }
+}
@@ -0,0 +1,249 @@
+package de.unimannheim.swt.pse.ai.arena;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Results of an {@link Arena} run: the standings of every pairing with Elo differences and their
+ * 95% confidence intervals, and the throughput of the run and of every bot. Games ended by an
+ * error of a bot are left out of the standings and reported separately.
+ */
+public class ArenaReport {
+
+  /**
+   * z value of a two-sided 95% confidence interval
+   */
+  private static final double Z_95 = 1.96;
+
+  private final List<BotType> bots;
+  private final List<GameRecord> games;
+  /**
+   * Wall clock time of the run in nanoseconds
+   */
+  private final long wallNanos;
+
+  /**
+   * @param bots      bots taking part in the run
+   * @param games     results of all games
+   * @param wallNanos wall clock time of the run in nanoseconds
+   */
+  public ArenaReport(List<BotType> bots, List<GameRecord> games, long wallNanos) {
+    this.bots = List.copyOf(bots);
+    this.games = List.copyOf(games);
+    this.wallNanos = wallNanos;
+  }
+
+  /**
+   * @return results of all games
+   */
+  public List<GameRecord> getGames() {
+    return this.games;
+  }
+
+  /**
+   * @return finished games per second of wall clock time
+   */
+  public double getGamesPerSecond() {
+    return this.games.size() / (this.wallNanos / 1e9);
+  }
+
+  /**
+   * @param bot      inputs the bot
+   * @param opponent inputs the opponent
+   * @return wins, draws and losses of the bot in the games against the opponent
+   */
+  public Standing getStanding(BotType bot, BotType opponent) {
+    int wins = 0;
+    int draws = 0;
+    int losses = 0;
+    for (GameRecord game : this.games) {
+      if (game.scoreOf(opponent) < 0) {
+        continue;
+      }
+      double score = game.scoreOf(bot);
+      if (score == 1) {
+        wins++;
+      } else if (score == 0.5) {
+        draws++;
+      } else if (score == 0) {
+        losses++;
+      }
+    }
+    return new Standing(wins, draws, losses);
+  }
+
+  /**
+   * @param bot inputs the bot
+   * @return playouts of the bot per second of search time, searched positions for the minimax
+   */
+  public double getPlayoutsPerSecond(BotType bot) {
+    long playouts = 0;
+    long nanos = 0;
+    for (GameRecord game : this.games) {
+      for (int i = 0; i < game.bots().length; i++) {
+        if (game.bots()[i] == bot) {
+          playouts += game.playouts()[i];
+          nanos += game.thinkingNanos()[i];
+        }
+      }
+    }
+    return nanos == 0 ? 0 : playouts / (nanos / 1e9);
+  }
+
+  /**
+   * @param bot inputs the bot
+   * @return average time the bot needed for a move in milliseconds
+   */
+  public double getAverageMoveMillis(BotType bot) {
+    long moves = 0;
+    long nanos = 0;
+    for (GameRecord game : this.games) {
+      for (int i = 0; i < game.bots().length; i++) {
+        if (game.bots()[i] == bot) {
+          moves += game.moveCounts()[i];
+          nanos += game.thinkingNanos()[i];
+        }
+      }
+    }
+    return moves == 0 ? 0 : nanos / 1e6 / moves;
+  }
+
+  /**
+   * @param bot inputs the bot
+   * @return number of games ended by an error in a search of the bot
+   */
+  public int getErrors(BotType bot) {
+    int errors = 0;
+    for (GameRecord game : this.games) {
+      if (game.failed() && game.bots()[game.failedTeam()] == bot) {
+        errors++;
+      }
+    }
+    return errors;
+  }
+
+  /**
+   * @param score inputs the expected score against an opponent, between 0 and 1
+   * @return Elo difference to the opponent matching the score, infinite for a score of 0 or 1
+   */
+  public static double elo(double score) {
+    if (score <= 0) {
+      return Double.NEGATIVE_INFINITY;
+    }
+    if (score >= 1) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return -400 * Math.log10(1 / score - 1);
+  }
+
+  /**
+   * @return table of all pairings and of the throughput of every bot
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    int failed = 0;
+    for (BotType bot : this.bots) {
+      failed += this.getErrors(bot);
+    }
+    sb.append(String.format(Locale.ROOT, "%d games, %d ended by errors, %.2f games/s%n%n",
+        this.games.size(), failed, this.getGamesPerSecond()));
+    sb.append(String.format(Locale.ROOT, "%-14s %-14s %6s %6s %6s %7s %8s %19s%n", "bot",
+        "opponent", "wins", "draws", "losses", "score", "elo", "elo 95% ci"));
+    List<BotType> seen = new ArrayList<>();
+    for (BotType bot : this.bots) {
+      seen.add(bot);
+      for (BotType opponent : this.bots) {
+        if (seen.contains(opponent)) {
+          continue;
+        }
+        Standing standing = this.getStanding(bot, opponent);
+        sb.append(String.format(Locale.ROOT, "%-14s %-14s %6d %6d %6d %7.3f %8.1f %8.1f .. %7.1f%n",
+            bot, opponent, standing.wins(), standing.draws(), standing.losses(),
+            standing.score(), standing.elo(), standing.eloLow(), standing.eloHigh()));
+      }
+    }
+    sb.append(String.format(Locale.ROOT, "%n%-14s %16s %14s %8s%n", "bot", "playouts/s",
+        "ms/move", "errors"));
+    for (BotType bot : this.bots) {
+      sb.append(String.format(Locale.ROOT, "%-14s %16.0f %14.2f %8d%n", bot,
+          this.getPlayoutsPerSecond(bot), this.getAverageMoveMillis(bot), this.getErrors(bot)));
+    }
+    // the first error of every bot, the seed of its game replays it
+    for (BotType bot : this.bots) {
+      for (GameRecord game : this.games) {
+        if (game.failed() && game.bots()[game.failedTeam()] == bot) {
+          StringWriter stackTrace = new StringWriter();
+          game.error().printStackTrace(new PrintWriter(stackTrace));
+          sb.append(String.format(Locale.ROOT, "%nFirst error of %s, game seed %d:%n%s", bot,
+              game.seed(), stackTrace));
+          break;
+        }
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Wins, draws and losses of a bot against one opponent.
+   *
+   * @param wins   games won
+   * @param draws  games drawn
+   * @param losses games lost
+   */
+  public record Standing(int wins, int draws, int losses) {
+
+    /**
+     * @return number of games
+     */
+    public int games() {
+      return this.wins + this.draws + this.losses;
+    }
+
+    /**
+     * @return average score, counting a draw as half a win
+     */
+    public double score() {
+      return this.games() == 0 ? 0.5 : (this.wins + 0.5 * this.draws) / this.games();
+    }
+
+    /**
+     * @return half width of the 95% confidence interval of the score
+     */
+    public double scoreError() {
+      int n = this.games();
+      if (n < 2) {
+        return 0.5;
+      }
+      double mean = this.score();
+      double variance = (this.wins * (1 - mean) * (1 - mean)
+          + this.draws * (0.5 - mean) * (0.5 - mean)
+          + this.losses * mean * mean) / (n - 1);
+      return Z_95 * Math.sqrt(variance / n);
+    }
+
+    /**
+     * @return Elo difference to the opponent
+     */
+    public double elo() {
+      return ArenaReport.elo(this.score());
+    }
+
+    /**
+     * @return lower bound of the 95% confidence interval of the Elo difference
+     */
+    public double eloLow() {
+      return ArenaReport.elo(this.score() - this.scoreError());
+    }
+
+    /**
+     * @return upper bound of the 95% confidence interval of the Elo difference
+     */
+    public double eloHigh() {
+      return ArenaReport.elo(this.score() + this.scoreError());
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package de.unimannheim.swt.pse.ai.arena;
+
+import de.unimannheim.swt.pse.ai.advancedMCTS.AdvancedMCTS;
+import de.unimannheim.swt.pse.ai.mcts.MCTS;
+import de.unimannheim.swt.pse.ai.minimax.MinimaxAlgorithm;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
+
+/**
+ * The AIs that can play in the {@link Arena}. Every bot searches a new tree for every move, with a
+ * single thread, since the arena already uses the cores for parallel games.
+ */
+public enum BotType {
+  MCTS,
+  ADVANCED_MCTS,
+  MINIMAX;
+
+  /**
+   * Searches the best move of the current team.
+   *
+   * @param state           state of the game, not changed by the search
+   * @param timeLimitMillis time limit of the search in milliseconds
+   * @param seed            seed of the random choices of the search
+   * @return the move found and the number of playouts, or searched positions for the minimax
+   */
+  public Search search(GameState state, long timeLimitMillis, long seed) {
+    switch (this) {
+      case MCTS:
+        MCTS mcts = new MCTS(state, seed);
+        Move mctsMove = mcts.search(timeLimitMillis);
+        return new Search(mctsMove, mcts.getRoot().getVisitCount());
+      case ADVANCED_MCTS:
+        AdvancedMCTS advancedMcts = new AdvancedMCTS(state, seed);
+        Move advancedMove = advancedMcts.sharedTreeSearch(1, timeLimitMillis);
+        return new Search(advancedMove, advancedMcts.getRoot().getVisitCount());
+      case MINIMAX:
+        MinimaxAlgorithm minimax = new MinimaxAlgorithm(state);
+        Move minimaxMove = minimax.getBestMove(timeLimitMillis, 1);
+        return new Search(minimaxMove, minimax.getNodeCount());
+      default:
+        throw new IllegalStateException("Unknown bot: " + this);
+    }
+  }
+
+  /**
+   * Result of a search.
+   *
+   * @param move      the best move found, null if the bot found none
+   * @param playouts  number of playouts, or searched positions for the minimax
+   */
+  public record Search(Move move, long playouts) {
+
+  }
+}
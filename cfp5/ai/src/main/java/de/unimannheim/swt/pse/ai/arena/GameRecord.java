@@ -0,0 +1,47 @@
+package de.unimannheim.swt.pse.ai.arena;
+
+/**
+ * Result of a single game played in the {@link Arena}. All arrays are indexed by the team of the
+ * game, i.e. index 0 holds the values of team 1.
+ *
+ * @param seed          seed the game was set up with
+ * @param bots          bot playing each team
+ * @param winner        index of the winning team, -1 on a draw
+ * @param moves         number of moves made in the game
+ * @param moveCounts    number of moves searched by each team
+ * @param thinkingNanos time each team spent searching, in nanoseconds
+ * @param playouts      playouts of each team, or searched positions for the minimax
+ * @param failedTeam    index of the team whose search threw the error, -1 without an error
+ * @param error         error that ended the game without a result, null if the game was finished
+ */
+public record GameRecord(long seed, BotType[] bots, int winner, int moves, int[] moveCounts,
+                         long[] thinkingNanos, long[] playouts, int failedTeam,
+                         RuntimeException error) {
+
+  /**
+   * @return whether the game was ended by an error instead of a result
+   */
+  public boolean failed() {
+    return this.error != null;
+  }
+
+  /**
+   * @param bot inputs the bot
+   * @return score of the bot in this game, 1 for a win, 0.5 for a draw and 0 for a loss, or -1 if
+   * the bot did not play or the game was ended by an error
+   */
+  public double scoreOf(BotType bot) {
+    if (this.failed()) {
+      return -1;
+    }
+    for (int i = 0; i < this.bots.length; i++) {
+      if (this.bots[i] == bot) {
+        if (this.winner < 0) {
+          return 0.5;
+        }
+        return this.winner == i ? 1 : 0;
+      }
+    }
+    return -1;
+  }
+}
@@ -1,4 +1,4 @@
-package de.unimannheim.swt.pse.ai.mcts;
+package de.unimannheim.swt.pse.ai.client;
 
 import de.unimannheim.swt.pse.server.CtfApplication;
 import de.unimannheim.swt.pse.server.controller.data.GameSessionRequest;
@@ -6,25 +6,44 @@ import de.unimannheim.swt.pse.server.controller.data.GameSessionResponse;
 import de.unimannheim.swt.pse.server.controller.data.JoinGameRequest;
 import de.unimannheim.swt.pse.server.controller.data.JoinGameResponse;
 import de.unimannheim.swt.pse.server.controller.data.MoveRequest;
+import de.unimannheim.swt.pse.server.controller.data.MoveResponse;
+import de.unimannheim.swt.pse.server.controller.data.SessionMoveRequest;
 import de.unimannheim.swt.pse.server.game.exceptions.GameSessionNotFound;
 import de.unimannheim.swt.pse.server.game.exceptions.InvalidMove;
 import de.unimannheim.swt.pse.server.game.state.GameState;
+import java.net.http.HttpClient;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * Client of the REST API of the game server, shared by all bots.
+ */
 public class RequestHandler {
 
+  /**
+   * HTTP client shared by all bots of this process. It keeps its connections to the server alive,
+   * so a move or state request does not open a new connection each time.
+   */
+  private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .build();
   /**
    * The RestTemplate used to send requests to the server
    */
-  private final RestTemplate restTemplate = new RestTemplate();
+  private final RestTemplate restTemplate = new RestTemplate(
+      new JdkClientHttpRequestFactory(HTTP_CLIENT));
   /**
    * The base url of the server
    */
   private String baseUrl;
+  /**
+   * Version of the last game state received from the server, 0 if none
+   */
+  private long stateVersion;
 
   /**
    * This method is used to set the base url of the server
@@ -98,6 +117,37 @@ public class RequestHandler {
     return gameStateResponseEntity.getBody();
   }
 
+  /**
+   * This method is used to wait for the next GameState on the server. The server answers as soon
+   * as the state differs from the last one received by this method, so no polling is needed.
+   *
+   * @param sessionId        String which is the id of the GameSession
+   * @param timeoutInSeconds int which is the maximum time to wait for a new GameState
+   * @return GameState if it changed, null if it did not change within the timeout
+   */
+  public GameState waitForGameState(String sessionId, int timeoutInSeconds) {
+    ResponseEntity<GameState> gameStateResponseEntity = restTemplate.exchange(
+        this.baseUrl + "/api/gamesession/{sessionId}/state/next?version={version}"
+            + "&timeoutInSeconds={timeoutInSeconds}",
+        HttpMethod.GET,
+        null,
+        GameState.class,
+        sessionId,
+        this.stateVersion,
+        timeoutInSeconds
+    );
+    if (gameStateResponseEntity.getStatusCode().value() == 304) {
+      return null;
+    }
+
+    // the ETag holds the version of the state
+    String eTag = gameStateResponseEntity.getHeaders().getETag();
+    if (eTag != null) {
+      this.stateVersion = Long.parseLong(eTag.replace("W/", "").replace("\"", ""));
+    }
+    return gameStateResponseEntity.getBody();
+  }
+
   /**
    * This method is used to join an existing GameSession
    *
@@ -143,13 +193,19 @@ public class RequestHandler {
    */
   public boolean makeMove(String sessionId, MoveRequest moveRequest) throws InvalidMove {
     try {
-      restTemplate.exchange(
+      ResponseEntity<MoveResponse> moveResponseEntity = restTemplate.exchange(
           this.baseUrl + "/api/gamesession/{sessionId}/move",
           HttpMethod.POST,
           new HttpEntity<>(moveRequest),
-          Void.class,
+          MoveResponse.class,
           sessionId
       );
+      // the state of the own move is already known, wait for the next one instead, unless the
+      // move ended the game and the final state still has to be seen
+      MoveResponse moveResponse = moveResponseEntity.getBody();
+      if (moveResponse != null && !moveResponse.isGameOver()) {
+        this.stateVersion = Math.max(this.stateVersion, moveResponse.getStateVersion());
+      }
       return true;
     } catch (HttpClientErrorException e) {
       int code = e.getStatusCode().value();
@@ -173,6 +229,22 @@ public class RequestHandler {
     }
   }
 
+  /**
+   * This method is used to make moves in several GameSessions with one request
+   *
+   * @param moveRequests SessionMoveRequests which are the moves to make, one per GameSession
+   * @return MoveResponses which hold the status of every move, in the same order
+   */
+  public MoveResponse[] makeMoves(SessionMoveRequest[] moveRequests) {
+    ResponseEntity<MoveResponse[]> moveResponseEntity = restTemplate.exchange(
+        this.baseUrl + "/api/gamesession/moves",
+        HttpMethod.POST,
+        new HttpEntity<>(moveRequests),
+        MoveResponse[].class
+    );
+    return moveResponseEntity.getBody();
+  }
+
   public static void main(String[] args) {
     RequestHandler requestHandler = new RequestHandler();
     CtfApplication.main(args);
@@ -1,5 +1,6 @@
 package de.unimannheim.swt.pse.ai.mcts;
 
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
 import de.unimannheim.swt.pse.server.game.exceptions.GameOver;
 import de.unimannheim.swt.pse.server.game.exceptions.InvalidMove;
 import de.unimannheim.swt.pse.server.game.state.GameState;
@@ -15,6 +16,7 @@ import java.util.Random;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Simulates a game based on the current game state, handling moves and conflicts within the game to
@@ -26,6 +28,10 @@ public class GameSimulator {
 
   private GameState gameState;
   private MoveSelector moveSelector;
+  /**
+   * Generator for the random moves of the simulation
+   */
+  private final SplittableRandom random;
 
   private boolean gameOver;
   private int master;
@@ -40,8 +46,31 @@ public class GameSimulator {
    * @author ohandsch
    */
   public GameSimulator(GameState gameState) {
+    this(gameState, MoveGenerator.forState(gameState));
+  }
+
+  /**
+   * Constructs a GameSimulator with a given game state, sharing an existing move generator.
+   *
+   * @param gameState     the initial state of the game to be simulated.
+   * @param moveGenerator the move generator with all pieces of the game registered.
+   */
+  public GameSimulator(GameState gameState, MoveGenerator moveGenerator) {
+    this(gameState, moveGenerator, new SplittableRandom());
+  }
+
+  /**
+   * Constructs a GameSimulator whose random moves are drawn from the given generator, so a
+   * simulation can be repeated from the seed of the generator.
+   *
+   * @param gameState     the initial state of the game to be simulated.
+   * @param moveGenerator the move generator with all pieces of the game registered.
+   * @param random        the random generator, not shared with other threads.
+   */
+  public GameSimulator(GameState gameState, MoveGenerator moveGenerator, SplittableRandom random) {
+    this.random = random;
     this.gameState = gameState;
-    this.moveSelector = new MoveSelector(gameState);
+    this.moveSelector = new MoveSelector(gameState, moveGenerator);
     this.gameOver = false;
     this.master = gameState.getCurrentTeam();
   }
@@ -60,7 +89,7 @@ public class GameSimulator {
 
       //Move move = moveSelector.selectRandomMove();
       //Move move = moveSelector.selectRandomMoveFast();
-      Move move = moveSelector.selectRandomMove();
+      Move move = moveSelector.selectRandomMove(this.random);
 
       //System.out.println("move selected");
       if (move == null) {
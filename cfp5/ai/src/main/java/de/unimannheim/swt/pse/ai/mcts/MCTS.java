@@ -1,8 +1,13 @@
 package de.unimannheim.swt.pse.ai.mcts;
 
+import de.unimannheim.swt.pse.ai.playout.GridMoveGenerator;
+import de.unimannheim.swt.pse.ai.playout.PlayoutBoard;
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
 import de.unimannheim.swt.pse.server.game.state.GameState;
 import de.unimannheim.swt.pse.server.game.state.Move;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.SplittableRandom;
 
 /**
  * Main class of the MCTS algorithm where the best possible move is calculated and the game tree is
@@ -12,6 +17,16 @@ public class MCTS {
 
   private final MCTSNode root;
   private final int botTeamId;
+  private final MoveGenerator moveGenerator;
+  private final PlayoutBoard playoutBoard;
+  /**
+   * Generator for the moves of expanded nodes, keeping the board encoded between the nodes
+   */
+  private final GridMoveGenerator gridMoveGenerator;
+  /**
+   * Generator for the random choices of the search
+   */
+  private final SplittableRandom random;
 
   /**
    * Constructor initializes an MCTS instance with the initial game state.
@@ -20,8 +35,27 @@ public class MCTS {
    * @author ohandsch
    */
   public MCTS(GameState initialState) {
+    this(initialState, new SplittableRandom());
+  }
+
+  /**
+   * Constructor initializes an MCTS instance whose random choices are drawn from the given seed, so
+   * a search with the same number of iterations can be repeated.
+   *
+   * @param initialState the initial state of the game.
+   * @param seed         the seed of the random choices.
+   */
+  public MCTS(GameState initialState, long seed) {
+    this(initialState, new SplittableRandom(seed));
+  }
+
+  private MCTS(GameState initialState, SplittableRandom random) {
     this.root = new MCTSNode(initialState);
     this.botTeamId = initialState.getCurrentTeam();
+    this.moveGenerator = MoveGenerator.forState(initialState);
+    this.random = random;
+    this.playoutBoard = new PlayoutBoard(this.moveGenerator, random);
+    this.gridMoveGenerator = new GridMoveGenerator(this.moveGenerator);
   }
 
 
@@ -37,12 +71,14 @@ public class MCTS {
     long endTime = System.currentTimeMillis() + timeLimitMillis;
     while (System.currentTimeMillis() < endTime) {
       MCTSNode selectedNode = selectPromisingNode(root);
-      if (!isTerminal(selectedNode)) {
-        expandNode(selectedNode);
-      }
       MCTSNode nodeToExplore = selectedNode;
-      if (!selectedNode.getChildren().isEmpty()) {
-        nodeToExplore = selectedNode.getRandomChildNode();
+      if (!isTerminal(selectedNode)) {
+        MCTSNode newNode = expandNode(selectedNode);
+        if (newNode != null) {
+          nodeToExplore = newNode;
+        } else if (!selectedNode.getChildren().isEmpty()) {
+          nodeToExplore = selectedNode.getRandomChildNode(this.random);
+        }
       }
       boolean won = simulateRandomPlayout(nodeToExplore);
       backPropagate(nodeToExplore, won);
@@ -52,7 +88,7 @@ public class MCTS {
 
   /**
    * Selects the most promising node to explore next based on the Upper Confidence Bound (UCB)
-   * applied to trees.
+   * applied to trees. Stops at the first node that may get another child.
    *
    * @param rootNode the root node of the current MCTS tree.
    * @return the most promising node to explore next.
@@ -60,27 +96,42 @@ public class MCTS {
    */
   private MCTSNode selectPromisingNode(MCTSNode rootNode) {
     MCTSNode node = rootNode;
-    while (!node.getChildren().isEmpty()) {
+    while (!isTerminal(node) && !node.canWiden() && !node.getChildren().isEmpty()) {
       node = node.findUCBChild();
     }
     return node;
   }
 
   /**
-   * Expands a node by creating new child nodes for all possible moves from the node's game state.
+   * Expands a node by creating a child node for its most promising untried move. The moves are
+   * ordered by {@link MoveSelector#getPrioritizedMoves} when the node is expanded for the first
+   * time. The root gets a child for every move at once, so every move of the bot is compared.
    *
    * @param node the node to expand.
+   * @return the child node of the most promising move, null if the node has no untried moves.
    * @author ohandsch
    */
-  public void expandNode(MCTSNode node) {
-    List<Move> possibleMoves = new MoveSelector(node.getState()).getAllPossibleMoves();
-    for (Move move : possibleMoves) {
+  public MCTSNode expandNode(MCTSNode node) {
+    if (node.getUntriedMoves() == null) {
+      node.setUntriedMoves(new ArrayDeque<>(new MoveSelector(node.getState(),
+          this.gridMoveGenerator).getPrioritizedMoves(this.random)));
+    }
+    Deque<Move> untriedMoves = node.getUntriedMoves();
+    MCTSNode firstNode = null;
+    do {
+      Move move = untriedMoves.pollFirst();
+      if (move == null) {
+        break;
+      }
       Pair<GameState, Boolean> result = simulateMove(node.getState(), move);
-      GameState newState = result.first;
-      MCTSNode newNode = new MCTSNode(node, newState);
+      MCTSNode newNode = new MCTSNode(node, result.first);
       newNode.setGameOver(result.second);
       node.addChild(newNode);
-    }
+      if (firstNode == null) {
+        firstNode = newNode;
+      }
+    } while (node == this.root);
+    return firstNode;
   }
 
   /**
@@ -91,9 +142,12 @@ public class MCTS {
    * @author ohandsch
    */
   private boolean simulateRandomPlayout(MCTSNode node) {
-    GameState copiedState = GameStateCopier.deepCopy(node.getState());
-    GameSimulator simulator = new GameSimulator(copiedState);
-    return botTeamId == simulator.simulateGame();
+    if (node.isGameOver()) {
+      // the game ended with the move leading to the node, so the team that made it won
+      return String.valueOf(botTeamId).equals(node.getState().getLastMove().getTeamId());
+    }
+    this.playoutBoard.load(node.getState());
+    return botTeamId == this.playoutBoard.randomPlayout();
   }
 
   /**
@@ -135,7 +189,7 @@ public class MCTS {
    */
   public Pair<GameState, Boolean> simulateMove(GameState state, Move move) {
     GameState copiedState = GameStateCopier.deepCopy(state);
-    GameSimulator gameSimulator = new GameSimulator(copiedState);
+    GameSimulator gameSimulator = new GameSimulator(copiedState, this.moveGenerator);
     gameSimulator.makeMove(move);
     boolean gameOver = gameSimulator.isGameOver();
     GameState newState = gameSimulator.getGameState();
@@ -150,14 +204,7 @@ public class MCTS {
    * @author ohandsch
    */
   private Move findBestMove(MCTSNode rootNode) {
-    Move move = rootNode.findBestChild().getState().getLastMove();
-    System.out.println(
-        "Root visits: " + rootNode.getVisitCount() + " Win rate: "
-            + rootNode.findBestChild().getWinScore() / rootNode.findBestChild().getVisitCount());
-    System.out.println(
-        "Best move found piece: " + move.getPieceId() + "x" + move.getNewPosition()[0] + "y"
-            + move.getNewPosition()[1]);
-    return move;
+    return rootNode.findBestChild().getState().getLastMove();
   }
 
   public MCTSNode getRoot() {
@@ -1,14 +1,25 @@
 package de.unimannheim.swt.pse.ai.mcts;
 
 import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
- * Represents a node in the Monte Carlo Tree Search (MCTS) tree.
+ * Represents a node in the Monte Carlo Tree Search (MCTS) tree. Children are added by progressive
+ * widening: a node may have {@code 1 + visits^0.5} children, taken from its untried moves in the
+ * order of their prior.
  */
 public class MCTSNode {
 
+  /**
+   * Exponent of the visits in the number of children a node may have
+   */
+  private static final double WIDENING_EXPONENT = 0.5;
+
   /**
    * Represents the state of the game at this node
    */
@@ -39,6 +50,11 @@ public class MCTSNode {
    */
   private boolean gameOver = false;
 
+  /**
+   * Moves not expanded yet, best first. Null until the node is expanded for the first time
+   */
+  private Deque<Move> untriedMoves;
+
   /**
    * Constructor for a new MCTSNode with a given game state.
    *
@@ -73,7 +89,7 @@ public class MCTSNode {
    */
   public MCTSNode findUCBChild() {
     MCTSNode bestChild = null;
-    double maxUCB1 = Double.MIN_VALUE;
+    double maxUCB1 = Double.NEGATIVE_INFINITY;
     for (MCTSNode child : children) {
       double ucb1Value = child.getUCB1Score();
       if (ucb1Value > maxUCB1) {
@@ -92,7 +108,7 @@ public class MCTSNode {
    */
   public MCTSNode findBestChild() {
     MCTSNode bestChild = null;
-    double maxScore = Double.MIN_VALUE;
+    double maxScore = Double.NEGATIVE_INFINITY;
     for (MCTSNode child : children) {
       double score = child.winScore / child.visitCount;
       if (score > maxScore) {
@@ -133,6 +149,18 @@ public class MCTSNode {
     }
   }
 
+  /**
+   * @return true if the node was never expanded or has untried moves and enough visits for another
+   * child, false otherwise.
+   */
+  public boolean canWiden() {
+    if (untriedMoves == null) {
+      return true;
+    }
+    return !untriedMoves.isEmpty()
+        && children.size() < 1 + (int) Math.pow(visitCount, WIDENING_EXPONENT);
+  }
+
   /**
    * Selects a random child node from this node's children.
    *
@@ -140,8 +168,17 @@ public class MCTSNode {
    * @author ohandsch
    */
   public MCTSNode getRandomChildNode() {
-    int randomIndex = (int) (Math.random() * children.size());
-    return children.get(randomIndex);
+    return getRandomChildNode(ThreadLocalRandom.current());
+  }
+
+  /**
+   * Selects a random child node from this node's children.
+   *
+   * @param random the random generator of the searching thread.
+   * @return a randomly selected child node.
+   */
+  public MCTSNode getRandomChildNode(RandomGenerator random) {
+    return children.get(random.nextInt(children.size()));
   }
 
   /**
@@ -203,5 +240,13 @@ public class MCTSNode {
     this.gameOver = gameOver;
   }
 
+  public Deque<Move> getUntriedMoves() {
+    return untriedMoves;
+  }
+
+  public void setUntriedMoves(Deque<Move> untriedMoves) {
+    this.untriedMoves = untriedMoves;
+  }
+
 }
 
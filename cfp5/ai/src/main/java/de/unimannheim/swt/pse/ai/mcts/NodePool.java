@@ -0,0 +1,345 @@
+package de.unimannheim.swt.pse.ai.mcts;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size pool of MCTS nodes stored as parallel primitive arrays. A node is an index into the
+ * arrays and holds only the packed move leading to it and its statistics, the game state of a node
+ * is rebuilt by replaying the moves from the root.
+ *
+ * <p>The children of a node form a linked list through {@link #getNextSibling(int)}. Freed nodes
+ * are kept in a free list, so when the pool is full the least visited subtrees can be recycled
+ * with {@link #recycle(int, int)} and the search keeps running in bounded memory.</p>
+ *
+ * <p>Nodes are widened progressively like {@link MCTSNode}: an expanded node knows the number of
+ * its moves and how many of them were tried, i.e. got a child. The next untried move is the one
+ * at that cursor in the move order of the search, and a node may have {@code 1 + visits^0.5}
+ * children.</p>
+ */
+public class NodePool {
+
+  /**
+   * Index used for a missing parent, child or sibling
+   */
+  public static final int NONE = -1;
+
+  private static final byte ALIVE = 1;
+  private static final byte EXPANDED = 2;
+  private static final byte TERMINAL = 4;
+  /**
+   * Exponent of the visits bounding the number of children of a node
+   */
+  private static final double WIDENING_EXPONENT = 0.5;
+
+  private final int[] moves;
+  private final int[] parents;
+  private final int[] firstChildren;
+  /**
+   * Next sibling of a node, or the next free node for freed nodes
+   */
+  private final int[] nextSiblings;
+  /**
+   * Number of legal moves of an expanded node
+   */
+  private final int[] moveCounts;
+  /**
+   * Number of moves of a node that got a child, the cursor to its next untried move
+   */
+  private final int[] triedMoves;
+  private final int[] visitCounts;
+  private final double[] winScores;
+  private final byte[] flags;
+  private final byte[] winners;
+
+  /**
+   * Number of nodes ever taken from the end of the arrays
+   */
+  private int highWater;
+  /**
+   * First node of the free list
+   */
+  private int freeHead = NONE;
+  private int size;
+  /**
+   * Scratch space for freeing subtrees and sorting nodes by visits
+   */
+  private final int[] stack;
+  private long[] sortKeys;
+
+  /**
+   * @param capacity the maximum number of nodes.
+   */
+  public NodePool(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.moves = new int[capacity];
+    this.parents = new int[capacity];
+    this.firstChildren = new int[capacity];
+    this.nextSiblings = new int[capacity];
+    this.moveCounts = new int[capacity];
+    this.triedMoves = new int[capacity];
+    this.visitCounts = new int[capacity];
+    this.winScores = new double[capacity];
+    this.flags = new byte[capacity];
+    this.winners = new byte[capacity];
+    this.stack = new int[capacity];
+  }
+
+  /**
+   * Takes a node from the pool and adds it as first child of its parent. The move counts as tried
+   * for the parent.
+   *
+   * @param parent the parent node, {@link #NONE} for a root.
+   * @param move   the packed move leading to the node.
+   * @return the new node, {@link #NONE} if the pool is full.
+   */
+  public int allocate(int parent, int move) {
+    int node;
+    if (this.freeHead != NONE) {
+      node = this.freeHead;
+      this.freeHead = this.nextSiblings[node];
+    } else if (this.highWater < this.moves.length) {
+      node = this.highWater++;
+    } else {
+      return NONE;
+    }
+    this.size++;
+    this.moves[node] = move;
+    this.parents[node] = parent;
+    this.firstChildren[node] = NONE;
+    this.moveCounts[node] = 0;
+    this.triedMoves[node] = 0;
+    this.visitCounts[node] = 0;
+    this.winScores[node] = 0;
+    this.flags[node] = ALIVE;
+    this.winners[node] = 0;
+    if (parent != NONE) {
+      this.nextSiblings[node] = this.firstChildren[parent];
+      this.firstChildren[parent] = node;
+      this.triedMoves[parent]++;
+    } else {
+      this.nextSiblings[node] = NONE;
+    }
+    return node;
+  }
+
+  /**
+   * Removes all children of a node from the tree and returns them and their subtrees to the pool.
+   * The statistics of the node itself are kept, it just is no longer expanded and has no tried
+   * moves.
+   *
+   * @param node the node to collapse.
+   */
+  public void collapse(int node) {
+    int top = 0;
+    for (int child = this.firstChildren[node]; child != NONE; child = this.nextSiblings[child]) {
+      this.stack[top++] = child;
+    }
+    while (top > 0) {
+      int freed = this.stack[--top];
+      for (int child = this.firstChildren[freed]; child != NONE;
+          child = this.nextSiblings[child]) {
+        this.stack[top++] = child;
+      }
+      this.flags[freed] = 0;
+      this.parents[freed] = NONE;
+      this.nextSiblings[freed] = this.freeHead;
+      this.freeHead = freed;
+      this.size--;
+    }
+    this.firstChildren[node] = NONE;
+    this.triedMoves[node] = 0;
+    this.flags[node] &= ~EXPANDED;
+  }
+
+  /**
+   * Collapses the expanded nodes with the fewest visits until at least the given number of nodes is
+   * free. The root stays expanded.
+   *
+   * @param root     the root of the tree.
+   * @param required the number of free nodes needed.
+   */
+  public void recycle(int root, int required) {
+    if (getFreeCount() >= required) {
+      return;
+    }
+    if (this.sortKeys == null) {
+      this.sortKeys = new long[this.moves.length];
+    }
+    int count = 0;
+    for (int node = 0; node < this.highWater; node++) {
+      if (node != root && (this.flags[node] & (ALIVE | EXPANDED)) == (ALIVE | EXPANDED)) {
+        this.sortKeys[count++] = (long) this.visitCounts[node] << 32 | node;
+      }
+    }
+    Arrays.sort(this.sortKeys, 0, count);
+    for (int i = 0; i < count && getFreeCount() < required; i++) {
+      int node = (int) this.sortKeys[i];
+      // the node may be gone already because a parent was collapsed before it
+      if (isAlive(node) && isExpanded(node)) {
+        collapse(node);
+      }
+    }
+  }
+
+  /**
+   * Makes a node the root of the tree by freeing every node that is not below it.
+   *
+   * @param oldRoot the current root of the tree.
+   * @param newRoot a node below the current root.
+   */
+  public void reroot(int oldRoot, int newRoot) {
+    if (oldRoot == newRoot) {
+      return;
+    }
+    // detach the new root, so freeing the old tree does not reach it
+    int parent = this.parents[newRoot];
+    if (this.firstChildren[parent] == newRoot) {
+      this.firstChildren[parent] = this.nextSiblings[newRoot];
+    } else {
+      int sibling = this.firstChildren[parent];
+      while (this.nextSiblings[sibling] != newRoot) {
+        sibling = this.nextSiblings[sibling];
+      }
+      this.nextSiblings[sibling] = this.nextSiblings[newRoot];
+    }
+    this.parents[newRoot] = NONE;
+    this.nextSiblings[newRoot] = NONE;
+    release(oldRoot);
+  }
+
+  /**
+   * Returns a node and its subtree to the pool.
+   *
+   * @param node a root node.
+   */
+  public void release(int node) {
+    collapse(node);
+    this.flags[node] = 0;
+    this.nextSiblings[node] = this.freeHead;
+    this.freeHead = node;
+    this.size--;
+  }
+
+  /**
+   * Adds the result of a playout to a node and all of its parents.
+   *
+   * @param node  the node the playout started from.
+   * @param score the score of the playout.
+   */
+  public void backPropagate(int node, double score) {
+    for (int current = node; current != NONE; current = this.parents[current]) {
+      this.visitCounts[current]++;
+      this.winScores[current] += score;
+    }
+  }
+
+  /**
+   * @return the number of nodes that can still be allocated.
+   */
+  public int getFreeCount() {
+    return this.moves.length - this.size;
+  }
+
+  /**
+   * @return the number of nodes in use.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * @return the maximum number of nodes.
+   */
+  public int getCapacity() {
+    return this.moves.length;
+  }
+
+  public int getMove(int node) {
+    return this.moves[node];
+  }
+
+  public int getParent(int node) {
+    return this.parents[node];
+  }
+
+  public int getFirstChild(int node) {
+    return this.firstChildren[node];
+  }
+
+  public int getNextSibling(int node) {
+    return this.nextSiblings[node];
+  }
+
+  public int getVisitCount(int node) {
+    return this.visitCounts[node];
+  }
+
+  public double getWinScore(int node) {
+    return this.winScores[node];
+  }
+
+  public boolean isAlive(int node) {
+    return (this.flags[node] & ALIVE) != 0;
+  }
+
+  public boolean isExpanded(int node) {
+    return (this.flags[node] & EXPANDED) != 0;
+  }
+
+  /**
+   * Marks a node as expanded, its moves are known from now on.
+   *
+   * @param node      the node.
+   * @param moveCount the number of legal moves of the node.
+   */
+  public void setExpanded(int node, int moveCount) {
+    this.flags[node] |= EXPANDED;
+    this.moveCounts[node] = moveCount;
+  }
+
+  public int getMoveCount(int node) {
+    return this.moveCounts[node];
+  }
+
+  public int getTriedMoves(int node) {
+    return this.triedMoves[node];
+  }
+
+  /**
+   * @param node the node.
+   * @return true if the node is expanded and has untried moves.
+   */
+  public boolean hasUntriedMoves(int node) {
+    return isExpanded(node) && this.triedMoves[node] < this.moveCounts[node];
+  }
+
+  /**
+   * @param node the node.
+   * @return true if the node has untried moves and enough visits for another child.
+   */
+  public boolean canWiden(int node) {
+    return hasUntriedMoves(node)
+        && this.triedMoves[node] < 1 + (int) Math.pow(this.visitCounts[node], WIDENING_EXPONENT);
+  }
+
+  public boolean isTerminal(int node) {
+    return (this.flags[node] & TERMINAL) != 0;
+  }
+
+  /**
+   * Marks a node as the end of the game.
+   *
+   * @param node   the node.
+   * @param winner the ID of the winning team.
+   */
+  public void setTerminal(int node, int winner) {
+    this.flags[node] |= TERMINAL;
+    this.winners[node] = (byte) winner;
+  }
+
+  public int getWinner(int node) {
+    return this.winners[node];
+  }
+}
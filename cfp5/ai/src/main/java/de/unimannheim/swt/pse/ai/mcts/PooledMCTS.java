@@ -0,0 +1,407 @@
+package de.unimannheim.swt.pse.ai.mcts;
+
+import de.unimannheim.swt.pse.ai.playout.PlayoutBoard;
+import de.unimannheim.swt.pse.server.game.board.Board;
+import de.unimannheim.swt.pse.server.game.board.MoveBuffer;
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * MCTS search on a {@link NodePool}. Nodes only store their move and statistics, the game state of
+ * a node is rebuilt on a {@link PlayoutBoard} by making the moves from the root to the node and is
+ * taken back after the playout. When the pool runs full, the least visited subtrees are recycled, so
+ * the search can run as long as needed in bounded memory.
+ *
+ * <p>Selection, expansion, playouts and the choice of the best move work like in {@link MCTS}. A
+ * node is widened progressively, one child at a time in the order of {@link #orderMoves()}, while
+ * {@link NodePool#canWiden(int)} allows it. The root gets a child for every move at once, so every
+ * move of the bot is compared.</p>
+ */
+public class PooledMCTS {
+
+  /**
+   * Default maximum number of nodes of the tree
+   */
+  public static final int DEFAULT_CAPACITY = 1 << 19;
+  /**
+   * Number of nodes kept free for expansions, subtrees are recycled when fewer nodes are free
+   */
+  private static final int EXPANSION_RESERVE = 1024;
+
+  private final NodePool pool;
+  private final PlayoutBoard board;
+  private final MoveBuffer moveBuffer = new MoveBuffer();
+  /**
+   * Moves of the node being widened as sort keys, see {@link #orderMoves()}
+   */
+  private long[] moveOrder = new long[64];
+  /**
+   * Salt of the hash ordering moves of the same kind, so no piece or direction is preferred
+   */
+  private final int orderSalt;
+  private final int botTeamId;
+  /**
+   * Free nodes below which subtrees are recycled
+   */
+  private final int expansionReserve;
+  /**
+   * Generator for the random choices of the search and of the pondering, which never run at the
+   * same time
+   */
+  private final SplittableRandom random;
+  private int root;
+
+  /**
+   * Constructor initializes a search with the default node capacity.
+   *
+   * @param initialState the initial state of the game.
+   */
+  public PooledMCTS(GameState initialState) {
+    this(initialState, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructor initializes a search on a pool with the given capacity.
+   *
+   * @param initialState the initial state of the game.
+   * @param capacity     the maximum number of nodes of the tree.
+   */
+  public PooledMCTS(GameState initialState, int capacity) {
+    this(initialState, capacity, new SplittableRandom());
+  }
+
+  /**
+   * Constructor initializes a search on a pool with the given capacity, whose random choices are
+   * drawn from the given seed.
+   *
+   * @param initialState the initial state of the game.
+   * @param capacity     the maximum number of nodes of the tree.
+   * @param seed         the seed of the random choices.
+   */
+  public PooledMCTS(GameState initialState, int capacity, long seed) {
+    this(initialState, capacity, new SplittableRandom(seed));
+  }
+
+  private PooledMCTS(GameState initialState, int capacity, SplittableRandom random) {
+    this.pool = new NodePool(capacity);
+    this.random = random;
+    this.orderSalt = random.nextInt();
+    this.board = new PlayoutBoard(MoveGenerator.forState(initialState), random);
+    this.board.load(initialState);
+    this.botTeamId = initialState.getCurrentTeam();
+    this.expansionReserve = Math.min(EXPANSION_RESERVE, capacity / 8);
+    this.root = this.pool.allocate(NodePool.NONE, 0);
+  }
+
+  /**
+   * Moves the root of the tree to a new game state of the bot's turn, keeping the subtree and the
+   * statistics of the new root. The new root is found by following the move of the bot and the last
+   * move of the new state, so the subtree is only reused if these moves lead exactly to the new
+   * state.
+   *
+   * @param ownMove  the move the bot made from the current root.
+   * @param newState the game state at the start of the bot's next turn.
+   * @return true if the subtree was reused, false if the tree is unchanged and should be replaced.
+   */
+  public boolean advance(Move ownMove, GameState newState) {
+    if (newState.getCurrentTeam() != this.botTeamId) {
+      return false;
+    }
+    int node = findChild(this.root, ownMove);
+    if (node != NodePool.NONE) {
+      this.board.makeMove(this.pool.getMove(node));
+      Move lastMove = newState.getLastMove();
+      if (lastMove != null && !String.valueOf(this.botTeamId).equals(lastMove.getTeamId())) {
+        node = findChild(node, lastMove);
+        if (node != NodePool.NONE) {
+          this.board.makeMove(this.pool.getMove(node));
+        }
+      }
+    }
+    boolean matches = node != NodePool.NONE && matchesBoard(newState);
+    this.board.reset();
+    if (!matches) {
+      return false;
+    }
+
+    this.pool.reroot(this.root, node);
+    this.root = node;
+    this.board.load(newState);
+    return true;
+  }
+
+  /**
+   * Performs the MCTS search until the time limit is reached.
+   *
+   * @param timeLimitMillis the time limit for the search in milliseconds.
+   * @return the best move found during the search, null if there is no move.
+   */
+  public Move search(long timeLimitMillis) {
+    long endTime = System.currentTimeMillis() + timeLimitMillis;
+    do {
+      iterate();
+    } while (System.currentTimeMillis() < endTime);
+    return findBestMove();
+  }
+
+  /**
+   * Keeps searching the replies of the other teams to the move of the bot until stopped, so the
+   * subtree reused by {@link #advance(Move, GameState)} in the next turn is already grown.
+   *
+   * @param ownMove the move the bot made from the current root.
+   * @param stop    set by another thread to end the pondering.
+   */
+  public void ponder(Move ownMove, AtomicBoolean stop) {
+    int node = findChild(this.root, ownMove);
+    if (node == NodePool.NONE || this.pool.isTerminal(node)) {
+      return;
+    }
+    while (!stop.get()) {
+      iterate(node);
+    }
+  }
+
+  /**
+   * Runs one selection, expansion, playout and backpropagation, starting and ending with the board
+   * in the state of the root.
+   */
+  private void iterate() {
+    iterate(this.root);
+  }
+
+  /**
+   * Runs one selection, expansion, playout and backpropagation below a node, starting and ending
+   * with the board in the state of the root.
+   *
+   * @param start the root or a child of the root to select from.
+   */
+  private void iterate(int start) {
+    if (this.pool.getFreeCount() <= this.expansionReserve) {
+      // free a quarter of the pool at once, so the nodes are not sorted again right away
+      this.pool.recycle(this.root, this.pool.getCapacity() / 4);
+    }
+
+    int node = this.root;
+    if (start != this.root) {
+      node = start;
+      this.board.makeMove(this.pool.getMove(node));
+    }
+    while (!this.pool.isTerminal(node) && !canWiden(node)
+        && this.pool.getFirstChild(node) != NodePool.NONE) {
+      node = findUCBChild(node);
+      this.board.makeMove(this.pool.getMove(node));
+    }
+
+    if (!this.pool.isTerminal(node)) {
+      int child = widenNode(node);
+      if (child == NodePool.NONE) {
+        // the node has no moves or the pool is full
+        child = getRandomChild(node);
+      }
+      if (child != NodePool.NONE) {
+        node = child;
+        this.board.makeMove(this.pool.getMove(node));
+      }
+    }
+
+    int winner = this.pool.isTerminal(node) ? this.pool.getWinner(node)
+        : this.board.randomPlayout();
+    this.pool.backPropagate(node, winner == this.botTeamId ? 1.0 : 0.0);
+    this.board.reset();
+  }
+
+  /**
+   * @param node a node that is not terminal.
+   * @return true if the node was never expanded or may get another child, the root may get all of
+   * its moves.
+   */
+  private boolean canWiden(int node) {
+    if (!this.pool.isExpanded(node)) {
+      return true;
+    }
+    return node == this.root ? this.pool.hasUntriedMoves(node) : this.pool.canWiden(node);
+  }
+
+  /**
+   * Creates a child for the next untried move from the state on the board, or for all untried moves
+   * of the root. Children ending the game are marked as terminal. The first expansion of a node
+   * stores the number of its moves.
+   *
+   * @param node the node to widen, its state is on the board.
+   * @return the first new child, {@link NodePool#NONE} if the node has no untried moves or the
+   * pool is full.
+   */
+  private int widenNode(int node) {
+    this.board.generateMoves(this.moveBuffer);
+    if (!this.pool.isExpanded(node)) {
+      this.pool.setExpanded(node, this.moveBuffer.size());
+    }
+    int tried = this.pool.getTriedMoves(node);
+    int end = node == this.root ? this.moveBuffer.size()
+        : Math.min(tried + 1, this.moveBuffer.size());
+    if (tried >= end) {
+      return NodePool.NONE;
+    }
+    orderMoves();
+    int firstChild = NodePool.NONE;
+    for (int i = tried; i < end; i++) {
+      int move = (int) this.moveOrder[i];
+      int child = this.pool.allocate(node, move);
+      if (child == NodePool.NONE) {
+        break;
+      }
+      this.board.makeMove(move);
+      if (this.board.isGameOver()) {
+        this.pool.setTerminal(child, this.board.getWinner());
+      }
+      this.board.unmakeMove();
+      if (firstChild == NodePool.NONE) {
+        firstChild = child;
+      }
+    }
+    return firstChild;
+  }
+
+  /**
+   * Orders the moves in the move buffer into {@link #moveOrder}: captures of a base first, then
+   * captures of pieces, then all other moves, and moves of the same kind by a salted hash. The
+   * order only depends on the moves and not on the order they were generated in, so the tried
+   * moves of a node are always the first ones.
+   */
+  private void orderMoves() {
+    int size = this.moveBuffer.size();
+    if (this.moveOrder.length < size) {
+      this.moveOrder = new long[Math.max(size, this.moveOrder.length * 2)];
+    }
+    for (int i = 0; i < size; i++) {
+      int move = this.moveBuffer.get(i);
+      long rank = MoveBuffer.BASE - MoveBuffer.kind(move);
+      int hash = (move ^ this.orderSalt) * 0x9E3779B9;
+      hash ^= hash >>> 16;
+      this.moveOrder[i] = rank << 61 | (long) (hash & 0x1FFFFFFF) << 32 | (move & 0xFFFFFFFFL);
+    }
+    Arrays.sort(this.moveOrder, 0, size);
+  }
+
+  /**
+   * Selects the child with the highest UCB1 score, unvisited children first.
+   *
+   * @param node the node to select a child of.
+   * @return the selected child.
+   */
+  private int findUCBChild(int node) {
+    double logParentVisits = Math.log(this.pool.getVisitCount(node));
+    int bestChild = NodePool.NONE;
+    double maxUCB1 = Double.NEGATIVE_INFINITY;
+    for (int child = this.pool.getFirstChild(node); child != NodePool.NONE;
+        child = this.pool.getNextSibling(child)) {
+      int visits = this.pool.getVisitCount(child);
+      if (visits == 0) {
+        return child;
+      }
+      double ucb1Value = this.pool.getWinScore(child) / visits
+          + Math.sqrt(2) * Math.sqrt(logParentVisits / visits);
+      if (ucb1Value > maxUCB1) {
+        maxUCB1 = ucb1Value;
+        bestChild = child;
+      }
+    }
+    return bestChild;
+  }
+
+  /**
+   * @param node the node to select a child of.
+   * @return a random child of the node, {@link NodePool#NONE} if it has none.
+   */
+  private int getRandomChild(int node) {
+    int count = 0;
+    for (int child = this.pool.getFirstChild(node); child != NodePool.NONE;
+        child = this.pool.getNextSibling(child)) {
+      count++;
+    }
+    if (count == 0) {
+      return NodePool.NONE;
+    }
+    int child = this.pool.getFirstChild(node);
+    for (int i = this.random.nextInt(count); i > 0; i--) {
+      child = this.pool.getNextSibling(child);
+    }
+    return child;
+  }
+
+  /**
+   * Finds the move of the child of the root with the highest win rate.
+   *
+   * @return the best move, null if the root has no children.
+   */
+  private Move findBestMove() {
+    int bestChild = NodePool.NONE;
+    double maxScore = Double.NEGATIVE_INFINITY;
+    for (int child = this.pool.getFirstChild(this.root); child != NodePool.NONE;
+        child = this.pool.getNextSibling(child)) {
+      double score = this.pool.getWinScore(child) / this.pool.getVisitCount(child);
+      if (score > maxScore) {
+        maxScore = score;
+        bestChild = child;
+      }
+    }
+    if (bestChild == NodePool.NONE) {
+      return null;
+    }
+    return this.board.toMove(this.pool.getMove(bestChild));
+  }
+
+  /**
+   * @param node the node to search the children of.
+   * @param move the move to search for.
+   * @return the child reached by the move, {@link NodePool#NONE} if the node has no such child.
+   */
+  private int findChild(int node, Move move) {
+    if (move == null || move.getNewPosition() == null) {
+      return NodePool.NONE;
+    }
+    for (int child = this.pool.getFirstChild(node); child != NodePool.NONE;
+        child = this.pool.getNextSibling(child)) {
+      int childMove = this.pool.getMove(child);
+      if (String.valueOf(MoveBuffer.pieceId(childMove)).equals(move.getPieceId())
+          && MoveBuffer.row(childMove) == move.getNewPosition()[0]
+          && MoveBuffer.col(childMove) == move.getNewPosition()[1]) {
+        return child;
+      }
+    }
+    return NodePool.NONE;
+  }
+
+  /**
+   * @param state a game state.
+   * @return true if the board holds the grid and the team to move of the game state.
+   */
+  private boolean matchesBoard(GameState state) {
+    String[][] grid = state.getGrid();
+    Board cells = this.board.getBoard();
+    if (this.board.getCurrentTeam() != state.getCurrentTeam() || grid.length != cells.getRows()
+        || grid[0].length != cells.getCols()) {
+      return false;
+    }
+    for (int i = 0; i < cells.getRows(); i++) {
+      for (int j = 0; j < cells.getCols(); j++) {
+        if (cells.get(i, j) != Board.encode(grid[i][j])) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  public NodePool getPool() {
+    return pool;
+  }
+
+  public int getRoot() {
+    return root;
+  }
+}
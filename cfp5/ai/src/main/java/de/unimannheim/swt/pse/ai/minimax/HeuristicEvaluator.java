@@ -28,19 +28,19 @@ public class HeuristicEvaluator {
     int evaluateCounter = 0;
 
     evaluateCounter += countPieces(state, isMaximizing);
-    if (evaluateCounter >= Math.abs(100)) {
+    if (Math.abs(evaluateCounter) >= 100) {
       return evaluateCounter;
     }
 
     evaluateCounter += countFlags(state, isMaximizing);
 
-    if (evaluateCounter >= Math.abs(100)) {
+    if (Math.abs(evaluateCounter) >= 100) {
       return evaluateCounter;
     }
 
     evaluateCounter += attackabilityOfOpponentsFlag(state, isMaximizing);
 
-    if (evaluateCounter >= Math.abs(100)) {
+    if (Math.abs(evaluateCounter) >= 100) {
       return evaluateCounter;
     }
 
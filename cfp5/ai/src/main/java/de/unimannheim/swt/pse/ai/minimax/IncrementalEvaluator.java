@@ -0,0 +1,476 @@
+package de.unimannheim.swt.pse.ai.minimax;
+
+import de.unimannheim.swt.pse.ai.playout.PlayoutBoard;
+import de.unimannheim.swt.pse.server.game.board.Board;
+import de.unimannheim.swt.pse.server.game.board.MoveBuffer;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Piece;
+import de.unimannheim.swt.pse.server.game.state.Team;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Evaluates positions like the {@link HeuristicEvaluator}, but keeps the features it needs up to
+ * date while the moves of the search are made and taken back, instead of scanning all pieces for
+ * every evaluation.
+ *
+ * <p>For every team and base, each piece has a key made of its distance to the base, its attack
+ * power and its id. The evaluator keeps the nearest piece of every team to every base and the
+ * number of pieces of every team near every base. A move only updates the keys of the moving and
+ * the captured piece, and only scans the pieces of a team again if its nearest piece moved away or
+ * was captured. The flags do not change during a search, so their part of the value is computed
+ * once when a state is loaded.</p>
+ *
+ * <p>Where the {@link HeuristicEvaluator} takes the first of equally near pieces in the order of
+ * the state, this evaluator takes the one with the highest attack power, so the value of a
+ * position does not depend on the moves that led to it.</p>
+ */
+public class IncrementalEvaluator {
+
+  private static final int ID_BITS = 9;
+  private static final int RANK_BITS = 11;
+  private static final int DISTANCE_SHIFT = ID_BITS + RANK_BITS;
+  private static final int NONE = -1;
+  /**
+   * Key of a piece that is not on the board
+   */
+  private static final int ABSENT = Integer.MAX_VALUE;
+  private static final int UNDO_SIZE = 5;
+
+  private int teamCount;
+  private int cols;
+  /**
+   * Distance up to which a piece is near a base, a third of the rows
+   */
+  private int radius;
+  /**
+   * Whether a team takes part in the game
+   */
+  private boolean[] active;
+  /**
+   * Cell of the base of every team, {@link #NONE} if the team has no base
+   */
+  private int[] bases;
+  /**
+   * Number of pieces of every team
+   */
+  private int[] pieceCounts;
+  /**
+   * Cell of every piece by team and piece id, {@link #NONE} if the piece is not on the board
+   */
+  private int[][] positions;
+  /**
+   * Rank of the attack power of every piece by team and piece id, 0 for the strongest pieces
+   */
+  private int[][] ranks;
+  /**
+   * Key of every piece by team, base and piece id
+   */
+  private int[][][] keys;
+  /**
+   * Id of the nearest piece of every team to every base, {@link #NONE} if the team has no pieces
+   */
+  private int[][] nearest;
+  /**
+   * Number of pieces of every team near every base
+   */
+  private int[][] near;
+  /**
+   * Value of the flags for every team to move, if it is maximizing or not
+   */
+  private int[][] flagValues;
+  /**
+   * Moves made since loading, with team, piece id, start cell ({@link #NONE} for moves onto a
+   * base), captured team and captured piece id
+   */
+  private int[] undo = new int[UNDO_SIZE * 64];
+  private int plies;
+
+  /**
+   * Loads the pieces and bases of a state.
+   *
+   * @param state the state the search starts from.
+   */
+  public void load(GameState state) {
+    Team[] teams = state.getTeams();
+    this.teamCount = teams.length;
+    this.cols = state.getGrid()[0].length;
+    this.radius = state.getGrid().length / 3;
+    this.active = new boolean[this.teamCount];
+    this.bases = new int[this.teamCount];
+    this.pieceCounts = new int[this.teamCount];
+    this.positions = new int[this.teamCount][];
+    this.ranks = new int[this.teamCount][];
+    this.keys = new int[this.teamCount][this.teamCount][];
+    this.nearest = new int[this.teamCount][this.teamCount];
+    this.near = new int[this.teamCount][this.teamCount];
+    this.plies = 0;
+
+    // strongest attack power first, so it gets the smallest rank
+    TreeSet<Integer> powers = new TreeSet<>();
+    int maxPieceId = 0;
+    for (Team team : teams) {
+      if (team != null && team.getPieces() != null) {
+        for (Piece piece : team.getPieces()) {
+          powers.add(-piece.getDescription().getAttackPower());
+          maxPieceId = Math.max(maxPieceId, Integer.parseInt(piece.getId()));
+        }
+      }
+    }
+    Integer[] sortedPowers = powers.toArray(new Integer[0]);
+
+    for (int t = 0; t < this.teamCount; t++) {
+      this.active[t] = teams[t] != null;
+      this.bases[t] = teams[t] != null && teams[t].getBase() != null
+          ? teams[t].getBase()[0] * this.cols + teams[t].getBase()[1] : NONE;
+    }
+    for (int t = 0; t < this.teamCount; t++) {
+      Team team = teams[t];
+      this.positions[t] = new int[maxPieceId + 1];
+      this.ranks[t] = new int[maxPieceId + 1];
+      Arrays.fill(this.positions[t], NONE);
+      for (int b = 0; b < this.teamCount; b++) {
+        this.keys[t][b] = new int[maxPieceId + 1];
+        Arrays.fill(this.keys[t][b], ABSENT);
+      }
+      if (team == null || team.getPieces() == null) {
+        continue;
+      }
+      for (Piece piece : team.getPieces()) {
+        int pieceId = Integer.parseInt(piece.getId());
+        int power = piece.getDescription().getAttackPower();
+        this.ranks[t][pieceId] = Arrays.binarySearch(sortedPowers, -power);
+        place(t, pieceId, piece.getPosition()[0] * this.cols + piece.getPosition()[1]);
+      }
+    }
+    for (int t = 0; t < this.teamCount; t++) {
+      for (int b = 0; b < this.teamCount; b++) {
+        this.nearest[t][b] = findNearest(t, b);
+      }
+    }
+
+    this.flagValues = new int[this.teamCount][2];
+    int currentTeam = state.getCurrentTeam();
+    for (int t = 0; t < this.teamCount; t++) {
+      if (this.active[t]) {
+        state.setCurrentTeam(t + 1);
+        this.flagValues[t][0] = HeuristicEvaluator.countFlags(state, false);
+        this.flagValues[t][1] = HeuristicEvaluator.countFlags(state, true);
+      }
+    }
+    state.setCurrentTeam(currentTeam);
+  }
+
+  /**
+   * Updates the features for a move. Must be called before the move is made on the board.
+   *
+   * @param board the board the move is made on.
+   * @param move  the packed move.
+   */
+  public void makeMove(PlayoutBoard board, int move) {
+    int t = board.getCurrentTeam() - 1;
+    int pieceId = MoveBuffer.pieceId(move);
+    if (this.undo.length < (this.plies + 1) * UNDO_SIZE) {
+      this.undo = Arrays.copyOf(this.undo, this.undo.length * 2);
+    }
+    int entry = this.plies++ * UNDO_SIZE;
+    this.undo[entry] = t;
+    this.undo[entry + 1] = pieceId;
+    this.undo[entry + 2] = NONE;
+    this.undo[entry + 3] = NONE;
+    this.undo[entry + 4] = NONE;
+    if (MoveBuffer.kind(move) == MoveBuffer.BASE) {
+      // reaching a base ends the game, the piece stays where it is
+      return;
+    }
+    int row = MoveBuffer.row(move);
+    int col = MoveBuffer.col(move);
+    if (MoveBuffer.kind(move) == MoveBuffer.CAPTURE) {
+      int target = board.getBoard().get(row, col);
+      int enemy = Board.team(target) - 1;
+      int enemyId = Board.pieceId(target);
+      this.undo[entry + 3] = enemy;
+      this.undo[entry + 4] = enemyId;
+      removePiece(enemy, enemyId);
+    }
+    this.undo[entry + 2] = this.positions[t][pieceId];
+    movePiece(t, pieceId, row * this.cols + col);
+  }
+
+  /**
+   * Takes back the last move of {@link #makeMove(PlayoutBoard, int)}.
+   */
+  public void unmakeMove() {
+    int entry = --this.plies * UNDO_SIZE;
+    int t = this.undo[entry];
+    int pieceId = this.undo[entry + 1];
+    int from = this.undo[entry + 2];
+    if (from == NONE) {
+      return;
+    }
+    int target = this.positions[t][pieceId];
+    movePiece(t, pieceId, from);
+    int enemy = this.undo[entry + 3];
+    if (enemy != NONE) {
+      int enemyId = this.undo[entry + 4];
+      place(enemy, enemyId, target);
+      for (int b = 0; b < this.teamCount; b++) {
+        if (this.keys[enemy][b][enemyId] < key(enemy, b, this.nearest[enemy][b])) {
+          this.nearest[enemy][b] = enemyId;
+        }
+      }
+    }
+  }
+
+  /**
+   * Evaluates the position like {@link HeuristicEvaluator#evaluate(GameState, boolean)}.
+   *
+   * @param currentTeam  the team to move.
+   * @param isMaximizing true if the team to move is the maximizing team.
+   * @return the value of the position.
+   */
+  public int evaluate(int currentTeam, boolean isMaximizing) {
+    int c = currentTeam - 1;
+    int sign = isMaximizing ? 1 : -1;
+    int value = countPieces(c, sign);
+    if (Math.abs(value) >= 100) {
+      return value;
+    }
+    value += this.flagValues[c][isMaximizing ? 1 : 0];
+    if (Math.abs(value) >= 100) {
+      return value;
+    }
+    value += attackabilityOfOpponentsFlag(c, sign);
+    if (Math.abs(value) >= 100) {
+      return value;
+    }
+    return value + protectionOfMyFlag(c, sign);
+  }
+
+  private int countPieces(int c, int sign) {
+    if (this.pieceCounts[c] == 0) {
+      return -sign * 100;
+    }
+    int count = 0;
+    int opponents = 0;
+    for (int t = 0; t < this.teamCount; t++) {
+      if (t != c && this.active[t] && this.pieceCounts[t] == 0) {
+        opponents++;
+      }
+    }
+    count += sign * opponents * (100 / this.teamCount - 1);
+    for (int t = 0; t < this.teamCount; t++) {
+      if (t == c || !this.active[t]) {
+        continue;
+      }
+      int difference = this.pieceCounts[c] - this.pieceCounts[t];
+      if (difference != 0) {
+        count += Integer.signum(difference) * sign * (15 + Math.abs(difference));
+        if (Math.abs(count) >= 100) {
+          return count;
+        }
+      }
+    }
+    return count;
+  }
+
+  private int attackabilityOfOpponentsFlag(int c, int sign) {
+    int myKey = ABSENT;
+    int opponentsKey = ABSENT;
+    int myNear = 0;
+    int opponentsNear = 0;
+    for (int b = 0; b < this.teamCount; b++) {
+      if (b == c || this.bases[b] == NONE) {
+        continue;
+      }
+      myKey = Math.min(myKey, key(c, b, this.nearest[c][b]));
+      myNear += this.near[c][b];
+      for (int t = 0; t < this.teamCount; t++) {
+        if (t != c) {
+          opponentsKey = Math.min(opponentsKey, key(t, b, this.nearest[t][b]));
+          opponentsNear += this.near[t][b];
+        }
+      }
+    }
+    return compareNearest(myKey, opponentsKey, myKey, sign) + compareNear(myNear, opponentsNear,
+        sign);
+  }
+
+  private int protectionOfMyFlag(int c, int sign) {
+    if (this.bases[c] == NONE) {
+      return 0;
+    }
+    int myKey = key(c, c, this.nearest[c][c]);
+    int opponentsKey = ABSENT;
+    int opponentsPiece = NONE;
+    int opponentsNear = 0;
+    for (int t = 0; t < this.teamCount; t++) {
+      if (t != c && key(t, c, this.nearest[t][c]) < opponentsKey) {
+        opponentsKey = key(t, c, this.nearest[t][c]);
+        opponentsPiece = t;
+      }
+      if (t != c) {
+        opponentsNear += this.near[t][c];
+      }
+    }
+    int count = compareNearest(myKey, opponentsKey, opponentsKey, sign)
+        + compareNear(this.near[c][c], opponentsNear, sign);
+    if (opponentsPiece != NONE && flagBetween(c, this.nearest[c][c], opponentsPiece,
+        this.nearest[opponentsPiece][c])) {
+      count -= sign * 20;
+    }
+    return count;
+  }
+
+  /**
+   * Compares the distances of the nearest pieces and, if the given piece is close to the base, their
+   * attack powers.
+   */
+  private int compareNearest(int myKey, int opponentsKey, int closeKey, int sign) {
+    int count = 0;
+    int myDistance = distanceOf(myKey);
+    int opponentsDistance = distanceOf(opponentsKey);
+    if (myDistance < opponentsDistance) {
+      count += sign * 10;
+    } else if (myDistance > opponentsDistance) {
+      count -= sign * 5;
+    }
+    if (myKey != ABSENT && opponentsKey != ABSENT && distanceOf(closeKey) < this.radius) {
+      // a smaller rank is a higher attack power
+      int myRank = rankOf(myKey);
+      int opponentsRank = rankOf(opponentsKey);
+      if (myRank < opponentsRank) {
+        count += sign * 10;
+      } else if (myRank > opponentsRank) {
+        count -= sign * 5;
+      }
+    }
+    return count;
+  }
+
+  private static int compareNear(int myNear, int opponentsNear, int sign) {
+    return Integer.signum(myNear - opponentsNear) * sign;
+  }
+
+  /**
+   * @return true if the base of the team lies between its nearest piece and the nearest enemy
+   * piece, like {@link HeuristicEvaluator#myFlagBetweenNearestPieces(GameState)}.
+   */
+  private boolean flagBetween(int c, int myPiece, int enemy, int enemyPiece) {
+    int base = this.bases[c];
+    int myPosition = this.positions[c][myPiece];
+    int enemyPosition = this.positions[enemy][enemyPiece];
+    int myX = myPosition / this.cols - base / this.cols;
+    int opponentsX = enemyPosition / this.cols - base / this.cols;
+    int myY = myPosition % this.cols - base % this.cols;
+    int opponentsY = enemyPosition % this.cols - base % this.cols;
+    boolean oppositeX = myX < 0 && opponentsX > 0 || myX > 0 && opponentsX < 0;
+    boolean oppositeY = myY < 0 && opponentsY > 0 || myY > 0 && opponentsY < 0;
+    boolean sameX = myX == 0 && opponentsX == 0;
+    boolean sameY = myY == 0 && opponentsY == 0;
+    return oppositeX && (oppositeY || sameY) || sameX && oppositeY;
+  }
+
+  /**
+   * Puts a piece on a cell and adds it to the near counts. The nearest pieces are not updated.
+   */
+  private void place(int t, int pieceId, int cell) {
+    this.positions[t][pieceId] = cell;
+    this.pieceCounts[t]++;
+    for (int b = 0; b < this.teamCount; b++) {
+      if (this.bases[b] != NONE) {
+        int distance = distance(cell, this.bases[b]);
+        this.keys[t][b][pieceId] = distance << DISTANCE_SHIFT | this.ranks[t][pieceId] << ID_BITS
+            | pieceId;
+        if (distance <= this.radius) {
+          this.near[t][b]++;
+        }
+      }
+    }
+  }
+
+  /**
+   * Takes a captured piece off the board.
+   */
+  private void removePiece(int t, int pieceId) {
+    for (int b = 0; b < this.teamCount; b++) {
+      if (this.bases[b] == NONE) {
+        continue;
+      }
+      if (distanceOf(this.keys[t][b][pieceId]) <= this.radius) {
+        this.near[t][b]--;
+      }
+      this.keys[t][b][pieceId] = ABSENT;
+      if (this.nearest[t][b] == pieceId) {
+        this.nearest[t][b] = findNearest(t, b);
+      }
+    }
+    this.positions[t][pieceId] = NONE;
+    this.pieceCounts[t]--;
+  }
+
+  /**
+   * Moves a piece to another cell. Only if the nearest piece to a base moves away, the other pieces
+   * of its team are scanned again.
+   */
+  private void movePiece(int t, int pieceId, int cell) {
+    this.positions[t][pieceId] = cell;
+    for (int b = 0; b < this.teamCount; b++) {
+      if (this.bases[b] == NONE) {
+        continue;
+      }
+      int oldKey = this.keys[t][b][pieceId];
+      int distance = distance(cell, this.bases[b]);
+      int newKey = distance << DISTANCE_SHIFT | this.ranks[t][pieceId] << ID_BITS | pieceId;
+      this.keys[t][b][pieceId] = newKey;
+      this.near[t][b] += (distance <= this.radius ? 1 : 0)
+          - (distanceOf(oldKey) <= this.radius ? 1 : 0);
+      if (newKey < key(t, b, this.nearest[t][b])) {
+        this.nearest[t][b] = pieceId;
+      } else if (this.nearest[t][b] == pieceId && newKey > oldKey) {
+        this.nearest[t][b] = findNearest(t, b);
+      }
+    }
+  }
+
+  /**
+   * @return the id of the piece of the team with the smallest key for the base, {@link #NONE} if
+   * the team has no pieces.
+   */
+  private int findNearest(int t, int b) {
+    int[] baseKeys = this.keys[t][b];
+    int nearestId = NONE;
+    int nearestKey = ABSENT;
+    for (int pieceId = 0; pieceId < baseKeys.length; pieceId++) {
+      if (baseKeys[pieceId] < nearestKey) {
+        nearestKey = baseKeys[pieceId];
+        nearestId = pieceId;
+      }
+    }
+    return nearestId;
+  }
+
+  private int key(int t, int b, int pieceId) {
+    return pieceId == NONE ? ABSENT : this.keys[t][b][pieceId];
+  }
+
+  /**
+   * @return the distance of a key, 0 for a missing piece like in the {@link HeuristicEvaluator}.
+   */
+  private static int distanceOf(int key) {
+    return key == ABSENT ? 0 : key >>> DISTANCE_SHIFT;
+  }
+
+  private static int rankOf(int key) {
+    return (key >>> ID_BITS) & ((1 << RANK_BITS) - 1);
+  }
+
+  /**
+   * @return the distance between two cells, rounded down like in the {@link HeuristicEvaluator}.
+   */
+  private int distance(int from, int to) {
+    int rowDistance = from / this.cols - to / this.cols;
+    int colDistance = from % this.cols - to % this.cols;
+    return (int) Math.sqrt(rowDistance * rowDistance + colDistance * colDistance);
+  }
+}
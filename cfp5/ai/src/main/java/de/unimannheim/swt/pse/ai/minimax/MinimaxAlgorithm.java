@@ -1,19 +1,81 @@
 package de.unimannheim.swt.pse.ai.minimax;
 
+import de.unimannheim.swt.pse.ai.playout.PlayoutBoard;
+import de.unimannheim.swt.pse.server.game.board.MoveBuffer;
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
 import de.unimannheim.swt.pse.server.game.state.GameState;
 import de.unimannheim.swt.pse.server.game.state.Move;
-import java.util.List;
+import de.unimannheim.swt.pse.server.game.state.Piece;
+import de.unimannheim.swt.pse.server.game.state.Team;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main class for the Minimax algorithm implementation where the best move is calculated.
  */
 public class MinimaxAlgorithm {
 
-  private static final int MAX_DEPTH = 4;
+  /**
+   * Deepest search of the iterative deepening
+   */
+  private static final int MAX_DEPTH = 32;
+  /**
+   * Time the helper threads of a parallel search get to end after the main search
+   */
+  private static final long SHUTDOWN_GRACE_MILLIS = 200;
+  /**
+   * Mixed into the hash of positions searched for the maximizing player, whose values differ from
+   * the same position searched for the minimizing player
+   */
+  private static final long MAXIMIZING_KEY = 0x9E3779B97F4A7C15L;
   private final GameState currentState;
-  private MoveSelector moveSelector;
-  private boolean gameOver = false;
+  private final MoveGenerator moveGenerator;
+  /**
+   * Board the moves of the search are made and taken back on
+   */
+  private final PlayoutBoard board;
+  /**
+   * Values and best moves of searched positions, may be shared between searches
+   */
+  private final TranspositionTable transpositionTable;
+  /**
+   * Buffer for the moves of every depth of the search
+   */
+  private final MoveBuffer[] moveBuffers = new MoveBuffer[MAX_DEPTH + 1];
+  /**
+   * Copy of the current state the board and the evaluator are loaded from
+   */
+  private GameState workingState;
+  /**
+   * Heuristic values of the positions on the board, updated with every made and taken back move
+   */
+  private final IncrementalEvaluator evaluator = new IncrementalEvaluator();
   private long stopTime;
+  /**
+   * Depth of the last completed search
+   */
+  private int completedDepth;
+  /**
+   * Depth of the running iteration, to find the distance of a node to the root
+   */
+  private int rootDepth;
+  /**
+   * Orders the moves of every node of the search
+   */
+  private MoveOrderer moveOrderer;
+  /**
+   * Set by another thread to end the search early
+   */
+  private volatile boolean stopped;
+  /**
+   * Searches of the helper threads of a parallel search, null before the first parallel search
+   */
+  private volatile MinimaxAlgorithm[] helpers;
+  /**
+   * Number of positions searched
+   */
+  private long nodeCount;
 
   /**
    * Constructor for MinimaxAlgorithm
@@ -22,39 +84,159 @@ public class MinimaxAlgorithm {
    * @author rkonradt
    */
   public MinimaxAlgorithm(GameState currentState) {
+    this(currentState, new TranspositionTable());
+  }
+
+  /**
+   * Constructor for MinimaxAlgorithm with a transposition table that is kept between searches, so
+   * the search of the next turn can use the positions searched before.
+   *
+   * @param currentState       the current state of the game
+   * @param transpositionTable the transposition table to use
+   */
+  public MinimaxAlgorithm(GameState currentState, TranspositionTable transpositionTable) {
     this.currentState = currentState;
+    this.transpositionTable = transpositionTable;
+    this.moveGenerator = MoveGenerator.forState(currentState);
+    this.board = new PlayoutBoard(this.moveGenerator);
+    for (int i = 0; i < this.moveBuffers.length; i++) {
+      this.moveBuffers[i] = new MoveBuffer();
+    }
   }
 
 
   /**
-   * Get the best move for the current game state by calling miniMax
+   * Get the best move for the current game state by iterative deepening. The root is searched with
+   * miniMax to increasing depths until the time limit is reached, and the best move of the deepest
+   * completed search is returned. Every search starts with the best move of the previous one, the
+   * deeper moves of its principal variation are found in the transposition table.
    *
    * @param timeLimitMillis given Timelimit
    * @return the best move for the current game state found by the miniMax algorithm
    * @author rkonradt
    */
   public Move getBestMove(long timeLimitMillis) {
-    int bestVal = Integer.MIN_VALUE;
-    Move bestMove = null;
-    int moveVal;
-    moveSelector = new MoveSelector(currentState);
+    return getBestMove(timeLimitMillis, 1);
+  }
+
+  /**
+   * Get the best move for the current game state like {@link #getBestMove(long)}, searched by
+   * several threads at once (Lazy SMP). The helper threads run their own iterative deepening on
+   * the same transposition table, half of them one depth ahead, and fill it with positions the
+   * main search then does not have to search again. Only the result of the main search is used.
+   *
+   * @param timeLimitMillis given Timelimit
+   * @param numThreads      the number of threads to use for the search
+   * @return the best move for the current game state found by the miniMax algorithm
+   */
+  public Move getBestMove(long timeLimitMillis, int numThreads) {
     stopTime = System.currentTimeMillis() + timeLimitMillis;
-    for (Move move : moveSelector.getAllPossibleMoves()) {
-      GameState copiedState = GameStateCopier.deepCopy(currentState);
-      simulateMove(copiedState, move);
-      moveVal = miniMax(copiedState, MAX_DEPTH, false, Integer.MIN_VALUE, Integer.MAX_VALUE);
-      if (moveVal > bestVal) {
-        bestVal = moveVal;
-        bestMove = move;
+    transpositionTable.newSearch();
+    nodeCount = 0;
+    if (numThreads <= 1) {
+      int bestMove = iterativeDeepening(1);
+      return bestMove < 0 ? null : board.toMove(bestMove);
+    }
+
+    MinimaxAlgorithm[] helpers = new MinimaxAlgorithm[numThreads - 1];
+    ExecutorService executor = Executors.newFixedThreadPool(helpers.length);
+    for (int i = 0; i < helpers.length; i++) {
+      MinimaxAlgorithm helper = new MinimaxAlgorithm(currentState, transpositionTable);
+      helper.stopTime = stopTime;
+      helpers[i] = helper;
+      int firstDepth = 1 + i % 2;
+      executor.submit(() -> helper.iterativeDeepening(firstDepth));
+    }
+    this.helpers = helpers;
+    if (stopped) {
+      stopHelpers();
+    }
+    int bestMove = iterativeDeepening(1);
+    stopHelpers();
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(SHUTDOWN_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    for (MinimaxAlgorithm helper : helpers) {
+      nodeCount += helper.nodeCount;
+    }
+    return bestMove < 0 ? null : board.toMove(bestMove);
+  }
+
+  /**
+   * Searches the root with miniMax to increasing depths until the time limit is reached.
+   *
+   * @param firstDepth the depth of the first search
+   * @return the best packed move of the deepest completed search, -1 if there are no moves
+   */
+  private int iterativeDeepening(int firstDepth) {
+    workingState = GameStateCopier.deepCopy(currentState);
+    board.load(workingState);
+    evaluator.load(workingState);
+    MoveBuffer moves = moveBuffers[MAX_DEPTH];
+    board.generateMoves(moves);
+    if (moves.isEmpty()) {
+      return -1;
+    }
+
+    moveOrderer = new MoveOrderer(MAX_DEPTH, workingState.getTeams().length,
+        maxPieceId(workingState), board.getBoard().getRows(), board.getBoard().getCols());
+    moveOrderer.score(moves, 0, board.getCurrentTeam(), -1);
+    for (int i = 0; i < moves.size(); i++) {
+      moveOrderer.next(moves, i, 0);
+    }
+    int bestMove = moves.get(0);
+    completedDepth = 0;
+    for (int depth = firstDepth; depth <= MAX_DEPTH; depth++) {
+      rootDepth = depth;
+      int bestVal = Integer.MIN_VALUE;
+      int iterationMove = -1;
+      for (int i = 0; i < moves.size(); i++) {
+        evaluator.makeMove(board, moves.get(i));
+        board.makeMove(moves.get(i));
+        int moveVal = miniMax(depth - 1, false, bestVal, Integer.MAX_VALUE);
+        board.unmakeMove();
+        evaluator.unmakeMove();
+        if (isTimeUp()) {
+          break;
+        }
+        if (iterationMove < 0 || moveVal > bestVal) {
+          bestVal = moveVal;
+          iterationMove = moves.get(i);
+        }
+      }
+      if (isTimeUp()) {
+        // the values of an unfinished search are not reliable, keep the last completed one
+        break;
+      }
+      bestMove = iterationMove;
+      completedDepth = depth;
+      moveToFront(moves, bestMove);
+      if (Math.abs(bestVal) >= 100 || moves.size() == 1) {
+        // the game is decided or there is no choice, searching deeper changes nothing
+        break;
       }
     }
     return bestMove;
   }
 
   /**
-   * Minimax algorithm implementation with alpha-beta pruning
+   * @return the depth of the last completed search of {@link #getBestMove(long)}.
+   */
+  public int getCompletedDepth() {
+    return completedDepth;
+  }
+
+  /**
+   * Minimax algorithm implementation with alpha-beta pruning. The moves are made on the board and
+   * taken back after they were searched. Positions already searched deep enough are taken from the
+   * transposition table, the best move stored for a position is searched first.
    *
-   * @param currentGameState   the current state of the game
    * @param depth              the depth of the search tree
    * @param isMaximizingPlayer boolean to check if the player is maximizing
    * @param alpha              variable for pruning
@@ -62,62 +244,148 @@ public class MinimaxAlgorithm {
    * @return the best value for the current game state
    * @author rkonradt
    */
-  private int miniMax(GameState currentGameState, int depth, boolean isMaximizingPlayer, int alpha,
-      int beta) {
+  private int miniMax(int depth, boolean isMaximizingPlayer, int alpha, int beta) {
+    nodeCount++;
+    long key = board.getHash() ^ (isMaximizingPlayer ? MAXIMIZING_KEY : 0);
+    long entry = transpositionTable.probe(key);
+    int hashMove = -1;
+    if (entry != 0) {
+      hashMove = TranspositionTable.getMove(entry);
+      if (TranspositionTable.getDepth(entry) >= depth) {
+        int stored = TranspositionTable.getValue(entry);
+        byte flag = TranspositionTable.getFlag(entry);
+        if (flag == TranspositionTable.EXACT
+            || flag == TranspositionTable.LOWER_BOUND && stored >= beta
+            || flag == TranspositionTable.UPPER_BOUND && stored <= alpha) {
+          return stored;
+        }
+      }
+    }
+
+    int value = evaluate(isMaximizingPlayer);
+    if (isTimeUp() || depth == 0 || board.isGameOver()
+        || Math.abs(value) >= 100) {
+      return value;
+    }
 
-    if (System.currentTimeMillis() < stopTime) {
-      moveSelector = new MoveSelector(currentGameState);
+    MoveBuffer moves = moveBuffers[depth - 1];
+    board.generateMoves(moves);
+    if (moves.isEmpty()) {
+      return value;
+    }
+    int ply = rootDepth - depth;
+    int team = board.getCurrentTeam();
+    moveOrderer.score(moves, ply, team, hashMove);
 
-      if (depth == 0
-          || Math.abs(HeuristicEvaluator.evaluate(currentGameState, isMaximizingPlayer)) >= 100
-          || this.gameOver) {
-        return HeuristicEvaluator.evaluate(currentGameState, isMaximizingPlayer);
+    int alphaOrig = alpha;
+    int betaOrig = beta;
+    int bestVal = isMaximizingPlayer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+    int bestMove = -1;
+    for (int i = 0; i < moves.size(); i++) {
+      int move = moveOrderer.next(moves, i, ply);
+      evaluator.makeMove(board, move);
+      board.makeMove(move);
+      int eval = miniMax(depth - 1, !isMaximizingPlayer, alpha, beta);
+      board.unmakeMove();
+      evaluator.unmakeMove();
+      if (isMaximizingPlayer ? eval > bestVal : eval < bestVal) {
+        bestVal = eval;
+        bestMove = move;
       }
-      if (!isMaximizingPlayer) {
-        int lowestVal = Integer.MAX_VALUE;
-        List<Move> moves = moveSelector.getAllPossibleMoves();
-        GameState[] modifiedStates = new GameState[moves.size()];
-        int i = 0;
-        for (Move move : moves) {
-          GameState copiedState = GameStateCopier.deepCopy(currentGameState);
-          Pair<GameState, Boolean> afterMove = simulateMove(copiedState, move);
-          modifiedStates[i] = afterMove.first;
-          this.gameOver = afterMove.second;
-          i++;
-        }
-        for (GameState modifiedState : modifiedStates) {
-          int eval = miniMax(modifiedState, depth - 1, true, alpha, beta);
-          lowestVal = Math.min(lowestVal, eval);
-          beta = Math.min(beta, eval);
-          if (beta <= alpha) {
-            break;
-          }
-        }
-        return lowestVal;
+      if (isMaximizingPlayer) {
+        alpha = Math.max(alpha, eval);
       } else {
-        int highestVal = Integer.MIN_VALUE;
-        List<Move> moves = moveSelector.getAllPossibleMoves();
-        GameState[] modifiedStates = new GameState[moves.size()];
-        int i = 0;
-        for (Move move : moves) {
-          GameState copiedState = GameStateCopier.deepCopy(currentGameState);
-          Pair<GameState, Boolean> afterMove = simulateMove(copiedState, move);
-          modifiedStates[i] = afterMove.first;
-          this.gameOver = afterMove.second;
-          i++;
-        }
-        for (GameState modifiedState : modifiedStates) {
-          int eval = miniMax(modifiedState, depth - 1, false, alpha, beta);
-          highestVal = Math.max(highestVal, eval);
-          alpha = Math.max(alpha, eval);
-          if (beta <= alpha) {
-            break;
-          }
-        }
-        return highestVal;
+        beta = Math.min(beta, eval);
+      }
+      if (beta <= alpha) {
+        moveOrderer.recordCutoff(move, ply, team, depth);
+        break;
+      }
+    }
+
+    if (!isTimeUp()) {
+      byte flag = bestVal <= alphaOrig ? TranspositionTable.UPPER_BOUND
+          : bestVal >= betaOrig ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+      transpositionTable.store(key, depth, bestVal, flag, bestMove);
+    }
+    return bestVal;
+  }
+
+  /**
+   * Moves a move to the front of the buffer, so it is searched first.
+   *
+   * @param moves the generated moves
+   * @param move  the packed move, ignored if it is not in the buffer
+   */
+  private static void moveToFront(MoveBuffer moves, int move) {
+    if (move < 0) {
+      return;
+    }
+    for (int i = 1; i < moves.size(); i++) {
+      if (moves.get(i) == move) {
+        moves.swap(0, i);
+        return;
+      }
+    }
+  }
+
+  /**
+   * @param state the state of the game
+   * @return the highest piece id of all teams
+   */
+  private static int maxPieceId(GameState state) {
+    int maxPieceId = 0;
+    for (Team team : state.getTeams()) {
+      for (Piece piece : team.getPieces()) {
+        maxPieceId = Math.max(maxPieceId, Integer.parseInt(piece.getId()));
       }
     }
-    return HeuristicEvaluator.evaluate(currentGameState, isMaximizingPlayer);
+    return maxPieceId;
+  }
+
+  /**
+   * @return true if the search was stopped or the time limit is reached, false otherwise
+   */
+  private boolean isTimeUp() {
+    return stopped || System.currentTimeMillis() >= stopTime;
+  }
+
+  /**
+   * Ends a running search as soon as possible, the move it returns is then not reliable.
+   */
+  public void stop() {
+    this.stopped = true;
+    stopHelpers();
+  }
+
+  /**
+   * Stops the helper threads of a parallel search.
+   */
+  private void stopHelpers() {
+    MinimaxAlgorithm[] running = this.helpers;
+    if (running != null) {
+      for (MinimaxAlgorithm helper : running) {
+        helper.stopped = true;
+      }
+    }
+  }
+
+  /**
+   * @return the number of positions searched by the last call of {@link #getBestMove(long, int)},
+   * by all threads.
+   */
+  public long getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Evaluates the position on the board with the incremental evaluator.
+   *
+   * @param isMaximizingPlayer boolean to check if the player is maximizing
+   * @return the heuristic value of the position
+   */
+  private int evaluate(boolean isMaximizingPlayer) {
+    return evaluator.evaluate(board.getCurrentTeam(), isMaximizingPlayer);
   }
 
 
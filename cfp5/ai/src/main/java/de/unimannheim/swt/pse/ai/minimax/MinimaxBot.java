@@ -1,5 +1,6 @@
 package de.unimannheim.swt.pse.ai.minimax;
 
+import de.unimannheim.swt.pse.ai.client.RequestHandler;
 import de.unimannheim.swt.pse.server.controller.data.GameSessionResponse;
 import de.unimannheim.swt.pse.server.controller.data.JoinGameRequest;
 import de.unimannheim.swt.pse.server.controller.data.JoinGameResponse;
@@ -9,10 +10,15 @@ import de.unimannheim.swt.pse.server.game.exceptions.InvalidMove;
 import de.unimannheim.swt.pse.server.game.state.GameState;
 import de.unimannheim.swt.pse.server.game.state.Move;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class manages a Bot that plays the game using the Minimax algorithm.
@@ -22,6 +28,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MinimaxBot {
 
+  private static final int WAIT_TIMEOUT_SECONDS = 30;
   private final ScheduledExecutorService scheduler;
   private volatile boolean isMyTurn = false;
   private final AtomicBoolean isTurnInProgress = new AtomicBoolean(false);
@@ -31,6 +38,38 @@ public class MinimaxBot {
   private String gameSessionId;
   private String teamId;
   private String teamSecret;
+  /**
+   * Runs the search during the turns of the other teams
+   */
+  private final ExecutorService ponderExecutor = Executors.newSingleThreadExecutor();
+  /**
+   * Answer to the expected reply of the opponent, computed while pondering
+   */
+  private Future<Move> pondering;
+  /**
+   * State the pondering expects at the start of the next turn, null until the reply is predicted
+   */
+  private volatile GameState expectedState;
+  /**
+   * Search currently running for the pondering, guarded by {@link #ponderLock}
+   */
+  private MinimaxAlgorithm ponderSearch;
+  private boolean ponderStopped;
+  private long ponderTimeLimitMillis;
+  private final Object ponderLock = new Object();
+  /**
+   * Number of turns played with the move found while pondering
+   */
+  private final AtomicInteger ponderHits = new AtomicInteger();
+  /**
+   * Positions searched in earlier turns and while pondering. The pondering is waited for before the
+   * turn is searched, only the threads of one search share the table at the same time.
+   */
+  private final TranspositionTable transpositionTable = new TranspositionTable(1 << 20);
+  /**
+   * Number of threads searching a move, one per core by default
+   */
+  private int numThreads = Runtime.getRuntime().availableProcessors();
 
   /**
    * Constructs a new MinimaxBot with specified IP address and game session ID.
@@ -61,7 +100,7 @@ public class MinimaxBot {
     //Join the game session
     try {
       join(gameSessionId);
-      scheduler.scheduleAtFixedRate(this::checkAndPlay, 0, 1, TimeUnit.SECONDS);
+      scheduler.scheduleWithFixedDelay(this::checkAndPlay, 0, 100, TimeUnit.MILLISECONDS);
     } catch (IOException e) {
       System.err.println("Failed to start MinimaxBot: " + e.getMessage());
       stopPlaying();
@@ -70,20 +109,33 @@ public class MinimaxBot {
 
 
   /**
-   * Checks and executes a play turn if it is the player's turn and a turn is not currently in
-   * progress.
+   * Waits for the next game state and executes a play turn if it is the player's turn and a turn
+   * is not currently in progress.
    *
    * @author ohandsch
    */
   public void checkAndPlay() {
+    GameState currentState = this.requestHandler.waitForGameState(this.gameSessionId,
+        WAIT_TIMEOUT_SECONDS);
+    if (currentState == null) {
+      // nothing changed, wait again
+      return;
+    }
     if (this.requestHandler.getGameSession(this.gameSessionId).isGameOver()) {
+      takePonderedMove(currentState);
       stopPlaying();
+      return;
     }
-    GameState currentState = this.requestHandler.getGameState(this.gameSessionId);
     if (!isTurnInProgress.get() && checkIfMyTurn(currentState)) {
       isTurnInProgress.set(true);
       try {
-        playTurn(currentState);
+        Move ponderedMove = takePonderedMove(currentState);
+        if (ponderedMove != null) {
+          this.ponderHits.incrementAndGet();
+          sendMove(currentState, ponderedMove, this.ponderTimeLimitMillis);
+        } else {
+          playTurn(currentState);
+        }
       } finally {
         isTurnInProgress.set(false);
       }
@@ -126,7 +178,19 @@ public class MinimaxBot {
    }
 
     // Send the move via the API
-    Move bestMove = new MinimaxAlgorithm(currentState).getBestMove(TIMELIMITMILLIES);
+    Move bestMove = new MinimaxAlgorithm(currentState, this.transpositionTable)
+        .getBestMove(TIMELIMITMILLIES, this.numThreads);
+    sendMove(currentState, bestMove, TIMELIMITMILLIES);
+  }
+
+  /**
+   * Sends a move to the server and starts pondering over the replies of the opponent.
+   *
+   * @param currentState    the state the move was searched for.
+   * @param bestMove        the move to make.
+   * @param timeLimitMillis the time limit of the searches.
+   */
+  private void sendMove(GameState currentState, Move bestMove, long timeLimitMillis) {
     System.out.println("actually making move");
     //actually making move
     MoveRequest moveRequest = new MoveRequest();
@@ -136,6 +200,7 @@ public class MinimaxBot {
     moveRequest.setPieceId(bestMove.getPieceId());
     try {
       this.requestHandler.makeMove(this.gameSessionId, moveRequest);
+      startPondering(currentState, bestMove, timeLimitMillis);
     } catch (InvalidMove e) {
       System.out.println(e.getMessage());
       this.playTurn(currentState);
@@ -145,12 +210,103 @@ public class MinimaxBot {
     }
   }
 
+  /**
+   * Predicts the reply of the opponent to the move just made and searches the answer to it, while
+   * the opponent is thinking. Both searches get the time limit of a normal turn.
+   *
+   * @param currentState    the state the move was made in.
+   * @param ownMove         the move just made.
+   * @param timeLimitMillis the time limit of a search.
+   */
+  private void startPondering(GameState currentState, Move ownMove, long timeLimitMillis) {
+    GameState afterOwnMove = GameStateCopier.deepCopy(currentState);
+    this.expectedState = null;
+    this.ponderTimeLimitMillis = timeLimitMillis;
+    synchronized (this.ponderLock) {
+      this.ponderStopped = false;
+      this.ponderSearch = null;
+    }
+    this.pondering = this.ponderExecutor.submit(() -> {
+      GameSimulator ownMoveSimulator = new GameSimulator(afterOwnMove);
+      ownMoveSimulator.makeMove(ownMove);
+      if (ownMoveSimulator.isGameOver()) {
+        return null;
+      }
+      Move reply = ponderSearch(afterOwnMove, timeLimitMillis);
+      if (reply == null) {
+        return null;
+      }
+      GameState expected = GameStateCopier.deepCopy(afterOwnMove);
+      GameSimulator replySimulator = new GameSimulator(expected);
+      replySimulator.makeMove(reply);
+      if (replySimulator.isGameOver()) {
+        return null;
+      }
+      this.expectedState = expected;
+      return ponderSearch(expected, timeLimitMillis);
+    });
+  }
+
+  /**
+   * Runs a search for the pondering unless it was stopped.
+   *
+   * @return the best move of the search, null if the pondering was stopped.
+   */
+  private Move ponderSearch(GameState state, long timeLimitMillis) {
+    MinimaxAlgorithm search = new MinimaxAlgorithm(state, this.transpositionTable);
+    synchronized (this.ponderLock) {
+      if (this.ponderStopped) {
+        return null;
+      }
+      this.ponderSearch = search;
+    }
+    Move move = search.getBestMove(timeLimitMillis, this.numThreads);
+    synchronized (this.ponderLock) {
+      return this.ponderStopped ? null : move;
+    }
+  }
+
+  /**
+   * Ends the pondering. If the opponent made the expected reply, the answer searched while
+   * pondering is waited for and returned, otherwise the pondering is stopped.
+   *
+   * @param currentState the state at the start of the turn.
+   * @return the answer to the reply of the opponent, null if the opponent played differently.
+   */
+  private Move takePonderedMove(GameState currentState) {
+    if (this.pondering == null) {
+      return null;
+    }
+    GameState expected = this.expectedState;
+    boolean hit = expected != null && expected.getCurrentTeam() == currentState.getCurrentTeam()
+        && Arrays.deepEquals(expected.getGrid(), currentState.getGrid());
+    if (!hit) {
+      synchronized (this.ponderLock) {
+        this.ponderStopped = true;
+        if (this.ponderSearch != null) {
+          this.ponderSearch.stop();
+        }
+      }
+    }
+    Move answer = null;
+    try {
+      answer = this.pondering.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      System.err.println("Pondering failed: " + e.getMessage());
+    }
+    this.pondering = null;
+    return hit ? answer : null;
+  }
+
   /**
    * Stops the Minimax Bot and terminates any ongoing scheduled tasks.
    *
    * @author ohandsch
    */
   public void stopPlaying() {
+    ponderExecutor.shutdownNow();
     scheduler.shutdown();
     try {
       if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
@@ -218,6 +374,27 @@ public class MinimaxBot {
     this.teamId = teamId;
   }
 
+  /**
+   * @return the number of turns played with the move found while pondering.
+   */
+  public int getPonderHits() {
+    return ponderHits.get();
+  }
+
+  public int getNumThreads() {
+    return numThreads;
+  }
+
+  /**
+   * @param numThreads the number of threads searching a move, at least one.
+   */
+  public void setNumThreads(int numThreads) {
+    if (numThreads < 1) {
+      throw new IllegalArgumentException("At least one thread is needed");
+    }
+    this.numThreads = numThreads;
+  }
+
   public static void main(String[] args) {
     startMinimaxBot("134.155.211.114", "002c6a6c-8e4f-4122-b65a-609fe2d42e7a");
   }
@@ -0,0 +1,154 @@
+package de.unimannheim.swt.pse.ai.minimax;
+
+import de.unimannheim.swt.pse.server.game.board.MoveBuffer;
+import java.util.Arrays;
+
+/**
+ * Orders the moves of the alpha-beta search, so cutoffs happen after as few searched moves as
+ * possible. The best move of the transposition table comes first, then moves onto the enemy base
+ * and captures, then the killer moves that caused a cutoff at the same ply, and then the other
+ * moves by their history score.
+ *
+ * <p>The moves are not sorted up front. {@link #next(MoveBuffer, int, int)} selects the best of
+ * the remaining moves, so the work for the moves behind a cutoff is never done.</p>
+ */
+public class MoveOrderer {
+
+  private static final int HASH_MOVE_SCORE = Integer.MAX_VALUE;
+  private static final int BASE_SCORE = 1 << 30;
+  private static final int CAPTURE_SCORE = 1 << 29;
+  private static final int KILLER_SCORE = 1 << 28;
+  /**
+   * History scores are halved once one reaches this value, so they stay below the killer moves
+   */
+  private static final int HISTORY_LIMIT = 1 << 20;
+  private static final int KILLERS_PER_PLY = 2;
+
+  /**
+   * Scores of the moves of every ply, in the same order as the move buffers
+   */
+  private final int[][] scores;
+  /**
+   * Quiet moves that caused a cutoff, for every ply
+   */
+  private final int[][] killers;
+  /**
+   * Cutoffs caused by the quiet moves of every team, by piece id and target cell
+   */
+  private final int[][] history;
+  private final int cols;
+  private final int cells;
+
+  /**
+   * @param maxPly     the deepest ply the search reaches.
+   * @param teamCount  the number of teams.
+   * @param maxPieceId the highest piece id of all teams.
+   * @param rows       the number of rows of the board.
+   * @param cols       the number of columns of the board.
+   */
+  public MoveOrderer(int maxPly, int teamCount, int maxPieceId, int rows, int cols) {
+    this.scores = new int[maxPly + 1][64];
+    this.killers = new int[maxPly + 1][KILLERS_PER_PLY];
+    for (int[] plyKillers : this.killers) {
+      Arrays.fill(plyKillers, -1);
+    }
+    this.cols = cols;
+    this.cells = rows * cols;
+    this.history = new int[teamCount][(maxPieceId + 1) * this.cells];
+  }
+
+  /**
+   * Scores the generated moves of a ply. Must be called before the moves are taken with
+   * {@link #next(MoveBuffer, int, int)}.
+   *
+   * @param moves    the generated moves.
+   * @param ply      the distance to the root of the search.
+   * @param team     the team to move.
+   * @param hashMove the best move stored in the transposition table, -1 if there is none.
+   */
+  public void score(MoveBuffer moves, int ply, int team, int hashMove) {
+    if (this.scores[ply].length < moves.size()) {
+      this.scores[ply] = new int[moves.size() * 2];
+    }
+    int[] plyScores = this.scores[ply];
+    int[] plyKillers = this.killers[ply];
+    int[] teamHistory = this.history[team - 1];
+    for (int i = 0; i < moves.size(); i++) {
+      int move = moves.get(i);
+      int kind = MoveBuffer.kind(move);
+      if (move == hashMove) {
+        plyScores[i] = HASH_MOVE_SCORE;
+      } else if (kind == MoveBuffer.BASE) {
+        plyScores[i] = BASE_SCORE;
+      } else if (kind == MoveBuffer.CAPTURE) {
+        plyScores[i] = CAPTURE_SCORE;
+      } else if (move == plyKillers[0] || move == plyKillers[1]) {
+        plyScores[i] = KILLER_SCORE;
+      } else {
+        plyScores[i] = teamHistory[historyIndex(move)];
+      }
+    }
+  }
+
+  /**
+   * Moves the best of the remaining moves to the given index.
+   *
+   * @param moves the scored moves.
+   * @param index the index of the next move to search, the moves before it are searched.
+   * @param ply   the distance to the root of the search.
+   * @return the move at the index.
+   */
+  public int next(MoveBuffer moves, int index, int ply) {
+    int[] plyScores = this.scores[ply];
+    int best = index;
+    for (int i = index + 1; i < moves.size(); i++) {
+      if (plyScores[i] > plyScores[best]) {
+        best = i;
+      }
+    }
+    if (best != index) {
+      moves.swap(index, best);
+      int score = plyScores[index];
+      plyScores[index] = plyScores[best];
+      plyScores[best] = score;
+    }
+    return moves.get(index);
+  }
+
+  /**
+   * Remembers a move that caused a cutoff. Captures and moves onto a base are ordered first anyway,
+   * so only quiet moves become killer moves and gain history.
+   *
+   * @param move  the move.
+   * @param ply   the distance to the root of the search.
+   * @param team  the team that made the move.
+   * @param depth the remaining depth the move was searched with.
+   */
+  public void recordCutoff(int move, int ply, int team, int depth) {
+    if (MoveBuffer.kind(move) != MoveBuffer.MOVE) {
+      return;
+    }
+    int[] plyKillers = this.killers[ply];
+    if (plyKillers[0] != move) {
+      plyKillers[1] = plyKillers[0];
+      plyKillers[0] = move;
+    }
+    int[] teamHistory = this.history[team - 1];
+    int index = historyIndex(move);
+    teamHistory[index] += depth * depth;
+    if (teamHistory[index] >= HISTORY_LIMIT) {
+      for (int i = 0; i < teamHistory.length; i++) {
+        teamHistory[i] >>= 1;
+      }
+    }
+  }
+
+  /**
+   * @param move the packed move.
+   * @return the index of the move in the history of its team.
+   */
+  private int historyIndex(int move) {
+    return MoveBuffer.pieceId(move) * this.cells + MoveBuffer.row(move) * this.cols
+        + MoveBuffer.col(move);
+  }
+}
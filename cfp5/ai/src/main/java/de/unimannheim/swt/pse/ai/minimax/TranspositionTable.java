@@ -0,0 +1,148 @@
+package de.unimannheim.swt.pse.ai.minimax;
+
+/**
+ * Fixed size table of the values of searched positions, indexed by the Zobrist hash of the
+ * position. Every entry stores the searched depth, whether the value is exact or only a bound from
+ * an alpha-beta cutoff, and the best move found, so the search can skip positions reached by
+ * another move order and try the best move of an earlier search first.
+ *
+ * <p>An entry is replaced if it belongs to an earlier search or was not searched deeper than the
+ * new one.</p>
+ *
+ * <p>The table can be shared by searches running at the same time without locking. Every entry
+ * is packed into one long, and the hash is stored XOR the packed entry. An entry torn by two
+ * threads writing at once no longer matches its hash and is treated as missing.</p>
+ */
+public class TranspositionTable {
+
+  /**
+   * Default number of entries
+   */
+  public static final int DEFAULT_SIZE = 1 << 18;
+
+  /**
+   * Kinds of stored values
+   */
+  public static final byte EXACT = 1;
+  public static final byte LOWER_BOUND = 2;
+  public static final byte UPPER_BOUND = 3;
+
+  /**
+   * Layout of a packed entry: move + 1 in the lowest 31 bits, then the value, the depth, the flag
+   * and the generation. An empty entry is 0, since its flag is 0.
+   */
+  private static final int MOVE_BITS = 31;
+  private static final int VALUE_SHIFT = MOVE_BITS;
+  private static final int VALUE_BITS = 16;
+  private static final int DEPTH_SHIFT = VALUE_SHIFT + VALUE_BITS;
+  private static final int DEPTH_BITS = 6;
+  private static final int FLAG_SHIFT = DEPTH_SHIFT + DEPTH_BITS;
+  private static final int FLAG_BITS = 2;
+  private static final int GENERATION_SHIFT = FLAG_SHIFT + FLAG_BITS;
+  private static final int GENERATION_BITS = 8;
+
+  /**
+   * Hash of the position of every entry, XOR the packed entry
+   */
+  private final long[] checks;
+  /**
+   * Packed entries
+   */
+  private final long[] entries;
+  private final int mask;
+  /**
+   * Number of the current search, entries of earlier searches are replaced first
+   */
+  private volatile int generation;
+
+  /**
+   * Creates a table with the default number of entries.
+   */
+  public TranspositionTable() {
+    this(DEFAULT_SIZE);
+  }
+
+  /**
+   * @param size the number of entries, rounded up to a power of two.
+   */
+  public TranspositionTable(int size) {
+    int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+    this.checks = new long[capacity];
+    this.entries = new long[capacity];
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Marks the start of a new search, so entries of earlier searches are replaced first.
+   */
+  public void newSearch() {
+    this.generation = (this.generation + 1) & ((1 << GENERATION_BITS) - 1);
+  }
+
+  /**
+   * @param key the hash of the position.
+   * @return the packed entry of the position, 0 if the position is not stored. Read it with
+   * {@link #getValue(long)}, {@link #getMove(long)}, {@link #getDepth(long)} and
+   * {@link #getFlag(long)}.
+   */
+  public long probe(long key) {
+    int index = (int) key & this.mask;
+    long entry = this.entries[index];
+    return entry != 0 && (this.checks[index] ^ entry) == key ? entry : 0;
+  }
+
+  /**
+   * Stores the result of a search of a position, unless the entry holds a deeper search of another
+   * position of the current search.
+   *
+   * @param key   the hash of the position.
+   * @param depth the remaining depth the position was searched with.
+   * @param value the value of the position.
+   * @param flag  {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}.
+   * @param move  the best packed move, -1 if there is none.
+   */
+  public void store(long key, int depth, int value, byte flag, int move) {
+    int index = (int) key & this.mask;
+    int currentGeneration = this.generation;
+    long old = this.entries[index];
+    if (old != 0 && generationOf(old) == currentGeneration
+        && (this.checks[index] ^ old) != key && getDepth(old) > depth) {
+      return;
+    }
+    int clampedValue = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+    long entry = (move + 1L)
+        | (long) (clampedValue & 0xFFFF) << VALUE_SHIFT
+        | (long) Math.min(depth, (1 << DEPTH_BITS) - 1) << DEPTH_SHIFT
+        | (long) flag << FLAG_SHIFT
+        | (long) currentGeneration << GENERATION_SHIFT;
+    this.checks[index] = key ^ entry;
+    this.entries[index] = entry;
+  }
+
+  public static int getValue(long entry) {
+    return (short) (entry >>> VALUE_SHIFT);
+  }
+
+  public static int getMove(long entry) {
+    return (int) (entry & ((1L << MOVE_BITS) - 1)) - 1;
+  }
+
+  public static int getDepth(long entry) {
+    return (int) (entry >>> DEPTH_SHIFT) & ((1 << DEPTH_BITS) - 1);
+  }
+
+  public static byte getFlag(long entry) {
+    return (byte) ((entry >>> FLAG_SHIFT) & ((1 << FLAG_BITS) - 1));
+  }
+
+  private static int generationOf(long entry) {
+    return (int) (entry >>> GENERATION_SHIFT) & ((1 << GENERATION_BITS) - 1);
+  }
+
+  /**
+   * @return the number of entries.
+   */
+  public int size() {
+    return this.entries.length;
+  }
+}
@@ -0,0 +1,154 @@
+package de.unimannheim.swt.pse.ai.playout;
+
+import de.unimannheim.swt.pse.server.game.board.Board;
+import de.unimannheim.swt.pse.server.game.board.MoveBuffer;
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import de.unimannheim.swt.pse.server.game.state.Piece;
+import de.unimannheim.swt.pse.server.game.state.Team;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the legal moves of the team to move in a game state, shared by the move selectors of
+ * all bots.
+ *
+ * <p>The encoded board is kept between calls. The simulators change the grid of their game state
+ * in place, so every call compares the cells of the grid with the cells the board was encoded from
+ * and only encodes the cells that were replaced. Cells are strings, an unchanged cell is the same
+ * object, so the comparison neither parses cells nor allocates a new board.</p>
+ *
+ * <p>A generator is not thread safe, every searching or simulating thread needs its own.</p>
+ */
+public class GridMoveGenerator {
+
+  /**
+   * Generator for the legal moves of the pieces
+   */
+  private final MoveGenerator moveGenerator;
+  /**
+   * Packed moves of the last call, in the order of the returned moves
+   */
+  private final MoveBuffer moveBuffer = new MoveBuffer();
+  /**
+   * Encoded grid, null until the first call
+   */
+  private Board board;
+  /**
+   * Cells the board was encoded from
+   */
+  private String[][] encodedCells;
+
+  /**
+   * @param moveGenerator the move generator with all pieces of the game registered.
+   */
+  public GridMoveGenerator(MoveGenerator moveGenerator) {
+    this.moveGenerator = moveGenerator;
+  }
+
+  /**
+   * @param gameState the game state.
+   * @return the team to move, null if it is not part of the state.
+   */
+  public static Team getCurrentTeam(GameState gameState) {
+    for (Team team : gameState.getTeams()) {
+      if (team != null && Integer.parseInt(team.getId()) == gameState.getCurrentTeam()) {
+        return team;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Calculates all legal moves of a team. The packed moves are left in the
+   * {@link #getMoveBuffer() move buffer} at the same indices.
+   *
+   * @param gameState the game state.
+   * @param team      the team to calculate the moves for.
+   * @return a list of all legal moves of the team.
+   * @throws IllegalArgumentException if a piece of the team has no position.
+   */
+  public List<Move> generateAll(GameState gameState, Team team) {
+    for (Piece piece : team.getPieces()) {
+      if (piece.getPosition() == null) {
+        throw new IllegalArgumentException("piece position not allowed to be zero");
+      }
+    }
+    this.moveBuffer.clear();
+    this.moveGenerator.generateAll(this.sync(gameState.getGrid()), Integer.parseInt(team.getId()),
+        this.moveBuffer);
+    return this.toMoves(team.getId());
+  }
+
+  /**
+   * Calculates all legal moves of a single piece. The packed moves are left in the
+   * {@link #getMoveBuffer() move buffer} at the same indices.
+   *
+   * @param gameState the game state.
+   * @param team      the team of the piece.
+   * @param piece     the piece to calculate the moves for.
+   * @return a list of all legal moves of the piece.
+   */
+  public List<Move> generate(GameState gameState, Team team, Piece piece) {
+    this.moveBuffer.clear();
+    this.moveGenerator.generate(this.sync(gameState.getGrid()), Integer.parseInt(team.getId()),
+        Integer.parseInt(piece.getId()), piece.getPosition()[0], piece.getPosition()[1],
+        this.moveBuffer);
+    return this.toMoves(team.getId());
+  }
+
+  /**
+   * @return packed moves of the last call.
+   */
+  public MoveBuffer getMoveBuffer() {
+    return this.moveBuffer;
+  }
+
+  /**
+   * Brings the encoded board up to date with a grid, encoding only the cells that were replaced
+   * since the last call.
+   *
+   * @param grid the grid of the game state.
+   * @return the encoded board.
+   */
+  private Board sync(String[][] grid) {
+    int rows = grid.length;
+    int cols = grid[0].length;
+    if (this.board == null || this.board.getRows() != rows || this.board.getCols() != cols) {
+      this.board = Board.ofSize(rows, cols);
+      this.encodedCells = new String[rows][cols];
+    }
+    for (int row = 0; row < rows; row++) {
+      String[] gridRow = grid[row];
+      String[] encodedRow = this.encodedCells[row];
+      for (int col = 0; col < cols; col++) {
+        String cell = gridRow[col];
+        if (cell != encodedRow[col]) {
+          this.board.set(row, col, Board.encode(cell));
+          encodedRow[col] = cell;
+        }
+      }
+    }
+    return this.board;
+  }
+
+  /**
+   * Turns the buffered moves into move objects.
+   *
+   * @param teamId the team making the moves.
+   * @return a list of the moves.
+   */
+  private List<Move> toMoves(String teamId) {
+    List<Move> moves = new ArrayList<>(this.moveBuffer.size());
+    for (int i = 0; i < this.moveBuffer.size(); i++) {
+      int packedMove = this.moveBuffer.get(i);
+      Move move = new Move();
+      move.setPieceId(Integer.toString(MoveBuffer.pieceId(packedMove)));
+      move.setNewPosition(new int[]{MoveBuffer.row(packedMove), MoveBuffer.col(packedMove)});
+      move.setTeamId(teamId);
+      moves.add(move);
+    }
+    return moves;
+  }
+}
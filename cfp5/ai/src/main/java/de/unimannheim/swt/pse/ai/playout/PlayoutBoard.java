@@ -0,0 +1,586 @@
+package de.unimannheim.swt.pse.ai.playout;
+
+import de.unimannheim.swt.pse.server.game.board.Board;
+import de.unimannheim.swt.pse.server.game.board.MoveBuffer;
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import de.unimannheim.swt.pse.server.game.state.Piece;
+import de.unimannheim.swt.pse.server.game.state.Team;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * Mutable board for the simulations of the bots. A game state is encoded once by
+ * {@link #load(GameState)}, after that moves are the packed ints of the {@link MoveGenerator} and
+ * are made and taken back in place, so neither searching nor playing out a game copies game states
+ * or parses cells.
+ *
+ * <p>The rules are the ones of the game simulators of the bots: reaching an enemy base or
+ * capturing the last piece of a team ends the game, and a team without any move loses to the team
+ * that moved before it.</p>
+ *
+ * <p>The board keeps a Zobrist hash of the pieces, by cell, team and type, and of the team to
+ * move, which is updated with every move. Two positions reached by different moves have the same
+ * hash, so searches can recognize them.</p>
+ *
+ * <p>A board is not thread safe, every search thread needs its own.</p>
+ */
+public class PlayoutBoard {
+
+  /**
+   * Ints stored on the undo stack for every move
+   */
+  private static final int UNDO_SIZE = 7;
+  /**
+   * Constants mixed into the Zobrist keys of pieces and of the team to move
+   */
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+  private static final long TEAM_SALT = 0x2545F4914F6CDD1DL;
+  /**
+   * Chance of not preferring a capture in a not so random playout
+   */
+  private static final double IGNORE_CAPTURE_CHANCE = 0.3;
+
+  /**
+   * Generator for the legal moves of the pieces
+   */
+  private final MoveGenerator moveGenerator;
+  /**
+   * Buffer for the moves of the playouts
+   */
+  private final MoveBuffer moveBuffer = new MoveBuffer();
+  /**
+   * Generator for the random choices of the playouts, owned by the thread using the board
+   */
+  private final SplittableRandom random;
+  /**
+   * Encoded cells of the loaded game state
+   */
+  private Board board;
+  private int teamCount;
+  private int currentTeam;
+  private int previousTeam;
+  private boolean gameOver;
+  private int winner;
+  /**
+   * Pieces of every team as loaded, the first {@link #pieceCounts} of a team are alive. Captured
+   * pieces are swapped behind the alive ones, so they can be restored in place.
+   */
+  private Piece[][] pieces;
+  private int[][] pieceIds;
+  /**
+   * Zobrist key of every piece, from its team and type, mixed with the cell of the piece
+   */
+  private long[][] pieceKeys;
+  /**
+   * Position of every piece as row * columns + column
+   */
+  private int[][] piecePositions;
+  private int[] pieceCounts;
+  /**
+   * Index of every piece per team and piece id, -1 if the piece is captured or unknown
+   */
+  private int[][] slots;
+  /**
+   * Everything needed to take back the moves made since the game state was loaded
+   */
+  private int[] undo = new int[UNDO_SIZE * 64];
+  /**
+   * Number of moves on the undo stack
+   */
+  private int plies;
+  /**
+   * Zobrist hash of the pieces on the board and the team to move
+   */
+  private long hash;
+  /**
+   * Hash before every move on the undo stack
+   */
+  private long[] hashes = new long[64];
+  /**
+   * Order in which the pieces are tried in a not so random playout
+   */
+  private int[] order = new int[16];
+
+  /**
+   * Creates a board whose playouts use a randomly seeded generator.
+   *
+   * @param moveGenerator the move generator with all pieces of the game registered.
+   */
+  public PlayoutBoard(MoveGenerator moveGenerator) {
+    this(moveGenerator, new SplittableRandom());
+  }
+
+  /**
+   * @param moveGenerator the move generator with all pieces of the game registered.
+   * @param random        the generator for the random choices of the playouts, not shared with
+   *                      other threads.
+   */
+  public PlayoutBoard(MoveGenerator moveGenerator, SplittableRandom random) {
+    this.moveGenerator = moveGenerator;
+    this.random = random;
+  }
+
+  /**
+   * Encodes a game state into the board, reusing the arrays of the board where possible. The game
+   * state itself is not changed.
+   *
+   * @param state the game state to load.
+   */
+  public void load(GameState state) {
+    String[][] grid = state.getGrid();
+    if (this.board == null || this.board.getRows() != grid.length
+        || this.board.getCols() != grid[0].length) {
+      this.board = Board.ofSize(grid.length, grid[0].length);
+    }
+    this.board.load(grid);
+
+    Team[] teams = state.getTeams();
+    if (this.pieceCounts == null || this.pieceCounts.length != teams.length) {
+      this.teamCount = teams.length;
+      this.pieces = new Piece[this.teamCount][8];
+      this.pieceIds = new int[this.teamCount][8];
+      this.pieceKeys = new long[this.teamCount][8];
+      this.piecePositions = new int[this.teamCount][8];
+      this.pieceCounts = new int[this.teamCount];
+      this.slots = new int[this.teamCount][0];
+    }
+    for (int t = 0; t < this.teamCount; t++) {
+      this.pieceCounts[t] = 0;
+      Arrays.fill(this.slots[t], -1);
+      Arrays.fill(this.pieces[t], null);
+      if (teams[t] == null || teams[t].getPieces() == null) {
+        continue;
+      }
+      for (Piece piece : teams[t].getPieces()) {
+        int[] position = piece.getPosition();
+        if (position != null) {
+          addPiece(t, piece, position[0] * this.board.getCols() + position[1]);
+        }
+      }
+    }
+
+    this.currentTeam = state.getCurrentTeam();
+    this.previousTeam = 0;
+    this.gameOver = false;
+    this.winner = 0;
+    this.plies = 0;
+
+    this.hash = teamKey(this.currentTeam);
+    for (int t = 0; t < this.teamCount; t++) {
+      for (int i = 0; i < this.pieceCounts[t]; i++) {
+        this.hash ^= cellKey(this.pieceKeys[t][i], this.piecePositions[t][i]);
+      }
+    }
+  }
+
+  /**
+   * Adds the legal moves of the team to move to the buffer, after clearing it.
+   *
+   * @param buffer the buffer the packed moves are added to.
+   */
+  public void generateMoves(MoveBuffer buffer) {
+    buffer.clear();
+    if (this.gameOver) {
+      return;
+    }
+    int t = this.currentTeam - 1;
+    int cols = this.board.getCols();
+    for (int i = 0; i < this.pieceCounts[t]; i++) {
+      int position = this.piecePositions[t][i];
+      this.moveGenerator.generate(this.board, this.currentTeam, this.pieceIds[t][i],
+          position / cols, position % cols, buffer);
+    }
+  }
+
+  /**
+   * Makes a move of the team to move and hands the turn to the next team.
+   *
+   * @param move the packed move, as generated by {@link #generateMoves(MoveBuffer)}.
+   */
+  public void makeMove(int move) {
+    int team = this.currentTeam;
+    int t = team - 1;
+    int pieceId = MoveBuffer.pieceId(move);
+    int row = MoveBuffer.row(move);
+    int col = MoveBuffer.col(move);
+    int from = this.piecePositions[t][this.slots[t][pieceId]];
+    int target = this.board.get(row, col);
+
+    if (this.plies * UNDO_SIZE == this.undo.length) {
+      this.undo = Arrays.copyOf(this.undo, this.undo.length * 2);
+      this.hashes = Arrays.copyOf(this.hashes, this.hashes.length * 2);
+    }
+    this.hashes[this.plies] = this.hash;
+    int entry = this.plies++ * UNDO_SIZE;
+    this.undo[entry] = move;
+    this.undo[entry + 1] = from;
+    this.undo[entry + 2] = target;
+    this.undo[entry + 3] = -1;
+    this.undo[entry + 4] = this.previousTeam;
+    this.undo[entry + 5] = this.winner;
+    this.undo[entry + 6] = this.gameOver ? 1 : 0;
+
+    switch (Board.kind(target)) {
+      case Board.PIECE:
+        int enemyTeam = Board.team(target);
+        int capturedIndex = removePiece(enemyTeam - 1, Board.pieceId(target));
+        this.undo[entry + 3] = capturedIndex;
+        this.hash ^= cellKey(this.pieceKeys[enemyTeam - 1][this.pieceCounts[enemyTeam - 1]],
+            row * this.board.getCols() + col);
+        if (this.pieceCounts[enemyTeam - 1] == 0) {
+          this.gameOver = true;
+          this.winner = team;
+        }
+        movePiece(team, pieceId, from, row, col);
+        break;
+      case Board.BASE:
+        this.gameOver = true;
+        this.winner = team;
+        break;
+      default:
+        movePiece(team, pieceId, from, row, col);
+        break;
+    }
+
+    this.previousTeam = team;
+    this.currentTeam = team % this.teamCount + 1;
+    this.hash ^= teamKey(team) ^ teamKey(this.currentTeam);
+  }
+
+  /**
+   * Takes back the last move made.
+   */
+  public void unmakeMove() {
+    int entry = --this.plies * UNDO_SIZE;
+    int move = this.undo[entry];
+    int from = this.undo[entry + 1];
+    int target = this.undo[entry + 2];
+    int capturedIndex = this.undo[entry + 3];
+
+    int team = this.previousTeam;
+    int t = team - 1;
+    if (Board.kind(target) != Board.BASE) {
+      int pieceId = MoveBuffer.pieceId(move);
+      int cols = this.board.getCols();
+      this.board.set(MoveBuffer.row(move), MoveBuffer.col(move), target);
+      this.board.set(from / cols, from % cols, Board.piece(team, pieceId));
+      this.piecePositions[t][this.slots[t][pieceId]] = from;
+    }
+    if (capturedIndex >= 0) {
+      restorePiece(Board.team(target) - 1, capturedIndex);
+    }
+
+    this.currentTeam = team;
+    this.hash = this.hashes[this.plies];
+    this.previousTeam = this.undo[entry + 4];
+    this.winner = this.undo[entry + 5];
+    this.gameOver = this.undo[entry + 6] == 1;
+  }
+
+  /**
+   * Takes back all moves, so the board is in the loaded state again.
+   */
+  public void reset() {
+    while (this.plies > 0) {
+      unmakeMove();
+    }
+    this.previousTeam = 0;
+    this.winner = 0;
+    this.gameOver = false;
+  }
+
+  /**
+   * Plays random moves until the game is over.
+   *
+   * @return the ID of the winning team.
+   */
+  public int randomPlayout() {
+    SplittableRandom random = this.random;
+    while (!this.gameOver) {
+      generateMoves(this.moveBuffer);
+      if (this.moveBuffer.isEmpty()) {
+        endWithoutMoves();
+        break;
+      }
+      makeMove(this.moveBuffer.get(random.nextInt(this.moveBuffer.size())));
+    }
+    return this.winner;
+  }
+
+  /**
+   * Plays moves until the game is over. The pieces are tried in random order and the first piece
+   * with a move moves; it reaches an enemy base if it can and prefers captures most of the time.
+   *
+   * @return the ID of the winning team.
+   */
+  public int notSoRandomPlayout() {
+    SplittableRandom random = this.random;
+    int cols = this.board.getCols();
+    while (!this.gameOver) {
+      int t = this.currentTeam - 1;
+      int count = this.pieceCounts[t];
+      if (this.order.length < count) {
+        this.order = new int[count * 2];
+      }
+      for (int i = 0; i < count; i++) {
+        this.order[i] = i;
+      }
+
+      int move = -1;
+      for (int i = 0; i < count && move < 0; i++) {
+        int randomIndex = i + random.nextInt(count - i);
+        int index = this.order[randomIndex];
+        this.order[randomIndex] = this.order[i];
+        this.order[i] = index;
+
+        int position = this.piecePositions[t][index];
+        this.moveBuffer.clear();
+        this.moveGenerator.generate(this.board, this.currentTeam, this.pieceIds[t][index],
+            position / cols, position % cols, this.moveBuffer);
+        if (this.moveBuffer.isEmpty()) {
+          continue;
+        }
+        move = selectOfKind(MoveBuffer.BASE, random);
+        if (move < 0 && random.nextDouble() > IGNORE_CAPTURE_CHANCE) {
+          move = selectOfKind(MoveBuffer.CAPTURE, random);
+        }
+        if (move < 0) {
+          move = this.moveBuffer.get(random.nextInt(this.moveBuffer.size()));
+        }
+      }
+
+      if (move < 0) {
+        endWithoutMoves();
+        break;
+      }
+      makeMove(move);
+    }
+    return this.winner;
+  }
+
+  /**
+   * Creates the move object of a packed move of the team to move.
+   *
+   * @param move the packed move.
+   * @return the move as sent to the server.
+   */
+  public Move toMove(int move) {
+    Move result = new Move();
+    result.setPieceId(String.valueOf(MoveBuffer.pieceId(move)));
+    result.setNewPosition(new int[]{MoveBuffer.row(move), MoveBuffer.col(move)});
+    result.setTeamId(String.valueOf(this.currentTeam));
+    return result;
+  }
+
+  /**
+   * Writes the pieces, their positions and the team to move back into the game state that was
+   * loaded, so it can be evaluated. The grid of the game state is not updated.
+   *
+   * @param state the game state that was loaded into this board.
+   */
+  public void writeTo(GameState state) {
+    int cols = this.board.getCols();
+    Team[] teams = state.getTeams();
+    for (int t = 0; t < this.teamCount; t++) {
+      if (teams[t] == null) {
+        continue;
+      }
+      Piece[] teamPieces = teams[t].getPieces();
+      if (teamPieces == null || teamPieces.length != this.pieceCounts[t]) {
+        teamPieces = new Piece[this.pieceCounts[t]];
+        teams[t].setPieces(teamPieces);
+      }
+      for (int i = 0; i < this.pieceCounts[t]; i++) {
+        Piece piece = this.pieces[t][i];
+        int[] position = piece.getPosition();
+        position[0] = this.piecePositions[t][i] / cols;
+        position[1] = this.piecePositions[t][i] % cols;
+        teamPieces[i] = piece;
+      }
+    }
+    state.setCurrentTeam(this.currentTeam);
+  }
+
+  /**
+   * @return the Zobrist hash of the pieces on the board, by team and type, and the team to move.
+   */
+  public long getHash() {
+    return this.hash;
+  }
+
+  /**
+   * @return true if the game is over, otherwise false.
+   */
+  public boolean isGameOver() {
+    return this.gameOver;
+  }
+
+  /**
+   * @return the ID of the winning team, 0 if there is none yet.
+   */
+  public int getWinner() {
+    return this.winner;
+  }
+
+  /**
+   * @return the ID of the team to move.
+   */
+  public int getCurrentTeam() {
+    return this.currentTeam;
+  }
+
+  /**
+   * @return the encoded cells of the board.
+   */
+  public Board getBoard() {
+    return this.board;
+  }
+
+  /**
+   * Ends the game because the team to move has no move, the team that moved before wins.
+   */
+  private void endWithoutMoves() {
+    this.gameOver = true;
+    this.winner = this.previousTeam;
+  }
+
+  /**
+   * Picks a random move of the given kind from the move buffer.
+   *
+   * @param kind   {@link MoveBuffer#CAPTURE} or {@link MoveBuffer#BASE}.
+   * @param random the random generator to use.
+   * @return the packed move, -1 if the buffer holds no move of the kind.
+   */
+  private int selectOfKind(int kind, SplittableRandom random) {
+    int count = 0;
+    for (int i = 0; i < this.moveBuffer.size(); i++) {
+      if (MoveBuffer.kind(this.moveBuffer.get(i)) == kind) {
+        count++;
+      }
+    }
+    if (count == 0) {
+      return -1;
+    }
+    int selected = random.nextInt(count);
+    for (int i = 0; i < this.moveBuffer.size(); i++) {
+      int move = this.moveBuffer.get(i);
+      if (MoveBuffer.kind(move) == kind && selected-- == 0) {
+        return move;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Moves a piece on the board.
+   */
+  private void movePiece(int team, int pieceId, int from, int row, int col) {
+    int cols = this.board.getCols();
+    int slot = this.slots[team - 1][pieceId];
+    this.board.set(from / cols, from % cols, Board.EMPTY);
+    this.board.set(row, col, Board.piece(team, pieceId));
+    this.piecePositions[team - 1][slot] = row * cols + col;
+    this.hash ^= cellKey(this.pieceKeys[team - 1][slot], from)
+        ^ cellKey(this.pieceKeys[team - 1][slot], row * cols + col);
+  }
+
+  /**
+   * Zobrist key of a piece on a cell. The keys are mixed from the piece key and the cell instead of
+   * being looked up, so they are the same for every board of a game.
+   *
+   * @param pieceKey the key of the team and type of the piece.
+   * @param cell     the cell as row * columns + column.
+   * @return the key.
+   */
+  private static long cellKey(long pieceKey, int cell) {
+    return mix(pieceKey + cell * GOLDEN_GAMMA);
+  }
+
+  /**
+   * @param team the ID of a team.
+   * @return the Zobrist key of the team being the team to move.
+   */
+  private static long teamKey(int team) {
+    return mix(TEAM_SALT + team * GOLDEN_GAMMA);
+  }
+
+  /**
+   * Mixes the bits of a value, as done by SplitMix64.
+   */
+  private static long mix(long value) {
+    long z = value;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Adds a loaded piece to its team.
+   */
+  private void addPiece(int t, Piece piece, int position) {
+    int pieceId = Integer.parseInt(piece.getId());
+    int index = this.pieceCounts[t]++;
+    if (index == this.pieces[t].length) {
+      this.pieces[t] = Arrays.copyOf(this.pieces[t], index * 2);
+      this.pieceIds[t] = Arrays.copyOf(this.pieceIds[t], index * 2);
+      this.piecePositions[t] = Arrays.copyOf(this.piecePositions[t], index * 2);
+      this.pieceKeys[t] = Arrays.copyOf(this.pieceKeys[t], index * 2);
+    }
+    if (pieceId >= this.slots[t].length) {
+      int oldLength = this.slots[t].length;
+      this.slots[t] = Arrays.copyOf(this.slots[t], Math.max(pieceId + 1, oldLength * 2));
+      Arrays.fill(this.slots[t], oldLength, this.slots[t].length, -1);
+    }
+    this.pieces[t][index] = piece;
+    this.pieceIds[t][index] = pieceId;
+    this.piecePositions[t][index] = position;
+    String type = piece.getDescription() != null ? piece.getDescription().getType() : null;
+    this.pieceKeys[t][index] = mix((t + 1) * GOLDEN_GAMMA ^ Objects.hashCode(type));
+    this.slots[t][pieceId] = index;
+  }
+
+  /**
+   * Captures a piece by swapping it behind the alive pieces of its team.
+   *
+   * @return the index the piece had
+   */
+  private int removePiece(int t, int pieceId) {
+    int index = this.slots[t][pieceId];
+    int last = --this.pieceCounts[t];
+    swap(t, index, last);
+    this.slots[t][this.pieceIds[t][index]] = index;
+    this.slots[t][pieceId] = -1;
+    return index;
+  }
+
+  /**
+   * Takes back the capture of the piece that had the given index.
+   */
+  private void restorePiece(int t, int index) {
+    int last = this.pieceCounts[t]++;
+    swap(t, index, last);
+    this.slots[t][this.pieceIds[t][index]] = index;
+    this.slots[t][this.pieceIds[t][last]] = last;
+  }
+
+  /**
+   * Swaps two pieces of a team.
+   */
+  private void swap(int t, int i, int j) {
+    Piece piece = this.pieces[t][i];
+    this.pieces[t][i] = this.pieces[t][j];
+    this.pieces[t][j] = piece;
+    int pieceId = this.pieceIds[t][i];
+    this.pieceIds[t][i] = this.pieceIds[t][j];
+    this.pieceIds[t][j] = pieceId;
+    int position = this.piecePositions[t][i];
+    this.piecePositions[t][i] = this.piecePositions[t][j];
+    this.piecePositions[t][j] = position;
+    long pieceKey = this.pieceKeys[t][i];
+    this.pieceKeys[t][i] = this.pieceKeys[t][j];
+    this.pieceKeys[t][j] = pieceKey;
+  }
+}
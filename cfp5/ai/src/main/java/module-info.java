@@ -5,8 +5,12 @@ module ai {
   requires jakarta.validation;
   exports de.unimannheim.swt.pse.ai.minimax;
   requires java.sql;
+  requires java.net.http;
   exports de.unimannheim.swt.pse.ai.mcts;
   exports de.unimannheim.swt.pse.ai.advancedMCTS;
+  exports de.unimannheim.swt.pse.ai.playout;
+  exports de.unimannheim.swt.pse.ai.arena;
+  exports de.unimannheim.swt.pse.ai.client;
   //requires client;
   //requires javafx.base;
 }
\ No newline at end of file
@@ -3,10 +3,13 @@ package de.unimannheim.swt.pse.ai.MCTS;
 import static org.junit.jupiter.api.Assertions.*;
 
 import de.unimannheim.swt.pse.ai.mcts.GameSimulator;
+import de.unimannheim.swt.pse.ai.mcts.GameStateCopier;
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
 import de.unimannheim.swt.pse.server.game.state.GameState;
 import de.unimannheim.swt.pse.ai.MCTS.Helper.GameStateFactory;
 
 import de.unimannheim.swt.pse.server.game.state.Move;
+import java.util.SplittableRandom;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -112,5 +115,19 @@ public class GameSimulatorTest {
     simulator.makeMove(moveLeadingToWin);
     assertTrue(simulator.isGameOver(), "Game should be over after the winning move");
   }
-}
 
+  @Test
+  public void testSimulateGame_SameSeedPlaysSameGame() {
+    GameState state = gameStateFactory.createSampleGameState();
+    GameState firstState = GameStateCopier.deepCopy(state);
+    GameState secondState = GameStateCopier.deepCopy(state);
+    GameSimulator first = new GameSimulator(firstState, MoveGenerator.forState(firstState),
+        new SplittableRandom(42));
+    GameSimulator second = new GameSimulator(secondState, MoveGenerator.forState(secondState),
+        new SplittableRandom(42));
+
+    assertEquals(first.simulateGame(), second.simulateGame(), "Expected the same winner");
+    assertArrayEquals(first.getGameState().getGrid(), second.getGameState().getGrid(),
+        "Expected the same final grid");
+  }
+}
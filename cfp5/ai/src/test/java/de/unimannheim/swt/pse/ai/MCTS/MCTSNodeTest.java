@@ -4,6 +4,9 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import de.unimannheim.swt.pse.ai.mcts.MCTSNode;
 import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import java.util.ArrayDeque;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.util.Random;
@@ -76,5 +79,19 @@ class MCTSNodeTest {
   void testGetRandomChildNode() {
     assertNotNull(root.getRandomChildNode(), "Should return a random child node.");
   }
-}
 
+  @Test
+  void testCanWiden_GrowsWithVisits() {
+    MCTSNode node = new MCTSNode(new GameState());
+    assertTrue(node.canWiden(), "A node that was never expanded should be expanded.");
+    node.setUntriedMoves(new ArrayDeque<>(List.of(new Move(), new Move(), new Move())));
+    assertTrue(node.canWiden(), "A node without children may get its first child.");
+    node.addChild(new MCTSNode(node, new GameState()));
+    node.getUntriedMoves().pollFirst();
+    assertFalse(node.canWiden(), "A second child needs more visits.");
+    node.setVisitCount(4);
+    assertTrue(node.canWiden(), "Four visits allow three children.");
+    node.getUntriedMoves().clear();
+    assertFalse(node.canWiden(), "A node without untried moves cannot be widened.");
+  }
+}
@@ -0,0 +1,130 @@
+package de.unimannheim.swt.pse.ai.MCTS;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.unimannheim.swt.pse.ai.mcts.NodePool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NodePoolTest {
+
+  private NodePool pool;
+  private int root;
+
+  @BeforeEach
+  void setUp() {
+    pool = new NodePool(10);
+    root = pool.allocate(NodePool.NONE, 0);
+  }
+
+  @Test
+  void testAllocate_LinksChildren() {
+    int first = pool.allocate(root, 1);
+    int second = pool.allocate(root, 2);
+
+    assertEquals(second, pool.getFirstChild(root), "New children should be added first.");
+    assertEquals(first, pool.getNextSibling(second));
+    assertEquals(NodePool.NONE, pool.getNextSibling(first));
+    assertEquals(root, pool.getParent(first));
+    assertEquals(2, pool.getMove(second));
+    assertEquals(3, pool.size());
+  }
+
+  @Test
+  void testAllocate_ReturnsNoneWhenFull() {
+    for (int i = 1; i < 10; i++) {
+      assertNotEquals(NodePool.NONE, pool.allocate(root, i));
+    }
+    assertEquals(NodePool.NONE, pool.allocate(root, 10), "A full pool should not allocate.");
+  }
+
+  @Test
+  void testBackPropagate_UpdatesAllParents() {
+    int child = pool.allocate(root, 1);
+    int grandChild = pool.allocate(child, 2);
+    pool.backPropagate(grandChild, 1.0);
+    pool.backPropagate(child, 0.0);
+
+    assertEquals(1, pool.getVisitCount(grandChild));
+    assertEquals(2, pool.getVisitCount(child));
+    assertEquals(2, pool.getVisitCount(root));
+    assertEquals(1.0, pool.getWinScore(root));
+  }
+
+  @Test
+  void testCollapse_FreesSubtreeAndKeepsStatistics() {
+    int child = pool.allocate(root, 1);
+    pool.setExpanded(child, 1);
+    int grandChild = pool.allocate(child, 2);
+    pool.allocate(grandChild, 3);
+    pool.backPropagate(child, 1.0);
+
+    pool.collapse(child);
+    assertEquals(2, pool.size(), "The subtree of the child should be freed.");
+    assertFalse(pool.isExpanded(child));
+    assertFalse(pool.isAlive(grandChild));
+    assertEquals(1, pool.getVisitCount(child), "The statistics of the child should be kept.");
+    assertEquals(NodePool.NONE, pool.getFirstChild(child));
+    assertEquals(0, pool.getTriedMoves(child), "The moves of the child should be untried again.");
+  }
+
+  @Test
+  void testCanWiden_BoundedByVisits() {
+    assertFalse(pool.canWiden(root), "The moves of a node are unknown before its expansion.");
+    pool.setExpanded(root, 3);
+    assertTrue(pool.canWiden(root));
+    pool.allocate(root, 1);
+    assertEquals(1, pool.getTriedMoves(root));
+    assertFalse(pool.canWiden(root), "An unvisited node should have a single child.");
+
+    pool.backPropagate(root, 1.0);
+    assertTrue(pool.canWiden(root), "One visit should allow a second child.");
+    pool.allocate(root, 2);
+    assertFalse(pool.canWiden(root));
+
+    for (int i = 0; i < 3; i++) {
+      pool.backPropagate(root, 0.0);
+    }
+    assertTrue(pool.canWiden(root), "Four visits should allow a third child.");
+    pool.allocate(root, 3);
+    assertFalse(pool.hasUntriedMoves(root));
+    assertFalse(pool.canWiden(root), "A node with all moves tried should not be widened.");
+  }
+
+  @Test
+  void testRecycle_CollapsesLeastVisitedSubtrees() {
+    pool.setExpanded(root, 2);
+    int rarelyVisited = pool.allocate(root, 1);
+    int oftenVisited = pool.allocate(root, 2);
+    pool.setExpanded(rarelyVisited, 3);
+    pool.setExpanded(oftenVisited, 3);
+    for (int i = 0; i < 3; i++) {
+      pool.allocate(rarelyVisited, 10 + i);
+      pool.allocate(oftenVisited, 20 + i);
+    }
+    pool.backPropagate(rarelyVisited, 0.0);
+    for (int i = 0; i < 5; i++) {
+      pool.backPropagate(oftenVisited, 1.0);
+    }
+
+    pool.recycle(root, 3);
+    assertTrue(pool.getFreeCount() >= 3);
+    assertFalse(pool.isExpanded(rarelyVisited), "The least visited subtree should be recycled.");
+    assertTrue(pool.isExpanded(oftenVisited));
+    assertTrue(pool.isExpanded(root), "The root should never be recycled.");
+  }
+
+  @Test
+  void testReroot_FreesEverythingButNewRoot() {
+    int child = pool.allocate(root, 1);
+    int sibling = pool.allocate(root, 2);
+    int grandChild = pool.allocate(child, 3);
+
+    pool.reroot(root, child);
+    assertEquals(2, pool.size());
+    assertEquals(NodePool.NONE, pool.getParent(child));
+    assertEquals(grandChild, pool.getFirstChild(child));
+    assertFalse(pool.isAlive(root));
+    assertFalse(pool.isAlive(sibling));
+  }
+}
@@ -0,0 +1,127 @@
+package de.unimannheim.swt.pse.ai.MCTS;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.unimannheim.swt.pse.ai.MCTS.Helper.GameStateFactory;
+import de.unimannheim.swt.pse.ai.mcts.MCTS;
+import de.unimannheim.swt.pse.ai.mcts.MoveSelector;
+import de.unimannheim.swt.pse.ai.mcts.NodePool;
+import de.unimannheim.swt.pse.ai.mcts.PooledMCTS;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class PooledMCTSTest {
+
+  private final GameStateFactory factory = new GameStateFactory();
+
+  @Test
+  void testSearch_ReturnsBestMove() {
+    PooledMCTS mcts = new PooledMCTS(factory.createBaseCaptureWinState());
+    Move resultMove = mcts.search(500);
+
+    assertNotNull(resultMove, "Should return the best move.");
+    assertEquals("1", resultMove.getPieceId());
+    assertEquals("1", resultMove.getTeamId());
+    assertArrayEquals(new int[]{0, 3}, resultMove.getNewPosition(), "Should capture the base.");
+  }
+
+  @Test
+  void testSearch_StaysWithinNodeCapacity() {
+    PooledMCTS mcts = new PooledMCTS(factory.createSampleGameState(), 200);
+    Move resultMove = mcts.search(300);
+
+    assertNotNull(resultMove, "Should return a move.");
+    assertTrue(mcts.getPool().size() <= 200, "The tree should not grow beyond the capacity.");
+    assertTrue(mcts.getPool().getVisitCount(mcts.getRoot()) > 200,
+        "The search should go on after the pool ran full.");
+  }
+
+  @Test
+  void testSearch_WidensNodesProgressively() {
+    PooledMCTS mcts = new PooledMCTS(factory.createSampleGameState(), 1000);
+    mcts.search(200);
+    NodePool pool = mcts.getPool();
+    int root = mcts.getRoot();
+
+    assertEquals(pool.getMoveCount(root), pool.getTriedMoves(root),
+        "The root should have a child for every move.");
+    int widened = 0;
+    for (int child = pool.getFirstChild(root); child != NodePool.NONE;
+        child = pool.getNextSibling(child)) {
+      if (!pool.isExpanded(child)) {
+        continue;
+      }
+      widened++;
+      int children = 0;
+      for (int grandChild = pool.getFirstChild(child); grandChild != NodePool.NONE;
+          grandChild = pool.getNextSibling(grandChild)) {
+        children++;
+      }
+      assertEquals(pool.getTriedMoves(child), children);
+      assertTrue(children <= 1 + (int) Math.sqrt(pool.getVisitCount(child)),
+          "A node should not have more children than its visits allow.");
+    }
+    assertTrue(widened > 0, "Nodes below the root should be expanded although the pool is small.");
+  }
+
+  @Test
+  void testSearch_NoMovesLeft() {
+    PooledMCTS mcts = new PooledMCTS(factory.createNoMovesLeftState());
+    assertNull(mcts.search(50), "Should return no move.");
+  }
+
+  @Test
+  void testAdvance_ReusesSubtreeOfPlayedMoves() {
+    GameState state = factory.createSampleGameState();
+    PooledMCTS mcts = new PooledMCTS(state);
+    mcts.search(200);
+    // a move of the second piece, since the first piece wins right away
+    Move ownMove = new MoveSelector(state).getAllPossibleMoves().stream()
+        .filter(move -> move.getPieceId().equals("2")).findFirst().orElseThrow();
+    GameState afterOwnMove = new MCTS(state).simulateMove(state, ownMove).first();
+    Move reply = new MoveSelector(afterOwnMove).getAllPossibleMoves().get(0);
+    GameState nextState = new MCTS(afterOwnMove).simulateMove(afterOwnMove, reply).first();
+
+    assertTrue(mcts.advance(ownMove, nextState), "The moves should lead to the searched subtree.");
+    assertTrue(mcts.getPool().getVisitCount(mcts.getRoot()) > 0,
+        "The visits of the subtree should be kept.");
+    assertNotNull(mcts.search(50), "Should search on from the new root.");
+  }
+
+  @Test
+  void testAdvance_RejectsUnknownState() {
+    PooledMCTS mcts = new PooledMCTS(factory.createSampleGameState());
+    Move ownMove = mcts.search(50);
+    int root = mcts.getRoot();
+
+    assertFalse(mcts.advance(ownMove, factory.createSampleGameState()),
+        "A state not reached by the move should not reuse the tree.");
+    assertEquals(root, mcts.getRoot());
+  }
+
+  @Test
+  void testPonder_SearchesBelowOwnMoveUntilStopped() throws Exception {
+    GameState state = factory.createSampleGameState();
+    PooledMCTS mcts = new PooledMCTS(state);
+    mcts.search(50);
+    Move ownMove = new MoveSelector(state).getAllPossibleMoves().stream()
+        .filter(move -> move.getPieceId().equals("2")).findFirst().orElseThrow();
+    int visits = mcts.getPool().getVisitCount(mcts.getRoot());
+
+    AtomicBoolean stop = new AtomicBoolean();
+    CompletableFuture<Void> pondering = CompletableFuture.runAsync(() -> mcts.ponder(ownMove, stop));
+    Thread.sleep(100);
+    stop.set(true);
+    pondering.get(1, TimeUnit.SECONDS);
+    assertTrue(mcts.getPool().getVisitCount(mcts.getRoot()) > visits, "Pondering should search.");
+
+    GameState afterOwnMove = new MCTS(state).simulateMove(state, ownMove).first();
+    Move reply = new MoveSelector(afterOwnMove).getAllPossibleMoves().get(0);
+    GameState nextState = new MCTS(afterOwnMove).simulateMove(afterOwnMove, reply).first();
+    assertTrue(mcts.advance(ownMove, nextState), "The pondered subtree should be reused.");
+  }
+}
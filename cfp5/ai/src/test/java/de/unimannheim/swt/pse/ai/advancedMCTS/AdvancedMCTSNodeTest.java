@@ -3,6 +3,9 @@ package de.unimannheim.swt.pse.ai.advancedMCTS;
 import static org.junit.jupiter.api.Assertions.*;
 
 import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import java.util.ArrayDeque;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.util.Random;
@@ -63,6 +66,43 @@ class AdvancedMCTSNodeTest {
   void testGetRandomChildNode() {
     assertNotNull(root.getRandomChildNode(), "Should return a random child node.");
   }
-}
 
+  @Test
+  void testVirtualLoss_SteersUCBChildAway() {
+    AdvancedMCTSNode parent = new AdvancedMCTSNode(new GameState());
+    AdvancedMCTSNode first = new AdvancedMCTSNode(parent, new GameState());
+    AdvancedMCTSNode second = new AdvancedMCTSNode(parent, new GameState());
+    parent.addChild(first);
+    parent.addChild(second);
+    parent.setVisitCount(20);
+    first.setVisitCount(10);
+    first.setWinScore(6);
+    second.setVisitCount(10);
+    second.setWinScore(5);
+    assertSame(first, parent.findUCBChild(), "The child with the higher win rate should be chosen.");
+
+    parent.addVirtualLoss();
+    first.addVirtualLoss();
+    first.addVirtualLoss();
+    assertSame(second, parent.findUCBChild(), "Virtual losses should make the other child better.");
+
+    first.removeVirtualLoss();
+    assertEquals(1, first.getVirtualLoss());
+    assertEquals(0, parent.getVirtualLoss(), "Removing should also clear the parents.");
+  }
 
+  @Test
+  void testCanWiden_GrowsWithVisits() {
+    AdvancedMCTSNode node = new AdvancedMCTSNode(new GameState());
+    assertTrue(node.canWiden(), "A node that was never expanded should be expanded.");
+    node.setUntriedMoves(new ArrayDeque<>(List.of(new Move(), new Move(), new Move())));
+    assertTrue(node.canWiden(), "A node without children may get its first child.");
+    node.addChild(new AdvancedMCTSNode(node, new GameState()));
+    node.getUntriedMoves().pollFirst();
+    assertFalse(node.canWiden(), "A second child needs more visits.");
+    node.setVisitCount(4);
+    assertTrue(node.canWiden(), "Four visits allow three children.");
+    node.getUntriedMoves().clear();
+    assertFalse(node.canWiden(), "A node without untried moves cannot be widened.");
+  }
+}
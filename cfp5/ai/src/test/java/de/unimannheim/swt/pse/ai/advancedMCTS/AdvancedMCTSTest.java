@@ -6,7 +6,11 @@ import de.unimannheim.swt.pse.ai.MCTS.Helper.GameStateFactory;
 import de.unimannheim.swt.pse.server.game.state.GameState;
 import de.unimannheim.swt.pse.server.game.state.Move;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -49,6 +53,61 @@ class AdvancedMCTSTest {
     assertEquals(resultMove.getNewPosition()[1], 3, "Should return the best move.");
   }
 
+  @Test
+  void testSharedTreeSearch_ReturnsBestMove() {
+    Move resultMove = mcts.sharedTreeSearch(4, 500); // 4 threads on one tree, 500 milliseconds
+
+    assertNotNull(resultMove, "Should return the best move.");
+    assertArrayEquals(new int[]{0, 3}, resultMove.getNewPosition(), "Should return the best move.");
+    assertTrue(mcts.getRoot().getVisitCount() > 0, "The threads should have searched the tree.");
+    assertEquals(0, mcts.getRoot().getVirtualLoss(), "All virtual losses should be removed.");
+  }
+
+  @Test
+  void testAdvance_ReusesSubtreeOfPlayedMoves() {
+    GameState state = factory.createSampleGameState();
+    mcts = new AdvancedMCTS(state);
+    mcts.sharedTreeSearch(2, 300);
+    // a move of the second piece, since the first piece wins right away
+    Move ownMove = new AdvancedMoveSelector(state).getAllPossibleMoves().stream()
+        .filter(move -> move.getPieceId().equals("2")).findFirst().orElseThrow();
+    GameState afterOwnMove = mcts.simulateMove(state, ownMove).first();
+    // a reply the search expanded, the node of the own move is only widened as it gets visits
+    AdvancedMCTSNode ownMoveNode = mcts.getRoot().getChildren().stream()
+        .filter(child -> child.getMove().getPieceId().equals(ownMove.getPieceId())
+            && Arrays.equals(child.getMove().getNewPosition(), ownMove.getNewPosition()))
+        .findFirst().orElseThrow();
+    Move reply = ownMoveNode.getChildren().get(0).getMove();
+    GameState nextState = mcts.simulateMove(afterOwnMove, reply).first();
+
+    assertTrue(mcts.advance(ownMove, nextState), "The moves should lead to the searched subtree.");
+    assertSame(nextState, mcts.getRoot().getState());
+    for (AdvancedMCTSNode child : mcts.getRoot().getChildren()) {
+      assertNotNull(child.getState(), "The children of the new root should have a state.");
+      assertSame(mcts.getRoot(), child.getParent());
+    }
+    assertNotNull(mcts.sharedTreeSearch(2, 100), "Should search on from the new root.");
+  }
+
+  @Test
+  void testPonder_SearchesBelowOwnMoveUntilStopped() throws Exception {
+    GameState state = factory.createSampleGameState();
+    mcts = new AdvancedMCTS(state);
+    mcts.sharedTreeSearch(2, 100);
+    Move ownMove = new AdvancedMoveSelector(state).getAllPossibleMoves().stream()
+        .filter(move -> move.getPieceId().equals("2")).findFirst().orElseThrow();
+    int visits = mcts.getRoot().getVisitCount();
+
+    AtomicBoolean stop = new AtomicBoolean();
+    CompletableFuture<Void> pondering = CompletableFuture.runAsync(
+        () -> mcts.ponder(ownMove, 2, stop));
+    Thread.sleep(200);
+    stop.set(true);
+    pondering.get(2, TimeUnit.SECONDS);
+    assertTrue(mcts.getRoot().getVisitCount() > visits, "Pondering should search.");
+    assertEquals(0, mcts.getRoot().getVirtualLoss(), "All virtual losses should be removed.");
+  }
+
   @Test
   void testAggregateResults_CombinesResultsCorrectly() {
     // Prepare mock nodes based on the real game state
@@ -8,6 +8,7 @@ import java.util.Arrays;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.util.List;
+import java.util.SplittableRandom;
 
 public class AdvancedMoveSelectorTest {
 
@@ -474,6 +475,17 @@ public class AdvancedMoveSelectorTest {
     assertTrue(containsMove, "Expected the selected move to be a possible move");
   }
 
+  @Test
+  public void testGetPrioritizedMoves_BaseCaptureFirst() {
+    GameState gameState = gameStateFactory.createBaseCaptureWinState();
+    moveSelector = new AdvancedMoveSelector(gameState);
+    List<Move> prioritizedMoves = moveSelector.getPrioritizedMoves(new SplittableRandom(1));
+    List<Move> possibleMoves = new AdvancedMoveSelector(gameState).getAllPossibleMoves();
+    assertEquals(possibleMoves.size(), prioritizedMoves.size(), "Expected every move once");
+    assertArrayEquals(new int[]{0, 3}, prioritizedMoves.get(0).getNewPosition(),
+        "Expected the capture of the base first");
+  }
+
   private boolean isMovesEqual(Move move1, Move move2) {
     return move1.getPieceId().equals(move2.getPieceId()) &&
         Arrays.equals(move1.getNewPosition(), move2.getNewPosition()) &&
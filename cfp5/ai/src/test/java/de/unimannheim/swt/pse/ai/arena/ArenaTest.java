@@ -0,0 +1,80 @@
+package de.unimannheim.swt.pse.ai.arena;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.unimannheim.swt.pse.ai.arena.ArenaReport.Standing;
+import de.unimannheim.swt.pse.server.game.map.MapTemplate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ArenaTest {
+
+  @Test
+  public void testElo_MatchesScore() {
+    assertEquals(0, ArenaReport.elo(0.5), 1e-9);
+    assertEquals(190.85, ArenaReport.elo(0.75), 0.01);
+    assertEquals(-190.85, ArenaReport.elo(0.25), 0.01);
+    assertEquals(Double.POSITIVE_INFINITY, ArenaReport.elo(1));
+  }
+
+  @Test
+  public void testStanding_ConfidenceIntervalContainsElo() {
+    Standing standing = new Standing(60, 20, 20);
+    assertEquals(0.7, standing.score(), 1e-9);
+    assertTrue(standing.scoreError() > 0 && standing.scoreError() < 0.1);
+    assertTrue(standing.eloLow() < standing.elo() && standing.elo() < standing.eloHigh());
+  }
+
+  @Test
+  public void testRun_PlaysEveryPairingWithSwappedTeams() throws InterruptedException {
+    Arena arena = new Arena(List.of(BotType.MCTS, BotType.MINIMAX));
+    arena.setGamesPerPairing(2);
+    arena.setMoveTimeMillis(10);
+    arena.setMaxMoves(6);
+    arena.setThreads(2);
+
+    ArenaReport report = arena.run();
+    assertEquals(2, report.getGames().size());
+    assertEquals(BotType.MCTS, report.getGames().get(0).bots()[0]);
+    assertEquals(BotType.MINIMAX, report.getGames().get(1).bots()[0]);
+
+    Standing standing = report.getStanding(BotType.MCTS, BotType.MINIMAX);
+    Standing opposite = report.getStanding(BotType.MINIMAX, BotType.MCTS);
+    assertEquals(2, standing.games());
+    assertEquals(standing.wins(), opposite.losses());
+    assertTrue(report.getPlayoutsPerSecond(BotType.MCTS) > 0);
+    assertTrue(report.getAverageMoveMillis(BotType.MINIMAX) > 0);
+  }
+
+  @Test
+  public void testReport_CountsErrorsSeparately() {
+    BotType[] bots = {BotType.MCTS, BotType.MINIMAX};
+    GameRecord won = new GameRecord(1, bots, 0, 10, new int[]{5, 5}, new long[]{1, 1},
+        new long[]{1, 1}, -1, null);
+    GameRecord failed = new GameRecord(2, bots, -1, 3, new int[]{2, 1}, new long[]{1, 1},
+        new long[]{1, 1}, 1, new IllegalStateException("search failed"));
+    ArenaReport report = new ArenaReport(List.of(bots), List.of(won, failed), 1_000_000_000L);
+
+    assertEquals(new Standing(1, 0, 0), report.getStanding(BotType.MCTS, BotType.MINIMAX));
+    assertEquals(new Standing(0, 0, 1), report.getStanding(BotType.MINIMAX, BotType.MCTS));
+    assertEquals(0, report.getErrors(BotType.MCTS));
+    assertEquals(1, report.getErrors(BotType.MINIMAX));
+    assertTrue(report.toString().contains("search failed"));
+  }
+
+  @Test
+  public void testExampleTemplate_IsLoaded() {
+    MapTemplate template = Arena.loadExampleTemplate();
+    assertEquals(2, template.getTeams());
+    assertArrayEquals(new int[]{10, 10}, template.getGridSize());
+    assertEquals(-1, template.getMoveTimeLimitInSeconds());
+  }
+
+  @Test
+  public void testArena_NeedsTwoBots() {
+    assertThrows(IllegalArgumentException.class, () -> new Arena(List.of(BotType.MCTS)));
+  }
+}
@@ -0,0 +1,84 @@
+package de.unimannheim.swt.pse.ai.minimax;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.unimannheim.swt.pse.ai.minimax.Helper.GameStateFactory;
+import de.unimannheim.swt.pse.ai.playout.PlayoutBoard;
+import de.unimannheim.swt.pse.server.game.board.MoveBuffer;
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IncrementalEvaluatorTest {
+
+  private GameStateFactory gameStateFactory;
+  private IncrementalEvaluator evaluator;
+
+  @BeforeEach
+  public void setUp() {
+    gameStateFactory = new GameStateFactory();
+    evaluator = new IncrementalEvaluator();
+  }
+
+  @Test
+  public void testEvaluate_MatchesHeuristicEvaluator() {
+    GameState[] states = {gameStateFactory.createSampleGameState(),
+        gameStateFactory.createSampleGameState2(true),
+        gameStateFactory.createSampleGameState2(false),
+        gameStateFactory.createMyFlagIsBetweenMyNearestPieceAndOpponentsNearestPiece()};
+    for (GameState state : states) {
+      evaluator.load(state);
+      for (boolean isMaximizing : new boolean[]{true, false}) {
+        assertEquals(HeuristicEvaluator.evaluate(state, isMaximizing),
+            evaluator.evaluate(state.getCurrentTeam(), isMaximizing),
+            "Expected the value of the heuristic evaluator");
+      }
+    }
+  }
+
+  @Test
+  public void testMakeAndUnmakeMove_MatchesLoadedPosition() {
+    GameState state = gameStateFactory.createSampleGameState2(true);
+    PlayoutBoard board = new PlayoutBoard(MoveGenerator.forState(state));
+    board.load(state);
+    evaluator.load(state);
+    int[] initial = values(evaluator, state.getCurrentTeam());
+    MoveBuffer moves = new MoveBuffer();
+    Random random = new Random(7);
+
+    int plies = 0;
+    while (plies < 30 && !board.isGameOver()) {
+      board.generateMoves(moves);
+      if (moves.isEmpty()) {
+        break;
+      }
+      int move = moves.get(random.nextInt(moves.size()));
+      evaluator.makeMove(board, move);
+      board.makeMove(move);
+      plies++;
+
+      GameState position = GameStateCopier.deepCopy(state);
+      board.writeTo(position);
+      IncrementalEvaluator loaded = new IncrementalEvaluator();
+      loaded.load(position);
+      assertEquals(values(loaded, board.getCurrentTeam())[0],
+          values(evaluator, board.getCurrentTeam())[0],
+          "Expected the value of the position loaded from scratch after " + plies + " moves");
+      assertEquals(values(loaded, board.getCurrentTeam())[1],
+          values(evaluator, board.getCurrentTeam())[1]);
+    }
+    for (int i = 0; i < plies; i++) {
+      board.unmakeMove();
+      evaluator.unmakeMove();
+    }
+    int[] restored = values(evaluator, state.getCurrentTeam());
+    assertEquals(initial[0], restored[0], "Expected the initial value after unmaking all moves");
+    assertEquals(initial[1], restored[1]);
+  }
+
+  private static int[] values(IncrementalEvaluator evaluator, int team) {
+    return new int[]{evaluator.evaluate(team, true), evaluator.evaluate(team, false)};
+  }
+}
@@ -0,0 +1,97 @@
+package de.unimannheim.swt.pse.ai.minimax;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.unimannheim.swt.pse.ai.minimax.Helper.GameStateFactory;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MinimaxAlgorithmTest {
+
+  private GameStateFactory gameStateFactory;
+
+  @BeforeEach
+  public void setUp() {
+    gameStateFactory = new GameStateFactory();
+  }
+
+  @Test
+  public void testGetBestMove_CapturesLastPieceWithoutSearchingDeeper() {
+    GameState gameState = gameStateFactory.createImmediateCaptureWinState(true);
+    MinimaxAlgorithm minimax = new MinimaxAlgorithm(gameState);
+
+    Move bestMove = minimax.getBestMove(5000);
+    assertNotNull(bestMove, "Expected a move");
+    assertArrayEquals(new int[]{2, 3}, bestMove.getNewPosition(),
+        "Expected the capture of the last enemy piece");
+    assertEquals(1, minimax.getCompletedDepth(), "A decided game should not be searched deeper");
+  }
+
+  @Test
+  public void testGetBestMove_ReturnsCompletedSearchWithinTimeLimit() {
+    GameState gameState = gameStateFactory.createSampleGameState();
+    MinimaxAlgorithm minimax = new MinimaxAlgorithm(gameState);
+
+    Move bestMove = minimax.getBestMove(300);
+
+    assertNotNull(bestMove, "Expected a move");
+    assertTrue(minimax.getCompletedDepth() >= 1, "Expected at least one completed search");
+  }
+
+  @Test
+  public void testStop_EndsSearchBeforeTimeLimit() throws Exception {
+    GameState gameState = gameStateFactory.createSampleGameState();
+    MinimaxAlgorithm minimax = new MinimaxAlgorithm(gameState);
+
+    CompletableFuture<Move> search = CompletableFuture.supplyAsync(
+        () -> minimax.getBestMove(TimeUnit.HOURS.toMillis(1)));
+    minimax.stop();
+
+    // without the stop the search would run for an hour
+    assertNotNull(search.get(30, TimeUnit.SECONDS), "Expected the move of the stopped search");
+  }
+
+  @Test
+  public void testGetBestMove_ParallelSearchFindsCapture() {
+    GameState gameState = gameStateFactory.createImmediateCaptureWinState(true);
+    MinimaxAlgorithm minimax = new MinimaxAlgorithm(gameState);
+
+    Move bestMove = minimax.getBestMove(5000, 4);
+    assertNotNull(bestMove, "Expected a move");
+    assertArrayEquals(new int[]{2, 3}, bestMove.getNewPosition(),
+        "Expected the capture of the last enemy piece");
+  }
+
+  @Test
+  public void testGetBestMove_ParallelSearchCountsNodesOfAllThreads() {
+    GameState gameState = gameStateFactory.createSampleGameState();
+    MinimaxAlgorithm single = new MinimaxAlgorithm(gameState);
+    MinimaxAlgorithm parallel = new MinimaxAlgorithm(gameState);
+
+    assertNotNull(single.getBestMove(200, 1), "Expected a move");
+    assertNotNull(parallel.getBestMove(200, 4), "Expected a move");
+
+    assertTrue(single.getNodeCount() > 0);
+    assertTrue(parallel.getNodeCount() > 0);
+  }
+
+  @Test
+  public void testStop_EndsParallelSearchWithHelpers() throws Exception {
+    GameState gameState = gameStateFactory.createSampleGameState();
+    MinimaxAlgorithm minimax = new MinimaxAlgorithm(gameState);
+
+    CompletableFuture<Move> search = CompletableFuture.supplyAsync(
+        () -> minimax.getBestMove(TimeUnit.HOURS.toMillis(1), 4));
+    minimax.stop();
+
+    // the main search only returns once its helper threads were stopped as well
+    assertNotNull(search.get(30, TimeUnit.SECONDS), "Expected the move of the stopped search");
+  }
+}
@@ -0,0 +1,73 @@
+package de.unimannheim.swt.pse.ai.minimax;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.unimannheim.swt.pse.server.game.board.MoveBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MoveOrdererTest {
+
+  private static final int QUIET = MoveBuffer.pack(1, 2, 2, MoveBuffer.MOVE);
+  private static final int KILLER = MoveBuffer.pack(1, 3, 3, MoveBuffer.MOVE);
+  private static final int CAPTURE = MoveBuffer.pack(2, 4, 4, MoveBuffer.CAPTURE);
+  private static final int BASE = MoveBuffer.pack(2, 0, 3, MoveBuffer.BASE);
+  private static final int HASH_MOVE = MoveBuffer.pack(3, 5, 5, MoveBuffer.MOVE);
+
+  private MoveOrderer moveOrderer;
+  private MoveBuffer moves;
+
+  @BeforeEach
+  public void setUp() {
+    moveOrderer = new MoveOrderer(4, 2, 3, 7, 7);
+    moves = new MoveBuffer();
+    moves.add(QUIET);
+    moves.add(KILLER);
+    moves.add(CAPTURE);
+    moves.add(BASE);
+    moves.add(HASH_MOVE);
+  }
+
+  @Test
+  public void testNext_OrdersHashMoveBaseCaptureKillerQuiet() {
+    moveOrderer.recordCutoff(KILLER, 1, 1, 2);
+    moveOrderer.score(moves, 1, 1, HASH_MOVE);
+
+    int[] expected = {HASH_MOVE, BASE, CAPTURE, KILLER, QUIET};
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], moveOrderer.next(moves, i, 1), "Unexpected move at index " + i);
+    }
+  }
+
+  @Test
+  public void testNext_OrdersQuietMovesByHistory() {
+    // cutoffs at another ply only count for the history
+    moveOrderer.recordCutoff(QUIET, 3, 1, 1);
+    moveOrderer.recordCutoff(HASH_MOVE, 3, 1, 3);
+    moveOrderer.score(moves, 1, 1, -1);
+
+    int[] expected = {BASE, CAPTURE, HASH_MOVE, QUIET, KILLER};
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], moveOrderer.next(moves, i, 1), "Unexpected move at index " + i);
+    }
+  }
+
+  @Test
+  public void testRecordCutoff_IgnoresCapturesAndOtherTeams() {
+    MoveBuffer unchanged = new MoveBuffer();
+    for (int i = 0; i < moves.size(); i++) {
+      unchanged.add(moves.get(i));
+    }
+    MoveOrderer fresh = new MoveOrderer(4, 2, 3, 7, 7);
+    fresh.score(unchanged, 2, 1, -1);
+
+    moveOrderer.recordCutoff(CAPTURE, 2, 1, 4);
+    moveOrderer.recordCutoff(KILLER, 3, 2, 4);
+    moveOrderer.score(moves, 2, 1, -1);
+
+    for (int i = 0; i < moves.size(); i++) {
+      assertEquals(fresh.next(unchanged, i, 2), moveOrderer.next(moves, i, 2),
+          "Unexpected move at index " + i);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package de.unimannheim.swt.pse.ai.minimax;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TranspositionTableTest {
+
+  private TranspositionTable table;
+
+  @BeforeEach
+  void setUp() {
+    table = new TranspositionTable(16);
+  }
+
+  @Test
+  void testStoreAndProbe_ReturnsEntry() {
+    table.store(42L, 3, 17, TranspositionTable.LOWER_BOUND, 5);
+
+    long entry = table.probe(42L);
+    assertNotEquals(0, entry, "Stored position should be found.");
+    assertEquals(3, TranspositionTable.getDepth(entry));
+    assertEquals(17, TranspositionTable.getValue(entry));
+    assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.getFlag(entry));
+    assertEquals(5, TranspositionTable.getMove(entry));
+    assertEquals(0, table.probe(43L), "Unknown position should not be found.");
+  }
+
+  @Test
+  void testStore_KeepsDeeperEntryOfSameSearch() {
+    table.newSearch();
+    table.store(1L, 4, 10, TranspositionTable.EXACT, 1);
+    table.store(17L, 2, 20, TranspositionTable.EXACT, 2);
+
+    assertNotEquals(0, table.probe(1L), "Deeper entry should not be replaced by a shallower one.");
+    assertEquals(0, table.probe(17L));
+  }
+
+  @Test
+  void testStore_ReplacesEntryOfEarlierSearch() {
+    table.newSearch();
+    table.store(1L, 4, 10, TranspositionTable.EXACT, 1);
+    table.newSearch();
+    table.store(17L, 2, 20, TranspositionTable.EXACT, 2);
+
+    assertEquals(0, table.probe(1L), "Entries of earlier searches should be replaced.");
+    assertEquals(20, TranspositionTable.getValue(table.probe(17L)));
+  }
+
+  @Test
+  void testStore_KeepsNegativeValuesAndMissingMove() {
+    table.store(5L, 0, -42, TranspositionTable.UPPER_BOUND, -1);
+
+    long entry = table.probe(5L);
+    assertEquals(-42, TranspositionTable.getValue(entry));
+    assertEquals(-1, TranspositionTable.getMove(entry));
+    assertEquals(0, TranspositionTable.getDepth(entry));
+    assertEquals(TranspositionTable.UPPER_BOUND, TranspositionTable.getFlag(entry));
+  }
+
+  @Test
+  void testSize_RoundsUpToPowerOfTwo() {
+    assertEquals(16, table.size());
+    assertEquals(32, new TranspositionTable(20).size());
+  }
+}
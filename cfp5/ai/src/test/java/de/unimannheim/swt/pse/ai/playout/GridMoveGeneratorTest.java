@@ -0,0 +1,100 @@
+package de.unimannheim.swt.pse.ai.playout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.unimannheim.swt.pse.ai.MCTS.Helper.GameStateFactory;
+import de.unimannheim.swt.pse.server.game.board.Board;
+import de.unimannheim.swt.pse.server.game.board.MoveBuffer;
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import de.unimannheim.swt.pse.server.game.state.Piece;
+import de.unimannheim.swt.pse.server.game.state.Team;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GridMoveGeneratorTest {
+
+  private final GameStateFactory factory = new GameStateFactory();
+
+  @Test
+  void testGenerateAll_MatchesFreshlyEncodedBoard() {
+    GameState state = factory.createSampleGameState();
+    MoveGenerator moveGenerator = MoveGenerator.forState(state);
+    GridMoveGenerator generator = new GridMoveGenerator(moveGenerator);
+    Team team = GridMoveGenerator.getCurrentTeam(state);
+
+    List<Move> moves = generator.generateAll(state, team);
+    assertFalse(moves.isEmpty(), "Team 1 should have moves.");
+    assertEquals(generator.getMoveBuffer().size(), moves.size());
+    for (int i = 0; i < moves.size(); i++) {
+      int packedMove = generator.getMoveBuffer().get(i);
+      assertEquals("1", moves.get(i).getTeamId());
+      assertEquals(Integer.toString(MoveBuffer.pieceId(packedMove)), moves.get(i).getPieceId());
+      assertArrayEquals(new int[]{MoveBuffer.row(packedMove), MoveBuffer.col(packedMove)},
+          moves.get(i).getNewPosition());
+    }
+    assertArrayEquals(freshMoves(moveGenerator, state, 1), sorted(generator.getMoveBuffer()));
+  }
+
+  @Test
+  void testGenerateAll_FollowsGridChangedInPlace() {
+    GameState state = factory.createSampleGameState();
+    MoveGenerator moveGenerator = MoveGenerator.forState(state);
+    GridMoveGenerator generator = new GridMoveGenerator(moveGenerator);
+    generator.generateAll(state, GridMoveGenerator.getCurrentTeam(state));
+
+    // move the piece of team 2 next to the piece of team 1 the way the simulators do
+    Piece piece = state.getTeams()[1].getPieces()[0];
+    String[][] grid = state.getGrid();
+    grid[4][4] = grid[3][3];
+    grid[3][3] = "";
+    piece.setPosition(new int[]{4, 4});
+
+    generator.generateAll(state, GridMoveGenerator.getCurrentTeam(state));
+    assertArrayEquals(freshMoves(moveGenerator, state, 1), sorted(generator.getMoveBuffer()));
+
+    state.setCurrentTeam(2);
+    List<Move> moves = generator.generateAll(state, GridMoveGenerator.getCurrentTeam(state));
+    assertTrue(moves.stream().allMatch(move -> "2".equals(move.getTeamId())));
+    assertArrayEquals(freshMoves(moveGenerator, state, 2), sorted(generator.getMoveBuffer()));
+  }
+
+  @Test
+  void testGenerate_OnlyMovesOfThePiece() {
+    GameState state = factory.createSampleGameState();
+    GridMoveGenerator generator = new GridMoveGenerator(MoveGenerator.forState(state));
+    Team team = GridMoveGenerator.getCurrentTeam(state);
+    Piece piece = team.getPieces()[1];
+
+    List<Move> moves = generator.generate(state, team, piece);
+    assertFalse(moves.isEmpty(), "Piece should have moves.");
+    assertTrue(moves.stream().allMatch(move -> piece.getId().equals(move.getPieceId())));
+  }
+
+  @Test
+  void testGenerateAll_PieceWithoutPosition() {
+    GameState state = factory.createSampleGameState();
+    GridMoveGenerator generator = new GridMoveGenerator(MoveGenerator.forState(state));
+    Team team = GridMoveGenerator.getCurrentTeam(state);
+    team.getPieces()[0].setPosition(null);
+
+    assertThrows(IllegalArgumentException.class, () -> generator.generateAll(state, team));
+  }
+
+  private static int[] freshMoves(MoveGenerator moveGenerator, GameState state, int team) {
+    MoveBuffer moves = new MoveBuffer();
+    moveGenerator.generateAll(Board.fromGrid(state.getGrid()), team, moves);
+    return sorted(moves);
+  }
+
+  private static int[] sorted(MoveBuffer moves) {
+    int[] packedMoves = new int[moves.size()];
+    for (int i = 0; i < moves.size(); i++) {
+      packedMoves[i] = moves.get(i);
+    }
+    Arrays.sort(packedMoves);
+    return packedMoves;
+  }
+}
@@ -0,0 +1,166 @@
+package de.unimannheim.swt.pse.ai.playout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.unimannheim.swt.pse.ai.MCTS.Helper.GameStateFactory;
+import de.unimannheim.swt.pse.server.game.board.Board;
+import de.unimannheim.swt.pse.server.game.board.MoveBuffer;
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PlayoutBoardTest {
+
+  private GameStateFactory factory;
+  private MoveBuffer moves;
+
+  @BeforeEach
+  void setUp() {
+    factory = new GameStateFactory();
+    moves = new MoveBuffer();
+  }
+
+  @Test
+  void testMakeAndUnmakeMove_RestoresBoard() {
+    GameState state = factory.createSampleGameState();
+    PlayoutBoard board = new PlayoutBoard(MoveGenerator.forState(state));
+    board.load(state);
+    int[] cells = cells(board.getBoard());
+
+    board.generateMoves(moves);
+    assertFalse(moves.isEmpty(), "Team 1 should have moves.");
+    for (int i = 0; i < moves.size(); i++) {
+      board.makeMove(moves.get(i));
+      assertEquals(2, board.getCurrentTeam(), "Team 2 should be next.");
+      board.unmakeMove();
+      assertArrayEquals(cells, cells(board.getBoard()), "Unmaking should restore the board.");
+      assertEquals(1, board.getCurrentTeam(), "Unmaking should restore the team to move.");
+      assertFalse(board.isGameOver());
+    }
+  }
+
+  @Test
+  void testMakeMove_CapturingLastPieceEndsGame() {
+    GameState state = factory.createImmediateCaptureWinState(true);
+    PlayoutBoard board = new PlayoutBoard(MoveGenerator.forState(state));
+    board.load(state);
+
+    int capture = findMove(board, MoveBuffer.CAPTURE);
+    board.makeMove(capture);
+    assertTrue(board.isGameOver(), "Capturing the last piece should end the game.");
+    assertEquals(1, board.getWinner());
+    assertEquals(Board.piece(1, 1), board.getBoard().get(2, 3));
+
+    board.unmakeMove();
+    assertFalse(board.isGameOver());
+    assertEquals(0, board.getWinner());
+    assertEquals(Board.piece(2, 1), board.getBoard().get(2, 3), "Captured piece should be back.");
+    assertEquals(Board.piece(1, 1), board.getBoard().get(3, 3));
+  }
+
+  @Test
+  void testMakeMove_ReachingBaseEndsGame() {
+    GameState state = factory.createBaseCaptureWinState();
+    PlayoutBoard board = new PlayoutBoard(MoveGenerator.forState(state));
+    board.load(state);
+
+    board.makeMove(findMove(board, MoveBuffer.BASE));
+    assertTrue(board.isGameOver(), "Reaching the enemy base should end the game.");
+    assertEquals(1, board.getWinner());
+    assertEquals(Board.base(2), board.getBoard().get(0, 3), "The base should stay on the board.");
+    assertEquals(Board.piece(1, 1), board.getBoard().get(1, 3));
+  }
+
+  @Test
+  void testRandomPlayout_NoMovesLeft() {
+    GameState state = factory.createNoMovesLeftState();
+    PlayoutBoard board = new PlayoutBoard(MoveGenerator.forState(state));
+    board.load(state);
+
+    assertEquals(0, board.randomPlayout(), "Nobody moved before, so nobody wins.");
+    assertTrue(board.isGameOver());
+  }
+
+  @Test
+  void testPlayouts_EndAndResetRestoresBoard() {
+    GameState state = factory.createSampleGameState();
+    PlayoutBoard board = new PlayoutBoard(MoveGenerator.forState(state));
+    board.load(state);
+    int[] cells = cells(board.getBoard());
+
+    for (int i = 0; i < 20; i++) {
+      int winner = i % 2 == 0 ? board.randomPlayout() : board.notSoRandomPlayout();
+      assertTrue(board.isGameOver(), "A playout should only return once the game is over.");
+      assertTrue(winner >= 0 && winner <= 2);
+      board.reset();
+      assertFalse(board.isGameOver());
+      assertEquals(1, board.getCurrentTeam());
+      assertArrayEquals(cells, cells(board.getBoard()), "Reset should restore the loaded board.");
+    }
+  }
+
+  @Test
+  void testWriteTo_UpdatesPiecesOfLoadedState() {
+    GameState state = factory.createImmediateCaptureWinState(true);
+    PlayoutBoard board = new PlayoutBoard(MoveGenerator.forState(state));
+    board.load(state);
+
+    board.makeMove(findMove(board, MoveBuffer.CAPTURE));
+    board.writeTo(state);
+    assertEquals(0, state.getTeams()[1].getPieces().length, "Captured piece should be removed.");
+    assertArrayEquals(new int[]{2, 3}, state.getTeams()[0].getPieces()[0].getPosition());
+    assertEquals(2, state.getCurrentTeam());
+  }
+
+  @Test
+  void testHash_UnmakeRestoresHash() {
+    GameState state = factory.createSampleGameState();
+    PlayoutBoard board = new PlayoutBoard(MoveGenerator.forState(state));
+    board.load(state);
+    long hash = board.getHash();
+
+    board.generateMoves(moves);
+    for (int i = 0; i < moves.size(); i++) {
+      board.makeMove(moves.get(i));
+      assertNotEquals(hash, board.getHash(), "A move should change the hash.");
+      board.unmakeMove();
+      assertEquals(hash, board.getHash(), "Unmaking should restore the hash.");
+    }
+  }
+
+  @Test
+  void testHash_IncrementalHashMatchesLoadedPosition() {
+    GameState state = factory.createImmediateCaptureWinState(true);
+    PlayoutBoard board = new PlayoutBoard(MoveGenerator.forState(state));
+    board.load(state);
+
+    board.makeMove(findMove(board, MoveBuffer.CAPTURE));
+    board.writeTo(state);
+    PlayoutBoard loaded = new PlayoutBoard(MoveGenerator.forState(state));
+    loaded.load(state);
+    assertEquals(loaded.getHash(), board.getHash(),
+        "The same position should have the same hash however it was reached.");
+  }
+
+  private int findMove(PlayoutBoard board, int kind) {
+    board.generateMoves(moves);
+    for (int i = 0; i < moves.size(); i++) {
+      if (MoveBuffer.kind(moves.get(i)) == kind) {
+        return moves.get(i);
+      }
+    }
+    fail("No move of kind " + kind + " found.");
+    return -1;
+  }
+
+  private int[] cells(Board board) {
+    int[] cells = new int[board.getRows() * board.getCols()];
+    for (int i = 0; i < board.getRows(); i++) {
+      for (int j = 0; j < board.getCols(); j++) {
+        cells[i * board.getCols() + j] = board.get(i, j);
+      }
+    }
+    return cells;
+  }
+}
@@ -0,0 +1,85 @@
+package de.unimannheim.swt.pse.benchmarks;
+
+import de.unimannheim.swt.pse.ai.minimax.MoveSelector;
+import de.unimannheim.swt.pse.server.game.GameEngineGame;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks checking and applying moves in the {@link GameEngineGame}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark extends GameBenchmark {
+
+  /**
+   * Legal moves of the current team in the start position
+   */
+  private Move[] moves;
+  /**
+   * Index of the next move to check
+   */
+  private int next;
+  /**
+   * Game the next move is applied to
+   */
+  private GameEngineGame freshGame;
+  /**
+   * Legal move of the current team of {@link #freshGame}
+   */
+  private Move freshMove;
+
+  /**
+   * Collects the legal moves of the start position.
+   */
+  @Override
+  protected void setUp() {
+    List<Move> legalMoves = new MoveSelector(this.state).getAllPossibleMoves();
+    this.moves = legalMoves.toArray(new Move[0]);
+  }
+
+  /**
+   * Starts a new game and picks a legal move of its current team, so every invocation of
+   * {@link #makeMove()} applies a move to the start position. Not part of the measured time.
+   */
+  @Setup(Level.Invocation)
+  public void setUpFreshGame() {
+    this.freshGame = startGame(this.template);
+    this.freshMove = new MoveSelector(this.freshGame.getCurrentGameState()).getAllPossibleMoves()
+        .get(0);
+  }
+
+  /**
+   * @return result of checking the next legal move of the start position
+   */
+  @Benchmark
+  public boolean isValidMove() {
+    Move move = this.moves[this.next];
+    this.next = (this.next + 1) % this.moves.length;
+    return this.game.isValidMove(move);
+  }
+
+  /**
+   * Applies a legal move of the current team to a new game.
+   *
+   * @return the game the move was applied to
+   */
+  @Benchmark
+  public GameEngineGame makeMove() {
+    this.freshGame.makeMove(this.freshMove);
+    return this.freshGame;
+  }
+}
@@ -0,0 +1,129 @@
+package de.unimannheim.swt.pse.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unimannheim.swt.pse.server.game.GameEngineGame;
+import de.unimannheim.swt.pse.server.game.map.MapTemplate;
+import de.unimannheim.swt.pse.server.game.map.PieceDescription;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Base state of all benchmarks. Starts a game on a map generated from the 10x10 example template,
+ * with the grid size, the number of teams and the number of pieces per team given by the scenario
+ * of the benchmark run.
+ *
+ * <p>The scenarios are listed explicitly instead of crossing the three values, since the placement
+ * of the engine only fits 8 pieces per team on a 10x10 grid with 4 teams. Select scenarios with
+ * {@code -p}, e.g. {@code java -jar target/benchmarks.jar -p scenario=16:4:18}.</p>
+ */
+@State(Scope.Thread)
+public abstract class GameBenchmark {
+
+  /**
+   * Template the generated maps are based on
+   */
+  static final String TEMPLATE = "/maptemplates/10x10_2teams_example.json";
+  /**
+   * Seed of the games and playouts, so every run measures the same positions
+   */
+  static final long SEED = 1;
+
+  /**
+   * Map of the benchmark run as {@code gridSize:teams:pieces}, the number of rows and columns of
+   * the grid, the number of teams and the number of pieces of every team
+   */
+  @Param({"10:2:8", "10:2:18", "10:4:8", "16:2:8", "16:2:18", "16:4:8", "16:4:18"})
+  public String scenario;
+
+  /**
+   * Template the game was created from
+   */
+  protected MapTemplate template;
+  /**
+   * Started game
+   */
+  protected GameEngineGame game;
+  /**
+   * State of the started game
+   */
+  protected GameState state;
+
+  /**
+   * Starts a new game for the current parameters.
+   */
+  @Setup(Level.Trial)
+  public void setUpGame() {
+    String[] values = this.scenario.split(":");
+    if (values.length != 3) {
+      throw new IllegalArgumentException(
+          "Scenario has to be gridSize:teams:pieces, was " + this.scenario);
+    }
+    this.template = createTemplate(Integer.parseInt(values[0]), Integer.parseInt(values[1]),
+        Integer.parseInt(values[2]));
+    this.game = startGame(this.template);
+    this.state = this.game.getCurrentGameState();
+    this.setUp();
+  }
+
+  /**
+   * Prepares the benchmark once the game is started. JMH does not guarantee an order between the
+   * setup methods of a class and its superclass, so subclasses override this method instead of
+   * declaring their own trial setup.
+   */
+  protected void setUp() {
+  }
+
+  /**
+   * Loads the example template and adjusts it to the given size. The piece types of the template
+   * are kept, the pieces are distributed over them round-robin until every team has the requested
+   * number of pieces.
+   *
+   * @param gridSize number of rows and columns of the grid
+   * @param teams    number of teams
+   * @param pieces   number of pieces of every team
+   * @return template of the generated map
+   */
+  public static MapTemplate createTemplate(int gridSize, int teams, int pieces) {
+    MapTemplate template;
+    try (InputStream in = GameBenchmark.class.getResourceAsStream(TEMPLATE)) {
+      if (in == null) {
+        throw new IllegalStateException("Template not found: " + TEMPLATE);
+      }
+      template = new ObjectMapper().readValue(in, MapTemplate.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    template.setGridSize(new int[]{gridSize, gridSize});
+    template.setTeams(teams);
+
+    PieceDescription[] descriptions = template.getPieces();
+    for (PieceDescription description : descriptions) {
+      description.setCount(0);
+    }
+    for (int i = 0; i < pieces; i++) {
+      PieceDescription description = descriptions[i % descriptions.length];
+      description.setCount(description.getCount() + 1);
+    }
+    return template;
+  }
+
+  /**
+   * @param template template of the map
+   * @return game with all teams joined, so the game is started
+   */
+  public static GameEngineGame startGame(MapTemplate template) {
+    GameEngineGame game = new GameEngineGame(SEED);
+    game.create(template);
+    for (int i = 1; i <= template.getTeams(); i++) {
+      game.joinGame("team" + i);
+    }
+    return game;
+  }
+}
@@ -0,0 +1,48 @@
+package de.unimannheim.swt.pse.benchmarks;
+
+import de.unimannheim.swt.pse.ai.advancedMCTS.AdvancedGameStateCopier;
+import de.unimannheim.swt.pse.ai.mcts.GameStateCopier;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks deep copying the start position with the copiers of the AIs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateCopierBenchmark extends GameBenchmark {
+
+  /**
+   * @return copy made by the copier of the MCTS
+   */
+  @Benchmark
+  public GameState mcts() {
+    return GameStateCopier.deepCopy(this.state);
+  }
+
+  /**
+   * @return copy made by the copier of the advanced MCTS
+   */
+  @Benchmark
+  public GameState advancedMcts() {
+    return AdvancedGameStateCopier.deepCopy(this.state);
+  }
+
+  /**
+   * @return copy made by the copier of the minimax
+   */
+  @Benchmark
+  public GameState minimax() {
+    return de.unimannheim.swt.pse.ai.minimax.GameStateCopier.deepCopy(this.state);
+  }
+}
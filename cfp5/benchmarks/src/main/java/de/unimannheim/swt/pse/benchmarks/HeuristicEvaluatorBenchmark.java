@@ -0,0 +1,51 @@
+package de.unimannheim.swt.pse.benchmarks;
+
+import de.unimannheim.swt.pse.ai.minimax.HeuristicEvaluator;
+import de.unimannheim.swt.pse.ai.minimax.IncrementalEvaluator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks evaluating the start position with the heuristic of the minimax, next to the
+ * incremental evaluator the search uses instead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicEvaluatorBenchmark extends GameBenchmark {
+
+  /**
+   * Incremental evaluator loaded with the start position
+   */
+  private IncrementalEvaluator incrementalEvaluator;
+
+  @Override
+  protected void setUp() {
+    this.incrementalEvaluator = new IncrementalEvaluator();
+    this.incrementalEvaluator.load(this.state);
+  }
+
+  /**
+   * @return value of the start position
+   */
+  @Benchmark
+  public int evaluate() {
+    return HeuristicEvaluator.evaluate(this.state, true);
+  }
+
+  /**
+   * @return value of the start position computed from the incrementally updated terms
+   */
+  @Benchmark
+  public int evaluateIncremental() {
+    return this.incrementalEvaluator.evaluate(this.state.getCurrentTeam(), true);
+  }
+}
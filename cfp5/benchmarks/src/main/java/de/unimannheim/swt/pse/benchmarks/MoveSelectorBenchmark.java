@@ -0,0 +1,50 @@
+package de.unimannheim.swt.pse.benchmarks;
+
+import de.unimannheim.swt.pse.ai.advancedMCTS.AdvancedMoveSelector;
+import de.unimannheim.swt.pse.ai.mcts.MoveSelector;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks generating all legal moves of the start position with the move selectors of the
+ * AIs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveSelectorBenchmark extends GameBenchmark {
+
+  /**
+   * @return legal moves found by the move selector of the MCTS
+   */
+  @Benchmark
+  public List<Move> mcts() {
+    return new MoveSelector(this.state).getAllPossibleMoves();
+  }
+
+  /**
+   * @return legal moves found by the move selector of the advanced MCTS
+   */
+  @Benchmark
+  public List<Move> advancedMcts() {
+    return new AdvancedMoveSelector(this.state).getAllPossibleMoves();
+  }
+
+  /**
+   * @return legal moves found by the move selector of the minimax
+   */
+  @Benchmark
+  public List<Move> minimax() {
+    return new de.unimannheim.swt.pse.ai.minimax.MoveSelector(this.state).getAllPossibleMoves();
+  }
+}
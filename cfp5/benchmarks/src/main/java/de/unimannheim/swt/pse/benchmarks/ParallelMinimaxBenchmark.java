@@ -0,0 +1,97 @@
+package de.unimannheim.swt.pse.benchmarks;
+
+import de.unimannheim.swt.pse.ai.arena.Arena;
+import de.unimannheim.swt.pse.ai.minimax.MinimaxAlgorithm;
+import de.unimannheim.swt.pse.ai.minimax.TranspositionTable;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks how the number of positions the parallel minimax search visits per second scales
+ * with the number of threads, on the start position of the 10x10 example map. Every operation is
+ * one search with a fixed time limit, so the throughput of the operations is constant; the
+ * {@code nodes} counter reports the positions per second. Select thread counts with {@code -p},
+ * e.g. {@code java -jar target/benchmarks.jar ParallelMinimax -p threads=1,8}.
+ *
+ * <p>Unlike the other benchmarks this one runs on the example map only, a search takes a second
+ * and the scenarios of {@link GameBenchmark} would multiply the run time.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ParallelMinimaxBenchmark {
+
+  /**
+   * Number of threads of a search, the main search and its helpers
+   */
+  @Param({"1", "2", "4", "8"})
+  public int threads;
+  /**
+   * Time limit of a search in milliseconds
+   */
+  @Param({"1000"})
+  public long searchMillis;
+
+  /**
+   * Start position of the example map
+   */
+  private GameState state;
+  /**
+   * Search of the next operation, with an empty transposition table
+   */
+  private MinimaxAlgorithm search;
+
+  /**
+   * Positions visited by the searches, reported by JMH as positions per second
+   */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Nodes {
+
+    public long nodes;
+  }
+
+  /**
+   * Starts a game on the example map.
+   */
+  @Setup(Level.Trial)
+  public void setUpGame() {
+    this.state = GameBenchmark.startGame(Arena.loadExampleTemplate()).getCurrentGameState();
+  }
+
+  /**
+   * Creates the search of the next operation. Not part of the measured time.
+   */
+  @Setup(Level.Invocation)
+  public void setUpSearch() {
+    this.search = new MinimaxAlgorithm(this.state, new TranspositionTable(1 << 20));
+  }
+
+  /**
+   * @param nodes counter of the visited positions
+   * @return best move of the search
+   */
+  @Benchmark
+  public Move search(Nodes nodes) {
+    Move move = this.search.getBestMove(this.searchMillis, this.threads);
+    nodes.nodes += this.search.getNodeCount();
+    return move;
+  }
+}
@@ -0,0 +1,65 @@
+package de.unimannheim.swt.pse.benchmarks;
+
+import de.unimannheim.swt.pse.ai.advancedMCTS.AdvancedGameSimulator;
+import de.unimannheim.swt.pse.ai.mcts.GameSimulator;
+import de.unimannheim.swt.pse.ai.mcts.GameStateCopier;
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks random playouts from the start position to the end of the game, reported as
+ * playouts per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayoutBenchmark extends GameBenchmark {
+
+  /**
+   * Copy of the start position, the simulators play on the state they are given
+   */
+  private GameState playoutState;
+  /**
+   * Generator of the random moves of all playouts
+   */
+  private final SplittableRandom random = new SplittableRandom(SEED);
+
+  /**
+   * Copies the start position for the next playout. Not part of the measured time.
+   */
+  @Setup(Level.Invocation)
+  public void setUpPlayout() {
+    this.playoutState = GameStateCopier.deepCopy(this.state);
+  }
+
+  /**
+   * @return winner of a playout of the MCTS simulator
+   */
+  @Benchmark
+  public int mcts() {
+    return new GameSimulator(this.playoutState, MoveGenerator.forState(this.playoutState),
+        this.random).simulateGame();
+  }
+
+  /**
+   * @return winner of a playout of the advanced MCTS simulator
+   */
+  @Benchmark
+  public int advancedMcts() {
+    return new AdvancedGameSimulator(this.playoutState,
+        MoveGenerator.forState(this.playoutState), this.random).simulateGame();
+  }
+}
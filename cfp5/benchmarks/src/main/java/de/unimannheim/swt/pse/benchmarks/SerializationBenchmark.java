@@ -0,0 +1,51 @@
+package de.unimannheim.swt.pse.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.Gson;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks serializing the start position to JSON, with Jackson as used by the server and
+ * with Gson which the server depends on as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark extends GameBenchmark {
+
+  private ObjectMapper objectMapper;
+  private Gson gson;
+
+  @Override
+  protected void setUp() {
+    this.objectMapper = new ObjectMapper();
+    this.gson = new Gson();
+  }
+
+  /**
+   * @return start position serialized with Jackson
+   * @throws JsonProcessingException if the state cannot be serialized
+   */
+  @Benchmark
+  public String jackson() throws JsonProcessingException {
+    return this.objectMapper.writeValueAsString(this.state);
+  }
+
+  /**
+   * @return start position serialized with Gson
+   */
+  @Benchmark
+  public String gson() {
+    return this.gson.toJson(this.state);
+  }
+}
@@ -28,6 +28,12 @@ public class RequestHandler {
    * The base url of the server
    */
   private String baseUrl;
+  /**
+   * The last GameState received by waitForGameState, its version and its GameSession
+   */
+  private GameState lastState;
+  private long lastStateVersion;
+  private String lastStateSessionId;
 
   /**
    * This method is used to set the base url of the server
@@ -116,6 +122,57 @@ public class RequestHandler {
     return null;
 
   }
+  /**
+   * This method is used to wait for the next GameState on the server. The server answers as soon as the
+   * state differs from the last one received by this method, or after the timeout
+   * @param sessionId String which is the id of the GameSession
+   * @param timeoutInSeconds int which is the maximum time to wait for a new GameState
+   * @return GameState which is the newest state, the last received one if it did not change
+   */
+  public GameState waitForGameState(String sessionId, int timeoutInSeconds){
+    if(!sessionId.equals(this.lastStateSessionId)){
+      this.lastState = null;
+      this.lastStateVersion = 0;
+      this.lastStateSessionId = sessionId;
+    }
+    try{
+      ResponseEntity<GameState> gameStateResponseEntity = restTemplate.exchange(
+          this.baseUrl + "/api/gamesession/{sessionId}/state/next?version={version}&timeoutInSeconds={timeoutInSeconds}",
+          HttpMethod.GET,
+          null,
+          GameState.class,
+          sessionId,
+          this.lastStateVersion,
+          timeoutInSeconds
+      );
+      if(gameStateResponseEntity.getStatusCode().value() == 304){
+        return this.lastState;
+      }
+      //the ETag holds the version of the state
+      String eTag = gameStateResponseEntity.getHeaders().getETag();
+      if(eTag != null){
+        this.lastStateVersion = Long.parseLong(eTag.replace("W/", "").replace("\"", ""));
+      }
+      this.lastState = gameStateResponseEntity.getBody();
+      return this.lastState;
+    }
+    catch(HttpClientErrorException e){
+      int code = e.getStatusCode().value();
+      switch (code){
+        case 404:
+          System.out.println("Game Session not Found");
+          break;
+        case 410:
+          System.out.println("Game is over");
+          break;
+        default:
+          System.out.println("Unknown Error");
+          break;
+      }
+    }
+    return null;
+  }
+
   /**
    * This method is used to join an existing GameSession
    * @author aemsbach
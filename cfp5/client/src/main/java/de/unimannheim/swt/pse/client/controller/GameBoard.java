@@ -1005,8 +1005,8 @@ public class GameBoard {
     this.gameBoard.getChildren().add(board);});
 
     while (true) {
-      //Get the current gameState and gameSession from server
-      GameState state = this.requestHandler.getGameState(this.gameSessionId);
+      //Wait up to a second for the next gameState, so moves show up at once and the clocks still tick
+      GameState state = this.requestHandler.waitForGameState(this.gameSessionId, 1);
       if(state == null){
         break;
       }
@@ -1170,9 +1170,7 @@ public class GameBoard {
         }
 
       });
-      try {
-        Thread.sleep(1000);
-      } catch (InterruptedException e) {
+      if (Thread.currentThread().isInterrupted()) {
         break;
       }
     }
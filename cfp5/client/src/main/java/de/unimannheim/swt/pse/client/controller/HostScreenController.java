@@ -296,9 +296,10 @@ public class HostScreenController {
    */
   private void checkGameStatus() {
     while (!Thread.currentThread().isInterrupted()) {
-      GameState gameState = this.requestHandler.getGameState(this.gameSessionId);
+      //Wait until a team joined or the game started instead of polling
+      GameState gameState = this.requestHandler.waitForGameState(this.gameSessionId, 5);
       this.theme = Theme.land;
-      if (this.interrupted) {
+      if (this.interrupted || gameState == null) {
         break;
       }
       int numOfTeams = 0;
@@ -324,11 +325,6 @@ public class HostScreenController {
       }
       int finalNumOfTeams = numOfTeams;
       Platform.runLater(() -> this.playerAmt.setText(finalNumOfTeams + "/" + this.tmpMap.getTeams()));
-      try {
-        Thread.sleep(1500);
-      } catch (InterruptedException e) {
-        break;
-      }
     }
   }
 
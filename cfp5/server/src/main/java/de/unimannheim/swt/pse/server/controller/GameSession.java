@@ -1,14 +1,20 @@
 package de.unimannheim.swt.pse.server.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.unimannheim.swt.pse.server.game.Game;
-import java.util.Collections;
-import java.util.HashMap;
+import de.unimannheim.swt.pse.server.game.VersionedGame;
+import de.unimannheim.swt.pse.server.game.VersionedState;
 import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.apache.commons.lang3.StringUtils;
 
 /**
- * A simple class that manages a game session via a synchronized {@link Map}.
+ * A simple class that manages a game session via a concurrent {@link Map}.
  *
  * Contains simple check for anti-cheat.
  */
@@ -16,16 +22,90 @@ public class GameSession {
 
     private final Game game;
     private final Map<String, String> teamSecrets;
+    private volatile CachedState cachedState;
+    private final Queue<StateWaiter> stateWaiters;
 
     public GameSession(Game game) {
         this.game = game;
-        this.teamSecrets = Collections.synchronizedMap(new HashMap<>());
+        this.teamSecrets = new ConcurrentHashMap<>();
+        this.stateWaiters = new ConcurrentLinkedQueue<>();
+        if (game instanceof VersionedGame versionedGame) {
+            versionedGame.addStateListener(this::stateChanged);
+        }
     }
 
     public Game getGame() {
         return game;
     }
 
+    /**
+     * Get the JSON of a state snapshot. Every version is serialized only once, later requests for
+     * the same version are served from the cache.
+     *
+     * @param state snapshot of the game state
+     * @param objectMapper mapper used to serialize the state
+     * @return JSON of the state
+     * @throws JsonProcessingException state could not be serialized
+     */
+    public byte[] getStateJson(VersionedState state, ObjectMapper objectMapper) throws JsonProcessingException {
+        CachedState cached = this.cachedState;
+        if (cached != null && cached.version == state.getVersion()) {
+            return cached.json;
+        }
+
+        synchronized (this) {
+            cached = this.cachedState;
+            if (cached != null && cached.version == state.getVersion()) {
+                return cached.json;
+            }
+            byte[] json = objectMapper.writeValueAsBytes(state.getState());
+            // never replace a newer version that was cached in the meantime
+            if (cached == null || cached.version < state.getVersion()) {
+                this.cachedState = new CachedState(state.getVersion(), json);
+            }
+            return json;
+        }
+    }
+
+    /**
+     * Wait for a state newer than the given version. The returned future completes as soon as the
+     * game publishes such a state, or immediately if it already did.
+     * Cancel the future to stop waiting.
+     *
+     * @param version version of the state the caller already has
+     * @return future completed with the newer state
+     * @throws IllegalStateException game does not publish versioned states
+     */
+    public CompletableFuture<VersionedState> awaitStateAfter(long version) {
+        if (!(this.game instanceof VersionedGame versionedGame)) {
+            throw new IllegalStateException("Game does not publish versioned states");
+        }
+
+        StateWaiter waiter = new StateWaiter(version);
+        waiter.future.whenComplete((state, e) -> this.stateWaiters.remove(waiter));
+        this.stateWaiters.add(waiter);
+
+        // the state may have changed before the waiter was added
+        VersionedState current = versionedGame.getVersionedState();
+        if (current != null && current.getVersion() > version) {
+            waiter.future.complete(current);
+        }
+        return waiter.future;
+    }
+
+    /**
+     * Hands a new state to everybody waiting for it.
+     *
+     * @param state new state
+     */
+    private void stateChanged(VersionedState state) {
+        for (StateWaiter waiter : this.stateWaiters) {
+            if (waiter.version < state.getVersion()) {
+                waiter.future.complete(state);
+            }
+        }
+    }
+
     /**
      * Create team secret
      *
@@ -50,4 +130,29 @@ public class GameSession {
         return this.teamSecrets.containsKey(teamId)
                 && StringUtils.equals(this.teamSecrets.get(teamId), teamSecret);
     }
+
+    /**
+     * Serialized state of one version
+     */
+    private static final class CachedState {
+        private final long version;
+        private final byte[] json;
+
+        private CachedState(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+    }
+
+    /**
+     * Caller waiting for a state newer than its version
+     */
+    private static final class StateWaiter {
+        private final long version;
+        private final CompletableFuture<VersionedState> future = new CompletableFuture<>();
+
+        private StateWaiter(long version) {
+            this.version = version;
+        }
+    }
 }
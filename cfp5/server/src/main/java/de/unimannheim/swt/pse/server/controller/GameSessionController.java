@@ -1,5 +1,7 @@
 package de.unimannheim.swt.pse.server.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.unimannheim.swt.pse.server.CtfApplication;
 import de.unimannheim.swt.pse.server.controller.data.GameSessionRequest;
 import de.unimannheim.swt.pse.server.controller.data.GameSessionResponse;
@@ -7,23 +9,38 @@ import de.unimannheim.swt.pse.server.controller.data.GiveupRequest;
 import de.unimannheim.swt.pse.server.controller.data.JoinGameRequest;
 import de.unimannheim.swt.pse.server.controller.data.JoinGameResponse;
 import de.unimannheim.swt.pse.server.controller.data.MoveRequest;
+import de.unimannheim.swt.pse.server.controller.data.MoveResponse;
+import de.unimannheim.swt.pse.server.controller.data.SessionMoveRequest;
 import de.unimannheim.swt.pse.server.game.Game;
+import de.unimannheim.swt.pse.server.game.VersionedGame;
+import de.unimannheim.swt.pse.server.game.VersionedState;
 import de.unimannheim.swt.pse.server.game.exceptions.ForbiddenMove;
 import de.unimannheim.swt.pse.server.game.exceptions.GameSessionNotFound;
+import de.unimannheim.swt.pse.server.game.state.GameEvent;
 import de.unimannheim.swt.pse.server.game.state.GameState;
 import de.unimannheim.swt.pse.server.game.state.Move;
 import de.unimannheim.swt.pse.server.game.state.Team;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This controller class defines several RESTful endpoints for managing game sessions / states:
@@ -33,7 +50,10 @@ import java.util.*;
  *  <li>GET `/api/gamesession/{sessionId}` for retrieving a game session and its status,</li>
  *  <li>POST `/api/gamesession/{sessionId}/join` for a new team to join the game session,</li>
  *  <li>GET `/api/gamesession/{sessionId}/state` for retrieving the current game state for a specific game session,</li>
- *  <li>POST `/api/gamesession/{sessionId}/move` for making a move request for a specific game session, and</li>
+ *  <li>GET `/api/gamesession/{sessionId}/state/next` for waiting until the game state of a specific game session changes,</li>
+ *  <li>GET `/api/gamesession/{sessionId}/moves` for retrieving the moves and their effects since a given event of a specific game session,</li>
+ *  <li>POST `/api/gamesession/{sessionId}/move` for making a move request for a specific game session,</li>
+ *  <li>POST `/api/gamesession/moves` for making move requests for several game sessions at once,</li>
  *  <li>POST `/api/gamesession/{sessionId}/giveup` for making a request to give up the game for a specific game session, and</li>
  *  <li>DELETE `/api/gamesession/{sessionId}` for deleting a specific game session.</li>
  * </ul>
@@ -44,11 +64,14 @@ import java.util.*;
 @RequestMapping("/api")
 public class GameSessionController {
     private static final Logger LOG = LoggerFactory.getLogger(GameSessionController.class);
+    private static final int MAX_WAIT_IN_SECONDS = 60;
 
     private Map<String, GameSession> gameSessions;
+    private final ObjectMapper objectMapper;
 
-    public GameSessionController() {
-        this.gameSessions = Collections.synchronizedMap(new HashMap<>());
+    public GameSessionController(ObjectMapper objectMapper) {
+        this.gameSessions = new ConcurrentHashMap<>();
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -115,23 +138,134 @@ public class GameSessionController {
     /**
      * You can retrieve the current game state for a specific game session by sending a `GET` request to
      * the `/api/gamesession/{sessionId}/state` endpoint with the session ID.
+     * <p>
+     * The response carries the state version as `ETag`. Sending it back as `If-None-Match` returns
+     * `304 Not Modified` without a body as long as the state did not change.
      *
      * @param sessionId unique session id
+     * @param ifNoneMatch ETag of the state the client already has, may be null
      * @return GameState
+     * @throws JsonProcessingException state could not be serialized
      */
     @Operation(summary = "Get the current game state")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Game state returned"),
+            @ApiResponse(responseCode = "200", description = "Game state returned",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = GameState.class))),
+            @ApiResponse(responseCode = "304", description = "Game state not modified"),
             @ApiResponse(responseCode = "404", description = "Game session not found"),
             @ApiResponse(responseCode = "500", description = "Unknown error occurred")
     })
     @GetMapping("/gamesession/{sessionId}/state")
-    public GameState getGameState(@Parameter(description = "existing game session id") @PathVariable String sessionId) {
+    public ResponseEntity<?> getGameState(@Parameter(description = "existing game session id") @PathVariable String sessionId,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws JsonProcessingException {
         LOG.info("getGameState request");
 
-        Game game = this.getGame(sessionId);
+        GameSession gameSession = this.gameSessions.get(sessionId);
+        if (gameSession == null) {
+            throw new GameSessionNotFound();
+        }
+
+        Game game = gameSession.getGame();
+        if (!(game instanceof VersionedGame versionedGame) || versionedGame.getVersionedState() == null) {
+            return ResponseEntity.ok(game.getCurrentGameState());
+        }
+
+        VersionedState state = versionedGame.getVersionedState();
+        if (matchesETag(ifNoneMatch, createETag(state.getVersion()))) {
+            return createNotModifiedResponse(state.getVersion());
+        }
+
+        return createGameStateResponse(gameSession, state);
+    }
+
+    /**
+     * Instead of polling the game state, clients can wait for the next game state by sending a `GET` request to
+     * the `/api/gamesession/{sessionId}/state/next` endpoint with the version (`ETag`) of the state they already have.
+     * <p>
+     * The request is answered as soon as a newer state exists, in the same way as `/api/gamesession/{sessionId}/state`.
+     * If the state does not change within the timeout, `304 Not Modified` is returned and the client can simply wait again.
+     *
+     * @param sessionId unique session id
+     * @param version version of the state the client already has, 0 if none
+     * @param timeoutInSeconds how long to wait for a newer state, at most {@value #MAX_WAIT_IN_SECONDS}
+     * @return GameState once it changed
+     */
+    @Operation(summary = "Wait for the next game state")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Newer game state returned",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = GameState.class))),
+            @ApiResponse(responseCode = "304", description = "Game state did not change within the timeout"),
+            @ApiResponse(responseCode = "404", description = "Game session not found"),
+            @ApiResponse(responseCode = "500", description = "Unknown error occurred")
+    })
+    @GetMapping("/gamesession/{sessionId}/state/next")
+    public DeferredResult<ResponseEntity<?>> waitForGameState(@Parameter(description = "existing game session id") @PathVariable String sessionId,
+                                                              @Parameter(description = "version of the known game state") @RequestParam(defaultValue = "0") long version,
+                                                              @Parameter(description = "maximum time to wait") @RequestParam(defaultValue = "30") int timeoutInSeconds) {
+        LOG.info("waitForGameState request");
+
+        GameSession gameSession = this.gameSessions.get(sessionId);
+        if (gameSession == null) {
+            throw new GameSessionNotFound();
+        }
+
+        long timeoutInMillis = Math.min(Math.max(timeoutInSeconds, 1), MAX_WAIT_IN_SECONDS) * 1000L;
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(timeoutInMillis);
+
+        if (!(gameSession.getGame() instanceof VersionedGame)) {
+            result.setResult(ResponseEntity.ok(gameSession.getGame().getCurrentGameState()));
+            return result;
+        }
+
+        CompletableFuture<VersionedState> nextState = gameSession.awaitStateAfter(version);
+        result.onTimeout(() -> result.setResult(createNotModifiedResponse(version)));
+        result.onCompletion(() -> nextState.cancel(false));
+        // serialize on another thread, the state is handed on by the thread that made the move
+        nextState.thenAcceptAsync(state -> {
+            try {
+                result.setResult(createGameStateResponse(gameSession, state));
+            } catch (JsonProcessingException e) {
+                result.setErrorResult(e);
+            }
+        });
+
+        return result;
+    }
 
-        return game.getCurrentGameState();
+    /**
+     * Clients that already know a game state can retrieve only what changed since then by sending a `GET` request to
+     * the `/api/gamesession/{sessionId}/moves` endpoint with the sequence number of the last event they applied.
+     * <p>
+     * The events describe moves, captures, flag losses, respawns, turns, surrenders and the end of the game in the
+     * order they happened, so they can be applied to the known state instead of fetching the whole grid.
+     * Only the latest events are kept. If some of the requested events were dropped already, `410 Gone` is returned
+     * and the client has to get the whole state again.
+     *
+     * @param sessionId unique session id
+     * @param since sequence number of the last known event, 0 for all events
+     * @return events after the given sequence number, oldest first
+     */
+    @Operation(summary = "Get the moves since a given event")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Events returned"),
+            @ApiResponse(responseCode = "404", description = "Game session not found"),
+            @ApiResponse(responseCode = "410", description = "Requested events were dropped from the log"),
+            @ApiResponse(responseCode = "500", description = "Unknown error occurred")
+    })
+    @GetMapping("/gamesession/{sessionId}/moves")
+    public GameEvent[] getMoves(@Parameter(description = "existing game session id") @PathVariable String sessionId,
+                                @Parameter(description = "sequence number of the last known event") @RequestParam(defaultValue = "0") long since) {
+        LOG.info("getMoves request");
+
+        GameSession gameSession = this.gameSessions.get(sessionId);
+        if (gameSession == null) {
+            throw new GameSessionNotFound();
+        }
+
+        if (!(gameSession.getGame() instanceof VersionedGame versionedGame)) {
+            return new GameEvent[0];
+        }
+        return versionedGame.getEventsSince(since);
     }
 
     /**
@@ -176,9 +310,15 @@ public class GameSessionController {
      * You can make a move request for a specific game session by sending a `POST` request to the
      * `/api/gamesession/{sessionId}/move` endpoint with a `MoveRequest` payload that specifies the piece ID and the new position.
      * This will update the game state based on the move request and notify other players of the updated game state.
+     * <p>
+     * The response carries the version of the game state published by the move, so the team can wait for the
+     * next state with `/api/gamesession/{sessionId}/state/next` without fetching the state of its own move.
+     * The move that ends the game is answered like any other move with `gameOver` set, `410 Gone` is only returned
+     * for moves sent after the end.
      *
      * @param sessionId   unique session id
      * @param moveRequest {@link de.unimannheim.swt.pse.server.controller.data.MoveRequest}
+     * @return {@link MoveResponse}
      */
     @Operation(summary = "Make a move in a game session")
     @ApiResponses(value = {
@@ -186,30 +326,55 @@ public class GameSessionController {
             @ApiResponse(responseCode = "404", description = "Game session not found"),
             @ApiResponse(responseCode = "403", description = "Move is forbidden for given team (anti-cheat)"),
             @ApiResponse(responseCode = "409", description = "Invalid move"),
-            @ApiResponse(responseCode = "410", description = "Game is over"),
+            @ApiResponse(responseCode = "410", description = "Game was already over"),
             @ApiResponse(responseCode = "500", description = "Unknown error occurred")
     })
     @PostMapping("/gamesession/{sessionId}/move")
-    public void makeMove(@Parameter(description = "existing game session id") @PathVariable String sessionId, @RequestBody MoveRequest moveRequest) {
+    public MoveResponse makeMove(@Parameter(description = "existing game session id") @PathVariable String sessionId, @RequestBody MoveRequest moveRequest) {
         LOG.info("makeMove request");
 
-        GameSession gameSession = this.gameSessions.get(sessionId);
-        if (gameSession == null) {
-            throw new GameSessionNotFound();
-        }
+        return this.applyMove(sessionId, moveRequest);
+    }
 
-        // allowed to make this move?
-        if(!gameSession.isAllowed(moveRequest.getTeamId(), moveRequest.getTeamSecret())) {
-            throw new ForbiddenMove();
+    /**
+     * Bots playing several games on one server can send the moves of all their game sessions in one `POST` request to
+     * the `/api/gamesession/moves` endpoint with an array of `SessionMoveRequest`s.
+     * <p>
+     * Every move is made as if it was sent to `/api/gamesession/{sessionId}/move`. A failing move does not stop the
+     * others, its HTTP status is returned in its {@link MoveResponse} instead. The moves are made in the order of the
+     * request. A second move of the same team in the same game session would be made on a state the bot has not seen,
+     * so it is rejected with status 400.
+     *
+     * @param moveRequests {@link SessionMoveRequest}s, at most one per game session and team
+     * @return {@link MoveResponse} for every move request, in the same order
+     */
+    @Operation(summary = "Make moves in several game sessions")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Moves processed, see the status of every move"),
+            @ApiResponse(responseCode = "500", description = "Unknown error occurred")
+    })
+    @PostMapping("/gamesession/moves")
+    public MoveResponse[] makeMoves(@RequestBody SessionMoveRequest[] moveRequests) {
+        LOG.info("makeMoves request");
+
+        MoveResponse[] responses = new MoveResponse[moveRequests.length];
+        Set<List<String>> movingTeams = new HashSet<>();
+        for (int i = 0; i < moveRequests.length; i++) {
+            String sessionId = moveRequests[i].getGameSessionId();
+            if (!movingTeams.add(Arrays.asList(sessionId, moveRequests[i].getTeamId()))) {
+                responses[i] = this.createMoveResponse(sessionId, this.gameSessions.get(sessionId), null,
+                        HttpStatus.BAD_REQUEST.value());
+                continue;
+            }
+            try {
+                responses[i] = this.applyMove(sessionId, moveRequests[i]);
+            } catch (RuntimeException e) {
+                ResponseStatus status = AnnotationUtils.findAnnotation(e.getClass(), ResponseStatus.class);
+                responses[i] = this.createMoveResponse(sessionId, this.gameSessions.get(sessionId), null,
+                        status == null ? HttpStatus.INTERNAL_SERVER_ERROR.value() : status.value().value());
+            }
         }
-
-        Game game = gameSession.getGame();
-
-        Move move = new Move();
-        move.setPieceId(moveRequest.getPieceId());
-        move.setNewPosition(moveRequest.getNewPosition());
-
-        game.makeMove(move);
+        return responses;
     }
 
     /**
@@ -269,6 +434,69 @@ public class GameSessionController {
         this.gameSessions.remove(sessionId);
     }
 
+    /**
+     * Helper method to make a move in a game session.
+     *
+     * @param sessionId unique session id
+     * @param moveRequest {@link MoveRequest}
+     * @return {@link MoveResponse} with the state published by the move
+     */
+    private MoveResponse applyMove(String sessionId, MoveRequest moveRequest) {
+        GameSession gameSession = sessionId == null ? null : this.gameSessions.get(sessionId);
+        if (gameSession == null) {
+            throw new GameSessionNotFound();
+        }
+
+        // allowed to make this move?
+        if(!gameSession.isAllowed(moveRequest.getTeamId(), moveRequest.getTeamSecret())) {
+            throw new ForbiddenMove();
+        }
+
+        Game game = gameSession.getGame();
+
+        Move move = new Move();
+        move.setPieceId(moveRequest.getPieceId());
+        move.setNewPosition(moveRequest.getNewPosition());
+
+        if (game instanceof VersionedGame versionedGame) {
+            VersionedState state = versionedGame.applyMove(move);
+            return this.createMoveResponse(sessionId, gameSession, state, HttpStatus.OK.value());
+        }
+        game.makeMove(move);
+        return this.createMoveResponse(sessionId, gameSession, null, HttpStatus.OK.value());
+    }
+
+    /**
+     * Helper method to create the response of a move.
+     *
+     * @param sessionId unique session id
+     * @param gameSession {@link GameSession} of the move, may be null
+     * @param state snapshot published by the move, null to use the current one
+     * @param status HTTP status of the move
+     * @return {@link MoveResponse}
+     */
+    private MoveResponse createMoveResponse(String sessionId, GameSession gameSession, VersionedState state, int status) {
+        MoveResponse response = new MoveResponse();
+        response.setGameSessionId(sessionId);
+        response.setStatus(status);
+        if (gameSession == null) {
+            return response;
+        }
+
+        Game game = gameSession.getGame();
+        if (state == null && game instanceof VersionedGame versionedGame) {
+            state = versionedGame.getVersionedState();
+        }
+        if (state != null) {
+            response.setStateVersion(state.getVersion());
+            response.setCurrentTeam(state.getState().getCurrentTeam());
+        } else if (game.getCurrentGameState() != null) {
+            response.setCurrentTeam(game.getCurrentGameState().getCurrentTeam());
+        }
+        response.setGameOver(game.isGameOver());
+        return response;
+    }
+
     /**
      * Helper method to get current {@link Game}.
      *
@@ -284,6 +512,62 @@ public class GameSessionController {
         return gameSession.getGame();
     }
 
+    /**
+     * Helper method to create the response of a game state.
+     *
+     * @param gameSession {@link GameSession} of the state
+     * @param state snapshot of the game state
+     * @return response with the cached JSON of the state and its ETag
+     * @throws JsonProcessingException state could not be serialized
+     */
+    private ResponseEntity<?> createGameStateResponse(GameSession gameSession, VersionedState state) throws JsonProcessingException {
+        return ResponseEntity.ok()
+                .eTag(createETag(state.getVersion()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(gameSession.getStateJson(state, this.objectMapper));
+    }
+
+    /**
+     * Helper method to create the response for an unchanged game state.
+     *
+     * @param version version of the state
+     * @return 304 response with the ETag of the version
+     */
+    private static ResponseEntity<?> createNotModifiedResponse(long version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(createETag(version)).build();
+    }
+
+    /**
+     * @param version version of a state
+     * @return ETag of the version
+     */
+    private static String createETag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Helper method to check an `If-None-Match` header.
+     *
+     * @param ifNoneMatch header value, may be null
+     * @param eTag current ETag
+     * @return true if the header contains the current ETag, false otherwise
+     */
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Helper method to create GameSessionResponse.
      *
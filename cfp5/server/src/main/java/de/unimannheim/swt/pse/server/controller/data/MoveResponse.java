@@ -0,0 +1,70 @@
+package de.unimannheim.swt.pse.server.controller.data;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * This class represents the response after a move request,
+ * which contains the version of the game state after the move.
+ */
+public class MoveResponse {
+    @Schema(
+            description = "the game session the move was made in"
+    )
+    private String gameSessionId;
+    @Schema(
+            description = "HTTP status of the move, 200 if it was made"
+    )
+    private int status;
+    @Schema(
+            description = "version (ETag) of the game state published by the move, the current one if the move was not made"
+    )
+    private long stateVersion;
+    @Schema(
+            description = "team that makes the next move"
+    )
+    private int currentTeam;
+    @Schema(
+            description = "true if the game is over"
+    )
+    private boolean gameOver;
+
+    public String getGameSessionId() {
+        return gameSessionId;
+    }
+
+    public void setGameSessionId(String gameSessionId) {
+        this.gameSessionId = gameSessionId;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public long getStateVersion() {
+        return stateVersion;
+    }
+
+    public void setStateVersion(long stateVersion) {
+        this.stateVersion = stateVersion;
+    }
+
+    public int getCurrentTeam() {
+        return currentTeam;
+    }
+
+    public void setCurrentTeam(int currentTeam) {
+        this.currentTeam = currentTeam;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public void setGameOver(boolean gameOver) {
+        this.gameOver = gameOver;
+    }
+}
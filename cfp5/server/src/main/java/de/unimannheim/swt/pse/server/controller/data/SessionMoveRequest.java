@@ -0,0 +1,23 @@
+package de.unimannheim.swt.pse.server.controller.data;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * This class represents a move request for a given game session,
+ * used to send the moves of several game sessions in one request.
+ */
+public class SessionMoveRequest extends MoveRequest {
+
+    @Schema(
+            description = "the game session to make the move in"
+    )
+    private String gameSessionId;
+
+    public String getGameSessionId() {
+        return gameSessionId;
+    }
+
+    public void setGameSessionId(String gameSessionId) {
+        this.gameSessionId = gameSessionId;
+    }
+}
@@ -1,5 +1,9 @@
 package de.unimannheim.swt.pse.server.game;
 
+import de.unimannheim.swt.pse.server.game.board.Board;
+import de.unimannheim.swt.pse.server.game.board.MoveGenerator;
+import de.unimannheim.swt.pse.server.game.board.PieceStore;
+import de.unimannheim.swt.pse.server.game.exceptions.EventsDropped;
 import de.unimannheim.swt.pse.server.game.exceptions.GameOver;
 import de.unimannheim.swt.pse.server.game.exceptions.InvalidMove;
 import de.unimannheim.swt.pse.server.game.exceptions.NoMoreTeamSlots;
@@ -9,7 +13,8 @@ import de.unimannheim.swt.pse.server.game.map.Movement;
 import de.unimannheim.swt.pse.server.game.map.PieceDescription;
 import de.unimannheim.swt.pse.server.game.map.PlacementType;
 import de.unimannheim.swt.pse.server.game.map.Shape;
-import de.unimannheim.swt.pse.server.game.map.ShapeType;
+import de.unimannheim.swt.pse.server.game.state.GameEvent;
+import de.unimannheim.swt.pse.server.game.state.GameEventType;
 import de.unimannheim.swt.pse.server.game.state.GameState;
 import de.unimannheim.swt.pse.server.game.state.Move;
 import de.unimannheim.swt.pse.server.game.state.Piece;
@@ -18,50 +23,132 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public class GameEngineGame implements Game {
+public class GameEngineGame implements VersionedGame {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GameEngineGame.class);
 
   /**
-   * Current game state
+   * Current game state, only accessed while holding the lock of the game
    */
   private GameState gameState;
+  /**
+   * Copy of the game state published after every change. It is never changed after being
+   * published, so readers neither need the lock nor can see a half-applied move.
+   */
+  private volatile VersionedState snapshot;
+  /**
+   * Version of the last published snapshot
+   */
+  private long stateVersion;
+  /**
+   * Listeners called with every published snapshot
+   */
+  private final List<Consumer<VersionedState>> stateListeners = new CopyOnWriteArrayList<>();
+  /**
+   * Version of the last snapshot handed to the state listeners
+   */
+  private final AtomicLong notifiedVersion = new AtomicLong();
+  /**
+   * Maximum number of events kept in the move log, older events are dropped
+   */
+  static final int MAX_EVENTS = 1024;
+  /**
+   * Latest events of the log of everything that changed the board or the turn, at most
+   * {@link #MAX_EVENTS}. The array is never changed, it is replaced together with every published
+   * snapshot, so it can be read without the lock.
+   */
+  private volatile GameEvent[] events = new GameEvent[0];
+  /**
+   * Events recorded since the last published snapshot, only accessed while holding the lock of the
+   * game
+   */
+  private final List<GameEvent> pendingEvents = new ArrayList<>();
+  /**
+   * Sequence number of the last recorded event, only accessed while holding the lock of the game
+   */
+  private long eventSequence;
+  /**
+   * Encoded playGrid, the grid of the game state is its view
+   */
+  private Board board;
+  /**
+   * Generator for the legal moves of the pieces
+   */
+  private MoveGenerator moveGenerator;
   /**
    * Date when the game was started
    */
-  private Date startedDate;
+  private volatile Date startedDate;
   /**
    * Map Template
    */
   private MapTemplate template;
   /**
-   * List of pieces of all teams
+   * Pieces of all teams, indexed by team and piece id, and base coordinates of every team
+   */
+  private PieceStore pieces;
+  /**
+   * Time in milliseconds when the current move started
+   */
+  private volatile long moveStartedMillis;
+  /**
+   * Number of the current turn, used to ignore move deadlines of earlier turns
    */
-  private Piece[] pieces;
+  private int turn;
   /**
-   * Time passed since game was started
+   * Deadline of the total game time, null if there is none
    */
-  private int gameTime;
+  private ScheduledFuture<?> gameDeadline;
   /**
-   * Time passed since last move
+   * Deadline of the current move, null if there is none
    */
-  private int moveTime;
+  private ScheduledFuture<?> moveDeadline;
   /**
    * Winner(s) of the game
    */
-  private String[] winner;
+  private volatile String[] winner;
   /**
    * Flag to indicate if the game is over
    */
-  private boolean gameOver;
+  private volatile boolean gameOver;
   /**
    * Date when the game ended
    */
-  private Date endedDate;
+  private volatile Date endedDate;
   /**
    * Amount of flags remaining for each team
    */
   private int[] flags;
+  /**
+   * Generator for the starting team and the respawn positions, only accessed while holding the
+   * lock of the game
+   */
+  private final SplittableRandom random;
 
+  /**
+   * Creates a game whose random choices are seeded randomly.
+   */
+  public GameEngineGame() {
+    this.random = new SplittableRandom();
+  }
+
+  /**
+   * Creates a game whose random choices, the starting team and the respawn positions, are drawn
+   * from the given seed, so a game played with the same moves can be repeated.
+   *
+   * @param seed inputs the seed of the random choices
+   */
+  public GameEngineGame(long seed) {
+    this.random = new SplittableRandom(seed);
+  }
 
   /**
    * @param template inputs the template for map
@@ -71,6 +158,20 @@ public class GameEngineGame implements Game {
    */
   @Override
   public GameState create(MapTemplate template) {
+    try {
+      return copyState(this.createLocked(template).getState(), true);
+    } finally {
+      this.notifyStateListeners();
+    }
+  }
+
+  /**
+   * Creates the game while holding the lock of the game, see {@link #create(MapTemplate)}.
+   *
+   * @param template inputs the template for map
+   * @return snapshot of the created game
+   */
+  private synchronized VersionedState createLocked(MapTemplate template) {
     this.template = template;
     this.gameOver = false;
 
@@ -92,15 +193,25 @@ public class GameEngineGame implements Game {
 
     playGrid = placeBlocks(playGrid, template.getBlocks());
 
+    this.board = Board.fromGrid(playGrid);
+    this.moveGenerator = new MoveGenerator(template.getPieces());
+    for (Piece piece : mapPieces) {
+      this.moveGenerator.assign(piece);
+    }
+    for (int i = 1; i <= teamCount; i++) {
+      this.pieces.setBase(i, this.board.findBase(i));
+    }
+
     GameState resultGameState = new GameState();
-    resultGameState.setGrid(playGrid);
+    resultGameState.setGrid(this.board.getView());
     this.gameState = resultGameState;
     gameState.setTeams(new Team[teamCount]);
     this.flags = new int[teamCount];
     for (int i = 0; i < teamCount; i++) {
       this.flags[i] = template.getFlags();
     }
-    return resultGameState;
+    this.publishState();
+    return this.snapshot;
   }
 
 
@@ -635,7 +746,10 @@ public class GameEngineGame implements Game {
         }
       }
     }
-    this.pieces = resultPieces;
+    this.pieces = new PieceStore(teamCountInp);
+    for (Piece piece : resultPieces) {
+      this.pieces.add(piece);
+    }
 
     return resultPieces;
   }
@@ -686,18 +800,48 @@ public class GameEngineGame implements Game {
 
 
   /**
-   * @return gameState
+   * @return copy of the current gameState, changing it does not change the game
    * @author jdeiting
    */
   @Override
   public GameState getCurrentGameState() {
-    for (Team t : this.gameState.getTeams()) {
-      if (t != null) {
-        System.out.println("TeamPieces: " + t.getPieces().length);
-      }
-    }
-    return this.gameState;
+    VersionedState current = this.snapshot;
+    return current == null ? null : copyState(current.getState(), true);
+  }
+
+  /**
+   * @return snapshot of the gameState together with its version, null if the game was not created
+   */
+  @Override
+  public VersionedState getVersionedState() {
+    return this.snapshot;
+  }
+
+  /**
+   * @param listener inputs the listener called with every published snapshot
+   */
+  @Override
+  public void addStateListener(Consumer<VersionedState> listener) {
+    this.stateListeners.add(listener);
+  }
 
+  /**
+   * @param sequence inputs the sequence number of the last known event, 0 for all events
+   * @return events recorded after the given sequence number, oldest first
+   * @throws EventsDropped Events after the given sequence number were dropped from the log
+   */
+  @Override
+  public GameEvent[] getEventsSince(long sequence) {
+    GameEvent[] published = this.events;
+    if (published.length == 0) {
+      return published;
+    }
+    long first = published[0].getSequence();
+    if (Math.max(sequence, 0) < first - 1) {
+      throw new EventsDropped();
+    }
+    int from = (int) Math.min(Math.max(sequence - first + 1, 0), published.length);
+    return Arrays.copyOfRange(published, from, published.length);
   }
 
   /**
@@ -715,6 +859,20 @@ public class GameEngineGame implements Game {
    */
   @Override
   public Team joinGame(String teamId) {
+    try {
+      return this.joinGameLocked(teamId);
+    } finally {
+      this.notifyStateListeners();
+    }
+  }
+
+  /**
+   * Adds a team while holding the lock of the game, see {@link #joinGame(String)}.
+   *
+   * @param teamId Team ID
+   * @return Team
+   */
+  private Team joinGameLocked(String teamId) {
     synchronized (this) {
       Team team = new Team();
 
@@ -756,18 +914,9 @@ public class GameEngineGame implements Game {
 
           team.setPieces(this.getTeamPieces(i + 1));
 
-          boolean outerBreak = false;
-          for (int j = 0; j < gameState.getGrid().length; j++) {
-            for (int k = 0; k < gameState.getGrid()[0].length; k++) {
-              if (gameState.getGrid()[j][k].equals("b:" + team.getId())) {
-                team.setBase(new int[]{j, k});
-                outerBreak = true;
-                break;
-              }
-            }
-            if (outerBreak) {
-              break;
-            }
+          int[] base = this.pieces.getBase(i + 1);
+          if (base != null) {
+            team.setBase(base);
           }
 
           team.setFlags(template.getFlags());
@@ -777,18 +926,18 @@ public class GameEngineGame implements Game {
 
       this.gameState.setTeams(teams);
 
-      // start game and time thread if all teams are joined
+      // start game and game deadline if all teams are joined
       if (this.getRemainingTeamSlots() == 0) {
         this.startedDate = new Date();
-        // check if thread for game or move time needs to be started
-        if (this.getRemainingGameTimeInSeconds() != -1
-            || this.getRemainingMoveTimeInSeconds() != -1) {
-          this.gameTime = 0;
-          this.moveTime = 0;
-          new GameTimeCounter().start();
+        if (this.template.getTotalTimeLimitInSeconds() >= 0) {
+          this.gameDeadline = GameTimeCounter.schedule(() -> {
+            this.gameTimeOver();
+            this.notifyStateListeners();
+          }, this.template.getTotalTimeLimitInSeconds() * 1000L);
         }
-        this.gameState.setCurrentTeam((int) ((Math.random() * teams.length) + 1));
+        this.startTurn(this.random.nextInt(teams.length) + 1);
       }
+      this.publishState();
 
       // return new team
       return team;
@@ -801,14 +950,7 @@ public class GameEngineGame implements Game {
    * @author jdeiting
    */
   public Piece[] getTeamPieces(int teamInp) {
-    Piece[] resultPieces = new Piece[this.pieces.length / this.template.getTeams()];
-    int countTeamPieces = 0;
-    for (Piece piece : this.pieces) {
-      if (piece.getTeamId().equals("" + teamInp)) {
-        resultPieces[countTeamPieces++] = piece;
-      }
-    }
-    return resultPieces;
+    return this.pieces.getTeamPieces(teamInp);
   }
 
   /**
@@ -816,7 +958,7 @@ public class GameEngineGame implements Game {
    * @author ldornied
    */
   @Override
-  public int getRemainingTeamSlots() {
+  public synchronized int getRemainingTeamSlots() {
     Team[] currentTeams = this.gameState.getTeams();
     int count = 0;
 
@@ -838,8 +980,25 @@ public class GameEngineGame implements Game {
    * @author ldornied
    */
   @Override
-  public synchronized void makeMove(Move move) {
-    System.out.println("Making new move...");
+  public void makeMove(Move move) {
+    boolean capturedLastFlag;
+    try {
+      capturedLastFlag = this.makeMoveLocked(move);
+    } finally {
+      this.notifyStateListeners();
+    }
+    if (capturedLastFlag) {
+      throw new GameOver();
+    }
+  }
+
+  /**
+   * Makes a move while holding the lock of the game, see {@link #makeMove(Move)}.
+   *
+   * @param move {@link Move}
+   * @return true if the move captured the last flag of a team and ended the game, false otherwise
+   */
+  private synchronized boolean makeMoveLocked(Move move) {
     // check if game is over
     if (this.gameOver) {
       throw new GameOver();
@@ -847,11 +1006,9 @@ public class GameEngineGame implements Game {
 
     // check whether move is valid
     if (this.isValidMove(move)) {
-      String[][] grid = this.gameState.getGrid();
-
       // create reference for piece
       int currentTeam = this.gameState.getCurrentTeam();
-      String reference = "p:" + currentTeam + "_" + move.getPieceId();
+      int reference = Board.piece(currentTeam, Integer.parseInt(move.getPieceId()));
 
       // get piece info
       Piece piece = this.getPiece(move.getPieceId(), currentTeam);
@@ -862,63 +1019,49 @@ public class GameEngineGame implements Game {
       // get coordinates of move and content of new position
       int[] newCoordinates = move.getNewPosition();
       int[] currentPosition = piece.getPosition();
-      String newPosition = grid[newCoordinates[0]][newCoordinates[1]];
+      int newPosition = this.board.get(newCoordinates[0], newCoordinates[1]);
 
       // check if player or base on field
-      if (newPosition.matches("p:[1-4]_[0-9]+")) { // player
+      if (Board.kind(newPosition) == Board.PIECE) { // player
         // get team and piece id from enemy piece
-        System.out.println("Piece captured: " + newPosition);
-        String[] enemyPieceInfo = newPosition.split("_");
-        int enemyTeamId = Integer.parseInt(enemyPieceInfo[0].split(":")[1]);
-        int enemyPieceId = Integer.parseInt(enemyPieceInfo[1]);
+        LOG.debug("Piece captured: {}", Board.decode(newPosition));
+        int enemyTeamId = Board.team(newPosition);
+        int enemyPieceId = Board.pieceId(newPosition);
 
-        // get piece
-        Piece enemyPiece = this.getPiece(enemyPieceId + "", enemyTeamId);
+        // remove piece
+        Piece enemyPiece = this.pieces.remove(enemyTeamId, enemyPieceId);
         if (enemyPiece == null) {
           throw new InvalidMove();
         }
+        this.recordEvent(GameEventType.capture, enemyTeamId, enemyPiece.getId(),
+            newCoordinates, null, 0);
 
-        // remove piece from pieces arrays
-        Piece[] newPieces = new Piece[this.pieces.length - 1];
-        int count = 0;
-        for (Piece currentPiece : this.pieces) {
-
-          if (!(currentPiece.getId().equals(enemyPieceId + "") && currentPiece.getTeamId()
-              .equals(enemyTeamId + ""))) {
-
-            newPieces[count++] = currentPiece;
-          }
-        }
-        this.pieces = newPieces;
-
+        // update pieces of the team, a team that gave up keeps no pieces
         Team team = this.gameState.getTeams()[enemyTeamId - 1];
-        Piece[] teamPieces = team.getPieces();
-        Piece[] newTeamPieces = new Piece[teamPieces.length - 1];
-        count = 0;
-        for (Piece currentPiece : teamPieces) {
-          if (!currentPiece.getId().equals(enemyPieceId + "")) {
-            newTeamPieces[count++] = currentPiece;
-          }
+        if (team.getPieces().length > 0) {
+          team.setPieces(this.pieces.getTeamPieces(enemyTeamId));
         }
-        team.setPieces(newTeamPieces);
-        System.out.println("numOfPieces: " + team.getPieces().length);
 
         // set piece coordinates
         piece.setPosition(newCoordinates);
+        this.recordEvent(GameEventType.move, currentTeam, piece.getId(), currentPosition,
+            newCoordinates, 0);
 
-        // update grid
-        grid[newCoordinates[0]][newCoordinates[1]] = reference;
-        grid[currentPosition[0]][currentPosition[1]] = "";
-      } else if (newPosition.matches("b:[1-4]")) { // base
+        // update board
+        this.board.set(newCoordinates[0], newCoordinates[1], reference);
+        this.board.set(currentPosition[0], currentPosition[1], Board.EMPTY);
+      } else if (Board.kind(newPosition) == Board.BASE) { // base
         // get team of base
-        System.out.println("flagCaptured: " + newPosition);
-        int team = Integer.parseInt(newPosition.substring(2));
+        LOG.debug("Flag captured: {}", Board.decode(newPosition));
+        int team = Board.team(newPosition);
 
         // decrease flag count
         this.flags[team - 1]--;
 
         Team flagTeam = this.gameState.getTeams()[team - 1];
         flagTeam.setFlags(flagTeam.getFlags() - 1);
+        this.recordEvent(GameEventType.flag, team, null, null, newCoordinates,
+            this.flags[team - 1]);
 
         // set winner(s) if flag count is 0, else respawn piece next to own base
         if (this.flags[team - 1] == 0) {
@@ -927,30 +1070,28 @@ public class GameEngineGame implements Game {
 
           // set new position
           piece.setPosition(newCoordinates);
-          grid[newCoordinates[0]][newCoordinates[1]] = reference;
+          this.recordEvent(GameEventType.move, currentTeam, piece.getId(), currentPosition,
+              newCoordinates, 0);
+          this.board.set(newCoordinates[0], newCoordinates[1], reference);
 
           // set winner
           this.winner = new String[]{currentTeam + ""};
 
           // set game over true
-          this.gameOver = true;
-          System.out.println("Game over 2");
-          throw new GameOver();
+          this.endGame();
+          this.gameState.setLastMove(move);
+          this.publishState();
+          LOG.debug("Game over, last flag captured");
+          return true;
         } else {
           // get base coordinates
-          int[] baseCoordinates = new int[2];
-          for (int i = 0; i < grid.length; i++) {
-            for (int j = 0; j < grid[0].length; j++) {
-              if (grid[i][j].equals("b:" + currentTeam)) { // index?
-                baseCoordinates[0] = i;
-                baseCoordinates[1] = j;
-                break;
-              }
-            }
+          int[] baseCoordinates = this.pieces.getBase(currentTeam);
+          if (baseCoordinates == null) {
+            baseCoordinates = new int[2];
           }
 
           // get amount of pieces to determine search radius
-          int numPieces = this.pieces.length;
+          int numPieces = this.pieces.size();
           int searchRadius = ((int) Math.ceil(Math.sqrt(numPieces)) + 1) / 2;
 
           // set piece position next to base
@@ -967,8 +1108,7 @@ public class GameEngineGame implements Game {
                   int y = baseCoordinates[1] + j;
 
                   // check if field is empty or index is out of bounds
-                  if (x >= 0 && x < grid.length && y >= 0 && y < grid[0].length
-                      && grid[x][y].isEmpty()) {
+                  if (this.board.isInside(x, y) && this.board.isEmpty(x, y)) {
                     possiblePositions.add(new int[]{x, y});
                   }
                 }
@@ -978,41 +1118,67 @@ public class GameEngineGame implements Game {
             // loop through possible positions and return random position
             if (!possiblePositions.isEmpty()) {
               newPiecePosition = possiblePositions.get(
-                  (int) (Math.random() * possiblePositions.size()));
+                  this.random.nextInt(possiblePositions.size()));
               break;
             }
           }
 
           // set new piece position
           piece.setPosition(newPiecePosition);
+          this.recordEvent(GameEventType.respawn, currentTeam, piece.getId(), currentPosition,
+              newPiecePosition, 0);
 
-          // update grid
-          grid[newPiecePosition[0]][newPiecePosition[1]] = reference;
-          grid[currentPosition[0]][currentPosition[1]] = "";
+          // update board
+          this.board.set(newPiecePosition[0], newPiecePosition[1], reference);
+          this.board.set(currentPosition[0], currentPosition[1], Board.EMPTY);
         }
       } else { // empty field
         // set piece coordinates
         piece.setPosition(newCoordinates);
+        this.recordEvent(GameEventType.move, currentTeam, piece.getId(), currentPosition,
+            newCoordinates, 0);
 
-        // update grid
-        grid[newCoordinates[0]][newCoordinates[1]] = reference;
-        grid[currentPosition[0]][currentPosition[1]] = ""; // test
+        // update board
+        this.board.set(newCoordinates[0], newCoordinates[1], reference);
+        this.board.set(currentPosition[0], currentPosition[1], Board.EMPTY);
       }
 
       // set next team
       int nextTeam = (this.gameState.getCurrentTeam() % this.gameState.getTeams().length) + 1;
 
       // update game state
-      this.gameState.setGrid(grid);
       this.gameState.setLastMove(move);
-      this.gameState.setCurrentTeam(nextTeam);
-      this.moveTime = 0;
-      System.out.println("Move successful");
+      this.startTurn(nextTeam);
+      this.publishState();
+      return false;
     } else {
       throw new InvalidMove();
     }
   }
 
+  /**
+   * Makes a move and returns the snapshot it published. The lock is held across both, so no
+   * deadline can publish a newer state in between. Unlike {@link #makeMove(Move)}, the move that
+   * captures the last flag returns its snapshot as well, only moves after the end throw
+   * {@link GameOver}.
+   *
+   * @param move {@link Move}
+   * @return snapshot of the gameState right after the move
+   * @throws InvalidMove Requested move is invalid
+   * @throws GameOver    Game is over
+   */
+  @Override
+  public VersionedState applyMove(Move move) {
+    try {
+      synchronized (this) {
+        this.makeMoveLocked(move);
+        return this.snapshot;
+      }
+    } finally {
+      this.notifyStateListeners();
+    }
+  }
+
   /**
    * Returns Piece from Piece array with id from parameter
    *
@@ -1022,13 +1188,181 @@ public class GameEngineGame implements Game {
    * @author ldornied
    */
   protected Piece getPiece(String pieceId, int team) {
+    try {
+      return this.pieces.get(team, Integer.parseInt(pieceId));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return encoded playGrid of the game
+   */
+  Board getBoard() {
+    return this.board;
+  }
+
+  /**
+   * Hands the turn to a team without any checks, used to set up test scenarios.
+   *
+   * @param team inputs the team that should make the next move
+   */
+  void setCurrentTeam(int team) {
+    synchronized (this) {
+      this.gameState.setCurrentTeam(team);
+      this.publishState();
+    }
+    this.notifyStateListeners();
+  }
+
+  /**
+   * Publishes a deep copy of the current game state as {@link #snapshot} with the next version.
+   * The state listeners are notified by {@link #notifyStateListeners()} once the lock is released.
+   */
+  private void publishState() {
+    this.publishEvents();
+    this.snapshot = new VersionedState(++this.stateVersion, copyState(this.gameState, false));
+  }
 
-    for (Piece piece : this.pieces) {
-      if (piece.getId().equals(pieceId) && piece.getTeamId().equals(team + "")) {
-        return piece;
+  /**
+   * Appends the events recorded since the last snapshot to a new array of the move log, dropping
+   * the oldest events beyond {@link #MAX_EVENTS}.
+   */
+  private void publishEvents() {
+    if (this.pendingEvents.isEmpty()) {
+      return;
+    }
+    GameEvent[] published = this.events;
+    int added = Math.min(this.pendingEvents.size(), MAX_EVENTS);
+    int kept = Math.min(published.length, MAX_EVENTS - added);
+    GameEvent[] log = new GameEvent[kept + added];
+    System.arraycopy(published, published.length - kept, log, 0, kept);
+    int from = this.pendingEvents.size() - added;
+    for (int i = 0; i < added; i++) {
+      log[kept + i] = this.pendingEvents.get(from + i);
+    }
+    this.pendingEvents.clear();
+    this.events = log;
+  }
+
+  /**
+   * Hands the latest snapshot to the state listeners, unless they already got it. Called after
+   * the lock of the game is released, so slow listeners do not hold up moves and deadlines.
+   */
+  private void notifyStateListeners() {
+    VersionedState current = this.snapshot;
+    if (current == null) {
+      return;
+    }
+    long notified;
+    do {
+      notified = this.notifiedVersion.get();
+      if (current.getVersion() <= notified) {
+        return;
+      }
+    } while (!this.notifiedVersion.compareAndSet(notified, current.getVersion()));
+
+    for (Consumer<VersionedState> listener : this.stateListeners) {
+      listener.accept(current);
+    }
+  }
+
+  /**
+   * Deep copies a game state. Grid cells are strings and are shared with the copy.
+   *
+   * @param state            inputs the state to copy
+   * @param copyDescriptions inputs whether the piece descriptions are copied too. The game never
+   *                         changes them, so published snapshots share them with the game.
+   * @return copy of the state
+   */
+  private static GameState copyState(GameState state, boolean copyDescriptions) {
+    GameState copy = new GameState();
+
+    String[][] grid = state.getGrid();
+    String[][] gridCopy = new String[grid.length][];
+    for (int i = 0; i < grid.length; i++) {
+      gridCopy[i] = grid[i].clone();
+    }
+    copy.setGrid(gridCopy);
+
+    Team[] teams = state.getTeams();
+    Team[] teamsCopy = new Team[teams.length];
+    for (int i = 0; i < teams.length; i++) {
+      Team team = teams[i];
+      if (team == null) {
+        continue;
       }
+      Team teamCopy = new Team();
+      teamCopy.setId(team.getId());
+      teamCopy.setColor(team.getColor());
+      teamCopy.setBase(team.getBase() == null ? null : team.getBase().clone());
+      teamCopy.setFlags(team.getFlags());
+      Piece[] teamPieces = team.getPieces();
+      Piece[] piecesCopy = new Piece[teamPieces.length];
+      for (int j = 0; j < teamPieces.length; j++) {
+        Piece piece = teamPieces[j];
+        Piece pieceCopy = new Piece();
+        pieceCopy.setId(piece.getId());
+        pieceCopy.setTeamId(piece.getTeamId());
+        pieceCopy.setDescription(copyDescriptions ? copyDescription(piece.getDescription())
+            : piece.getDescription());
+        pieceCopy.setPosition(piece.getPosition() == null ? null : piece.getPosition().clone());
+        piecesCopy[j] = pieceCopy;
+      }
+      teamCopy.setPieces(piecesCopy);
+      teamsCopy[i] = teamCopy;
+    }
+    copy.setTeams(teamsCopy);
+
+    copy.setCurrentTeam(state.getCurrentTeam());
+    Move lastMove = state.getLastMove();
+    if (lastMove != null) {
+      Move moveCopy = new Move();
+      moveCopy.setPieceId(lastMove.getPieceId());
+      moveCopy.setTeamId(lastMove.getTeamId());
+      moveCopy.setNewPosition(
+          lastMove.getNewPosition() == null ? null : lastMove.getNewPosition().clone());
+      copy.setLastMove(moveCopy);
     }
-    return null;
+    return copy;
+  }
+
+  /**
+   * @param description inputs the piece description to copy, may be null
+   * @return copy of the piece description
+   */
+  private static PieceDescription copyDescription(PieceDescription description) {
+    if (description == null) {
+      return null;
+    }
+    PieceDescription copy = new PieceDescription();
+    copy.setType(description.getType());
+    copy.setAttackPower(description.getAttackPower());
+    copy.setCount(description.getCount());
+    Movement movement = description.getMovement();
+    if (movement != null) {
+      Movement movementCopy = new Movement();
+      Directions directions = movement.getDirections();
+      if (directions != null) {
+        Directions directionsCopy = new Directions();
+        directionsCopy.setLeft(directions.getLeft());
+        directionsCopy.setRight(directions.getRight());
+        directionsCopy.setUp(directions.getUp());
+        directionsCopy.setDown(directions.getDown());
+        directionsCopy.setUpLeft(directions.getUpLeft());
+        directionsCopy.setUpRight(directions.getUpRight());
+        directionsCopy.setDownLeft(directions.getDownLeft());
+        directionsCopy.setDownRight(directions.getDownRight());
+        movementCopy.setDirections(directionsCopy);
+      }
+      if (movement.getShape() != null) {
+        Shape shapeCopy = new Shape();
+        shapeCopy.setType(movement.getShape().getType());
+        movementCopy.setShape(shapeCopy);
+      }
+      copy.setMovement(movementCopy);
+    }
+    return copy;
   }
 
   /**
@@ -1041,8 +1375,10 @@ public class GameEngineGame implements Game {
       return -1;
     }
 
+    long end = this.endedDate == null ? System.currentTimeMillis() : this.endedDate.getTime();
+    int gameTime = (int) ((end - this.startedDate.getTime()) / 1000);
     return this.template.getTotalTimeLimitInSeconds() < 0 ? -1
-        : Math.max(this.template.getTotalTimeLimitInSeconds() - this.gameTime, 0);
+        : Math.max(this.template.getTotalTimeLimitInSeconds() - gameTime, 0);
 
   }
 
@@ -1056,8 +1392,9 @@ public class GameEngineGame implements Game {
       return -1;
     }
 
+    int moveTime = (int) ((System.currentTimeMillis() - this.moveStartedMillis) / 1000);
     return this.template.getMoveTimeLimitInSeconds() < 0 ? -1
-        : Math.max(this.template.getMoveTimeLimitInSeconds() - this.moveTime, 0);
+        : Math.max(this.template.getMoveTimeLimitInSeconds() - moveTime, 0);
   }
 
   /**
@@ -1067,11 +1404,25 @@ public class GameEngineGame implements Game {
    */
   @Override
   public void giveUp(String teamId) {
+    try {
+      this.giveUpLocked(teamId);
+    } finally {
+      this.notifyStateListeners();
+    }
+  }
+
+  /**
+   * Surrenders a team while holding the lock of the game, see {@link #giveUp(String)}.
+   *
+   * @param teamId inputs the ID of the team wanting to surrender
+   */
+  private synchronized void giveUpLocked(String teamId) {
     Team[] teams = gameState.getTeams();
 
     // set Teams pieces to 0, so that move will be skipped
     Team team = teams[Integer.parseInt(teamId) - 1];
     team.setPieces(new Piece[0]);
+    this.recordEvent(GameEventType.give_up, Integer.parseInt(teamId), null, null, null, 0);
 
     // count remaining teams
     int teamsRemaining = 0;
@@ -1092,8 +1443,13 @@ public class GameEngineGame implements Game {
         }
       }
 
-      this.gameOver = true;
+      this.endGame();
+    } else if (!this.gameOver && this.startedDate != null
+        && team.getId().equals(this.gameState.getCurrentTeam() + "")) {
+      // skip the move of the surrendered team
+      this.startTurn((this.gameState.getCurrentTeam() % teams.length) + 1);
     }
+    this.publishState();
   }
 
   /**
@@ -1104,269 +1460,25 @@ public class GameEngineGame implements Game {
    * @author ldornied
    */
   @Override
-  public boolean isValidMove(Move move) {
+  public synchronized boolean isValidMove(Move move) {
     int currentTeam = this.gameState.getCurrentTeam();
 
-    // get coordinates of move and grid
+    // check if piece exists and was not removed already
     Piece piece = this.getPiece(move.getPieceId(), currentTeam);
-    if (piece == null) {
+    if (piece == null || piece.getPosition() == null) {
       return false;
     }
-    int[] newPosition = new int[2];
-    newPosition[0] = move.getNewPosition()[0];
-    newPosition[1] = move.getNewPosition()[1];
-    int[] currentPosition = new int[2];
-    currentPosition[0] = piece.getPosition()[0];
-    currentPosition[1] = piece.getPosition()[1];
-
-    String[][] grid = this.gameState.getGrid();
-
-    // check if move is out of bounds
-    if (this.isOutOfBounds(newPosition, grid)) {
-      return false;
-    }
-
-    // rotate grid, if necessary
-    grid = this.rotateMap(grid, currentTeam);
-
-    // update coordinates if grid was rotated
-    switch (currentTeam) {
-      case 1:
-        break;
-      case 2:
-        newPosition[0] = grid.length - newPosition[0] - 1;
-        newPosition[1] = grid[0].length - newPosition[1] - 1;
-        currentPosition[0] = grid.length - currentPosition[0] - 1;
-        currentPosition[1] = grid[0].length - currentPosition[1] - 1;
-        break;
-      case 3:
-        int tempPos0 = newPosition[0];
-        newPosition[0] = grid.length - newPosition[1] - 1;
-        newPosition[1] = tempPos0;
-        tempPos0 = currentPosition[0];
-        currentPosition[0] = grid.length - currentPosition[1] - 1;
-        currentPosition[1] = tempPos0;
-        break;
-      case 4:
-        int tempPos1 = newPosition[1];
-        newPosition[1] = grid[0].length - newPosition[0] - 1;
-        newPosition[0] = tempPos1;
-        tempPos1 = currentPosition[1];
-        currentPosition[1] = grid[0].length - currentPosition[0] - 1;
-        currentPosition[0] = tempPos1;
-        break;
-    }
-
-    // check if piece was already removed
-    if (piece.getPosition() == null) {
-      return false;
-    }
-
-    // check if new position is the same as the current position
-    if (currentPosition[0] == newPosition[0] && currentPosition[1] == newPosition[1]) {
-      return false;
-    }
-
-    // check, if another Piece, base or block on field
-    String position = grid[newPosition[0]][newPosition[1]]; // item on new position
-    if (!position.isEmpty()) {
-      if (position.matches("p:[1-4]_[0-9]+")) { // piece
-        // get piece and team info
-        String[] pieceInfo = position.split("_");
-        Piece enemyPiece = this.getPiece(pieceInfo[1], Integer.parseInt(pieceInfo[0].substring(2)));
-        if (enemyPiece == null) {
-          return false;
-        }
-
-        // check if piece is from my team
-        if (enemyPiece.getTeamId().equals(this.gameState.getCurrentTeam() + "")) {
-          return false;
-        }
-
-        // check if enemy piece is stronger
-        if (piece.getDescription().getAttackPower() < enemyPiece.getDescription()
-            .getAttackPower()) {
-          return false;
-        }
-      } else if (position.equals("b")) { // block
-        return false;
-      } else { // base
-        // check if base is from my team
-        if (position.substring(2).equals(this.gameState.getCurrentTeam() + "")) {
-          return false;
-        }
-      }
-    }
-
-    // get movement and shape of piece
-    Movement movement = piece.getDescription().getMovement();
-    Directions direction = movement.getDirections();
-    Shape shape = movement.getShape();
-
-    // amount of steps taken in each direction
-    // positive if left/up, negative if right/down
-    int horizontalSteps = currentPosition[1] - newPosition[1];
-    int verticalSteps = currentPosition[0] - newPosition[0];
-    int absHorizontalSteps = Math.abs(horizontalSteps);
-    int absVerticalSteps = Math.abs(verticalSteps);
-
-    // check different movement types and if piece can move in that direction / that amount of steps
-    if (shape != null && shape.getType() == ShapeType.lshape) {
-      if (!(absHorizontalSteps == 2 && absVerticalSteps == 1 ||
-          absHorizontalSteps == 1 && absVerticalSteps == 2)) {
-        return false;
-      } else {
-        // horizontal l-shape
-        if (absHorizontalSteps == 2) {
-          // right
-          if (horizontalSteps < 0) {
-            if (!grid[currentPosition[0]][currentPosition[1] + 1].isEmpty() ||
-                !grid[currentPosition[0]][currentPosition[1] + 2].isEmpty()) {
-              return false;
-            }
-          } else { // left
-            if (!grid[currentPosition[0]][currentPosition[1] - 1].isEmpty() ||
-                !grid[currentPosition[0]][currentPosition[1] - 2].isEmpty()) {
-              return false;
-            }
-          }
-        } else { // vertical l-shape
-          // up
-          if (verticalSteps > 0) {
-            if (!grid[currentPosition[0] - 1][currentPosition[1]].isEmpty() ||
-                !grid[currentPosition[0] - 2][currentPosition[1]].isEmpty()) {
-              return false;
-            }
-          } else {
-            // down
-            if (!grid[currentPosition[0] + 1][currentPosition[1]].isEmpty() ||
-                !grid[currentPosition[0] + 2][currentPosition[1]].isEmpty()) {
-              return false;
-            }
-          }
-        }
-      }
-    } else {
-      // up/down left/right - check if move is symmetrical
-      if (absHorizontalSteps > 0 && absVerticalSteps > 0
-          && absVerticalSteps != absHorizontalSteps) {
-        return false;
-      }
-      if (horizontalSteps < 0 && verticalSteps == 0) {
-        // right - check if move is valid
-        if (absHorizontalSteps > direction.getRight()) {
-          return false;
-        }
-
-        // check, if something is in the way or move is out of bounds
-        for (int i = 1; i < absHorizontalSteps; i++) {
-          if (!grid[currentPosition[0]][currentPosition[1] + i].isEmpty()) {
-            return false;
-          }
-        }
-      } else if (horizontalSteps > 0 && verticalSteps == 0) {
-        // left - check if move is valid
-        if (absHorizontalSteps > direction.getLeft()) {
-          return false;
-        }
-        // check, if something is in the way
-        for (int i = 1; i < absHorizontalSteps; i++) {
-          if (!grid[currentPosition[0]][currentPosition[1] - i].isEmpty()) {
-            return false;
-          }
-        }
-      } else if (verticalSteps > 0 && horizontalSteps == 0) {
-        // up - check if move is valid
-        if (absVerticalSteps > direction.getUp()) {
-          return false;
-        }
-        // check, if something is in the way
-        for (int i = 1; i < absVerticalSteps; i++) {
-          if (!grid[currentPosition[0] - i][currentPosition[1]].isEmpty()) {
-            return false;
-          }
-        }
-      } else if (verticalSteps < 0 && horizontalSteps == 0) {
-        // down - check if move is valid
-        if (absVerticalSteps > direction.getDown()) {
-          return false;
-        }
-        // check, if something is in the way
-        for (int i = 1; i < absVerticalSteps; i++) {
-          if (!grid[currentPosition[0] + i][currentPosition[1]].isEmpty()) {
-            return false;
-          }
-        }
-      } else if (absHorizontalSteps == absVerticalSteps) {
-        if (verticalSteps > 0 && horizontalSteps < 0) {
-          // up right - check if move is valid
-          if (absHorizontalSteps > direction.getUpRight()
-              || absVerticalSteps > direction.getUpRight()) {
-            return false;
-          }
-          // check, if something is in the way
-          for (int i = 1; i < absVerticalSteps; i++) {
-            if (!grid[currentPosition[0] - i][currentPosition[1] + i].isEmpty()) {
-              return false;
-            }
-          }
-        } else if (verticalSteps > 0) {
-          // up left - check if move is valid
-          if (absHorizontalSteps > direction.getUpLeft()) {
-            return false;
-          }
-          // check, if something is in the way
-          for (int i = 1; i < absVerticalSteps; i++) {
-            if (!grid[currentPosition[0] - i][currentPosition[1] - i].isEmpty()) {
-              return false;
-            }
-          }
-        } else if (horizontalSteps < 0) {
-          // down right - check if move is valid
-          if (absHorizontalSteps > direction.getDownRight()) {
-            return false;
-          }
-          // check, if something is in the way
-          for (int i = 1; i < absVerticalSteps; i++) {
-            if (!grid[currentPosition[0] + i][currentPosition[1] + i].isEmpty()) {
-              return false;
-            }
-          }
-        } else {
-          // down left - check if move is valid
-          if (absHorizontalSteps > direction.getDownLeft()) {
-            return false;
-          }
-          // check, if something is in the way
-          for (int i = 1; i < absVerticalSteps; i++) {
-            if (!grid[currentPosition[0] + i][currentPosition[1] - i].isEmpty()) {
-              return false;
-            }
-          }
-        }
-      }
-    }
-
-    // rotate back
-    rotateMapBack(grid, currentTeam);
+    int[] newPosition = move.getNewPosition();
+    int[] currentPosition = piece.getPosition();
 
-    return true;
+    // directions of the piece are turned to the team's perspective by the move generator,
+    // so only the path to the new position is checked
+    return this.moveGenerator.isLegal(this.board, currentTeam,
+        Integer.parseInt(piece.getId()), currentPosition[0], currentPosition[1],
+        newPosition[0], newPosition[1]);
   }
 
 
-  /**
-   * Checks if a position is out of bounds.
-   *
-   * @param position Position to check
-   * @param grid     Current grid
-   * @return true if position is out of bounds, false otherwise
-   * @author ldornied
-   */
-  private boolean isOutOfBounds(int[] position, String[][] grid) {
-    return position[0] < 0 || position[0] >= grid.length || position[1] < 0
-        || position[1] >= grid[0].length;
-  }
-
   /**
    * @return true if game is started, false otherwise
    * @author jdeiting
@@ -1424,296 +1536,189 @@ public class GameEngineGame implements Game {
    * @author ldornied
    */
   protected boolean canMove(Piece piece) {
-
-    // get position, movement and shape of piece
-    Movement movement = piece.getDescription().getMovement();
-    Directions direction = movement.getDirections();
-    Shape shape = movement.getShape();
     int[] currentPosition = piece.getPosition();
+    return this.moveGenerator.canMove(this.board, Integer.parseInt(piece.getTeamId()),
+        Integer.parseInt(piece.getId()), currentPosition[0], currentPosition[1]);
+  }
 
-    // adjust direction for each team
-    int[] adjustedDirection = switch (Integer.parseInt(piece.getTeamId())) {
-      case 2 -> // Team 2 (reverse both directions)
-          new int[]{-1, -1};
-      case 3 -> // Team 3 (rotate 90 degrees clockwise)
-          new int[]{1, -1};
-      case 4 -> // Team 4 (rotate 90 degrees counterclockwise)
-          new int[]{-1, 1};
-      default -> // Team 1 (standard perspective)
-          new int[]{1, 1};
-    };
-
-    if (shape != null && shape.getType() == ShapeType.lshape) {
-      int[] row = {-2, -2, 2, 2, 1, -1, 1, -1};
-      int[] col = {-1, 1, -1, 1, 2, 2, -2, -2};
-      for (int i = 0; i < 8; i++) {
-        Move newMove = new Move();
-        newMove.setPieceId(piece.getId());
-        newMove.setTeamId(piece.getTeamId());
-        newMove.setNewPosition(new int[]{currentPosition[0] + row[i], currentPosition[1] + col[i]});
-        if (isValidMove(newMove)) {
-          return true;
-        }
-      }
-    } else {
-      // get possible steps in each direction
-      int left = direction.getLeft();
-      int right = direction.getRight();
-      int up = direction.getUp();
-      int down = direction.getDown();
-      int upRight = direction.getUpRight();
-      int upLeft = direction.getUpLeft();
-      int downRight = direction.getDownRight();
-      int downLeft = direction.getDownLeft();
-
-      // check if piece can move in each direction
-      if (left > 0) {
-        for (int i = 1; i <= left; i++) {
-          if (currentPosition[1] - i >= 0) {
-            Move newMove = new Move();
-            newMove.setPieceId(piece.getId());
-            newMove.setTeamId(piece.getTeamId());
-            newMove.setNewPosition(
-                new int[]{currentPosition[0], currentPosition[1] - i * adjustedDirection[1]});
-            if (isValidMove(newMove)) {
-              return true;
-            }
-          }
-        }
-      }
-      if (right > 0) {
-        for (int i = 1; i <= right; i++) {
-          if (currentPosition[1] + i < gameState.getGrid()[0].length) {
-            Move newMove = new Move();
-            newMove.setPieceId(piece.getId());
-            newMove.setTeamId(piece.getTeamId());
-            newMove.setNewPosition(
-                new int[]{currentPosition[0], currentPosition[1] + i * adjustedDirection[1]});
-            if (isValidMove(newMove)) {
-              return true;
-            }
-          }
-        }
-      }
-      if (up > 0) {
-        for (int i = 1; i <= up; i++) {
-          if (currentPosition[0] - i >= 0) {
-            Move newMove = new Move();
-            newMove.setPieceId(piece.getId());
-            newMove.setTeamId(piece.getTeamId());
-            newMove.setNewPosition(
-                new int[]{currentPosition[0] - i * adjustedDirection[0], currentPosition[1]});
-            if (isValidMove(newMove)) {
-              return true;
-            }
-          }
-        }
-      }
-      if (down > 0) {
-        for (int i = 1; i <= down; i++) {
-          if (currentPosition[0] + i < gameState.getGrid().length) {
-            Move newMove = new Move();
-            newMove.setPieceId(piece.getId());
-            newMove.setTeamId(piece.getTeamId());
-            newMove.setNewPosition(
-                new int[]{currentPosition[0] + i * adjustedDirection[0], currentPosition[1]});
-            if (isValidMove(newMove)) {
-              return true;
-            }
-          }
-        }
-      }
-      if (upRight > 0) {
-        for (int i = 1; i <= upRight; i++) {
-          if (currentPosition[0] - i >= 0
-              && currentPosition[1] + i < gameState.getGrid()[0].length) {
-            Move newMove = new Move();
-            newMove.setPieceId(piece.getId());
-            newMove.setTeamId(piece.getTeamId());
-            newMove.setNewPosition(new int[]{currentPosition[0] - i * adjustedDirection[0],
-                currentPosition[1] + i * adjustedDirection[1]});
-            if (isValidMove(newMove)) {
-              return true;
-            }
-          }
+  /**
+   * Hands the turn to a team and restarts the move time. Whether the team can move is only
+   * checked here, once per turn.
+   * <ul>
+   *   <li> Ends the game if only one team has pieces left </li>
+   *   <li> Ends the game in a tie if two teams are left and the team cannot move </li>
+   *   <li> Skips teams without pieces or without any possible move </li>
+   * </ul>
+   *
+   * @param team inputs the team that should make the next move
+   */
+  private void startTurn(int team) {
+    Team[] teams = this.gameState.getTeams();
+
+    for (int skipped = 0; skipped < teams.length && !this.gameOver; skipped++) {
+      // count amount of remaining active players and check if game is over
+      int remainingPlayers = 0;
+      for (Team t : teams) {
+        if (t.getPieces().length > 0) {
+          remainingPlayers++;
         }
       }
-      if (upLeft > 0) {
-        for (int i = 1; i <= upLeft; i++) {
-          if (currentPosition[0] - i >= 0 && currentPosition[1] - i >= 0) {
-            Move newMove = new Move();
-            newMove.setPieceId(piece.getId());
-            newMove.setTeamId(piece.getTeamId());
-            newMove.setNewPosition(new int[]{currentPosition[0] - i * adjustedDirection[0],
-                currentPosition[1] - i * adjustedDirection[1]});
-            if (isValidMove(newMove)) {
-              return true;
-            }
+
+      if (remainingPlayers == 1) {
+        // only one team with pieces remaining -> game ends
+        for (int i = 0; i < teams.length; i++) {
+          if (teams[i].getPieces().length > 0) {
+            this.winner = new String[]{String.valueOf(i + 1)};
+            break;
           }
         }
+        LOG.debug("Game over, only one team has pieces left");
+        this.endGame();
+        break;
       }
-      if (downRight > 0) {
-        for (int i = 1; i <= downRight; i++) {
-          if (currentPosition[0] + i < gameState.getGrid().length
-              && currentPosition[1] + i < gameState.getGrid()[0].length) {
-            Move newMove = new Move();
-            newMove.setPieceId(piece.getId());
-            newMove.setTeamId(piece.getTeamId());
-            newMove.setNewPosition(new int[]{currentPosition[0] + i * adjustedDirection[0],
-                currentPosition[1] + i * adjustedDirection[1]});
-            if (isValidMove(newMove)) {
-              return true;
-            }
-          }
-        }
+
+      if (teams[team - 1].getPieces().length > 0 && this.canTeamMove(team)) {
+        break;
       }
-      if (downLeft > 0) {
-        for (int i = 1; i <= downLeft; i++) {
-          if (currentPosition[0] + i < gameState.getGrid().length && currentPosition[1] - i >= 0) {
-            Move newMove = new Move();
-            newMove.setPieceId(piece.getId());
-            newMove.setTeamId(piece.getTeamId());
-            newMove.setNewPosition(new int[]{currentPosition[0] + i * adjustedDirection[0],
-                currentPosition[1] - i * adjustedDirection[1]});
-            if (isValidMove(newMove)) {
-              return true;
-            }
+
+      if (teams[team - 1].getPieces().length > 0 && remainingPlayers == 2) {
+        // game ends in tie
+        LOG.debug("Game over, tie");
+        List<String> tiedTeams = new ArrayList<>();
+        for (Team t : teams) {
+          if (t.getPieces().length > 0) {
+            tiedTeams.add(t.getId());
           }
         }
+        this.winner = tiedTeams.toArray(new String[0]);
+        this.endGame();
+        break;
       }
+
+      // move skipped if no pieces remaining or unable to make move
+      team = (team % teams.length) + 1;
+    }
+
+    this.gameState.setCurrentTeam(team);
+    this.moveStartedMillis = System.currentTimeMillis();
+    this.turn++;
+    if (!this.gameOver) {
+      this.recordEvent(GameEventType.turn, team, null, null, null, 0);
+    }
+
+    if (this.moveDeadline != null) {
+      this.moveDeadline.cancel(false);
+      this.moveDeadline = null;
+    }
+    if (!this.gameOver && this.template.getMoveTimeLimitInSeconds() >= 0) {
+      int deadlineTurn = this.turn;
+      this.moveDeadline = GameTimeCounter.schedule(() -> {
+        this.moveTimeOver(deadlineTurn);
+        this.notifyStateListeners();
+      }, this.template.getMoveTimeLimitInSeconds() * 1000L);
     }
-    // return false, if no valid move was found
-    return false;
   }
 
   /**
-   * Inner class to track the game and move time
-   *
+   * @param team inputs the team
+   * @return true if at least one piece of the team can make a move, false otherwise. Uses the
+   * bitboards of the board when the grid fits into them.
    * @author ldornied
    */
-  private class GameTimeCounter extends Thread {
-
-    /**
-     * Starts thread and tracks seconds passed since the game/move started
-     * <ul>
-     *   <li> Updates game time and move time every second </li>
-     *   <li> Stops thread if game time is over and sets game over</li>
-     *   <li> Sets next team if move time is over</li>
-     * </ul>
-     *
-     * @author ldornied
-     */
-    @Override
-    public void run() {
-      while (!this.isInterrupted()) {
-        try {
-          Thread.sleep(1000);
-          gameTime++;
-          moveTime++;
-
-
-        } catch (InterruptedException e) {
-          this.interrupt();
-        }
-
-        if (getRemainingGameTimeInSeconds() == 0) {
-          // set ended date
-          endedDate = new Date();
-
-          // count remaining pieces for each team
-          int numOfTeams = gameState.getTeams().length;
-          int[] piecesRemaining = new int[numOfTeams];
-
-          for (Piece piece : pieces) {
-            piecesRemaining[Integer.parseInt(piece.getTeamId()) - 1]++;
-          }
-
-          // identify winner(s)
-          String[] winnerTeam = new String[numOfTeams];
-          int currentMax = 0;
-          int index = 1;
-
-          for (int i = 0; i < piecesRemaining.length; i++) {
-            if (piecesRemaining[i] > currentMax) {
-              // remove current winner(s) and index
-              Arrays.fill(winnerTeam, 0 + "");
-              index = 1;
-              winnerTeam[0] = String.valueOf(i + 1);
-            } else if (piecesRemaining[i] == currentMax) {
-              winnerTeam[index++] = String.valueOf(i + 1);
-            }
-          }
-
-          // set winner
-          winner = winnerTeam;
-
-          // set game over and interrupt thread
-          gameOver = true;
-          System.out.println("Game Over");
-          this.interrupt();
-        }
+  private boolean canTeamMove(int team) {
+    return this.moveGenerator.canTeamMove(this.board, team);
+  }
 
-        // check if move time is over, team has no remaining pieces or piece cannot make move
-        int currentTeam = gameState.getCurrentTeam();
-        Team[] teams = gameState.getTeams();
-        Team team = teams[currentTeam - 1];
+  /**
+   * Called by the {@link GameTimeCounter} when the move time is over, skips the move of the
+   * current team. The deadline notifies the state listeners after the lock is released. Package
+   * private, so tests can run the deadline of an earlier turn.
+   *
+   * @param deadlineTurn inputs the turn the deadline was set for
+   */
+  synchronized void moveTimeOver(int deadlineTurn) {
+    if (this.gameOver || deadlineTurn != this.turn) {
+      return;
+    }
+    this.startTurn((this.gameState.getCurrentTeam() % this.gameState.getTeams().length) + 1);
+    this.publishState();
+  }
 
-        // count amount of remaining active players and check if game is over
-        int remainingPlayers = 0;
-        for (Team t : teams) {
-          if (t.getPieces().length > 0) {
-            remainingPlayers++;
-          }
-        }
+  /**
+   * Called by the {@link GameTimeCounter} when the game time is over, the teams with the most
+   * remaining pieces win. The deadline notifies the state listeners after the lock is released.
+   */
+  private synchronized void gameTimeOver() {
+    if (this.gameOver) {
+      return;
+    }
 
-        if (remainingPlayers == 1) {
-          // only one team with pieces remaining -> game ends
-          endedDate = new Date();
-          for (int i = 0; i < teams.length; i++) {
-            if (teams[i].getPieces().length > 0) {
-              winner = new String[1];
-              winner[0] = String.valueOf(i + 1);
-              break;
-            }
-          }
-          gameOver = true;
-          System.out.println("Game Over 2");
-          this.interrupt();
-        }
+    // count remaining pieces for each team
+    int numOfTeams = this.gameState.getTeams().length;
+    int[] piecesRemaining = new int[numOfTeams];
 
-        // check whether pieces can make moves
-        boolean canMakeMove = false;
+    for (int i = 0; i < numOfTeams; i++) {
+      piecesRemaining[i] = this.pieces.size(i + 1);
+    }
 
-        for (Piece piece : pieces) {
-          if (piece.getTeamId().equals(currentTeam + "")) {
-            if (canMove(piece)) {
-              canMakeMove = true;
-              break;
-            }
-          }
-        }
+    // identify winner(s)
+    String[] winnerTeam = new String[numOfTeams];
+    int currentMax = 0;
+    int index = 1;
+
+    for (int i = 0; i < piecesRemaining.length; i++) {
+      if (piecesRemaining[i] > currentMax) {
+        // remove current winner(s) and index
+        Arrays.fill(winnerTeam, 0 + "");
+        index = 1;
+        winnerTeam[0] = String.valueOf(i + 1);
+        currentMax = piecesRemaining[i];
+      } else if (piecesRemaining[i] == currentMax) {
+        winnerTeam[index++] = String.valueOf(i + 1);
+      }
+    }
 
-        if (!canMakeMove && remainingPlayers == 2) {
-          // game ends in tie
-          endedDate = new Date();
-          System.out.println("Tie");
+    // set winner
+    this.winner = winnerTeam;
 
-          winner = new String[remainingPlayers];
-          for (int i = 1; i <= remainingPlayers; i++) {
-            winner[i - 1] = String.valueOf(i);
-          }
+    LOG.debug("Game over, time is up");
+    this.endGame();
+    this.publishState();
+  }
 
-          gameOver = true;
-          System.out.println("Game Over 3");
-          this.interrupt();
-        }
+  /**
+   * Records an event, it is added to the move log with the next published snapshot. Positions are
+   * copied, so later changes of the pieces do not change the log.
+   *
+   * @param type    inputs the kind of the event
+   * @param team    inputs the team of the event, 0 if none
+   * @param pieceId inputs the id of the piece, may be null
+   * @param from    inputs the position before the event, may be null
+   * @param to      inputs the position after the event, may be null
+   * @param flags   inputs the remaining flags of the team after a flag event
+   */
+  private void recordEvent(GameEventType type, int team, String pieceId, int[] from, int[] to,
+      int flags) {
+    this.pendingEvents.add(new GameEvent(++this.eventSequence, type, team == 0 ? null : team + "",
+        pieceId, from == null ? null : from.clone(), to == null ? null : to.clone(), flags));
+  }
 
-        // move skipped if time over, no pieces remaining or unable to make move
-        if (getRemainingMoveTimeInSeconds() == 0 || team.getPieces().length == 0 || !canMakeMove) {
-          moveTime = 0;
-          gameState.setCurrentTeam((currentTeam % teams.length) + 1);
-        }
-      }
+  /**
+   * Sets the game over and cancels its deadlines.
+   */
+  private void endGame() {
+    if (this.endedDate == null) {
+      this.endedDate = new Date();
+    }
+    if (!this.gameOver) {
+      this.recordEvent(GameEventType.game_over, 0, null, null, null, 0);
+    }
+    this.gameOver = true;
+    if (this.gameDeadline != null) {
+      this.gameDeadline.cancel(false);
+    }
+    if (this.moveDeadline != null) {
+      this.moveDeadline.cancel(false);
     }
   }
 }
@@ -0,0 +1,50 @@
+package de.unimannheim.swt.pse.server.game;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Server wide timer for the game and move time limits of all games. A single daemon thread runs
+ * each deadline once it is due, so running games neither need a thread of their own nor have to
+ * poll their time every second.
+ */
+final class GameTimeCounter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GameTimeCounter.class);
+
+  /**
+   * Thread running the deadlines of all games
+   */
+  private static final ScheduledExecutorService SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-time-counter");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  private GameTimeCounter() {
+  }
+
+  /**
+   * Runs a task once its deadline is reached. Tasks should only update the state of their game and
+   * return, since they share one thread.
+   *
+   * @param task          inputs the task to run
+   * @param delayInMillis inputs the time until the deadline
+   * @return future to cancel the deadline
+   */
+  static ScheduledFuture<?> schedule(Runnable task, long delayInMillis) {
+    return SCHEDULER.schedule(() -> {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        // nobody waits on the future, so report the error here
+        LOG.error("Game deadline task failed", e);
+      }
+    }, Math.max(delayInMillis, 0), TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,50 @@
+package de.unimannheim.swt.pse.server.game;
+
+import de.unimannheim.swt.pse.server.game.exceptions.EventsDropped;
+import de.unimannheim.swt.pse.server.game.exceptions.GameOver;
+import de.unimannheim.swt.pse.server.game.state.GameEvent;
+import de.unimannheim.swt.pse.server.game.state.Move;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Game} that publishes its state as versioned snapshots, so callers can tell whether the
+ * state changed without comparing it.
+ */
+public interface VersionedGame extends Game {
+
+  /**
+   * @return snapshot of the current state, null if the game was not created yet. The snapshot is
+   * shared with all callers and must not be changed, {@link #getCurrentGameState()} returns a copy
+   * that may be changed.
+   */
+  VersionedState getVersionedState();
+
+  /**
+   * Registers a listener that is called with new snapshots. Listeners are called after the game
+   * released its lock, by the thread that changed the state, so they should only hand the snapshot
+   * on and return. When several changes happen at once, a listener may only get the latest one.
+   *
+   * @param listener listener to call
+   */
+  void addStateListener(Consumer<VersionedState> listener);
+
+  /**
+   * Makes a move like {@link #makeMove(Move)} and returns the snapshot published by it, so callers
+   * do not have to ask for the state again. A move that ends the game returns its snapshot too,
+   * {@link GameOver} is only thrown for moves made after the end.
+   *
+   * @param move {@link Move}
+   * @return snapshot of the state right after the move
+   */
+  VersionedState applyMove(Move move);
+
+  /**
+   * Returns the part of the move log after a sequence number, so callers that know an earlier
+   * state only need the changes.
+   *
+   * @param sequence sequence number of the last known event, 0 for all events
+   * @return events after the sequence number, oldest first
+   * @throws EventsDropped Events after the sequence number were dropped from the log
+   */
+  GameEvent[] getEventsSince(long sequence);
+}
@@ -0,0 +1,42 @@
+package de.unimannheim.swt.pse.server.game;
+
+import de.unimannheim.swt.pse.server.game.state.GameState;
+
+/**
+ * Snapshot of a {@link GameState} together with its version. The version increases with every
+ * change of the game, so two snapshots with the same version hold the same state.
+ */
+public final class VersionedState {
+
+  /**
+   * Version of the state
+   */
+  private final long version;
+  /**
+   * State, which must not be changed
+   */
+  private final GameState state;
+
+  /**
+   * @param version inputs the version of the state
+   * @param state   inputs the state
+   */
+  public VersionedState(long version, GameState state) {
+    this.version = version;
+    this.state = state;
+  }
+
+  /**
+   * @return version of the state
+   */
+  public long getVersion() {
+    return this.version;
+  }
+
+  /**
+   * @return the state, which must not be changed
+   */
+  public GameState getState() {
+    return this.state;
+  }
+}
@@ -0,0 +1,221 @@
+package de.unimannheim.swt.pse.server.game.board;
+
+/**
+ * Occupancy bitboards of a {@link Board}, kept up to date by the board. A bitboard holds one bit per
+ * cell, stored row by row in a few longs, so grids of up to {@link #MAX_CELLS} cells (e.g. 16x16)
+ * fit into at most four longs.
+ *
+ * <p>Shifting a bitboard by a row and column step moves every cell to its neighbour in that
+ * direction at once. Cells leaving the grid at the left or right edge would wrap into the next row,
+ * they are removed with column masks, so the {@link MoveGenerator} can slide all pieces of a kind
+ * along a ray with a few shifts instead of walking the cells one by one.</p>
+ */
+public final class Bitboards {
+
+  /**
+   * Maximum number of cells of a board with bitboards
+   */
+  public static final int MAX_CELLS = 256;
+  /**
+   * Maximum number of teams stored in a cell
+   */
+  private static final int TEAMS = 16;
+
+  private final int cols;
+  private final int cells;
+  /**
+   * Number of longs of every bitboard
+   */
+  private final int words;
+  /**
+   * Cells allowed as target of a shift, per column step from -2 to 2. Removes the cells outside
+   * of the grid and the columns a shifted cell can only reach by wrapping around the edge.
+   */
+  private final long[][] shiftMasks = new long[5][];
+  /**
+   * Cells that are not empty
+   */
+  private final long[] occupied;
+  /**
+   * Cells of the pieces of every team, null if the team has no piece yet
+   */
+  private final long[][] pieces = new long[TEAMS][];
+
+  /**
+   * @param rows number of rows
+   * @param cols number of columns
+   */
+  Bitboards(int rows, int cols) {
+    this.cols = cols;
+    this.cells = rows * cols;
+    this.words = (this.cells + 63) >>> 6;
+    this.occupied = new long[this.words];
+    for (int colStep = -2; colStep <= 2; colStep++) {
+      long[] mask = new long[this.words];
+      for (int i = 0; i < this.cells; i++) {
+        int col = i % cols;
+        // a cell in one of these columns can only be reached by wrapping around the edge
+        if (colStep > 0 && col < colStep || colStep < 0 && col >= cols + colStep) {
+          continue;
+        }
+        set(mask, i);
+      }
+      this.shiftMasks[colStep + 2] = mask;
+    }
+  }
+
+  /**
+   * @param rows number of rows
+   * @param cols number of columns
+   * @return true if a board of the given size fits into bitboards, false otherwise
+   */
+  public static boolean fits(int rows, int cols) {
+    return rows > 0 && cols > 0 && rows * cols <= MAX_CELLS;
+  }
+
+  /**
+   * @return number of longs of every bitboard
+   */
+  public int getWords() {
+    return this.words;
+  }
+
+  /**
+   * @return cells that are not empty, must not be changed
+   */
+  public long[] getOccupied() {
+    return this.occupied;
+  }
+
+  /**
+   * @param team inputs the team
+   * @return cells of the pieces of the team, null if the team never had a piece on the board. Must
+   * not be changed.
+   */
+  public long[] getPieces(int team) {
+    return this.pieces[team];
+  }
+
+  /**
+   * Updates the bitboards for a changed cell.
+   *
+   * @param index   index of the cell, row * columns + column
+   * @param oldCell encoded cell before the change
+   * @param newCell encoded cell after the change
+   */
+  void update(int index, int oldCell, int newCell) {
+    if (Board.kind(oldCell) == Board.PIECE) {
+      clear(this.pieces[Board.team(oldCell)], index);
+    }
+    if (newCell == Board.EMPTY) {
+      clear(this.occupied, index);
+      return;
+    }
+    set(this.occupied, index);
+    if (Board.kind(newCell) == Board.PIECE) {
+      int team = Board.team(newCell);
+      if (this.pieces[team] == null) {
+        this.pieces[team] = new long[this.words];
+      }
+      set(this.pieces[team], index);
+    }
+  }
+
+  /**
+   * Moves every cell of a bitboard one step in the given direction. Cells leaving the grid are
+   * removed. The source and target may be the same array.
+   *
+   * @param src     inputs the bitboard to shift
+   * @param rowStep inputs the row step, from -1 to 1
+   * @param colStep inputs the column step, from -2 to 2
+   * @param dst     bitboard the result is written to
+   */
+  public void shift(long[] src, int rowStep, int colStep, long[] dst) {
+    int delta = rowStep * this.cols + colStep;
+    if (delta > 0) {
+      shiftUp(src, delta, dst);
+    } else {
+      shiftDown(src, -delta, dst);
+    }
+    long[] mask = this.shiftMasks[colStep + 2];
+    for (int i = 0; i < this.words; i++) {
+      dst[i] &= mask[i];
+    }
+  }
+
+  /**
+   * Shifts towards higher cell indices, iterating downwards so the shift can be done in place.
+   */
+  private void shiftUp(long[] src, int bits, long[] dst) {
+    int wordShift = bits >>> 6;
+    int bitShift = bits & 63;
+    for (int i = this.words - 1; i >= 0; i--) {
+      int j = i - wordShift;
+      long value = 0;
+      if (j >= 0) {
+        value = src[j] << bitShift;
+        if (bitShift != 0 && j > 0) {
+          value |= src[j - 1] >>> (64 - bitShift);
+        }
+      }
+      dst[i] = value;
+    }
+  }
+
+  /**
+   * Shifts towards lower cell indices, iterating upwards so the shift can be done in place.
+   */
+  private void shiftDown(long[] src, int bits, long[] dst) {
+    int wordShift = bits >>> 6;
+    int bitShift = bits & 63;
+    for (int i = 0; i < this.words; i++) {
+      int j = i + wordShift;
+      long value = 0;
+      if (j < this.words) {
+        value = src[j] >>> bitShift;
+        if (bitShift != 0 && j + 1 < this.words) {
+          value |= src[j + 1] << (64 - bitShift);
+        }
+      }
+      dst[i] = value;
+    }
+  }
+
+  /**
+   * @param bitboard inputs the bitboard
+   * @return true if no cell is set, false otherwise
+   */
+  public static boolean isEmpty(long[] bitboard) {
+    for (long word : bitboard) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param bitboard inputs the bitboard
+   * @param index    inputs the index of the cell
+   */
+  public static void set(long[] bitboard, int index) {
+    bitboard[index >>> 6] |= 1L << index;
+  }
+
+  /**
+   * @param bitboard inputs the bitboard
+   * @param index    inputs the index of the cell
+   */
+  public static void clear(long[] bitboard, int index) {
+    bitboard[index >>> 6] &= ~(1L << index);
+  }
+
+  /**
+   * @param bitboard inputs the bitboard
+   * @param index    inputs the index of the cell
+   * @return true if the cell is set, false otherwise
+   */
+  public static boolean get(long[] bitboard, int index) {
+    return (bitboard[index >>> 6] & 1L << index) != 0;
+  }
+}
@@ -0,0 +1,293 @@
+package de.unimannheim.swt.pse.server.game.board;
+
+/**
+ * Compact representation of the playGrid. Every cell is packed into a single int holding the kind
+ * of the cell, the team and the piece id, so the game engine can check and apply moves without
+ * parsing cell strings like "p:1_3" or "b:2".
+ *
+ * <p>The {@code String[][]} grid used by {@link de.unimannheim.swt.pse.server.game.state.GameState}
+ * is kept as a view and updated whenever a cell is set. Boards of up to {@link Bitboards#MAX_CELLS}
+ * cells also keep {@link Bitboards} of their occupied cells and pieces.</p>
+ */
+public class Board {
+
+  /**
+   * Cell kinds stored in the lowest four bits of a cell
+   */
+  public static final int EMPTY = 0;
+  public static final int BLOCK = 1;
+  public static final int BASE = 2;
+  public static final int PIECE = 3;
+
+  private static final int KIND_MASK = 0xF;
+  private static final int TEAM_SHIFT = 4;
+  private static final int TEAM_MASK = 0xF;
+  private static final int PIECE_SHIFT = 8;
+
+  /**
+   * Number of rows of the board
+   */
+  private final int rows;
+  /**
+   * Number of columns of the board
+   */
+  private final int cols;
+  /**
+   * Encoded cells, stored row by row
+   */
+  private final int[] cells;
+  /**
+   * String view of the board, null if the board has no view
+   */
+  private final String[][] view;
+  /**
+   * Occupancy bitboards, null if the board is too large for them
+   */
+  private final Bitboards bitboards;
+
+  /**
+   * @param rows number of rows
+   * @param cols number of columns
+   * @param view string view to keep up to date, may be null
+   */
+  private Board(int rows, int cols, String[][] view) {
+    this.rows = rows;
+    this.cols = cols;
+    this.cells = new int[rows * cols];
+    this.view = view;
+    this.bitboards = Bitboards.fits(rows, cols) ? new Bitboards(rows, cols) : null;
+  }
+
+  /**
+   * Creates a board from a playGrid. The given grid is used as view of the board and is updated on
+   * every change.
+   *
+   * @param gridInp inputs the playGrid
+   * @return board holding the encoded cells of the playGrid
+   * @throws IllegalArgumentException if a cell of the grid is unknown
+   */
+  public static Board fromGrid(String[][] gridInp) {
+    Board board = new Board(gridInp.length, gridInp[0].length, gridInp);
+    for (int i = 0; i < board.rows; i++) {
+      for (int j = 0; j < board.cols; j++) {
+        int cell = encode(gridInp[i][j]);
+        board.cells[i * board.cols + j] = cell;
+        if (board.bitboards != null) {
+          board.bitboards.update(i * board.cols + j, EMPTY, cell);
+        }
+      }
+    }
+    return board;
+  }
+
+  /**
+   * Creates an empty board without a view, for callers that only need the encoded cells, like the
+   * simulations of the AIs.
+   *
+   * @param rows inputs the number of rows
+   * @param cols inputs the number of columns
+   * @return empty board
+   */
+  public static Board ofSize(int rows, int cols) {
+    return new Board(rows, cols, null);
+  }
+
+  /**
+   * Encodes all cells of a playGrid of the same size into this board, so a board can be reused
+   * instead of creating a new one for every grid. The view is updated as well.
+   *
+   * @param gridInp inputs the playGrid
+   * @throws IllegalArgumentException if the size of the grid differs or a cell is unknown
+   */
+  public void load(String[][] gridInp) {
+    if (gridInp.length != this.rows || gridInp[0].length != this.cols) {
+      throw new IllegalArgumentException("Grid size does not match the board");
+    }
+    for (int i = 0; i < this.rows; i++) {
+      for (int j = 0; j < this.cols; j++) {
+        this.set(i, j, encode(gridInp[i][j]));
+      }
+    }
+  }
+
+  /**
+   * @return number of rows
+   */
+  public int getRows() {
+    return this.rows;
+  }
+
+  /**
+   * @return number of columns
+   */
+  public int getCols() {
+    return this.cols;
+  }
+
+  /**
+   * @return string view of the board, null if the board has no view
+   */
+  public String[][] getView() {
+    return this.view;
+  }
+
+  /**
+   * @return occupancy bitboards of the board, null if the board has more than
+   * {@link Bitboards#MAX_CELLS} cells
+   */
+  public Bitboards getBitboards() {
+    return this.bitboards;
+  }
+
+  /**
+   * @param row row of the cell
+   * @param col column of the cell
+   * @return encoded cell
+   */
+  public int get(int row, int col) {
+    return this.cells[row * this.cols + col];
+  }
+
+  /**
+   * @param index index of the cell, row * columns + column
+   * @return encoded cell
+   */
+  int get(int index) {
+    return this.cells[index];
+  }
+
+  /**
+   * Sets a cell and updates the view and the bitboards.
+   *
+   * @param row  row of the cell
+   * @param col  column of the cell
+   * @param cell encoded cell
+   */
+  public void set(int row, int col, int cell) {
+    int index = row * this.cols + col;
+    if (this.bitboards != null) {
+      this.bitboards.update(index, this.cells[index], cell);
+    }
+    this.cells[index] = cell;
+    if (this.view != null) {
+      this.view[row][col] = decode(cell);
+    }
+  }
+
+  /**
+   * @param row row of the cell
+   * @param col column of the cell
+   * @return true if the cell is empty, false otherwise
+   */
+  public boolean isEmpty(int row, int col) {
+    return this.cells[row * this.cols + col] == EMPTY;
+  }
+
+  /**
+   * @param row row of the cell
+   * @param col column of the cell
+   * @return true if the cell is on the board, false otherwise
+   */
+  public boolean isInside(int row, int col) {
+    return row >= 0 && row < this.rows && col >= 0 && col < this.cols;
+  }
+
+  /**
+   * @param team inputs the team
+   * @return coordinates of the base of the team, null if the team has no base
+   */
+  public int[] findBase(int team) {
+    int base = base(team);
+    for (int i = 0; i < this.cells.length; i++) {
+      if (this.cells[i] == base) {
+        return new int[]{i / this.cols, i % this.cols};
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @param cell encoded cell
+   * @return kind of the cell ({@link #EMPTY}, {@link #BLOCK}, {@link #BASE} or {@link #PIECE})
+   */
+  public static int kind(int cell) {
+    return cell & KIND_MASK;
+  }
+
+  /**
+   * @param cell encoded base or piece cell
+   * @return team of the base or piece
+   */
+  public static int team(int cell) {
+    return (cell >>> TEAM_SHIFT) & TEAM_MASK;
+  }
+
+  /**
+   * @param cell encoded piece cell
+   * @return id of the piece
+   */
+  public static int pieceId(int cell) {
+    return cell >>> PIECE_SHIFT;
+  }
+
+  /**
+   * @param team inputs the team
+   * @return encoded base cell of the team
+   */
+  public static int base(int team) {
+    return BASE | team << TEAM_SHIFT;
+  }
+
+  /**
+   * @param team    inputs the team of the piece
+   * @param pieceId inputs the id of the piece
+   * @return encoded piece cell
+   */
+  public static int piece(int team, int pieceId) {
+    return PIECE | team << TEAM_SHIFT | pieceId << PIECE_SHIFT;
+  }
+
+  /**
+   * @param cellInp inputs a cell of the playGrid
+   * @return encoded cell
+   * @throws IllegalArgumentException if the cell is unknown
+   */
+  public static int encode(String cellInp) {
+    if (cellInp == null || cellInp.isEmpty()) {
+      return EMPTY;
+    }
+    if (cellInp.equals("b")) {
+      return BLOCK;
+    }
+    try {
+      if (cellInp.startsWith("b:")) {
+        return base(Integer.parseInt(cellInp.substring(2)));
+      }
+      if (cellInp.startsWith("p:")) {
+        int separator = cellInp.indexOf('_');
+        return piece(Integer.parseInt(cellInp.substring(2, separator)),
+            Integer.parseInt(cellInp.substring(separator + 1)));
+      }
+    } catch (NumberFormatException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Unknown cell: " + cellInp);
+    }
+    throw new IllegalArgumentException("Unknown cell: " + cellInp);
+  }
+
+  /**
+   * @param cell encoded cell
+   * @return cell as used in the playGrid
+   */
+  public static String decode(int cell) {
+    switch (kind(cell)) {
+      case BLOCK:
+        return "b";
+      case BASE:
+        return "b:" + team(cell);
+      case PIECE:
+        return "p:" + team(cell) + "_" + pieceId(cell);
+      default:
+        return "";
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package de.unimannheim.swt.pse.server.game.board;
+
+/**
+ * Reusable buffer of moves produced by the {@link MoveGenerator}. Every move is packed into a single
+ * int holding the piece id, the target position and the kind of the target, so generating moves
+ * does not create any objects once the buffer has grown to its working size.
+ */
+public class MoveBuffer {
+
+  /**
+   * Move kinds, depending on the content of the target position
+   */
+  public static final int MOVE = 0;
+  public static final int CAPTURE = 1;
+  public static final int BASE = 2;
+  /**
+   * Largest piece id a packed move can hold
+   */
+  public static final int MAX_PIECE_ID = 0x1FF;
+
+  private static final int COORDINATE_BITS = 10;
+  private static final int COORDINATE_MASK = (1 << COORDINATE_BITS) - 1;
+  private static final int PIECE_SHIFT = 2 * COORDINATE_BITS;
+  private static final int PIECE_MASK = MAX_PIECE_ID;
+  private static final int KIND_SHIFT = 29;
+
+  /**
+   * Packed moves
+   */
+  private int[] moves;
+  /**
+   * Number of moves in the buffer
+   */
+  private int size;
+
+  /**
+   * Creates a buffer with a default capacity.
+   */
+  public MoveBuffer() {
+    this(64);
+  }
+
+  /**
+   * @param capacity initial number of moves the buffer can hold
+   */
+  public MoveBuffer(int capacity) {
+    this.moves = new int[Math.max(capacity, 1)];
+  }
+
+  /**
+   * Removes all moves from the buffer, keeping its capacity.
+   */
+  public void clear() {
+    this.size = 0;
+  }
+
+  /**
+   * @return number of moves in the buffer
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * @return true if the buffer holds no moves, false otherwise
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * @param index index of the move
+   * @return packed move at the given index
+   */
+  public int get(int index) {
+    return this.moves[index];
+  }
+
+  /**
+   * Adds a packed move, growing the buffer if necessary.
+   *
+   * @param move packed move
+   */
+  public void add(int move) {
+    if (this.size == this.moves.length) {
+      int[] newMoves = new int[this.moves.length * 2];
+      System.arraycopy(this.moves, 0, newMoves, 0, this.size);
+      this.moves = newMoves;
+    }
+    this.moves[this.size++] = move;
+  }
+
+  /**
+   * Swaps two moves, so searches can reorder the moves in place.
+   *
+   * @param i index of the first move
+   * @param j index of the second move
+   */
+  public void swap(int i, int j) {
+    int move = this.moves[i];
+    this.moves[i] = this.moves[j];
+    this.moves[j] = move;
+  }
+
+  /**
+   * @param pieceId id of the moving piece, at most {@link #MAX_PIECE_ID}
+   * @param row     target row
+   * @param col     target column
+   * @param kind    {@link #MOVE}, {@link #CAPTURE} or {@link #BASE}
+   * @return packed move
+   */
+  public static int pack(int pieceId, int row, int col, int kind) {
+    return kind << KIND_SHIFT | (pieceId & PIECE_MASK) << PIECE_SHIFT
+        | row << COORDINATE_BITS | col;
+  }
+
+  /**
+   * @param move packed move
+   * @return id of the moving piece
+   */
+  public static int pieceId(int move) {
+    return (move >>> PIECE_SHIFT) & PIECE_MASK;
+  }
+
+  /**
+   * @param move packed move
+   * @return target row
+   */
+  public static int row(int move) {
+    return (move >>> COORDINATE_BITS) & COORDINATE_MASK;
+  }
+
+  /**
+   * @param move packed move
+   * @return target column
+   */
+  public static int col(int move) {
+    return move & COORDINATE_MASK;
+  }
+
+  /**
+   * @param move packed move
+   * @return {@link #MOVE}, {@link #CAPTURE} or {@link #BASE}
+   */
+  public static int kind(int move) {
+    return move >>> KIND_SHIFT;
+  }
+}
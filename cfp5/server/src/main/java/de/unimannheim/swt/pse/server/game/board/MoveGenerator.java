@@ -0,0 +1,647 @@
+package de.unimannheim.swt.pse.server.game.board;
+
+import de.unimannheim.swt.pse.server.game.map.Directions;
+import de.unimannheim.swt.pse.server.game.map.Movement;
+import de.unimannheim.swt.pse.server.game.map.PieceDescription;
+import de.unimannheim.swt.pse.server.game.map.ShapeType;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Piece;
+import de.unimannheim.swt.pse.server.game.state.Team;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Generates the legal moves of pieces on a {@link Board}. Used by the game engine and the AIs, so
+ * move legality is implemented once.
+ *
+ * <p>The movement of every {@link PieceDescription} is turned into ray tables for each team
+ * orientation when the generator is created, so generating moves only walks the board and writes
+ * packed moves into a {@link MoveBuffer}.</p>
+ *
+ * <p>Pieces have to be registered with {@link #assign(Piece)} before moves can be generated for
+ * them. Generating moves does not change the generator and may be done by several threads at once,
+ * registering pieces may not.</p>
+ */
+public class MoveGenerator {
+
+  /**
+   * Number of supported teams (and therefore orientations)
+   */
+  private static final int TEAMS = 4;
+
+  /**
+   * Absolute ray directions in order left, right, up, down, upLeft, upRight, downLeft, downRight
+   */
+  private static final int[] RAY_ROW = {0, 0, -1, 1, -1, -1, 1, 1};
+  private static final int[] RAY_COL = {-1, 1, 0, 0, -1, 1, -1, 1};
+
+  /**
+   * L-shape offsets and the first cell of the two step leg, which has to be empty as well as the
+   * second one. The offsets are the same for every team orientation.
+   */
+  private static final int[] L_ROW = {-2, -1, -2, -1, 2, 1, 2, 1};
+  private static final int[] L_COL = {-1, -2, 1, 2, -1, -2, 1, 2};
+  private static final int[] L_LEG_ROW = {-1, 0, -1, 0, 1, 0, 1, 0};
+  private static final int[] L_LEG_COL = {0, -1, 0, 1, 0, -1, 0, 1};
+
+  /**
+   * Known piece descriptions
+   */
+  private PieceDescription[] descriptions;
+  /**
+   * Precomputed rules for every known description and team
+   */
+  private Rules[][] rules;
+  /**
+   * Number of known descriptions
+   */
+  private int descriptionCount;
+  /**
+   * Index of the description of every registered piece, per team and piece id. -1 if unknown
+   */
+  private final int[][] pieceDescriptions;
+
+  /**
+   * Creates a generator and precomputes the rules of the given descriptions, usually the ones of
+   * the {@link de.unimannheim.swt.pse.server.game.map.MapTemplate}.
+   *
+   * @param descriptionsInp inputs the piece descriptions
+   */
+  public MoveGenerator(PieceDescription[] descriptionsInp) {
+    this.descriptions = new PieceDescription[Math.max(descriptionsInp.length, 1)];
+    this.rules = new Rules[this.descriptions.length][];
+    this.pieceDescriptions = new int[TEAMS][0];
+    for (PieceDescription description : descriptionsInp) {
+      indexOf(description);
+    }
+  }
+
+  /**
+   * Creates a generator for all pieces of a game state.
+   *
+   * @param gameState inputs the game state
+   * @return generator with every piece of the game state registered
+   * @throws IllegalArgumentException if a piece cannot be registered, see {@link #assign(Piece)}
+   */
+  public static MoveGenerator forState(GameState gameState) {
+    MoveGenerator generator = new MoveGenerator(new PieceDescription[0]);
+    for (Team team : gameState.getTeams()) {
+      if (team != null && team.getPieces() != null) {
+        for (Piece piece : team.getPieces()) {
+          generator.assign(piece);
+        }
+      }
+    }
+    return generator;
+  }
+
+  /**
+   * Registers a piece, so moves can be generated for it.
+   *
+   * @param piece inputs the piece
+   * @throws IllegalArgumentException if the team is not supported or the id of the piece does not
+   *                                  fit into a packed move
+   */
+  public void assign(Piece piece) {
+    int team = Integer.parseInt(piece.getTeamId());
+    int pieceId = Integer.parseInt(piece.getId());
+    checkTeam(team);
+    if (pieceId < 0 || pieceId > MoveBuffer.MAX_PIECE_ID) {
+      throw new IllegalArgumentException("Piece id not supported: " + pieceId);
+    }
+
+    int[] teamPieces = this.pieceDescriptions[team - 1];
+    if (pieceId >= teamPieces.length) {
+      int oldLength = teamPieces.length;
+      teamPieces = Arrays.copyOf(teamPieces, Math.max(pieceId + 1, oldLength * 2));
+      Arrays.fill(teamPieces, oldLength, teamPieces.length, -1);
+      this.pieceDescriptions[team - 1] = teamPieces;
+    }
+    teamPieces[pieceId] = indexOf(piece.getDescription());
+  }
+
+  /**
+   * Adds all legal moves of a piece to the buffer.
+   *
+   * @param board   current board
+   * @param team    team of the piece
+   * @param pieceId id of the piece
+   * @param row     row of the piece
+   * @param col     column of the piece
+   * @param buffer  buffer the packed moves are added to
+   */
+  public void generate(Board board, int team, int pieceId, int row, int col, MoveBuffer buffer) {
+    walk(board, team, pieceId, row, col, Objects.requireNonNull(buffer));
+  }
+
+  /**
+   * @param board   current board
+   * @param team    team of the piece
+   * @param pieceId id of the piece
+   * @param row     row of the piece
+   * @param col     column of the piece
+   * @return true if the piece has at least one legal move, false otherwise
+   */
+  public boolean canMove(Board board, int team, int pieceId, int row, int col) {
+    return walk(board, team, pieceId, row, col, null);
+  }
+
+  /**
+   * Adds all legal moves of the registered pieces of a team to the buffer. If the board has
+   * {@link Bitboards}, the pieces sharing a description are moved together by shifting their
+   * bitboard along every ray, otherwise every piece is walked on its own.
+   *
+   * @param board  current board
+   * @param team   inputs the team
+   * @param buffer buffer the packed moves are added to
+   */
+  public void generateAll(Board board, int team, MoveBuffer buffer) {
+    generateTeam(board, team, Objects.requireNonNull(buffer));
+  }
+
+  /**
+   * @param board current board
+   * @param team  inputs the team
+   * @return true if at least one registered piece of the team has a legal move, false otherwise
+   */
+  public boolean canTeamMove(Board board, int team) {
+    return generateTeam(board, team, null);
+  }
+
+  /**
+   * Checks a single move by walking only the path between the piece and the target position, so
+   * the board does not have to be rotated to the team's perspective.
+   *
+   * @param board     current board
+   * @param team      team of the piece
+   * @param pieceId   id of the piece
+   * @param row       row of the piece
+   * @param col       column of the piece
+   * @param targetRow target row
+   * @param targetCol target column
+   * @return true if the piece can move onto the target position, false otherwise
+   */
+  public boolean isLegal(Board board, int team, int pieceId, int row, int col, int targetRow,
+      int targetCol) {
+    Rules pieceRules = getRules(team, pieceId);
+    if (pieceRules == null || !board.isInside(targetRow, targetCol)) {
+      return false;
+    }
+    int rowSteps = targetRow - row;
+    int colSteps = targetCol - col;
+
+    if (pieceRules.lshape) {
+      for (int i = 0; i < L_ROW.length; i++) {
+        if (L_ROW[i] == rowSteps && L_COL[i] == colSteps) {
+          return board.isEmpty(row + L_LEG_ROW[i], col + L_LEG_COL[i])
+              && board.isEmpty(row + 2 * L_LEG_ROW[i], col + 2 * L_LEG_COL[i])
+              && targetKind(board.get(targetRow, targetCol), team, pieceRules.attackPower) >= 0;
+        }
+      }
+      return false;
+    }
+
+    int ray = rayIndex(rowSteps, colSteps);
+    if (ray < 0) {
+      return false;
+    }
+    int steps = Math.max(Math.abs(rowSteps), Math.abs(colSteps));
+    if (steps > pieceRules.steps[ray]) {
+      return false;
+    }
+    // pieces cannot jump over anything
+    for (int step = 1; step < steps; step++) {
+      if (!board.isEmpty(row + step * RAY_ROW[ray], col + step * RAY_COL[ray])) {
+        return false;
+      }
+    }
+    return targetKind(board.get(targetRow, targetCol), team, pieceRules.attackPower) >= 0;
+  }
+
+  /**
+   * @param team    team of the piece
+   * @param pieceId id of the piece
+   * @return attack power of the piece, -1 if the piece is not registered
+   */
+  public int getAttackPower(int team, int pieceId) {
+    Rules pieceRules = getRules(team, pieceId);
+    return pieceRules == null ? -1 : pieceRules.attackPower;
+  }
+
+  /**
+   * Walks the rays or L-shape offsets of a piece. If no buffer is given, stops at the first legal
+   * move.
+   *
+   * @return true if a legal move was found, false otherwise
+   */
+  private boolean walk(Board board, int team, int pieceId, int row, int col,
+      MoveBuffer buffer) {
+    Rules pieceRules = getRules(team, pieceId);
+    if (pieceRules == null) {
+      return false;
+    }
+    boolean found = false;
+
+    if (pieceRules.lshape) {
+      for (int i = 0; i < L_ROW.length; i++) {
+        int targetRow = row + L_ROW[i];
+        int targetCol = col + L_COL[i];
+        if (!board.isInside(targetRow, targetCol)
+            || !board.isEmpty(row + L_LEG_ROW[i], col + L_LEG_COL[i])
+            || !board.isEmpty(row + 2 * L_LEG_ROW[i], col + 2 * L_LEG_COL[i])) {
+          continue;
+        }
+        int kind = targetKind(board.get(targetRow, targetCol), team, pieceRules.attackPower);
+        if (kind >= 0) {
+          if (buffer == null) {
+            return true;
+          }
+          buffer.add(MoveBuffer.pack(pieceId, targetRow, targetCol, kind));
+          found = true;
+        }
+      }
+      return found;
+    }
+
+    for (int i = 0; i < RAY_ROW.length; i++) {
+      int targetRow = row;
+      int targetCol = col;
+      for (int step = 0; step < pieceRules.steps[i]; step++) {
+        targetRow += RAY_ROW[i];
+        targetCol += RAY_COL[i];
+        if (!board.isInside(targetRow, targetCol)) {
+          break;
+        }
+        int kind = targetKind(board.get(targetRow, targetCol), team, pieceRules.attackPower);
+        if (kind >= 0) {
+          if (buffer == null) {
+            return true;
+          }
+          buffer.add(MoveBuffer.pack(pieceId, targetRow, targetCol, kind));
+          found = true;
+        }
+        // pieces cannot jump over anything
+        if (kind != MoveBuffer.MOVE) {
+          break;
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Generates the moves of all pieces of a team. If no buffer is given, stops at the first legal
+   * move.
+   *
+   * @return true if a legal move was found, false otherwise
+   */
+  private boolean generateTeam(Board board, int team, MoveBuffer buffer) {
+    if (team < 1 || team > TEAMS) {
+      return false;
+    }
+    Bitboards bitboards = board.getBitboards();
+    if (bitboards == null) {
+      return walkTeam(board, team, buffer);
+    }
+    long[] teamPieces = bitboards.getPieces(team);
+    if (teamPieces == null) {
+      return false;
+    }
+
+    // group the pieces of the team by description, pieces that are not registered cannot move
+    int words = bitboards.getWords();
+    long[][] groups = new long[this.descriptionCount][];
+    int[] pieceDescriptions = this.pieceDescriptions[team - 1];
+    for (int w = 0; w < words; w++) {
+      for (long bits = teamPieces[w]; bits != 0; bits &= bits - 1) {
+        int index = w << 6 | Long.numberOfTrailingZeros(bits);
+        int pieceId = Board.pieceId(board.get(index));
+        if (pieceId >= pieceDescriptions.length || pieceDescriptions[pieceId] < 0) {
+          continue;
+        }
+        int description = pieceDescriptions[pieceId];
+        if (groups[description] == null) {
+          groups[description] = new long[words];
+        }
+        Bitboards.set(groups[description], index);
+      }
+    }
+
+    long[] front = new long[words];
+    long[] leg = new long[words];
+    boolean found = false;
+    for (int description = 0; description < groups.length; description++) {
+      if (groups[description] == null) {
+        continue;
+      }
+      Rules pieceRules = this.rules[description][team - 1];
+      if (pieceRules.lshape) {
+        found |= slideLShapes(board, bitboards, team, pieceRules, groups[description], front, leg,
+            buffer);
+      } else {
+        found |= slideRays(board, bitboards, team, pieceRules, groups[description], front,
+            buffer);
+      }
+      if (found && buffer == null) {
+        return true;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Moves all pieces of a description along their rays at once. After every step, the pieces that
+   * reached an occupied cell are removed from the front, since pieces cannot jump over anything.
+   *
+   * @return true if a legal move was found, false otherwise
+   */
+  private boolean slideRays(Board board, Bitboards bitboards, int team, Rules pieceRules,
+      long[] pieces, long[] front, MoveBuffer buffer) {
+    long[] occupied = bitboards.getOccupied();
+    int maxSteps = Math.max(board.getRows(), board.getCols());
+    boolean found = false;
+    for (int i = 0; i < RAY_ROW.length; i++) {
+      int steps = Math.min(pieceRules.steps[i], maxSteps);
+      if (steps <= 0) {
+        continue;
+      }
+      int delta = RAY_ROW[i] * board.getCols() + RAY_COL[i];
+      System.arraycopy(pieces, 0, front, 0, front.length);
+      for (int step = 1; step <= steps; step++) {
+        bitboards.shift(front, RAY_ROW[i], RAY_COL[i], front);
+        if (Bitboards.isEmpty(front)) {
+          break;
+        }
+        if (addTargets(board, team, pieceRules.attackPower, front, step * delta, buffer)) {
+          if (buffer == null) {
+            return true;
+          }
+          found = true;
+        }
+        for (int w = 0; w < front.length; w++) {
+          front[w] &= ~occupied[w];
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Moves all pieces of an L-shaped description at once. Both cells of the two step leg have to be
+   * empty, so the leg is shifted twice with the occupied cells removed, followed by the side step.
+   *
+   * @return true if a legal move was found, false otherwise
+   */
+  private boolean slideLShapes(Board board, Bitboards bitboards, int team, Rules pieceRules,
+      long[] pieces, long[] front, long[] leg, MoveBuffer buffer) {
+    long[] occupied = bitboards.getOccupied();
+    boolean found = false;
+    for (int i = 0; i < L_ROW.length; i++) {
+      bitboards.shift(pieces, L_LEG_ROW[i], L_LEG_COL[i], leg);
+      for (int w = 0; w < leg.length; w++) {
+        leg[w] &= ~occupied[w];
+      }
+      bitboards.shift(leg, L_LEG_ROW[i], L_LEG_COL[i], leg);
+      for (int w = 0; w < leg.length; w++) {
+        leg[w] &= ~occupied[w];
+      }
+      bitboards.shift(leg, L_ROW[i] - 2 * L_LEG_ROW[i], L_COL[i] - 2 * L_LEG_COL[i], front);
+      int delta = L_ROW[i] * board.getCols() + L_COL[i];
+      if (addTargets(board, team, pieceRules.attackPower, front, delta, buffer)) {
+        if (buffer == null) {
+          return true;
+        }
+        found = true;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Adds a move for every cell of the targets the moving piece can enter.
+   *
+   * @param targets cells reached by the pieces
+   * @param delta   index difference between a target and the piece that reached it
+   * @return true if a legal move was found, false otherwise
+   */
+  private boolean addTargets(Board board, int team, int attackPower, long[] targets, int delta,
+      MoveBuffer buffer) {
+    boolean found = false;
+    for (int w = 0; w < targets.length; w++) {
+      for (long bits = targets[w]; bits != 0; bits &= bits - 1) {
+        int target = w << 6 | Long.numberOfTrailingZeros(bits);
+        int kind = targetKind(board.get(target), team, attackPower);
+        if (kind < 0) {
+          continue;
+        }
+        if (buffer == null) {
+          return true;
+        }
+        int pieceId = Board.pieceId(board.get(target - delta));
+        buffer.add(MoveBuffer.pack(pieceId, target / board.getCols(), target % board.getCols(),
+            kind));
+        found = true;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Walks every piece of a team on its own, for boards without bitboards.
+   *
+   * @return true if a legal move was found, false otherwise
+   */
+  private boolean walkTeam(Board board, int team, MoveBuffer buffer) {
+    boolean found = false;
+    for (int row = 0; row < board.getRows(); row++) {
+      for (int col = 0; col < board.getCols(); col++) {
+        int cell = board.get(row, col);
+        if (Board.kind(cell) != Board.PIECE || Board.team(cell) != team) {
+          continue;
+        }
+        if (walk(board, team, Board.pieceId(cell), row, col, buffer)) {
+          if (buffer == null) {
+            return true;
+          }
+          found = true;
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * @param rowSteps rows between the piece and the target position
+   * @param colSteps columns between the piece and the target position
+   * @return index of the ray leading to the target position, -1 if the target is on no ray
+   */
+  private static int rayIndex(int rowSteps, int colSteps) {
+    if (rowSteps == 0 && colSteps == 0
+        || rowSteps != 0 && colSteps != 0 && Math.abs(rowSteps) != Math.abs(colSteps)) {
+      return -1;
+    }
+    int rowSign = Integer.signum(rowSteps);
+    int colSign = Integer.signum(colSteps);
+    for (int i = 0; i < RAY_ROW.length; i++) {
+      if (RAY_ROW[i] == rowSign && RAY_COL[i] == colSign) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param cell        content of the target position
+   * @param team        team of the moving piece
+   * @param attackPower attack power of the moving piece
+   * @return kind of the move, -1 if the piece cannot move onto the position
+   */
+  private int targetKind(int cell, int team, int attackPower) {
+    switch (Board.kind(cell)) {
+      case Board.EMPTY:
+        return MoveBuffer.MOVE;
+      case Board.PIECE:
+        int enemyTeam = Board.team(cell);
+        if (enemyTeam == team) {
+          return -1;
+        }
+        Rules enemyRules = getRules(enemyTeam, Board.pieceId(cell));
+        if (enemyRules == null || attackPower < enemyRules.attackPower) {
+          return -1;
+        }
+        return MoveBuffer.CAPTURE;
+      case Board.BASE:
+        return Board.team(cell) == team ? -1 : MoveBuffer.BASE;
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * @return rules of a registered piece, null if the piece is not registered
+   */
+  private Rules getRules(int team, int pieceId) {
+    if (team < 1 || team > TEAMS) {
+      return null;
+    }
+    int[] teamPieces = this.pieceDescriptions[team - 1];
+    if (pieceId < 0 || pieceId >= teamPieces.length || teamPieces[pieceId] < 0) {
+      return null;
+    }
+    return this.rules[teamPieces[pieceId]][team - 1];
+  }
+
+  /**
+   * Looks up a description, precomputing its rules if it is not known yet. Descriptions are
+   * compared by content, since the AIs work on copies of them.
+   *
+   * @param description inputs the description
+   * @return index of the description
+   */
+  private int indexOf(PieceDescription description) {
+    for (int i = 0; i < this.descriptionCount; i++) {
+      if (this.descriptions[i] == description) {
+        return i;
+      }
+    }
+    for (int i = 0; i < this.descriptionCount; i++) {
+      if (sameRules(this.descriptions[i], description)) {
+        return i;
+      }
+    }
+
+    if (this.descriptionCount == this.descriptions.length) {
+      this.descriptions = Arrays.copyOf(this.descriptions, this.descriptionCount * 2);
+      this.rules = Arrays.copyOf(this.rules, this.descriptionCount * 2);
+    }
+    this.descriptions[this.descriptionCount] = description;
+    this.rules[this.descriptionCount] = new Rules[TEAMS];
+    for (int team = 1; team <= TEAMS; team++) {
+      this.rules[this.descriptionCount][team - 1] = new Rules(description, team);
+    }
+    return this.descriptionCount++;
+  }
+
+  /**
+   * @return true if both descriptions allow the same moves, false otherwise
+   */
+  private static boolean sameRules(PieceDescription a, PieceDescription b) {
+    if (a.getAttackPower() != b.getAttackPower() || isLShape(a) != isLShape(b)) {
+      return false;
+    }
+    Directions da = a.getMovement() == null ? null : a.getMovement().getDirections();
+    Directions db = b.getMovement() == null ? null : b.getMovement().getDirections();
+    if (da == null || db == null) {
+      return da == db;
+    }
+    return da.getLeft() == db.getLeft() && da.getRight() == db.getRight()
+        && da.getUp() == db.getUp() && da.getDown() == db.getDown()
+        && da.getUpLeft() == db.getUpLeft() && da.getUpRight() == db.getUpRight()
+        && da.getDownLeft() == db.getDownLeft() && da.getDownRight() == db.getDownRight();
+  }
+
+  /**
+   * @return true if the description has an L-shaped movement, false otherwise
+   */
+  private static boolean isLShape(PieceDescription description) {
+    Movement movement = description.getMovement();
+    return movement != null && movement.getShape() != null
+        && movement.getShape().getType() == ShapeType.lshape;
+  }
+
+  /**
+   * @param team inputs the team
+   * @throws IllegalArgumentException if the team is not supported
+   */
+  private static void checkTeam(int team) {
+    if (team < 1 || team > TEAMS) {
+      throw new IllegalArgumentException("Team not supported");
+    }
+  }
+
+  /**
+   * Movement of a piece description from the perspective of one team.
+   */
+  private static class Rules {
+
+    /**
+     * Maximum steps for each absolute ray direction
+     */
+    private final int[] steps = new int[RAY_ROW.length];
+    private final boolean lshape;
+    private final int attackPower;
+
+    /**
+     * Turns the team relative directions of a description into absolute ones.
+     *
+     * @param description inputs the description
+     * @param team        inputs the team
+     */
+    private Rules(PieceDescription description, int team) {
+      this.lshape = isLShape(description);
+      this.attackPower = description.getAttackPower();
+
+      Directions d = description.getMovement() == null ? null
+          : description.getMovement().getDirections();
+      if (this.lshape || d == null) {
+        return;
+      }
+      int[] relative = {d.getLeft(), d.getRight(), d.getUp(), d.getDown(), d.getUpLeft(),
+          d.getUpRight(), d.getDownLeft(), d.getDownRight()};
+      // relative direction index for each absolute direction
+      int[] mapping = switch (team) {
+        case 1 -> new int[]{0, 1, 2, 3, 4, 5, 6, 7};
+        // rotated by 180 deg
+        case 2 -> new int[]{1, 0, 3, 2, 7, 6, 5, 4};
+        // rotated counter-clockwise by 90 deg
+        case 3 -> new int[]{3, 2, 0, 1, 6, 4, 7, 5};
+        // rotated clockwise by 90 deg
+        case 4 -> new int[]{2, 3, 1, 0, 5, 7, 4, 6};
+        default -> throw new IllegalArgumentException("Team not supported");
+      };
+      for (int i = 0; i < this.steps.length; i++) {
+        this.steps[i] = relative[mapping[i]];
+      }
+    }
+  }
+}
@@ -0,0 +1,190 @@
+package de.unimannheim.swt.pse.server.game.board;
+
+import de.unimannheim.swt.pse.server.game.state.Piece;
+import java.util.Arrays;
+
+/**
+ * Pieces of a game indexed by team and piece id, together with the base coordinates of every team.
+ *
+ * <p>The pieces of each team are kept in a dense array. Removing a piece moves the last piece of
+ * the team into its slot and marks the id of the removed piece as gone, so lookups and removals do
+ * not have to scan or copy the pieces.</p>
+ */
+public class PieceStore {
+
+  /**
+   * Marks a piece id without a piece
+   */
+  private static final int NONE = -1;
+
+  /**
+   * Pieces of every team, the first {@link #sizes} entries of a team are alive
+   */
+  private final Piece[][] teamPieces;
+  /**
+   * Number of alive pieces of every team
+   */
+  private final int[] sizes;
+  /**
+   * Slot in {@link #teamPieces} for every team and piece id, {@link #NONE} if the piece is gone
+   */
+  private final int[][] slots;
+  /**
+   * Base coordinates of every team, null if the team has no base
+   */
+  private final int[][] bases;
+
+  /**
+   * @param teamCount inputs the number of teams
+   */
+  public PieceStore(int teamCount) {
+    this.teamPieces = new Piece[teamCount][0];
+    this.sizes = new int[teamCount];
+    this.slots = new int[teamCount][0];
+    this.bases = new int[teamCount][];
+  }
+
+  /**
+   * Adds a piece to its team.
+   *
+   * @param piece inputs the piece
+   * @throws IllegalArgumentException if the team is not supported or the id is already taken
+   */
+  public void add(Piece piece) {
+    int team = Integer.parseInt(piece.getTeamId());
+    int pieceId = Integer.parseInt(piece.getId());
+    checkTeam(team);
+    if (get(team, pieceId) != null) {
+      throw new IllegalArgumentException("Piece already exists: " + team + "_" + pieceId);
+    }
+
+    int t = team - 1;
+    if (this.sizes[t] == this.teamPieces[t].length) {
+      this.teamPieces[t] = Arrays.copyOf(this.teamPieces[t], Math.max(this.sizes[t] * 2, 8));
+    }
+    if (pieceId >= this.slots[t].length) {
+      int oldLength = this.slots[t].length;
+      this.slots[t] = Arrays.copyOf(this.slots[t], Math.max(pieceId + 1, oldLength * 2));
+      Arrays.fill(this.slots[t], oldLength, this.slots[t].length, NONE);
+    }
+    this.slots[t][pieceId] = this.sizes[t];
+    this.teamPieces[t][this.sizes[t]++] = piece;
+  }
+
+  /**
+   * @param team    inputs the team of the piece
+   * @param pieceId inputs the id of the piece
+   * @return the piece, null if it does not exist or was removed
+   */
+  public Piece get(int team, int pieceId) {
+    if (team < 1 || team > this.sizes.length) {
+      return null;
+    }
+    int[] teamSlots = this.slots[team - 1];
+    if (pieceId < 0 || pieceId >= teamSlots.length || teamSlots[pieceId] == NONE) {
+      return null;
+    }
+    return this.teamPieces[team - 1][teamSlots[pieceId]];
+  }
+
+  /**
+   * Removes a piece by moving the last piece of its team into its slot.
+   *
+   * @param team    inputs the team of the piece
+   * @param pieceId inputs the id of the piece
+   * @return the removed piece, null if it does not exist
+   */
+  public Piece remove(int team, int pieceId) {
+    Piece piece = get(team, pieceId);
+    if (piece == null) {
+      return null;
+    }
+    int t = team - 1;
+    int slot = this.slots[t][pieceId];
+    int last = --this.sizes[t];
+    Piece lastPiece = this.teamPieces[t][last];
+
+    this.teamPieces[t][slot] = lastPiece;
+    this.teamPieces[t][last] = null;
+    this.slots[t][Integer.parseInt(lastPiece.getId())] = slot;
+    this.slots[t][pieceId] = NONE;
+    return piece;
+  }
+
+  /**
+   * @return number of teams
+   */
+  public int getTeamCount() {
+    return this.sizes.length;
+  }
+
+  /**
+   * @return number of pieces of all teams
+   */
+  public int size() {
+    int size = 0;
+    for (int teamSize : this.sizes) {
+      size += teamSize;
+    }
+    return size;
+  }
+
+  /**
+   * @param team inputs the team
+   * @return number of pieces of the team
+   */
+  public int size(int team) {
+    checkTeam(team);
+    return this.sizes[team - 1];
+  }
+
+  /**
+   * @param team  inputs the team
+   * @param index inputs the index, between 0 and {@link #size(int)}
+   * @return piece of the team at the index
+   */
+  public Piece getAt(int team, int index) {
+    checkTeam(team);
+    if (index < 0 || index >= this.sizes[team - 1]) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return this.teamPieces[team - 1][index];
+  }
+
+  /**
+   * @param team inputs the team
+   * @return copy of the pieces of the team
+   */
+  public Piece[] getTeamPieces(int team) {
+    checkTeam(team);
+    return Arrays.copyOf(this.teamPieces[team - 1], this.sizes[team - 1]);
+  }
+
+  /**
+   * @param team inputs the team
+   * @param base inputs the coordinates of the base, may be null
+   */
+  public void setBase(int team, int[] base) {
+    checkTeam(team);
+    this.bases[team - 1] = base;
+  }
+
+  /**
+   * @param team inputs the team
+   * @return coordinates of the base of the team, null if the team has no base
+   */
+  public int[] getBase(int team) {
+    checkTeam(team);
+    return this.bases[team - 1];
+  }
+
+  /**
+   * @param team inputs the team
+   * @throws IllegalArgumentException if the team is not supported
+   */
+  private void checkTeam(int team) {
+    if (team < 1 || team > this.sizes.length) {
+      throw new IllegalArgumentException("Team not supported");
+    }
+  }
+}
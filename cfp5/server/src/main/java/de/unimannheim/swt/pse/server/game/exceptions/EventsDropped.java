@@ -0,0 +1,11 @@
+package de.unimannheim.swt.pse.server.game.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Represents a special exception (requested events were dropped from the move log)
+ * that is marked with a HTTP status if thrown.
+ */
+@ResponseStatus(value = HttpStatus.GONE, reason="Events were dropped from the move log, get the game state instead")
+public class EventsDropped extends RuntimeException {}
@@ -0,0 +1,37 @@
+package de.unimannheim.swt.pse.server.game.map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Loads the map templates bundled with the server. The templates are resources of the server
+ * module, other modules cannot read them directly.
+ */
+public final class MapTemplates {
+
+  /**
+   * Example map with a 10x10 grid and two teams
+   */
+  public static final String EXAMPLE = "/maptemplates/10x10_2teams_example.json";
+
+  private MapTemplates() {
+  }
+
+  /**
+   * @param resource path of the template, e.g. {@link #EXAMPLE}
+   * @return a new template read from the resource
+   * @throws IllegalArgumentException if there is no such template
+   */
+  public static MapTemplate load(String resource) {
+    try (InputStream in = MapTemplates.class.getResourceAsStream(resource)) {
+      if (in == null) {
+        throw new IllegalArgumentException("Template not found: " + resource);
+      }
+      return new ObjectMapper().readValue(in, MapTemplate.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
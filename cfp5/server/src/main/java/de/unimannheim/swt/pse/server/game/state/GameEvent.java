@@ -0,0 +1,106 @@
+package de.unimannheim.swt.pse.server.game.state;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * This class represents an entry of the move log of a game.
+ */
+public class GameEvent {
+    @Schema(
+            description = "sequence number of the event, starting with 1"
+    )
+    private long sequence;
+    @Schema(
+            description = "kind of the event"
+    )
+    private GameEventType type;
+    @Schema(
+            description = "team the event belongs to (moving, captured or flag losing team)"
+    )
+    private String teamId;
+    @Schema(
+            description = "piece moved, captured or respawned, null otherwise"
+    )
+    private String pieceId;
+    @Schema(
+            description = "position of the piece before the event, null if not used"
+    )
+    private int[] from;
+    @Schema(
+            description = "position of the piece or base after the event, null if not used"
+    )
+    private int[] to;
+    @Schema(
+            description = "remaining flags of the team after a flag event"
+    )
+    private int flags;
+
+    public GameEvent() {
+    }
+
+    public GameEvent(long sequence, GameEventType type, String teamId, String pieceId, int[] from, int[] to, int flags) {
+        this.sequence = sequence;
+        this.type = type;
+        this.teamId = teamId;
+        this.pieceId = pieceId;
+        this.from = from;
+        this.to = to;
+        this.flags = flags;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public GameEventType getType() {
+        return type;
+    }
+
+    public void setType(GameEventType type) {
+        this.type = type;
+    }
+
+    public String getTeamId() {
+        return teamId;
+    }
+
+    public void setTeamId(String teamId) {
+        this.teamId = teamId;
+    }
+
+    public String getPieceId() {
+        return pieceId;
+    }
+
+    public void setPieceId(String pieceId) {
+        this.pieceId = pieceId;
+    }
+
+    public int[] getFrom() {
+        return from;
+    }
+
+    public void setFrom(int[] from) {
+        this.from = from;
+    }
+
+    public int[] getTo() {
+        return to;
+    }
+
+    public void setTo(int[] to) {
+        this.to = to;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    public void setFlags(int flags) {
+        this.flags = flags;
+    }
+}
@@ -0,0 +1,42 @@
+package de.unimannheim.swt.pse.server.game.state;
+
+/**
+ * This enum represents the kinds of events in the move log of a game.
+ */
+public enum GameEventType {
+
+    /**
+     * A piece moved from one position to another.
+     */
+    move,
+
+    /**
+     * A piece was captured and removed from the board.
+     */
+    capture,
+
+    /**
+     * A base was reached and its team lost a flag.
+     */
+    flag,
+
+    /**
+     * A piece that reached an enemy base was placed next to its own base.
+     */
+    respawn,
+
+    /**
+     * A team got the turn.
+     */
+    turn,
+
+    /**
+     * A team gave up and lost its pieces.
+     */
+    give_up,
+
+    /**
+     * The game ended.
+     */
+    game_over
+}
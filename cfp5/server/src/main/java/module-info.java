@@ -8,6 +8,8 @@ module server {
   requires spring.web;
   requires spring.webmvc;
   requires spring.beans;
+  requires com.fasterxml.jackson.core;
+  requires com.fasterxml.jackson.databind;
   requires spring.boot.starter;
   requires org.slf4j;
   requires com.google.gson;
@@ -22,7 +24,9 @@ module server {
   requires com.google.common;
   requires java.net.http;
 
+  exports de.unimannheim.swt.pse.server.game;
   exports de.unimannheim.swt.pse.server.game.map;
+  exports de.unimannheim.swt.pse.server.game.board;
   exports de.unimannheim.swt.pse.server.game.exceptions;
   exports de.unimannheim.swt.pse.server.game.state;
   exports de.unimannheim.swt.pse.server.controller;
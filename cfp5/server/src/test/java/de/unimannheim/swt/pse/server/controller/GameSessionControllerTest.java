@@ -0,0 +1,392 @@
+package de.unimannheim.swt.pse.server.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.unimannheim.swt.pse.server.controller.data.GameSessionRequest;
+import de.unimannheim.swt.pse.server.controller.data.GameSessionResponse;
+import de.unimannheim.swt.pse.server.controller.data.JoinGameRequest;
+import de.unimannheim.swt.pse.server.controller.data.JoinGameResponse;
+import de.unimannheim.swt.pse.server.controller.data.MoveRequest;
+import de.unimannheim.swt.pse.server.controller.data.MoveResponse;
+import de.unimannheim.swt.pse.server.controller.data.SessionMoveRequest;
+import de.unimannheim.swt.pse.server.game.map.Directions;
+import de.unimannheim.swt.pse.server.game.map.MapTemplate;
+import de.unimannheim.swt.pse.server.game.map.Movement;
+import de.unimannheim.swt.pse.server.game.map.PieceDescription;
+import de.unimannheim.swt.pse.server.game.map.PlacementType;
+import de.unimannheim.swt.pse.server.game.state.GameState;
+import de.unimannheim.swt.pse.server.game.state.Piece;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Tests of the game session endpoints, played on a 10x10 grid where every team has a single piece
+ * that moves one step in every direction, so a team reaches the enemy base within a few moves.
+ */
+class GameSessionControllerTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    this.mockMvc = MockMvcBuilders.standaloneSetup(new GameSessionController(this.objectMapper))
+        .build();
+  }
+
+  @Test
+  void testMoveResponseCarriesPublishedState() throws Exception {
+    Session session = this.startSession();
+    GameState state = this.getState(session);
+    MoveRequest move = this.nextMove(session, state);
+
+    MoveResponse response = this.makeMove(session, move, 200);
+    assertEquals(session.id, response.getGameSessionId());
+    assertEquals(200, response.getStatus());
+    assertFalse(response.isGameOver());
+    assertNotEquals(state.getCurrentTeam(), response.getCurrentTeam());
+
+    MvcResult result = this.mockMvc.perform(get("/api/gamesession/{id}/state", session.id))
+        .andExpect(status().isOk()).andReturn();
+    assertEquals("\"" + response.getStateVersion() + "\"", result.getResponse().getHeader("ETag"));
+  }
+
+  @Test
+  void testStateNotModifiedForKnownETag() throws Exception {
+    Session session = this.startSession();
+    MvcResult first = this.mockMvc.perform(get("/api/gamesession/{id}/state", session.id))
+        .andExpect(status().isOk()).andReturn();
+    String eTag = first.getResponse().getHeader("ETag");
+    assertNotNull(eTag);
+
+    MvcResult unchanged = this.mockMvc.perform(get("/api/gamesession/{id}/state", session.id)
+            .header("If-None-Match", eTag))
+        .andExpect(status().isNotModified()).andReturn();
+    assertEquals(eTag, unchanged.getResponse().getHeader("ETag"));
+    assertEquals(0, unchanged.getResponse().getContentLength());
+
+    this.makeMove(session, this.nextMove(session, this.getState(session)), 200);
+    MvcResult changed = this.mockMvc.perform(get("/api/gamesession/{id}/state", session.id)
+            .header("If-None-Match", eTag))
+        .andExpect(status().isOk()).andReturn();
+    assertNotEquals(eTag, changed.getResponse().getHeader("ETag"));
+    assertEquals(this.getState(session).getCurrentTeam(), this.objectMapper.readValue(
+        changed.getResponse().getContentAsByteArray(), GameState.class).getCurrentTeam());
+  }
+
+  @Test
+  void testNextStateWakesOnNewVersion() throws Exception {
+    Session session = this.startSession();
+    String eTag = this.mockMvc.perform(get("/api/gamesession/{id}/state", session.id))
+        .andReturn().getResponse().getHeader("ETag");
+    long version = Long.parseLong(eTag.replace("\"", ""));
+
+    MvcResult waiting = this.mockMvc.perform(get("/api/gamesession/{id}/state/next", session.id)
+            .param("version", String.valueOf(version)))
+        .andExpect(request().asyncStarted()).andReturn();
+    // nothing changed yet, so the request keeps waiting
+    assertThrows(IllegalStateException.class, () -> waiting.getAsyncResult(100));
+
+    MoveResponse move = this.makeMove(session, this.nextMove(session, this.getState(session)),
+        200);
+    MvcResult woken = this.mockMvc.perform(asyncDispatch(waiting))
+        .andExpect(status().isOk()).andReturn();
+    assertEquals("\"" + move.getStateVersion() + "\"", woken.getResponse().getHeader("ETag"));
+    assertEquals(move.getCurrentTeam(), this.objectMapper.readValue(
+        woken.getResponse().getContentAsByteArray(), GameState.class).getCurrentTeam());
+  }
+
+  @Test
+  void testNextStateReturnsNewerStateAtOnce() throws Exception {
+    Session session = this.startSession();
+
+    MvcResult waiting = this.mockMvc.perform(get("/api/gamesession/{id}/state/next", session.id)
+            .param("version", "0"))
+        .andExpect(request().asyncStarted()).andReturn();
+    this.mockMvc.perform(asyncDispatch(waiting)).andExpect(status().isOk());
+  }
+
+  @Test
+  void testNextStateTimesOut() throws Exception {
+    Session session = this.startSession();
+    String eTag = this.mockMvc.perform(get("/api/gamesession/{id}/state", session.id))
+        .andReturn().getResponse().getHeader("ETag");
+
+    MvcResult waiting = this.mockMvc.perform(get("/api/gamesession/{id}/state/next", session.id)
+            .param("version", eTag.replace("\"", ""))
+            .param("timeoutInSeconds", "1"))
+        .andExpect(request().asyncStarted()).andReturn();
+    // the mock request does not time out by itself
+    MockAsyncContext context = (MockAsyncContext) waiting.getRequest().getAsyncContext();
+    assertEquals(1000, context.getTimeout());
+    for (AsyncListener listener : context.getListeners()) {
+      listener.onTimeout(new AsyncEvent(context));
+    }
+
+    MvcResult timedOut = this.mockMvc.perform(asyncDispatch(waiting))
+        .andExpect(status().isNotModified()).andReturn();
+    assertEquals(eTag, timedOut.getResponse().getHeader("ETag"));
+  }
+
+  @Test
+  void testMoveRejectedWithStatus() throws Exception {
+    Session session = this.startSession();
+    MoveRequest move = this.nextMove(session, this.getState(session));
+
+    String secret = move.getTeamSecret();
+    move.setTeamSecret("wrong");
+    this.makeMove(session, move, 403);
+
+    move.setTeamSecret(secret);
+    move.setNewPosition(new int[]{-1, -1});
+    this.makeMove(session, move, 409);
+  }
+
+  @Test
+  void testBatchReturnsStatusOfEveryMove() throws Exception {
+    Session first = this.startSession();
+    Session second = this.startSession();
+    Session third = this.startSession();
+
+    SessionMoveRequest valid = this.toSessionMove(first,
+        this.nextMove(first, this.getState(first)));
+    SessionMoveRequest invalid = this.toSessionMove(second,
+        this.nextMove(second, this.getState(second)));
+    invalid.setNewPosition(new int[]{-1, -1});
+    SessionMoveRequest forbidden = this.toSessionMove(third,
+        this.nextMove(third, this.getState(third)));
+    forbidden.setTeamSecret("wrong");
+    SessionMoveRequest unknown = this.toSessionMove(first, this.nextMove(first,
+        this.getState(first)));
+    unknown.setGameSessionId("unknown");
+
+    MvcResult result = this.mockMvc.perform(post("/api/gamesession/moves")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(this.objectMapper.writeValueAsBytes(
+                new SessionMoveRequest[]{valid, invalid, forbidden, unknown})))
+        .andExpect(status().isOk()).andReturn();
+    MoveResponse[] responses = this.objectMapper.readValue(
+        result.getResponse().getContentAsByteArray(), MoveResponse[].class);
+
+    assertEquals(4, responses.length);
+    assertEquals(200, responses[0].getStatus());
+    assertEquals(409, responses[1].getStatus());
+    assertEquals(403, responses[2].getStatus());
+    assertEquals(404, responses[3].getStatus());
+    assertEquals(first.id, responses[0].getGameSessionId());
+    assertEquals("unknown", responses[3].getGameSessionId());
+    // a failed move reports the current state of its session
+    assertEquals(this.getState(second).getCurrentTeam(), responses[1].getCurrentTeam());
+  }
+
+  @Test
+  void testBatchRejectsSecondMoveOfTeam() throws Exception {
+    Session session = this.startSession();
+    GameState state = this.getState(session);
+    SessionMoveRequest move = this.toSessionMove(session, this.nextMove(session, state));
+
+    MvcResult result = this.mockMvc.perform(post("/api/gamesession/moves")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(this.objectMapper.writeValueAsBytes(new SessionMoveRequest[]{move, move})))
+        .andExpect(status().isOk()).andReturn();
+    MoveResponse[] responses = this.objectMapper.readValue(
+        result.getResponse().getContentAsByteArray(), MoveResponse[].class);
+
+    assertEquals(200, responses[0].getStatus());
+    assertEquals(400, responses[1].getStatus());
+    // only the first move was made
+    assertEquals(responses[0].getStateVersion(), responses[1].getStateVersion());
+  }
+
+  @Test
+  void testGameEndingMoveReturnsResponse() throws Exception {
+    Session session = this.startSession();
+
+    MoveResponse response = null;
+    for (int i = 0; i < 100; i++) {
+      response = this.makeMove(session, this.nextMove(session, this.getState(session)), 200);
+      if (response.isGameOver()) {
+        break;
+      }
+    }
+    assertNotNull(response);
+    assertTrue(response.isGameOver(), "A team should have captured the enemy flag");
+    assertEquals(200, response.getStatus());
+
+    MvcResult result = this.mockMvc.perform(get("/api/gamesession/{id}/state", session.id))
+        .andExpect(status().isOk()).andReturn();
+    assertEquals("\"" + response.getStateVersion() + "\"", result.getResponse().getHeader("ETag"));
+    GameSessionResponse sessionResponse = this.objectMapper.readValue(
+        this.mockMvc.perform(get("/api/gamesession/{id}", session.id)).andReturn().getResponse()
+            .getContentAsByteArray(), GameSessionResponse.class);
+    assertTrue(sessionResponse.isGameOver());
+
+    // moves after the end are rejected
+    MoveRequest late = new MoveRequest();
+    late.setTeamId(session.teams[0].getTeamId());
+    late.setTeamSecret(session.teams[0].getTeamSecret());
+    late.setPieceId("0");
+    late.setNewPosition(new int[]{0, 0});
+    this.makeMove(session, late, 410);
+  }
+
+  /**
+   * @return session of a started game with two teams
+   */
+  Session startSession() throws Exception {
+    GameSessionRequest request = new GameSessionRequest();
+    request.setTemplate(createTemplate());
+    GameSessionResponse created = this.objectMapper.readValue(
+        this.mockMvc.perform(post("/api/gamesession")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(this.objectMapper.writeValueAsBytes(request)))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray(),
+        GameSessionResponse.class);
+
+    Session session = new Session(created.getId());
+    for (int i = 0; i < session.teams.length; i++) {
+      JoinGameRequest join = new JoinGameRequest();
+      join.setTeamId("team" + i);
+      session.teams[i] = this.objectMapper.readValue(
+          this.mockMvc.perform(post("/api/gamesession/{id}/join", session.id)
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(this.objectMapper.writeValueAsBytes(join)))
+              .andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray(),
+          JoinGameResponse.class);
+    }
+    return session;
+  }
+
+  GameState getState(Session session) throws Exception {
+    return this.objectMapper.readValue(
+        this.mockMvc.perform(get("/api/gamesession/{id}/state", session.id))
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray(),
+        GameState.class);
+  }
+
+  MoveResponse makeMove(Session session, MoveRequest move, int expectedStatus) throws Exception {
+    MvcResult result = this.mockMvc.perform(post("/api/gamesession/{id}/move", session.id)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(this.objectMapper.writeValueAsBytes(move)))
+        .andExpect(status().is(expectedStatus)).andReturn();
+    if (expectedStatus != 200) {
+      return null;
+    }
+    return this.objectMapper.readValue(result.getResponse().getContentAsByteArray(),
+        MoveResponse.class);
+  }
+
+  /**
+   * Moves the piece of the current team one step towards the enemy base, onto the base if it is
+   * next to it. Pieces never capture each other.
+   */
+  MoveRequest nextMove(Session session, GameState state) {
+    int team = state.getCurrentTeam();
+    Piece piece = state.getTeams()[team - 1].getPieces()[0];
+    int[] enemyBase = state.getTeams()[team % state.getTeams().length].getBase();
+    String[][] grid = state.getGrid();
+
+    List<int[]> targets = new ArrayList<>();
+    for (int row = -1; row <= 1; row++) {
+      for (int col = -1; col <= 1; col++) {
+        int[] target = {piece.getPosition()[0] + row, piece.getPosition()[1] + col};
+        if (target[0] < 0 || target[1] < 0 || target[0] >= grid.length
+            || target[1] >= grid[0].length) {
+          continue;
+        }
+        String cell = grid[target[0]][target[1]];
+        if (cell.isEmpty() || target[0] == enemyBase[0] && target[1] == enemyBase[1]) {
+          targets.add(target);
+        }
+      }
+    }
+    targets.sort(Comparator.comparingInt(target -> Math.max(Math.abs(target[0] - enemyBase[0]),
+        Math.abs(target[1] - enemyBase[1]))));
+
+    JoinGameResponse joined = session.getTeam(team);
+    MoveRequest move = new MoveRequest();
+    move.setTeamId(joined.getTeamId());
+    move.setTeamSecret(joined.getTeamSecret());
+    move.setPieceId(piece.getId());
+    move.setNewPosition(targets.get(0));
+    return move;
+  }
+
+  SessionMoveRequest toSessionMove(Session session, MoveRequest move) {
+    SessionMoveRequest sessionMove = new SessionMoveRequest();
+    sessionMove.setGameSessionId(session.id);
+    sessionMove.setTeamId(move.getTeamId());
+    sessionMove.setTeamSecret(move.getTeamSecret());
+    sessionMove.setPieceId(move.getPieceId());
+    sessionMove.setNewPosition(move.getNewPosition());
+    return sessionMove;
+  }
+
+  static MapTemplate createTemplate() {
+    Directions directions = new Directions();
+    directions.setLeft(1);
+    directions.setRight(1);
+    directions.setUp(1);
+    directions.setDown(1);
+    directions.setUpLeft(1);
+    directions.setUpRight(1);
+    directions.setDownLeft(1);
+    directions.setDownRight(1);
+    Movement movement = new Movement();
+    movement.setDirections(directions);
+    PieceDescription king = new PieceDescription();
+    king.setType("King");
+    king.setAttackPower(1);
+    king.setCount(1);
+    king.setMovement(movement);
+
+    MapTemplate template = new MapTemplate();
+    template.setGridSize(new int[]{10, 10});
+    template.setTeams(2);
+    template.setFlags(1);
+    template.setBlocks(0);
+    template.setPieces(new PieceDescription[]{king});
+    template.setPlacement(PlacementType.symmetrical);
+    template.setTotalTimeLimitInSeconds(-1);
+    template.setMoveTimeLimitInSeconds(-1);
+    return template;
+  }
+
+  /**
+   * Game session together with the teams that joined it
+   */
+  static class Session {
+
+    final String id;
+    final JoinGameResponse[] teams = new JoinGameResponse[2];
+
+    Session(String id) {
+      this.id = id;
+    }
+
+    JoinGameResponse getTeam(int team) {
+      for (JoinGameResponse joined : this.teams) {
+        if (joined.getTeamId().equals(String.valueOf(team))) {
+          return joined;
+        }
+      }
+      throw new IllegalArgumentException("Team " + team + " did not join");
+    }
+  }
+}
@@ -2,6 +2,8 @@ package de.unimannheim.swt.pse.server.game;
 
 
 import de.unimannheim.swt.pse.server.controller.data.GameSessionRequest;
+import de.unimannheim.swt.pse.server.game.board.Board;
+import de.unimannheim.swt.pse.server.game.exceptions.EventsDropped;
 import de.unimannheim.swt.pse.server.game.exceptions.GameOver;
 import de.unimannheim.swt.pse.server.game.exceptions.NoMoreTeamSlots;
 import de.unimannheim.swt.pse.server.game.map.MapGenerator;
@@ -10,11 +12,15 @@ import de.unimannheim.swt.pse.server.game.map.PieceDescription;
 import de.unimannheim.swt.pse.server.game.map.PlacementType;
 import de.unimannheim.swt.pse.server.game.map.ShapeType;
 import de.unimannheim.swt.pse.server.game.move.MoveGenerator;
+import de.unimannheim.swt.pse.server.game.state.GameEvent;
+import de.unimannheim.swt.pse.server.game.state.GameEventType;
 import de.unimannheim.swt.pse.server.game.state.Piece;
 import de.unimannheim.swt.pse.server.game.state.GameState;
 import de.unimannheim.swt.pse.server.game.state.Move;
 import de.unimannheim.swt.pse.server.game.state.StateGenerator;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
 import org.junit.jupiter.api.Order;
@@ -825,7 +831,7 @@ class GameEngineGameTest {
     Piece piece1 = gameEngineGame.getPiece(4 + "", 1);
     Move move1 = moveGenerator.generateMove(1 + "", 4 + "",
         new int[]{piece1.getPosition()[0] - 3, piece1.getPosition()[1]});
-    gameState.setCurrentTeam(1);
+    gameEngineGame.setCurrentTeam(1);
 
     // Tests move 1
     // Test if move is valid
@@ -836,7 +842,10 @@ class GameEngineGameTest {
 
     // Test if move was successful
     assertEquals(move1.getNewPosition(), gameEngineGame.getPiece(4 + "", 1).getPosition());
-    assertEquals(move1, gameState.getLastMove());
+    assertEquals(move1.getPieceId(),
+        gameEngineGame.getCurrentGameState().getLastMove().getPieceId());
+    assertArrayEquals(move1.getNewPosition(),
+        gameEngineGame.getCurrentGameState().getLastMove().getNewPosition());
 
     // create move 2
     System.out.println("Move 2");
@@ -853,7 +862,10 @@ class GameEngineGameTest {
 
     // Test if move was successful
     assertEquals(move2.getNewPosition(), gameEngineGame.getPiece(5 + "", 2).getPosition());
-    assertEquals(move2, gameState.getLastMove());
+    assertEquals(move2.getPieceId(),
+        gameEngineGame.getCurrentGameState().getLastMove().getPieceId());
+    assertArrayEquals(move2.getNewPosition(),
+        gameEngineGame.getCurrentGameState().getLastMove().getNewPosition());
 
     // create move 3
     System.out.println("Move 3");
@@ -866,11 +878,26 @@ class GameEngineGameTest {
     assertTrue(gameEngineGame.isValidMove(move3));
 
     // make move
+    long knownEvents = gameEngineGame.getEventsSince(0).length;
     gameEngineGame.makeMove(move3);
 
+    // Test if the capture, the move and the next turn were logged
+    GameEvent[] events = gameEngineGame.getEventsSince(knownEvents);
+    assertEquals(3, events.length);
+    assertEquals(knownEvents + 1, events[0].getSequence());
+    assertEquals(GameEventType.capture, events[0].getType());
+    assertEquals("2", events[0].getTeamId());
+    assertEquals("3", events[0].getPieceId());
+    assertEquals(GameEventType.move, events[1].getType());
+    assertArrayEquals(move3.getNewPosition(), events[1].getTo());
+    assertEquals(GameEventType.turn, events[2].getType());
+
     // Test if move was successful
     assertEquals(move3.getNewPosition(), gameEngineGame.getPiece(4 + "", 1).getPosition());
-    assertEquals(move3, gameState.getLastMove());
+    assertEquals(move3.getPieceId(),
+        gameEngineGame.getCurrentGameState().getLastMove().getPieceId());
+    assertArrayEquals(move3.getNewPosition(),
+        gameEngineGame.getCurrentGameState().getLastMove().getNewPosition());
 
     // Test if thrown piece was removed
     assertNull(gameEngineGame.getPiece(3 + "", 2));
@@ -881,7 +908,7 @@ class GameEngineGameTest {
     Piece piece4 = gameEngineGame.getPiece(4 + "", 1);
     Move move4 = moveGenerator.generateMove(1 + "", 4 + "",
         new int[]{piece4.getPosition()[0] - 1, piece4.getPosition()[1] + 1});
-    gameState.setCurrentTeam(1);
+    gameEngineGame.setCurrentTeam(1);
 
     // Tests move 4
     // Test if move is valid
@@ -889,6 +916,8 @@ class GameEngineGameTest {
 
     // make move and check if game is over
     assertThrows(GameOver.class, () -> gameEngineGame.makeMove(move4));
+    events = gameEngineGame.getEventsSince(0);
+    assertEquals(GameEventType.game_over, events[events.length - 1].getType());
   }
 
   @Order(3)
@@ -906,12 +935,12 @@ class GameEngineGameTest {
     assertTrue(gameEngineGame.canMove(piece1));
 
     // block piece's movement
-    grid[6][5] = "b";
-    grid[6][4] = "b";
-    grid[6][3] = "b";
-    grid[7][3] = "b";
-    grid[8][4] = "b";
-    grid[8][3] = "b";
+    gameEngineGame.getBoard().set(6, 5, Board.BLOCK);
+    gameEngineGame.getBoard().set(6, 4, Board.BLOCK);
+    gameEngineGame.getBoard().set(6, 3, Board.BLOCK);
+    gameEngineGame.getBoard().set(7, 3, Board.BLOCK);
+    gameEngineGame.getBoard().set(8, 4, Board.BLOCK);
+    gameEngineGame.getBoard().set(8, 3, Board.BLOCK);
     printOut2ArrayString(grid, grid);
 
     // test that piece cannot move
@@ -920,18 +949,18 @@ class GameEngineGameTest {
     // select piece 2
     System.out.println("Piece 2: ");
     Piece piece2 = gameEngineGame.getPiece(2 + "", 2);
-    gameEngineGame.getCurrentGameState().setCurrentTeam(2);
+    gameEngineGame.setCurrentTeam(2);
 
     // test if piece can move initially
     assertTrue(gameEngineGame.canMove(piece2));
 
     // block piece's movement
-    grid[3][4] = "b";
-    grid[3][5] = "b";
-    grid[3][6] = "b";
-    grid[1][5] = "b";
-    grid[1][6] = "b";
-    grid[1][4] = "b";
+    gameEngineGame.getBoard().set(3, 4, Board.BLOCK);
+    gameEngineGame.getBoard().set(3, 5, Board.BLOCK);
+    gameEngineGame.getBoard().set(3, 6, Board.BLOCK);
+    gameEngineGame.getBoard().set(1, 5, Board.BLOCK);
+    gameEngineGame.getBoard().set(1, 6, Board.BLOCK);
+    gameEngineGame.getBoard().set(1, 4, Board.BLOCK);
     printOut2ArrayString(grid, grid);
 
     // test that piece cannot move
@@ -1022,6 +1051,125 @@ class GameEngineGameTest {
     assertArrayEquals(expected, result);
   }
 
+  @Test
+  void testSeededGamesStartWithSameTeam() {
+    MapTemplate mapTemplate = new MapGenerator().generateMap(new int[]{10, 10}, 2, 1, 5, 5,
+        PlacementType.symmetrical, 60, 30);
+    boolean[] startingTeams = new boolean[3];
+    for (long seed = 0; seed < 20; seed++) {
+      GameEngineGame first = new GameEngineGame(seed);
+      GameEngineGame second = new GameEngineGame(seed);
+      first.create(mapTemplate);
+      second.create(mapTemplate);
+      for (String teamId : new String[]{"team1", "team2"}) {
+        first.joinGame(teamId);
+        second.joinGame(teamId);
+      }
+      int startingTeam = first.getCurrentGameState().getCurrentTeam();
+      assertEquals(startingTeam, second.getCurrentGameState().getCurrentTeam());
+      startingTeams[startingTeam] = true;
+    }
+    assertTrue(startingTeams[1] && startingTeams[2], "Both teams should start some games");
+  }
+
+  /**
+   * @return created game with two teams of five pieces, which is not started yet
+   */
+  private GameEngineGame createGame() {
+    MapGenerator mapGenerator = new MapGenerator();
+    MapTemplate mapTemplate = mapGenerator.generateMap(new int[]{10, 10}, 2, 1, 1, 5,
+        PlacementType.symmetrical, 60, 30);
+    mapTemplate.setPieces(new PieceDescription[]{
+        mapGenerator.getCustomPieceDescription(1, 1, 1, 1, 1, 1, 1, 1, null, 5)});
+    GameEngineGame game = new GameEngineGame(1);
+    game.create(mapTemplate);
+    return game;
+  }
+
+  @Test
+  void testCurrentGameStateIsCopy() {
+    GameEngineGame game = this.createGame();
+    game.joinGame("team1");
+    game.joinGame("team2");
+
+    GameState changed = game.getCurrentGameState();
+    changed.getGrid()[0][0] = "changed";
+    changed.getTeams()[0].getPieces()[0].getDescription().setAttackPower(99);
+    changed.setCurrentTeam(0);
+
+    GameState published = game.getVersionedState().getState();
+    assertNotEquals("changed", published.getGrid()[0][0]);
+    assertNotEquals(99, published.getTeams()[0].getPieces()[0].getDescription().getAttackPower());
+    assertNotEquals(0, published.getCurrentTeam());
+    assertNotEquals(0, game.getCurrentGameState().getCurrentTeam());
+  }
+
+  @Test
+  void testEventLogKeepsLatestEvents() {
+    GameEngineGame game = this.createGame();
+    game.joinGame("team1");
+    game.joinGame("team2");
+
+    // move pieces onto empty neighbour cells until the oldest events are dropped
+    long lastSequence = 0;
+    while (lastSequence <= GameEngineGame.MAX_EVENTS + 10) {
+      GameState state = game.getCurrentGameState();
+      int team = state.getCurrentTeam();
+      Move move = findMoveToEmptyCell(game, state, team);
+      assertNotNull(move, "Team " + team + " should be able to move");
+      game.makeMove(move);
+      GameEvent[] latest = game.getEventsSince(lastSequence);
+      assertTrue(latest.length > 0);
+      assertEquals(lastSequence + 1, latest[0].getSequence());
+      lastSequence = latest[latest.length - 1].getSequence();
+    }
+
+    assertThrows(EventsDropped.class, () -> game.getEventsSince(0));
+    GameEvent[] events = game.getEventsSince(lastSequence - GameEngineGame.MAX_EVENTS);
+    assertEquals(GameEngineGame.MAX_EVENTS, events.length);
+    assertEquals(lastSequence, events[events.length - 1].getSequence());
+    assertEquals(0, game.getEventsSince(lastSequence).length);
+  }
+
+  private Move findMoveToEmptyCell(GameEngineGame game, GameState state, int team) {
+    String[][] grid = state.getGrid();
+    for (Piece piece : state.getTeams()[team - 1].getPieces()) {
+      for (int[] step : new int[][]{{-1, 0}, {1, 0}, {0, -1}, {0, 1}}) {
+        int row = piece.getPosition()[0] + step[0];
+        int col = piece.getPosition()[1] + step[1];
+        if (row < 0 || col < 0 || row >= grid.length || col >= grid[0].length
+            || !grid[row][col].isEmpty()) {
+          continue;
+        }
+        Move move = new Move();
+        move.setTeamId(team + "");
+        move.setPieceId(piece.getId());
+        move.setNewPosition(new int[]{row, col});
+        if (game.isValidMove(move)) {
+          return move;
+        }
+      }
+    }
+    return null;
+  }
+
+  @Test
+  void testStateListenersCalledWithoutLock() {
+    GameEngineGame game = this.createGame();
+    List<Long> versions = new ArrayList<>();
+    game.addStateListener(state -> {
+      assertFalse(Thread.holdsLock(game));
+      versions.add(state.getVersion());
+    });
+
+    game.joinGame("team1");
+    game.joinGame("team2");
+    game.giveUp("1");
+
+    assertEquals(3, versions.size());
+    assertEquals(game.getVersionedState().getVersion(), versions.get(2));
+  }
+
   void test() {
     GameSessionRequest testung = new GameSessionRequest();
   }
@@ -0,0 +1,106 @@
+package de.unimannheim.swt.pse.server.game;
+
+import de.unimannheim.swt.pse.server.game.map.MapGenerator;
+import de.unimannheim.swt.pse.server.game.map.MapTemplate;
+import de.unimannheim.swt.pse.server.game.map.PieceDescription;
+import de.unimannheim.swt.pse.server.game.map.PlacementType;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameTimeCounterTest {
+
+  @Test
+  void testScheduledTaskRuns() throws InterruptedException {
+    CountDownLatch ran = new CountDownLatch(1);
+    GameTimeCounter.schedule(ran::countDown, 10);
+    assertTrue(ran.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testCancelledTaskDoesNotRun() throws InterruptedException {
+    AtomicBoolean ran = new AtomicBoolean();
+    ScheduledFuture<?> deadline = GameTimeCounter.schedule(() -> ran.set(true), 200);
+    assertTrue(deadline.cancel(false));
+
+    // tasks run in order of their deadline, so a later task runs after the cancelled one was due
+    CountDownLatch later = new CountDownLatch(1);
+    GameTimeCounter.schedule(later::countDown, 300);
+    assertTrue(later.await(5, TimeUnit.SECONDS));
+    assertFalse(ran.get());
+  }
+
+  @Test
+  void testFailingTaskDoesNotStopCounter() throws InterruptedException {
+    GameTimeCounter.schedule(() -> {
+      throw new IllegalStateException("expected by the test");
+    }, 0);
+    CountDownLatch ran = new CountDownLatch(1);
+    GameTimeCounter.schedule(ran::countDown, 10);
+    assertTrue(ran.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testMoveDeadlineSkipsTurn() throws InterruptedException {
+    GameEngineGame game = createGame(-1, 1);
+    int startingTeam = game.getCurrentGameState().getCurrentTeam();
+    CountDownLatch skipped = new CountDownLatch(1);
+    game.addStateListener(state -> {
+      if (state.getState().getCurrentTeam() != startingTeam) {
+        skipped.countDown();
+      }
+    });
+
+    assertTrue(skipped.await(5, TimeUnit.SECONDS), "Move time limit should skip the turn");
+    assertFalse(game.isGameOver());
+  }
+
+  @Test
+  void testStaleMoveDeadlineIgnored() {
+    GameEngineGame game = createGame(-1, 60);
+    VersionedState before = game.getVersionedState();
+
+    // the first turn of a started game is turn 1, a deadline of turn 0 is from before the start
+    game.moveTimeOver(0);
+
+    assertEquals(before.getVersion(), game.getVersionedState().getVersion());
+    assertEquals(before.getState().getCurrentTeam(),
+        game.getCurrentGameState().getCurrentTeam());
+  }
+
+  @Test
+  void testGameDeadlineEndsGame() throws InterruptedException {
+    GameEngineGame game = createGame(1, -1);
+    CountDownLatch over = new CountDownLatch(1);
+    game.addStateListener(state -> {
+      if (game.isGameOver()) {
+        over.countDown();
+      }
+    });
+
+    assertTrue(over.await(5, TimeUnit.SECONDS), "Game time limit should end the game");
+    assertNotNull(game.getWinner());
+    assertNotNull(game.getEndDate());
+  }
+
+  /**
+   * @return started game with two teams and the given time limits, -1 for none
+   */
+  private static GameEngineGame createGame(int totalTimeLimitInSeconds,
+      int moveTimeLimitInSeconds) {
+    MapGenerator mapGenerator = new MapGenerator();
+    MapTemplate mapTemplate = mapGenerator.generateMap(new int[]{10, 10}, 2, 1, 1, 5,
+        PlacementType.symmetrical, totalTimeLimitInSeconds, moveTimeLimitInSeconds);
+    mapTemplate.setPieces(new PieceDescription[]{
+        mapGenerator.getCustomPieceDescription(1, 1, 1, 1, 1, 1, 1, 1, null, 5)});
+    GameEngineGame game = new GameEngineGame(1);
+    game.create(mapTemplate);
+    game.joinGame("team1");
+    game.joinGame("team2");
+    return game;
+  }
+}
@@ -0,0 +1,162 @@
+package de.unimannheim.swt.pse.server.game.board;
+
+import de.unimannheim.swt.pse.server.game.map.MapGenerator;
+import de.unimannheim.swt.pse.server.game.map.PieceDescription;
+import de.unimannheim.swt.pse.server.game.map.ShapeType;
+import de.unimannheim.swt.pse.server.game.state.Piece;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitboardsTest {
+
+  private static final int TEAMS = 4;
+  private static final int PIECES_PER_TEAM = 8;
+
+  @Test
+  void testBitboardsOnlyForSmallBoards() {
+    assertNotNull(Board.ofSize(10, 10).getBitboards());
+    assertNotNull(Board.ofSize(16, 16).getBitboards());
+    assertNull(Board.ofSize(17, 16).getBitboards());
+  }
+
+  @Test
+  void testBitboardsFollowSetCells() {
+    Board board = Board.ofSize(10, 10);
+    board.set(3, 4, Board.piece(2, 5));
+    Bitboards bitboards = board.getBitboards();
+    assertTrue(Bitboards.get(bitboards.getOccupied(), 34));
+    assertTrue(Bitboards.get(bitboards.getPieces(2), 34));
+
+    board.set(3, 4, Board.piece(1, 0));
+    assertFalse(Bitboards.get(bitboards.getPieces(2), 34));
+    assertTrue(Bitboards.get(bitboards.getPieces(1), 34));
+
+    board.set(3, 4, Board.EMPTY);
+    assertFalse(Bitboards.get(bitboards.getOccupied(), 34));
+    assertFalse(Bitboards.get(bitboards.getPieces(1), 34));
+  }
+
+  @Test
+  void testShiftDoesNotWrapAroundEdges() {
+    Board board = Board.ofSize(10, 10);
+    Bitboards bitboards = board.getBitboards();
+    long[] cells = new long[bitboards.getWords()];
+    // last column of the first row and first column of the last row
+    Bitboards.set(cells, 9);
+    Bitboards.set(cells, 90);
+
+    long[] shifted = new long[bitboards.getWords()];
+    bitboards.shift(cells, 0, 1, shifted);
+    assertFalse(Bitboards.get(shifted, 10));
+    assertTrue(Bitboards.get(shifted, 91));
+    bitboards.shift(cells, 1, -1, shifted);
+    assertTrue(Bitboards.get(shifted, 18));
+    assertFalse(Bitboards.get(shifted, 99));
+    bitboards.shift(cells, -1, 2, shifted);
+    assertTrue(Bitboards.get(shifted, 82));
+    assertFalse(Bitboards.get(shifted, 1));
+  }
+
+  @Test
+  void testGenerateAllMatchesWalkedMoves() {
+    Random random = new Random(42);
+    int[][] sizes = {{10, 10}, {16, 16}, {7, 13}, {9, 6}, {20, 20}};
+    for (int[] size : sizes) {
+      for (int game = 0; game < 5; game++) {
+        checkRandomGame(size[0], size[1], random);
+      }
+    }
+  }
+
+  /**
+   * Places the pieces of four teams randomly and plays random moves, comparing the moves of the
+   * bitboards with the moves of every piece walked on its own after each move.
+   */
+  private void checkRandomGame(int rows, int cols, Random random) {
+    MapGenerator mapGenerator = new MapGenerator();
+    PieceDescription[] descriptions = {
+        mapGenerator.getCustomPieceDescription(1, 0, 0, 0, 1, 1, 0, 0, null, 1),
+        mapGenerator.getCustomPieceDescription(2, 2, 2, 2, 0, 0, 0, 0, null, 3),
+        mapGenerator.getCustomPieceDescription(0, 0, 0, 0, 0, 0, 0, 0, ShapeType.lshape, 3),
+        mapGenerator.getCustomPieceDescription(100, 100, 100, 100, 100, 100, 100, 100, null, 5),
+        mapGenerator.getCustomPieceDescription(3, 1, 0, 2, 3, 0, 1, 2, null, 2)};
+    MoveGenerator generator = new MoveGenerator(descriptions);
+    Board board = Board.ofSize(rows, cols);
+
+    for (int i = 0; i < rows * cols / 8; i++) {
+      placeRandomly(board, Board.BLOCK, random);
+    }
+    for (int team = 1; team <= TEAMS; team++) {
+      placeRandomly(board, Board.base(team), random);
+      for (int pieceId = 0; pieceId < PIECES_PER_TEAM; pieceId++) {
+        Piece piece = new Piece();
+        piece.setTeamId(String.valueOf(team));
+        piece.setId(String.valueOf(pieceId));
+        piece.setDescription(descriptions[random.nextInt(descriptions.length)]);
+        generator.assign(piece);
+        placeRandomly(board, Board.piece(team, pieceId), random);
+      }
+    }
+
+    MoveBuffer buffer = new MoveBuffer();
+    for (int turn = 0; turn < 60; turn++) {
+      int team = turn % TEAMS + 1;
+      int[] expected = walkedMoves(generator, board, team);
+      buffer.clear();
+      generator.generateAll(board, team, buffer);
+      int[] actual = new int[buffer.size()];
+      for (int i = 0; i < actual.length; i++) {
+        actual[i] = buffer.get(i);
+      }
+      Arrays.sort(actual);
+      assertArrayEquals(expected, actual, "Moves of team " + team + " differ");
+      assertEquals(expected.length > 0, generator.canTeamMove(board, team));
+
+      // apply a random move that does not capture a base
+      if (actual.length > 0) {
+        int move = actual[random.nextInt(actual.length)];
+        if (MoveBuffer.kind(move) != MoveBuffer.BASE) {
+          int pieceId = MoveBuffer.pieceId(move);
+          for (int i = 0; i < rows * cols; i++) {
+            if (board.get(i) == Board.piece(team, pieceId)) {
+              board.set(i / cols, i % cols, Board.EMPTY);
+            }
+          }
+          board.set(MoveBuffer.row(move), MoveBuffer.col(move), Board.piece(team, pieceId));
+        }
+      }
+    }
+  }
+
+  private int[] walkedMoves(MoveGenerator generator, Board board, int team) {
+    MoveBuffer buffer = new MoveBuffer();
+    for (int row = 0; row < board.getRows(); row++) {
+      for (int col = 0; col < board.getCols(); col++) {
+        int cell = board.get(row, col);
+        if (Board.kind(cell) == Board.PIECE && Board.team(cell) == team) {
+          generator.generate(board, team, Board.pieceId(cell), row, col, buffer);
+        }
+      }
+    }
+    int[] moves = new int[buffer.size()];
+    for (int i = 0; i < moves.length; i++) {
+      moves[i] = buffer.get(i);
+    }
+    Arrays.sort(moves);
+    return moves;
+  }
+
+  private void placeRandomly(Board board, int cell, Random random) {
+    while (true) {
+      int row = random.nextInt(board.getRows());
+      int col = random.nextInt(board.getCols());
+      if (board.isEmpty(row, col)) {
+        board.set(row, col, cell);
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package de.unimannheim.swt.pse.server.game.board;
+
+import de.unimannheim.swt.pse.server.game.map.MapGenerator;
+import de.unimannheim.swt.pse.server.game.map.PieceDescription;
+import de.unimannheim.swt.pse.server.game.state.Piece;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveGeneratorTest {
+
+  @Test
+  void testLargestPieceIdIsPacked() {
+    PieceDescription description = new MapGenerator()
+        .getCustomPieceDescription(1, 1, 1, 1, 1, 1, 1, 1, null, 1);
+    MoveGenerator generator = new MoveGenerator(new PieceDescription[]{description});
+    generator.assign(piece(1, MoveBuffer.MAX_PIECE_ID, description));
+    Board board = Board.ofSize(3, 3);
+    board.set(1, 1, Board.piece(1, MoveBuffer.MAX_PIECE_ID));
+
+    MoveBuffer moves = new MoveBuffer();
+    generator.generateAll(board, 1, moves);
+    assertEquals(8, moves.size());
+    for (int i = 0; i < moves.size(); i++) {
+      assertEquals(MoveBuffer.MAX_PIECE_ID, MoveBuffer.pieceId(moves.get(i)));
+    }
+  }
+
+  @Test
+  void testPieceIdTooLargeForPackedMoves() {
+    PieceDescription description = new MapGenerator()
+        .getCustomPieceDescription(1, 1, 1, 1, 1, 1, 1, 1, null, 1);
+    MoveGenerator generator = new MoveGenerator(new PieceDescription[]{description});
+
+    assertThrows(IllegalArgumentException.class,
+        () -> generator.assign(piece(1, MoveBuffer.MAX_PIECE_ID + 1, description)));
+    assertThrows(IllegalArgumentException.class,
+        () -> generator.assign(piece(1, -1, description)));
+  }
+
+  private static Piece piece(int team, int id, PieceDescription description) {
+    Piece piece = new Piece();
+    piece.setTeamId(String.valueOf(team));
+    piece.setId(String.valueOf(id));
+    piece.setDescription(description);
+    return piece;
+  }
+}
@@ -0,0 +1,111 @@
+package de.unimannheim.swt.pse.server.game.board;
+
+import de.unimannheim.swt.pse.server.game.state.Piece;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PieceStoreTest {
+
+  @Test
+  void testAddAndGet() {
+    PieceStore store = new PieceStore(2);
+    Piece piece = piece(2, 3);
+    store.add(piece);
+
+    assertSame(piece, store.get(2, 3));
+    assertNull(store.get(1, 3));
+    assertNull(store.get(2, 0));
+    assertNull(store.get(2, 100));
+    assertNull(store.get(3, 3));
+    assertEquals(1, store.size(2));
+    assertEquals(1, store.size());
+    assertThrows(IllegalArgumentException.class, () -> store.add(piece(2, 3)));
+    assertThrows(IllegalArgumentException.class, () -> store.add(piece(3, 0)));
+  }
+
+  @Test
+  void testRemoveMovesLastPieceIntoSlot() {
+    PieceStore store = new PieceStore(1);
+    for (int id = 0; id < 4; id++) {
+      store.add(piece(1, id));
+    }
+
+    Piece removed = store.remove(1, 1);
+    assertEquals("1", removed.getId());
+    assertNull(store.get(1, 1));
+    assertNull(store.remove(1, 1));
+    assertEquals(3, store.size(1));
+    // the last piece took the slot of the removed one
+    assertEquals("3", store.getAt(1, 1).getId());
+    assertEquals("3", store.get(1, 3).getId());
+    assertThrows(IndexOutOfBoundsException.class, () -> store.getAt(1, 3));
+
+    // removing the last piece only shrinks the team
+    store.remove(1, 3);
+    assertEquals(2, store.size(1));
+    assertEquals("0", store.getAt(1, 0).getId());
+    assertEquals("2", store.getAt(1, 1).getId());
+    assertEquals("2", store.get(1, 2).getId());
+  }
+
+  @Test
+  void testIndexStaysConsistentWithRandomRemovals() {
+    Random random = new Random(7);
+    PieceStore store = new PieceStore(4);
+    List<List<Piece>> alive = new ArrayList<>();
+    for (int team = 1; team <= 4; team++) {
+      List<Piece> pieces = new ArrayList<>();
+      for (int id = 0; id < 20; id++) {
+        Piece piece = piece(team, id);
+        store.add(piece);
+        pieces.add(piece);
+      }
+      alive.add(pieces);
+    }
+
+    for (int i = 0; i < 60; i++) {
+      int team = random.nextInt(4) + 1;
+      List<Piece> pieces = alive.get(team - 1);
+      if (pieces.isEmpty()) {
+        continue;
+      }
+      Piece piece = pieces.remove(random.nextInt(pieces.size()));
+      assertSame(piece, store.remove(team, Integer.parseInt(piece.getId())));
+
+      for (int t = 1; t <= 4; t++) {
+        List<Piece> expected = alive.get(t - 1);
+        assertEquals(expected.size(), store.size(t));
+        for (Piece alivePiece : expected) {
+          assertSame(alivePiece, store.get(t, Integer.parseInt(alivePiece.getId())));
+        }
+        Piece[] teamPieces = store.getTeamPieces(t);
+        assertEquals(expected.size(), teamPieces.length);
+        for (int index = 0; index < teamPieces.length; index++) {
+          assertSame(teamPieces[index], store.getAt(t, index));
+          assertTrue(expected.contains(teamPieces[index]));
+        }
+      }
+    }
+  }
+
+  @Test
+  void testBases() {
+    PieceStore store = new PieceStore(2);
+    assertNull(store.getBase(1));
+    store.setBase(1, new int[]{4, 5});
+    assertArrayEquals(new int[]{4, 5}, store.getBase(1));
+    assertNull(store.getBase(2));
+    assertThrows(IllegalArgumentException.class, () -> store.getBase(0));
+  }
+
+  private static Piece piece(int team, int id) {
+    Piece piece = new Piece();
+    piece.setTeamId(String.valueOf(team));
+    piece.setId(String.valueOf(id));
+    return piece;
+  }
+}